@@ -0,0 +1,759 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Non-interactive mode of the lottery simulator, driven by command-line
+ * arguments instead of the menu. Every command loads only the save files it
+ * needs and ends with a report of the wall-clock time and throughput, written
+ * to the error stream so the regular output can be piped. Commands:
+ * generate <count> [--limit <3-5>] [--out <file> | --save] [--cover] [--seed <n> [--rng <name>]]
+ * [--weighted <hot|cold>] [--shards <n> [--replace]]
+ * With "--shards", the tickets are generated by that many processes and
+ * merged into the saved tickets; "--replace" discards the tickets already
+ * saved instead of adding to them.
+ * simulate <draws> [--jackpot <dollars>] [--seed <n> [--rng <name>]]
+ * A seed makes the run repeat exactly on any amount of threads.
+ * odds [--jackpot <dollars>]
+ * check [<white> <white> <white> <white> <white> <red>]
+ * export [--out <file>] [--format <text|csv|jsonl>] [--filter "<terms>"]
+ * import <csv file>
+ * stats
+ * serve [--port <n>] [--max-requests <n>]
+ * shard <count> --shard <n> --seed <n> [--rng <name>] [--limit <3-5>] --out <file>
+ * merge <ticket file>... [--count <n>] [--limit <3-5>] [--out <file>]
+ * audit [--limit <3-5>] [--pairs <n>] [--repair]
+ * compare <ticket file>... [--out <file>]
+ * Comparing counts the tickets the files share with the saved tickets;
+ * "--out" writes the tickets of the files that are not saved.
+ * Auditing lists the pairs of saved tickets breaking the limit, all of them
+ * unless "--pairs" caps the amount; "--repair" evicts tickets until none do.
+ * A shard can be generated on any machine sharing the seed; merging without
+ * "--out" replaces the saved tickets.
+ * Serving saves the tickets it hands out in the background and once more
+ * when the process is stopped.
+ * Every command takes "--game <name>" to run another lottery game than
+ * Powerball; each game keeps its own save files.
+*/
+package com.crucerne.www.lottery;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import com.crucerne.www.lottery.generator.CoverageGenerator;
+import com.crucerne.www.lottery.generator.DrawHistory;
+import com.crucerne.www.lottery.generator.DrawSimulator;
+import com.crucerne.www.lottery.generator.ExactOdds;
+import com.crucerne.www.lottery.generator.LotteryGame;
+import com.crucerne.www.lottery.generator.Powerball;
+import com.crucerne.www.lottery.generator.RecurrenceAudit;
+import com.crucerne.www.lottery.generator.TicketExporter;
+import com.crucerne.www.lottery.generator.TicketFilter;
+import com.crucerne.www.lottery.generator.TicketGenerator;
+import com.crucerne.www.lottery.generator.TicketRandom;
+import com.crucerne.www.lottery.generator.TicketShards;
+import com.crucerne.www.lottery.generator.TicketUniverse;
+import com.crucerne.www.lottery.generator.TicketWeights;
+
+public final class BatchMode {
+
+	// Exit status of a successful run, a failed run and a run with invalid
+	// arguments.
+	public static final int EXIT_OK = 0;
+	public static final int EXIT_FAILED = 1;
+	public static final int EXIT_USAGE = 2;
+
+	private BatchMode() {
+	}
+
+	/*
+	 * DESCRIPTION: Static method that runs the command given on the command
+	 * line and returns the exit status. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: 1) String[] args - the command followed by its arguments.
+	 */
+	public static int run(String[] args) {
+		long start = System.nanoTime();
+		int status;
+		try {
+			String game = BatchMode.option(args, "--game");
+			if (game != null) {
+				Powerball.setGame(LotteryGame.forName(game));
+			}
+			switch (args[0]) {
+			case "generate":
+				status = BatchMode.generate(args, start);
+				break;
+			case "simulate":
+				status = BatchMode.simulate(args, start);
+				break;
+			case "odds":
+				status = BatchMode.odds(args, start);
+				break;
+			case "check":
+				status = BatchMode.check(args, start);
+				break;
+			case "export":
+				status = BatchMode.export(args, start);
+				break;
+			case "import":
+				status = BatchMode.importDraws(args, start);
+				break;
+			case "stats":
+				Powerball.showDrawStatisticsOption();
+				status = EXIT_OK;
+				break;
+			case "serve":
+				status = BatchMode.serve(args);
+				break;
+			case "shard":
+				status = BatchMode.shard(args, start);
+				break;
+			case "merge":
+				status = BatchMode.merge(args, start);
+				break;
+			case "audit":
+				status = BatchMode.audit(args, start);
+				break;
+			case "compare":
+				status = BatchMode.compare(args, start);
+				break;
+			default:
+				System.err.println("ERROR: Unknown command \"" + args[0] + "\".");
+				status = EXIT_USAGE;
+			}
+			// Saves run in the background; the run only succeeds once they
+			// are on disk.
+			if (!Powerball.flushSaves() && status == EXIT_OK) {
+				status = EXIT_FAILED;
+			}
+		} catch (IllegalArgumentException e) {
+			System.err.println("ERROR: " + e.getMessage());
+			status = EXIT_USAGE;
+		} catch (IOException e) {
+			System.err.println("ERROR: Unexpected IO issue occurred! " + e.getMessage());
+			status = EXIT_FAILED;
+		}
+		if (status == EXIT_USAGE) {
+			BatchMode.usage();
+		}
+		return status;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that generates tickets under the recurrence
+	 * limit. Tickets are streamed to a file or the console without loading
+	 * any saved tickets, or added to the saved tickets when "--save" is given.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) String[] args - the
+	 * command arguments. 2) long start - the time the run started at.
+	 */
+	private static int generate(String[] args, long start) throws IOException {
+		int count = BatchMode.parseInt(BatchMode.positional(args, 1, "ticket count"), "ticket count");
+		String out = BatchMode.option(args, "--out");
+		boolean save = BatchMode.flag(args, "--save");
+		boolean cover = BatchMode.flag(args, "--cover");
+		String weighted = BatchMode.option(args, "--weighted");
+		String shards = BatchMode.option(args, "--shards");
+		boolean replace = BatchMode.flag(args, "--replace");
+		BatchMode.seed(args);
+		if (count < 1) {
+			throw new IllegalArgumentException("The ticket count must be greater than 0.");
+		}
+		if (shards != null) {
+			if (out != null || save || cover || weighted != null) {
+				throw new IllegalArgumentException(
+						"\"--shards\" cannot be combined with \"--out\", \"--save\", \"--cover\" or \"--weighted\".");
+			}
+			return BatchMode.generateSharded(args, count, BatchMode.parseInt(shards, "shard count"), replace,
+					start);
+		}
+		if (replace) {
+			throw new IllegalArgumentException("\"--replace\" only applies to \"--shards\".");
+		}
+		if (save && out != null) {
+			throw new IllegalArgumentException("Choose either \"--out\" or \"--save\".");
+		}
+		if (weighted != null) {
+			if (cover) {
+				throw new IllegalArgumentException("Choose either \"--cover\" or \"--weighted\".");
+			}
+			Powerball.setWeighting(TicketWeights.Mode.forName(weighted));
+		}
+		BatchMode.limit(args);
+		TicketGenerator.Result result;
+		if (save) {
+			Powerball.readRandomGeneratedTickets();
+			int held = Powerball.getTicketCount();
+			result = cover ? Powerball.coverageTicketGeneratorOption(count)
+					: Powerball.parallelRandomTicketGeneratorOption(held + count, count);
+			Powerball.writeRandomGeneratedTickets();
+		} else {
+			result = cover ? Powerball.streamCoverageTicketsOption(count, out)
+					: Powerball.streamRandomTicketsOption(count, out);
+		}
+		if (result.isSaturated()) {
+			System.err.println("The recurrence limit of " + Powerball.getRecurLimit()
+					+ " leaves no room for more tickets; stopped at " + result.getGenerated() + " tickets (at most "
+					+ String.format("%,d", CoverageGenerator.maxTickets(Powerball.getCurrentGame(), Powerball.getRecurLimit()))
+					+ " possible).");
+		}
+		BatchMode.report(start, "Generated", result.getGenerated(), "tickets", result.getElapsedNanos());
+		return EXIT_OK;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that simulates random draws against the saved
+	 * tickets. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) String[] args -
+	 * the command arguments. 2) long start - the time the run started at.
+	 */
+	private static int simulate(String[] args, long start) {
+		long draws = BatchMode.parseLong(BatchMode.positional(args, 1, "draw count"), "draw count");
+		String jackpot = BatchMode.option(args, "--jackpot");
+		BatchMode.seed(args);
+		if (draws < 1) {
+			throw new IllegalArgumentException("The draw count must be greater than 0.");
+		}
+		if (jackpot != null) {
+			Powerball.setJackpot(BatchMode.parseLong(jackpot, "jackpot"));
+		}
+		Powerball.readRandomGeneratedTickets();
+		if (Powerball.getTicketCount() == 0) {
+			System.err.println("No tickets generated yet!");
+			return EXIT_FAILED;
+		}
+		DrawSimulator.Result result = Powerball.simulateDrawsOption(draws);
+		System.out.println(result);
+		BatchMode.report(start, "Simulated", result.getDraws(), "draws", result.getElapsedNanos());
+		return EXIT_OK;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that computes the exact odds of the saved
+	 * tickets over every possible draw. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: 1) String[] args - the command arguments. 2) long start - the
+	 * time the run started at.
+	 */
+	private static int odds(String[] args, long start) {
+		String jackpot = BatchMode.option(args, "--jackpot");
+		if (jackpot != null) {
+			Powerball.setJackpot(BatchMode.parseLong(jackpot, "jackpot"));
+		}
+		Powerball.readRandomGeneratedTickets();
+		if (Powerball.getTicketCount() == 0) {
+			System.err.println("No tickets generated yet!");
+			return EXIT_FAILED;
+		}
+		ExactOdds.Result result = Powerball.exactOddsOption();
+		System.out.println(result);
+		BatchMode.report(start, "Scored", result.getTotals().getDraws() * result.getTotals().getTickets(),
+				"ticket draws", result.getTotals().getElapsedNanos());
+		return EXIT_OK;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that checks the saved tickets against the
+	 * given draw, or against the saved winning ticket when no numbers are
+	 * given. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) String[] args - the
+	 * command arguments. 2) long start - the time the run started at.
+	 */
+	private static int check(String[] args, long start) {
+		LotteryGame game = Powerball.getCurrentGame();
+		int given = 0;
+		while (given + 1 < args.length && !args[given + 1].startsWith("--")) {
+			given++;
+		}
+		Powerball draw = null;
+		if (given > 0) {
+			if (given != 6) {
+				throw new IllegalArgumentException(
+						"A draw needs 5 white numbers and 1 " + game.getBonusName() + " number.");
+			}
+			int[] numbers = new int[6];
+			for (int i = 0; i < numbers.length; i++) {
+				numbers[i] = BatchMode.parseInt(args[i + 1], "draw number");
+			}
+			draw = new Powerball(game, numbers[0], numbers[1], numbers[2], numbers[3], numbers[4], numbers[5]);
+		}
+		Powerball.readRandomGeneratedTickets();
+		if (draw == null && !Powerball.readWinningPowerball()) {
+			System.err.println("A winning " + game + " ticket has not been retrieved/generated yet!");
+			return EXIT_FAILED;
+		}
+		DrawSimulator.Result result = draw == null ? Powerball.checkWinningNumberOption()
+				: Powerball.checkDrawOption(draw);
+		BatchMode.report(start, "Checked", result.getTickets(), "tickets", result.getElapsedNanos());
+		return EXIT_OK;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that writes the saved tickets kept by the
+	 * "--filter" terms to a file or the standard output as text, CSV or JSON
+	 * Lines. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) String[] args - the
+	 * command arguments. 2) long start - the time the run started at.
+	 */
+	private static int export(String[] args, long start) throws IOException {
+		String out = BatchMode.option(args, "--out");
+		String format = BatchMode.option(args, "--format");
+		TicketFilter filter = TicketFilter.parse(Powerball.getCurrentGame(), BatchMode.option(args, "--filter"));
+		TicketExporter.Format export_format = format == null ? TicketExporter.Format.TEXT
+				: TicketExporter.Format.forName(format);
+		Powerball.readRandomGeneratedTickets();
+		if (Powerball.getTicketCount() == 0) {
+			System.err.println("No tickets generated yet!");
+			return EXIT_FAILED;
+		}
+		long export_start = System.nanoTime();
+		long exported = Powerball.exportTicketsOption(out, export_format, filter);
+		BatchMode.report(start, "Exported", exported, "tickets", System.nanoTime() - export_start);
+		return EXIT_OK;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that imports the draws of a CSV file into the
+	 * draw history and shows the updated statistics. AFFECTED FIELDS: None.
+	 * REQUIRED ARGUMENTS: 1) String[] args - the command arguments. 2) long
+	 * start - the time the run started at.
+	 */
+	private static int importDraws(String[] args, long start) throws IOException {
+		String csv_file = BatchMode.positional(args, 1, "CSV file");
+		DrawHistory.ImportResult result = Powerball.importDrawsOption(csv_file);
+		System.out.println(result);
+		Powerball.showDrawStatisticsOption();
+		BatchMode.report(start, "Imported", result.getImported(), "draws", result.getElapsedNanos());
+		return EXIT_OK;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that serves tickets over HTTP on the loopback
+	 * address until the process is stopped, then saves the tickets handed
+	 * out. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) String[] args - the
+	 * command arguments.
+	 */
+	private static int serve(String[] args) throws IOException {
+		String port = BatchMode.option(args, "--port");
+		String max_requests = BatchMode.option(args, "--max-requests");
+		int port_number = port == null ? TicketServer.DEFAULT_PORT : BatchMode.parseInt(port, "port");
+		int max = max_requests == null ? TicketServer.DEFAULT_MAX_REQUESTS
+				: BatchMode.parseInt(max_requests, "request limit");
+		if (port_number < 0 || port_number > 65535) {
+			throw new IllegalArgumentException("The port must be between 0 and 65535.");
+		}
+		Powerball.readRecurrenceLimit();
+		Powerball.readWinningPowerball();
+		Powerball.readRandomGeneratedTickets();
+		TicketServer server = TicketServer.start(port_number, max);
+		CountDownLatch stopped = new CountDownLatch(1);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			server.stop(1);
+			Powerball.writeRandomGeneratedTickets();
+			Powerball.flushSaves();
+			System.err.println(String.format("Saved %,d tickets.", Powerball.getTicketCount()));
+			stopped.countDown();
+		}));
+		System.err.println("Serving " + Powerball.getCurrentGame() + " tickets at http://localhost:" + server.getPort()
+				+ "/ on " + (server.isVirtual() ? "virtual threads" : "a platform thread pool") + ", at most " + max
+				+ " requests at once.");
+		System.err.println("Endpoints: /tickets?count=<n>&format=<text|csv|jsonl>, /check?draw=<numbers>, /stats, "
+				+ "/metrics. Stop with Ctrl+C.");
+		try {
+			stopped.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return EXIT_OK;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that generates one shard of tickets from the
+	 * numbered stream of the seed and writes it sorted to a ticket file.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) String[] args - the
+	 * command arguments. 2) long start - the time the run started at.
+	 */
+	private static int shard(String[] args, long start) throws IOException {
+		int count = BatchMode.parseInt(BatchMode.positional(args, 1, "ticket count"), "ticket count");
+		String shard = BatchMode.option(args, "--shard");
+		String out = BatchMode.option(args, "--out");
+		if (shard == null || out == null) {
+			throw new IllegalArgumentException("A shard needs \"--shard\" and \"--out\".");
+		}
+		BatchMode.seed(args);
+		BatchMode.limit(args);
+		TicketShards.ShardResult result = Powerball.generateShardOption(count,
+				BatchMode.parseInt(shard, "shard number"), out);
+		System.err.println(result);
+		BatchMode.report(start, "Generated", result.getGenerated(), "tickets", result.getElapsedNanos());
+		return EXIT_OK;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that merges sorted ticket files into a ticket
+	 * file, or into the saved tickets when no "--out" is given. AFFECTED
+	 * FIELDS: None. REQUIRED ARGUMENTS: 1) String[] args - the command
+	 * arguments. 2) long start - the time the run started at.
+	 */
+	private static int merge(String[] args, long start) throws IOException {
+		List<String> files = new ArrayList<String>();
+		for (int i = 1; i < args.length && !args[i].startsWith("--"); i++) {
+			files.add(args[i]);
+		}
+		String count = BatchMode.option(args, "--count");
+		String out = BatchMode.option(args, "--out");
+		if (files.isEmpty()) {
+			throw new IllegalArgumentException("Missing ticket files.");
+		}
+		long max_tickets = count == null ? Long.MAX_VALUE : BatchMode.parseLong(count, "ticket count");
+		BatchMode.limit(args);
+		TicketShards.MergeResult result = Powerball.mergeShardsOption(files, max_tickets, out);
+		System.err.println(result);
+		BatchMode.report(start, "Merged", result.getRead(), "tickets", result.getElapsedNanos());
+		return EXIT_OK;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that compares ticket files, such as shards,
+	 * with the saved tickets as sets: how many tickets they share, and how
+	 * many only the files or only the saved tickets hold. With "--out", the
+	 * tickets only the files hold are written sorted by code, ready to merge.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) String[] args - the
+	 * command arguments. 2) long start - the time the run started at.
+	 */
+	private static int compare(String[] args, long start) throws IOException {
+		List<String> files = new ArrayList<String>();
+		for (int i = 1; i < args.length && !args[i].startsWith("--"); i++) {
+			files.add(args[i]);
+		}
+		String out = BatchMode.option(args, "--out");
+		if (files.isEmpty()) {
+			throw new IllegalArgumentException("Missing ticket files.");
+		}
+		LotteryGame game = Powerball.getCurrentGame();
+		Powerball.readRandomGeneratedTickets();
+		TicketUniverse saved = Powerball.getTicketUniverse();
+		TicketUniverse in_files = new TicketUniverse(game);
+		for (String file : files) {
+			in_files.or(TicketUniverse.read(game, file));
+		}
+		long shared = in_files.intersectionSize(saved);
+		long compared = in_files.size() + saved.size();
+		System.out.println(String.format("Saved tickets:      %,15d", saved.size()));
+		System.out.println(String.format("Tickets in files:   %,15d", in_files.size()));
+		System.out.println(String.format("In both:            %,15d", shared));
+		System.out.println(String.format("Only in the files:  %,15d", in_files.size() - shared));
+		System.out.println(String.format("Only saved:         %,15d", saved.size() - shared));
+		if (out != null) {
+			in_files.andNot(saved);
+			System.err.println(String.format("Wrote %,d new tickets to %s.", in_files.write(out), out));
+		}
+		BatchMode.report(start, "Compared", compared, "tickets", System.nanoTime() - start);
+		return EXIT_OK;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that audits the saved tickets against the
+	 * recurrence limit, printing every pair of tickets that breaks it to the
+	 * standard output and the totals to the error stream. With "--repair",
+	 * the fewest tickets found are evicted so that none break it, and their
+	 * deletion is saved. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1)
+	 * String[] args - the command arguments. 2) long start - the time the run
+	 * started at.
+	 */
+	private static int audit(String[] args, long start) {
+		String pairs = BatchMode.option(args, "--pairs");
+		boolean repair = BatchMode.flag(args, "--repair");
+		long max_pairs = pairs == null ? Long.MAX_VALUE : BatchMode.parseLong(pairs, "pair count");
+		if (max_pairs < 0) {
+			throw new IllegalArgumentException("The pair count must not be negative.");
+		}
+		BatchMode.limit(args);
+		Powerball.readRandomGeneratedTickets();
+		if (Powerball.getTicketCount() == 0) {
+			System.err.println("No tickets generated yet!");
+			return EXIT_FAILED;
+		}
+		RecurrenceAudit audit = Powerball.auditTicketsOption();
+		if (max_pairs > 0) {
+			StringBuilder line = new StringBuilder(64);
+			long[] listed = { 0 };
+			audit.forEachPair((first, second, shared) -> {
+				line.setLength(0);
+				first.appendTo(line).append(" and ");
+				second.appendTo(line).append(" share ").append(shared).append(" white numbers.");
+				System.out.println(line);
+				return ++listed[0] < max_pairs;
+			});
+		}
+		System.err.println(audit);
+		if (repair && audit.getViolatingPairs() > 0) {
+			int evicted = Powerball.evictTicketsOption(audit.repair());
+			Powerball.writeRandomGeneratedTickets();
+			System.err.println(String.format("Evicted %,d tickets; %,d remain.", evicted, Powerball.getTicketCount()));
+		}
+		BatchMode.report(start, "Audited", audit.getTickets(), "tickets", audit.getElapsedNanos());
+		return EXIT_OK;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that generates tickets in several processes,
+	 * each running the "shard" command on its own random stream, and merges
+	 * their shards into the saved tickets. Tickets of different shards that
+	 * break the recurrence limit together are dropped by the merge, so the
+	 * shortfall is generated in further rounds, merged together with the
+	 * tickets kept so far, until the count is reached or a round keeps under
+	 * a tenth of the tickets it generated. Tickets already saved are written
+	 * to a sorted file that joins the first merge and are kept by every merge
+	 * as a ticket universe, so new tickets are added to them and give way to
+	 * them; with "--replace" they are discarded instead. AFFECTED FIELDS:
+	 * None. REQUIRED ARGUMENTS: 1) String[] args - the command arguments. 2)
+	 * int count - the amount of tickets to generate. 3) int shards - the
+	 * amount of processes. 4) boolean replace - whether saved tickets are
+	 * discarded. 5) long start - the time the run started at.
+	 */
+	private static int generateSharded(String[] args, int count, int shards, boolean replace, long start)
+			throws IOException {
+		if (shards < 1) {
+			throw new IllegalArgumentException("The shard count must be greater than 0.");
+		}
+		BatchMode.limit(args);
+		Powerball.readRandomGeneratedTickets();
+		int replaced = replace ? Powerball.getTicketCount() : 0;
+		TicketUniverse saved = replace || Powerball.getTicketCount() == 0 ? null : Powerball.getTicketUniverse();
+		if (Powerball.getRandom() == null) {
+			Powerball.setRandom(TicketRandom.unseeded());
+		}
+		TicketRandom random = Powerball.getRandom();
+		String prefix = Powerball.getCurrentGame().getFilePrefix();
+		String merged = prefix + "Merged.dat";
+		List<String> work_files = new ArrayList<String>();
+		long base = saved == null ? 0 : saved.size();
+		long target = base + count;
+		long kept = base;
+		long merge_nanos = 0;
+		int round = 0;
+		// Sorted file of the tickets kept so far, which joins the next merge.
+		String carried = null;
+		try {
+			if (saved != null) {
+				carried = prefix + "Saved.dat";
+				work_files.add(carried);
+				saved.write(carried);
+			}
+			while (kept < target) {
+				int per_shard = (int) ((target - kept + shards - 1) / shards);
+				List<Process> processes = new ArrayList<Process>();
+				List<String> inputs = new ArrayList<String>();
+				if (carried != null) {
+					inputs.add(carried);
+				}
+				for (int i = 0; i < shards; i++) {
+					int number = round * shards + i;
+					String shard_file = prefix + "Shard" + number + ".dat";
+					work_files.add(shard_file);
+					work_files.add(shard_file + ".log");
+					inputs.add(shard_file);
+					processes.add(BatchMode.startShard(per_shard, number, random, shard_file));
+				}
+				for (int i = 0; i < shards; i++) {
+					if (BatchMode.waitFor(processes.get(i)) != EXIT_OK) {
+						String log = inputs.get(inputs.size() - shards + i) + ".log";
+						System.err.println("ERROR: Shard process " + (round * shards + i) + " failed:");
+						System.err.print(Files.readString(Paths.get(log)));
+						return EXIT_FAILED;
+					}
+				}
+				TicketShards.MergeResult result = Powerball.mergeShardsOption(inputs, target, merged, saved);
+				work_files.add(merged);
+				carried = merged;
+				merge_nanos += result.getElapsedNanos();
+				System.err.println("Round " + (round + 1) + ": " + result);
+				round++;
+				long added = result.getWritten() - kept;
+				kept = result.getWritten();
+				if (added * 10 < per_shard * (long) shards) {
+					// The recurrence limit is close to saturated.
+					break;
+				}
+			}
+			TicketShards.MergeResult result = Powerball.mergeShardsOption(List.of(merged), target, null, saved);
+			if (result.getWritten() < target) {
+				System.err.println("The recurrence limit of " + Powerball.getRecurLimit()
+						+ " leaves little room for more random tickets; stopped at " + result.getWritten()
+						+ " tickets (at most " + String.format("%,d",
+								CoverageGenerator.maxTickets(Powerball.getCurrentGame(), Powerball.getRecurLimit()))
+						+ " possible).");
+			}
+			if (replaced > 0) {
+				System.err.println(String.format("Replaced %,d saved tickets.", replaced));
+			} else if (base > 0) {
+				System.err.println(String.format("Kept %,d saved tickets.", base));
+			}
+			BatchMode.report(start, "Generated", result.getWritten() - base, "tickets", System.nanoTime() - start);
+			System.err.println(String.format("Shard processes: %d per round, %d rounds; merging took %.3f s.",
+					shards, round, merge_nanos / 1e9));
+			return EXIT_OK;
+		} finally {
+			for (String work_file : work_files) {
+				Files.deleteIfExists(Paths.get(work_file));
+			}
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Static method that starts a process running the "shard"
+	 * command with the same game, recurrence limit and random source as this
+	 * one. Its report goes to a log next to the shard file. AFFECTED FIELDS:
+	 * None. REQUIRED ARGUMENTS: 1) int count - the
+	 * amount of tickets in the shard. 2) int shard - the shard number. 3)
+	 * TicketRandom random - the shared random source. 4) String file_name -
+	 * the shard file to write.
+	 */
+	private static Process startShard(int count, int shard, TicketRandom random, String file_name)
+			throws IOException {
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		List<String> command = List.of(java, "-cp", System.getProperty("java.class.path"), Lottery.class.getName(),
+				"shard", String.valueOf(count), "--shard", String.valueOf(shard), "--seed",
+				String.valueOf(random.getSeed()), "--rng", random.getAlgorithm(), "--limit",
+				String.valueOf(Powerball.getRecurLimit()), "--game", Powerball.getCurrentGame().getFilePrefix(),
+				"--out", file_name);
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+		builder.redirectError(new File(file_name + ".log"));
+		return builder.start();
+	}
+
+	private static int waitFor(Process process) {
+		try {
+			return process.waitFor();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			process.destroy();
+			return EXIT_FAILED;
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Static method that sets the recurrence limit given by
+	 * "--limit", or reads the saved one. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: 1) String[] args - the command arguments.
+	 */
+	private static void limit(String[] args) {
+		String limit = BatchMode.option(args, "--limit");
+		if (limit != null) {
+			int new_limit = BatchMode.parseInt(limit, "recurrence limit");
+			if (new_limit < 3 || new_limit > 5) {
+				throw new IllegalArgumentException("The recurrence limit must be 3, 4, or 5.");
+			}
+			Powerball.setRecurLimit(new_limit);
+		} else {
+			Powerball.readRecurrenceLimit();
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Static method that seeds the random runs when "--seed" is
+	 * given, with the generator named by "--rng" or the default one.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) String[] args - the
+	 * command arguments.
+	 */
+	private static void seed(String[] args) {
+		String seed = BatchMode.option(args, "--seed");
+		String algorithm = BatchMode.option(args, "--rng");
+		if (seed == null) {
+			if (algorithm != null) {
+				throw new IllegalArgumentException("\"--rng\" needs a \"--seed\".");
+			}
+			return;
+		}
+		long value = BatchMode.parseLong(seed, "seed");
+		Powerball.setRandom(algorithm == null ? TicketRandom.seeded(value) : TicketRandom.seeded(value, algorithm));
+	}
+
+	/*
+	 * DESCRIPTION: Static method that reports the amount of work done, its
+	 * throughput and the wall-clock time of the whole run, file loading
+	 * included. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) long start - the
+	 * time the run started at. 2) String verb - what was done. 3) long amount
+	 * - the amount of work done. 4) String unit - the unit of work. 5) long
+	 * work_nanos - the time the work itself took.
+	 */
+	private static void report(long start, String verb, long amount, String unit, long work_nanos) {
+		double work_seconds = work_nanos / 1e9;
+		System.err.println(String.format("%s %,d %s in %.3f s (%,.0f %s/s).", verb, amount, unit, work_seconds,
+				work_seconds == 0 ? 0.0 : amount / work_seconds, unit));
+		System.err.println(String.format("Wall clock: %.3f s.", (System.nanoTime() - start) / 1e9));
+		if (Powerball.getRandom() != null) {
+			System.err.println("Random source: " + Powerball.getRandom() + ".");
+		}
+		if (Powerball.getWeights() != null) {
+			System.err.println("Number weights: " + Powerball.getWeights() + ".");
+		}
+	}
+
+	private static void usage() {
+		System.err.println("Usage:");
+		System.err.println(
+				"  generate <count> [--limit <3-5>] [--out <file> | --save] [--cover] [--seed <n> [--rng <name>]]");
+		System.err.println("           [--weighted <hot|cold>] [--shards <n> [--replace]]");
+		System.err.println("  simulate <draws> [--jackpot <dollars>] [--seed <n> [--rng <name>]]");
+		System.err.println("  odds [--jackpot <dollars>]");
+		System.err.println("  check [<white> <white> <white> <white> <white> <red>]");
+		System.err.println("  export [--out <file>] [--format <text|csv|jsonl>] [--filter \"<terms>\"]");
+		System.err.println("  import <csv file>");
+		System.err.println("  stats");
+		System.err.println("  serve [--port <n>] [--max-requests <n>]");
+		System.err.println("  shard <count> --shard <n> --seed <n> [--rng <name>] [--limit <3-5>] --out <file>");
+		System.err.println("  merge <ticket file>... [--count <n>] [--limit <3-5>] [--out <file>]");
+		System.err.println("  audit [--limit <3-5>] [--pairs <n>] [--repair]");
+		System.err.println("  compare <ticket file>... [--out <file>]");
+		System.err.println("Every command accepts --game <powerball|megamillions>.");
+		System.err.println("Run without arguments for the interactive menu.");
+	}
+
+	private static String positional(String[] args, int index, String name) {
+		if (index >= args.length || args[index].startsWith("--")) {
+			throw new IllegalArgumentException("Missing " + name + ".");
+		}
+		return args[index];
+	}
+
+	private static String option(String[] args, String name) {
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals(name)) {
+				if (i + 1 >= args.length) {
+					throw new IllegalArgumentException("Missing value for \"" + name + "\".");
+				}
+				return args[i + 1];
+			}
+		}
+		return null;
+	}
+
+	private static boolean flag(String[] args, String name) {
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int parseInt(String value, String name) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + name + " \"" + value + "\"; value must be a whole number.");
+		}
+	}
+
+	private static long parseLong(String value, String name) {
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + name + " \"" + value + "\"; value must be a whole number.");
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Constructive ticket generator. Instead of drawing random tickets and
+ * retrying until one fits the recurrence limit, it walks the white number
+ * sets in a fixed order and keeps every one that fits, so each of the
+ * C(69, 5) Powerball sets is checked at most once per pass and the run time
+ * does not depend on how full the ticket set already is. A finished pass
+ * leaves a set no ticket can be added to.
+ * For a recurrence limit of 4, tickets only need to differ in two numbers,
+ * which every set with the same number sum modulo the amount of white
+ * numbers does; that class alone is a near-optimal design and is placed
+ * first. Every limit is then completed greedily in reverse colexicographic
+ * order, which packs noticeably more tickets under a limit of 3 than random
+ * order. Red numbers are dealt round robin so every red number is covered
+ * evenly.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+public final class CoverageGenerator {
+
+	// Recurrence index every ticket is checked against, and its game.
+	private final RecurrenceIndex p_index;
+	private final LotteryGame p_game;
+	// Amount of white number sets and of red and white numbers in the game.
+	private final int p_white_sets;
+	private final int p_reds;
+	private final int p_whites;
+	// Receives every batch of accepted tickets, on the calling thread.
+	private final Consumer<List<Powerball>> p_sink;
+	// Amount of accepted tickets handed to the sink at once.
+	private final int p_batch_size;
+
+	/*
+	 * DESCRIPTION: Constructor for a generator with the default batch size.
+	 * REQUIRED ARGUMENTS: 1) RecurrenceIndex index - the index tickets are
+	 * checked against. 2) Consumer<List<Powerball>> sink - receives accepted
+	 * tickets in batches.
+	 */
+	public CoverageGenerator(RecurrenceIndex index, Consumer<List<Powerball>> sink) {
+		this.p_index = index;
+		this.p_game = index.getGame();
+		this.p_white_sets = this.p_game.getWhiteSetCount();
+		this.p_reds = this.p_game.getRedMax();
+		this.p_whites = this.p_game.getWhiteMax();
+		this.p_sink = sink;
+		this.p_batch_size = TicketGenerator.DEFAULT_BATCH_SIZE;
+	}
+
+	/*
+	 * DESCRIPTION: Method that adds up to the given amount of tickets fitting
+	 * the recurrence index and publishes them to the sink. The result is
+	 * saturated when fewer tickets fit; the index then holds a set no ticket
+	 * can be added to. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) int
+	 * amount - the amount of new tickets wanted. 2) RandomGenerator random -
+	 * picks the design class and the first red number.
+	 */
+	public TicketGenerator.Result generate(int amount, RandomGenerator random) {
+		long start = System.nanoTime();
+		Sweep sweep = new Sweep(Math.max(amount, 0), random.nextInt(this.p_reds));
+		if (this.p_index.getLimit() == Powerball.WHITE_PICKS - 1) {
+			int sum_class = random.nextInt(this.p_whites);
+			int[] numbers = new int[Powerball.WHITE_PICKS];
+			for (int rank = this.p_white_sets - 1; rank >= 0 && sweep.p_remaining > 0; rank--) {
+				Powerball candidate = Powerball.fromRank(this.p_game, rank * this.p_reds);
+				candidate.getWhiteNumbers(numbers);
+				int sum = 0;
+				for (int number : numbers) {
+					sum += number - Powerball.WHITE_MIN;
+				}
+				if (sum % this.p_whites == sum_class) {
+					sweep.offer(rank);
+				}
+			}
+		}
+		for (int rank = this.p_white_sets - 1; rank >= 0 && sweep.p_remaining > 0; rank--) {
+			sweep.offer(rank);
+		}
+		sweep.flush();
+		int generated = Math.max(amount, 0) - sweep.p_remaining;
+		return new TicketGenerator.Result(amount, generated, sweep.p_attempts, sweep.p_batches, 1,
+				sweep.p_remaining > 0, System.nanoTime() - start);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns the most tickets a recurrence
+	 * limit allows in a game with v white numbers. For a limit of k, every
+	 * ticket uses C(5, k) of the C(v, k) k-sized white subsets and no two
+	 * tickets share one, which gives the Johnson bound floor(v/5
+	 * floor((v-1)/4 ... floor((v+1-k)/(6-k))...)). Under the largest limit
+	 * every white number set is allowed once. REQUIRED ARGUMENTS: 1)
+	 * LotteryGame game - the game. 2) int limit - the recurrence limit.
+	 */
+	public static long maxTickets(LotteryGame game, int limit) {
+		if (limit < 1 || limit > Powerball.WHITE_PICKS) {
+			throw new IllegalArgumentException("Recurrence limit must be between 1 and " + Powerball.WHITE_PICKS
+					+ ": " + limit);
+		}
+		long bound = 1;
+		for (int i = limit - 1; i >= 0; i--) {
+			bound = (game.getWhiteMax() - i) * bound / (Powerball.WHITE_PICKS - i);
+		}
+		return bound;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns how many distinct white subsets
+	 * of the given size the tickets cover, such as pairs for 2 or triples
+	 * for 3. REQUIRED ARGUMENTS: 1) LotteryGame game - the game of the
+	 * tickets. 2) Iterable<Powerball> tickets - the tickets. 3) int size - the
+	 * subset size, from 1 to "WHITE_PICKS".
+	 */
+	public static long coveredSubsets(LotteryGame game, Iterable<Powerball> tickets, int size) {
+		RecurrenceIndex covered = new RecurrenceIndex(game, size);
+		long count = 0;
+		for (Powerball pball : tickets) {
+			count += covered.claimNew(pball);
+		}
+		return count;
+	}
+
+	/*
+	 * DESCRIPTION: State of one generation run: the tickets still wanted, the
+	 * next red number and the batch being filled.
+	 */
+	private final class Sweep {
+
+		int p_remaining;
+		long p_attempts = 0;
+		long p_batches = 0;
+		private int p_next_red;
+		private final List<Powerball> p_batch = new ArrayList<Powerball>(CoverageGenerator.this.p_batch_size);
+
+		Sweep(int remaining, int first_red) {
+			this.p_remaining = remaining;
+			this.p_next_red = first_red;
+		}
+
+		/*
+		 * DESCRIPTION: Method that adds the white number set of the given
+		 * rank with the next red number if it fits the recurrence limit.
+		 */
+		void offer(int rank) {
+			this.p_attempts++;
+			Powerball candidate = Powerball.fromRank(CoverageGenerator.this.p_game,
+					rank * CoverageGenerator.this.p_reds + this.p_next_red);
+			if (CoverageGenerator.this.p_index.tryInsert(candidate)) {
+				this.p_batch.add(candidate);
+				this.p_remaining--;
+				this.p_next_red = (this.p_next_red + 1) % CoverageGenerator.this.p_reds;
+				if (this.p_batch.size() == CoverageGenerator.this.p_batch_size) {
+					this.flush();
+				}
+			}
+		}
+
+		void flush() {
+			if (!this.p_batch.isEmpty()) {
+				CoverageGenerator.this.p_sink.accept(new ArrayList<Powerball>(this.p_batch));
+				this.p_batch.clear();
+				this.p_batches++;
+			}
+		}
+	}
+}
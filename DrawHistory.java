@@ -0,0 +1,331 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Append-only store of the historical draws of one game, kept in date order
+ * along with their running statistics. The file starts with a 16 byte header
+ * followed by one fixed-width record per draw:
+ * bytes 0-3 - magic number "PBDH"
+ * bytes 4-5 - format version
+ * bytes 6-7 - game id
+ * bytes 8-15 - reserved
+ * Each record holds the draw date as a 4 byte epoch day followed by the
+ * packed code of the drawn numbers, big-endian. Imported draws are appended
+ * to the end of the file and counted into the statistics one at a time, so
+ * importing new results costs only the new draws. A record cut short by a
+ * crash is dropped when the file is opened.
+ * Draws are imported from CSV files holding one draw per line: a date
+ * (MM/DD/YYYY or YYYY-MM-DD) followed by the 5 white numbers and the red
+ * number, separated by commas or spaces. Further columns such as a
+ * multiplier are ignored, so the result files published by the lotteries
+ * import as they are. Draws dated before the game's current rules took
+ * effect are skipped, as their numbers and prizes followed other rules.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+public final class DrawHistory {
+
+	// Magic number identifying a draw history file, "PBDH" in ASCII.
+	public static final int MAGIC = 0x50424448;
+	// Current version of the file format.
+	public static final short VERSION = 1;
+	// Size of the file header in bytes.
+	public static final int HEADER_BYTES = 16;
+	// Size of one draw record in bytes.
+	public static final int RECORD_BYTES = 4 + Powerball.CODE_BYTES;
+	// Bits of a sort key below the epoch day, holding the packed code.
+	private static final int KEY_DAY_SHIFT = Powerball.CODE_BYTES * 8;
+	// Date formats accepted in CSV files.
+	private static final DateTimeFormatter S_US_DATE = DateTimeFormatter.ofPattern("M/d/uuuu");
+
+	private final LotteryGame p_game;
+	private final String p_file_name;
+	// Epoch days and packed codes of the stored draws, in date order.
+	private int[] p_days;
+	private long[] p_codes;
+	// Amount of stored draws.
+	private int p_size;
+	private final DrawStatistics p_statistics;
+
+	private DrawHistory(LotteryGame game, String file_name) {
+		this.p_game = game;
+		this.p_file_name = file_name;
+		this.p_days = new int[256];
+		this.p_codes = new long[256];
+		this.p_statistics = new DrawStatistics(game);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that loads the draw history of a game from
+	 * its file, or starts an empty history if the file does not exist yet.
+	 * Throws IllegalArgumentException if the file is not a draw history of the
+	 * game. REQUIRED ARGUMENTS: 1) LotteryGame game - the game of the draws.
+	 * 2) String file_name - the history file.
+	 */
+	public static DrawHistory open(LotteryGame game, String file_name) throws IOException {
+		DrawHistory history = new DrawHistory(game, file_name);
+		Path path = Paths.get(file_name);
+		if (!Files.exists(path)) {
+			return history;
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				// Keep reading until the header is complete or the file ends.
+			}
+			header.flip();
+			if (header.remaining() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+				throw new IllegalArgumentException("Not a draw history file: " + file_name);
+			}
+			if (header.getShort(4) != VERSION) {
+				throw new IllegalArgumentException("Unsupported draw history version " + header.getShort(4));
+			}
+			if (header.getShort(6) != game.getId()) {
+				throw new IllegalArgumentException("Draw history " + file_name + " is not a " + game + " history");
+			}
+			long records = (channel.size() - HEADER_BYTES) / RECORD_BYTES;
+			if (channel.size() != HEADER_BYTES + records * RECORD_BYTES) {
+				channel.truncate(HEADER_BYTES + records * RECORD_BYTES);
+			}
+			ByteBuffer buffer = ByteBuffer.allocate((int) records * RECORD_BYTES);
+			while (buffer.hasRemaining() && channel.read(buffer, HEADER_BYTES + buffer.position()) >= 0) {
+				// Keep reading until every record is in.
+			}
+			buffer.flip();
+			for (long i = 0; i < records; i++) {
+				int day = buffer.getInt();
+				long code = 0;
+				for (int b = 0; b < Powerball.CODE_BYTES; b++) {
+					code = (code << 8) | (buffer.get() & 0xFFL);
+				}
+				history.add(day, code);
+			}
+		}
+		return history;
+	}
+
+	public LotteryGame getGame() {
+		return this.p_game;
+	}
+
+	public int size() {
+		return this.p_size;
+	}
+
+	public DrawStatistics getStatistics() {
+		return this.p_statistics;
+	}
+
+	public LocalDate getDate(int index) {
+		return LocalDate.ofEpochDay(this.p_days[index]);
+	}
+
+	public Powerball getDraw(int index) {
+		return Powerball.fromCode(this.p_game, this.p_codes[index]);
+	}
+
+	/*
+	 * DESCRIPTION: Method that imports the draws of a CSV file dated after the
+	 * last stored draw. Rows are sorted by date first, so files listing the
+	 * newest draws first import the same way, and a date given twice is
+	 * imported once. Rows dated before the game's current rules took effect
+	 * and rows whose numbers are outside its ranges are skipped. AFFECTED
+	 * FIELDS: 1) p_days 2) p_codes 3) p_size 4) p_statistics REQUIRED
+	 * ARGUMENTS: 1) String csv_file - the CSV file to import.
+	 */
+	public ImportResult importCsv(String csv_file) throws IOException {
+		long start = System.nanoTime();
+		long[] keys = new long[256];
+		int rows = 0;
+		int skipped = 0;
+		int line_number = 0;
+		try (BufferedReader reader = Files.newBufferedReader(Paths.get(csv_file))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line_number++;
+				if (line.isBlank()) {
+					continue;
+				}
+				long key = this.parseRow(line);
+				if (key < 0) {
+					// The first line may be a header, which does not start with
+					// a date.
+					skipped += line_number == 1 && !Character.isDigit(line.strip().charAt(0)) ? 0 : 1;
+					continue;
+				}
+				if (rows == keys.length) {
+					keys = Arrays.copyOf(keys, rows * 2);
+				}
+				keys[rows++] = key;
+			}
+		}
+		Arrays.sort(keys, 0, rows);
+		int last_day = this.p_size == 0 ? Integer.MIN_VALUE : this.p_days[this.p_size - 1];
+		ByteBuffer records = ByteBuffer.allocate(rows * RECORD_BYTES);
+		int imported = 0;
+		int known = 0;
+		for (int i = 0; i < rows; i++) {
+			int day = (int) (keys[i] >>> KEY_DAY_SHIFT);
+			if (day <= last_day) {
+				known++;
+				continue;
+			}
+			long code = keys[i] & ((1L << KEY_DAY_SHIFT) - 1);
+			records.putInt(day);
+			for (int b = Powerball.CODE_BYTES - 1; b >= 0; b--) {
+				records.put((byte) (code >>> (b * 8)));
+			}
+			this.add(day, code);
+			last_day = day;
+			imported++;
+		}
+		records.flip();
+		this.append(records);
+		return new ImportResult(imported, known, skipped, this.p_size, System.nanoTime() - start);
+	}
+
+	/*
+	 * DESCRIPTION: Method that reads one CSV row into a sort key holding the
+	 * epoch day above the packed code, or returns -1 if the row is not a
+	 * draw of the game under its current rules. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) String
+	 * line - the row.
+	 */
+	private long parseRow(String line) {
+		String[] fields = line.trim().split("[\\s,;\"]+");
+		if (fields.length < 7) {
+			return -1;
+		}
+		LocalDate date;
+		try {
+			date = fields[0].indexOf('/') >= 0 ? LocalDate.parse(fields[0], S_US_DATE) : LocalDate.parse(fields[0]);
+		} catch (DateTimeParseException e) {
+			return -1;
+		}
+		if (date.isBefore(this.p_game.getRulesStart())) {
+			return -1;
+		}
+		int[] numbers = new int[6];
+		try {
+			for (int i = 0; i < numbers.length; i++) {
+				numbers[i] = Integer.parseInt(fields[i + 1]);
+			}
+			Powerball draw = new Powerball(this.p_game, numbers[0], numbers[1], numbers[2], numbers[3], numbers[4],
+					numbers[5]);
+			if (draw.getWhiteCount() != Powerball.WHITE_PICKS || date.toEpochDay() < 0) {
+				return -1;
+			}
+			return (date.toEpochDay() << KEY_DAY_SHIFT) | draw.toCode();
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that adds a draw after the stored draws and counts
+	 * it into the statistics. AFFECTED FIELDS: 1) p_days 2) p_codes 3) p_size
+	 * 4) p_statistics REQUIRED ARGUMENTS: 1) int day - the epoch day of the
+	 * draw. 2) long code - the packed code of the drawn numbers.
+	 */
+	private void add(int day, long code) {
+		if (this.p_size == this.p_days.length) {
+			this.p_days = Arrays.copyOf(this.p_days, this.p_size * 2);
+			this.p_codes = Arrays.copyOf(this.p_codes, this.p_size * 2);
+		}
+		this.p_days[this.p_size] = day;
+		this.p_codes[this.p_size] = code;
+		this.p_size++;
+		this.p_statistics.add(Powerball.fromCode(this.p_game, code));
+	}
+
+	/*
+	 * DESCRIPTION: Method that appends encoded records to the end of the file,
+	 * writing the header first when the file is new, and forces them to disk.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) ByteBuffer records - the
+	 * records to append.
+	 */
+	private void append(ByteBuffer records) throws IOException {
+		if (!records.hasRemaining()) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(Paths.get(this.p_file_name), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE)) {
+			if (channel.size() < HEADER_BYTES) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+				header.putInt(MAGIC).putShort(VERSION).putShort((short) this.p_game.getId()).putLong(0L).flip();
+				channel.truncate(0);
+				while (header.hasRemaining()) {
+					channel.write(header);
+				}
+			}
+			channel.position(channel.size());
+			while (records.hasRemaining()) {
+				channel.write(records);
+			}
+			channel.force(false);
+		}
+	}
+
+	/*
+	 * Outcome of importing a CSV file.
+	 */
+	public static final class ImportResult {
+
+		private final int p_imported;
+		private final int p_known;
+		private final int p_skipped;
+		private final int p_stored;
+		private final long p_elapsed_nanos;
+
+		ImportResult(int imported, int known, int skipped, int stored, long elapsed_nanos) {
+			this.p_imported = imported;
+			this.p_known = known;
+			this.p_skipped = skipped;
+			this.p_stored = stored;
+			this.p_elapsed_nanos = elapsed_nanos;
+		}
+
+		public int getImported() {
+			return this.p_imported;
+		}
+
+		// Rows dated on or before the last stored draw.
+		public int getKnown() {
+			return this.p_known;
+		}
+
+		// Rows that could not be read as a draw of the game.
+		public int getSkipped() {
+			return this.p_skipped;
+		}
+
+		public int getStored() {
+			return this.p_stored;
+		}
+
+		public long getElapsedNanos() {
+			return this.p_elapsed_nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Imported %,d new draws (%,d already stored, %,d rows skipped); %,d draws stored.",
+					this.p_imported, this.p_known, this.p_skipped, this.p_stored);
+		}
+	}
+}
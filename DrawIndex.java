@@ -0,0 +1,472 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Inverted index from every white and red number to the tickets holding it.
+ * Every ticket gets a small integer id and every number keeps a compressed
+ * bitmap of the ids of its tickets. To score a draw, the bitmaps of its five
+ * white numbers are added together one chunk of 65,536 tickets at a time with
+ * a bit-sliced adder, giving the white match count of 64 tickets per word
+ * operation; the red bitmap then splits each count by red match and a
+ * popcount gives the hits of every tier. Ids of removed tickets are reused so
+ * the id range stays dense. An index holds the tickets of one game and has a
+ * bitmap for each of that game's numbers.
+ * Changes are made one at a time under a write lock and only mark the index
+ * as changed. The first draw check after a change publishes a snapshot of
+ * the bitmaps and ticket codes, so a run of single adds or removes costs one
+ * snapshot rather than one each. Draw checks read the latest snapshot and
+ * take no lock unless they publish, so they run in parallel with each other
+ * and with the next change. A snapshot shares every bitmap container and
+ * code segment with the index until a change touches it; only touched
+ * chunks are copied, once per snapshot.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class DrawIndex {
+
+	// Amount of ids in a code segment, the same as in a bitmap chunk.
+	private static final int SEGMENT_SIZE = 1 << TicketBitmap.CHUNK_BITS;
+
+	// Held by every change to the index.
+	private final ReentrantLock p_write_lock = new ReentrantLock();
+	// Ids of every ticket in the index.
+	private final TicketBitmap p_live = new TicketBitmap();
+	// Game of the indexed tickets.
+	private final LotteryGame p_game;
+	// Ids of the tickets holding every white and red number.
+	private final TicketBitmap[] p_white;
+	private final TicketBitmap[] p_red;
+	// Packed code of the ticket with every id, one segment per chunk.
+	private long[][] p_codes = new long[0][];
+	// Whether every code segment was copied since the last snapshot.
+	private boolean[] p_codes_owned = new boolean[0];
+	// Ids below this bound may be read through a published snapshot.
+	private int p_published_ids = 0;
+	// Ids below this bound have been handed out.
+	private int p_next_id = 0;
+	// Ids freed by removed tickets, waiting to be reused.
+	private int[] p_free_ids = new int[16];
+	private int p_free_count = 0;
+	// Amount of tickets in the index.
+	private int p_size = 0;
+	// State draw checks read, replaced by the first check after a change.
+	private volatile Snapshot p_snapshot;
+	// Whether a change was made since the snapshot was published; set after
+	// the change, so a reader seeing it clear sees the change published.
+	private volatile boolean p_dirty = false;
+
+	public DrawIndex(LotteryGame game) {
+		this.p_game = game;
+		this.p_white = new TicketBitmap[game.getWhiteMax() + 1];
+		this.p_red = new TicketBitmap[game.getRedMax() + 1];
+		for (int number = Powerball.WHITE_MIN; number <= game.getWhiteMax(); number++) {
+			this.p_white[number] = new TicketBitmap();
+		}
+		for (int number = Powerball.RED_MIN; number <= game.getRedMax(); number++) {
+			this.p_red[number] = new TicketBitmap();
+		}
+		this.publish();
+	}
+
+	/*
+	 * DESCRIPTION: Static method that builds an index of the given tickets.
+	 * REQUIRED ARGUMENTS: 1) LotteryGame game - the game of the tickets. 2)
+	 * Iterable<Powerball> tickets - the tickets.
+	 */
+	public static DrawIndex of(LotteryGame game, Iterable<Powerball> tickets) {
+		DrawIndex index = new DrawIndex(game);
+		index.addAll(tickets);
+		return index;
+	}
+
+	public int size() {
+		return this.snapshot().p_size;
+	}
+
+	/*
+	 * DESCRIPTION: Method that adds every ticket of a batch to the index.
+	 * AFFECTED FIELDS: Every field. REQUIRED ARGUMENTS: 1) Iterable<Powerball>
+	 * tickets - the tickets to add.
+	 */
+	public void addAll(Iterable<Powerball> tickets) {
+		this.p_write_lock.lock();
+		try {
+			for (Powerball pball : tickets) {
+				this.insert(pball);
+			}
+			this.p_dirty = true;
+		} finally {
+			this.p_write_lock.unlock();
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that adds a ticket to the index. The caller makes
+	 * sure the ticket is not already present. AFFECTED FIELDS: Every field.
+	 * REQUIRED ARGUMENTS: 1) Powerball pball - the ticket to add.
+	 */
+	public void add(Powerball pball) {
+		this.p_write_lock.lock();
+		try {
+			this.insert(pball);
+			this.p_dirty = true;
+		} finally {
+			this.p_write_lock.unlock();
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that removes a ticket from the index, returning false
+	 * if it was not present. The ticket's id is found by walking the ids that
+	 * hold both its red and its smallest white number, which costs a scan of
+	 * two bitmaps rather than a lookup table for every ticket. AFFECTED FIELDS:
+	 * Every field. REQUIRED ARGUMENTS: 1) Powerball pball - the ticket to
+	 * remove.
+	 */
+	public boolean remove(Powerball pball) {
+		this.p_write_lock.lock();
+		try {
+			int id = this.find(pball);
+			if (id < 0) {
+				return false;
+			}
+			this.p_live.remove(id);
+			int[] numbers = new int[Powerball.WHITE_PICKS];
+			int count = pball.getWhiteNumbers(numbers);
+			for (int i = 0; i < count; i++) {
+				this.p_white[numbers[i]].remove(id);
+			}
+			this.p_red[pball.getRedNumber()].remove(id);
+			if (this.p_free_count == this.p_free_ids.length) {
+				this.p_free_ids = Arrays.copyOf(this.p_free_ids, this.p_free_count * 2);
+			}
+			this.p_free_ids[this.p_free_count++] = id;
+			this.p_size--;
+			this.p_dirty = true;
+			return true;
+		} finally {
+			this.p_write_lock.unlock();
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that removes every ticket. AFFECTED FIELDS: Every
+	 * field. REQUIRED ARGUMENTS: None.
+	 */
+	public void clear() {
+		this.p_write_lock.lock();
+		try {
+			this.p_live.clear();
+			for (TicketBitmap bitmap : this.p_white) {
+				if (bitmap != null) {
+					bitmap.clear();
+				}
+			}
+			for (TicketBitmap bitmap : this.p_red) {
+				if (bitmap != null) {
+					bitmap.clear();
+				}
+			}
+			this.p_codes = new long[0][];
+			this.p_codes_owned = new boolean[0];
+			this.p_published_ids = 0;
+			this.p_next_id = 0;
+			this.p_free_count = 0;
+			this.p_size = 0;
+			this.p_dirty = true;
+		} finally {
+			this.p_write_lock.unlock();
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that gives a ticket an id and adds it to the bitmaps
+	 * without publishing the change. Called with the write lock held. AFFECTED
+	 * FIELDS: Every field but p_snapshot. REQUIRED ARGUMENTS: 1) Powerball
+	 * pball - the ticket to add.
+	 */
+	private void insert(Powerball pball) {
+		int id;
+		if (this.p_free_count > 0) {
+			id = this.p_free_ids[--this.p_free_count];
+		} else {
+			id = this.p_next_id++;
+		}
+		this.setCode(id, pball.toCode());
+		this.p_live.add(id);
+		int[] numbers = new int[Powerball.WHITE_PICKS];
+		int count = pball.getWhiteNumbers(numbers);
+		for (int i = 0; i < count; i++) {
+			this.p_white[numbers[i]].add(id);
+		}
+		this.p_red[pball.getRedNumber()].add(id);
+		this.p_size++;
+	}
+
+	/*
+	 * DESCRIPTION: Method that counts how many tickets hit every prize tier of
+	 * the draw. The returned array has one entry per tier followed by the
+	 * amount of tickets that won nothing, which together add up to the tickets
+	 * of the snapshot read. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: 1) Powerball draw - the drawn numbers. 2) PrizeTable table -
+	 * the prize tiers.
+	 */
+	public long[] countTiers(Powerball draw, PrizeTable table) {
+		Snapshot snapshot = this.snapshot();
+		long[] hits = new long[table.getTierCount() + 1];
+		long[][] words = newChunkWords();
+		int[] numbers = new int[Powerball.WHITE_PICKS];
+		int count = draw.getWhiteNumbers(numbers);
+		for (int chunk = 0; chunk < snapshot.p_live.chunkCount(); chunk++) {
+			if (snapshot.p_live.chunkCardinality(chunk) == 0) {
+				continue;
+			}
+			loadChunk(snapshot, chunk, numbers, count, draw.getRedNumber(), words);
+			long[] live = words[0];
+			long[] red = words[1];
+			long[] sum0 = words[2];
+			long[] sum1 = words[3];
+			long[] sum2 = words[4];
+			for (int word = 0; word < TicketBitmap.CHUNK_WORDS; word++) {
+				long tickets = live[word];
+				if (tickets == 0) {
+					continue;
+				}
+				long with_red = tickets & red[word];
+				long without_red = tickets & ~red[word];
+				for (int matches = 0; matches <= Powerball.WHITE_PICKS; matches++) {
+					long equal = ((matches & 1) != 0 ? sum0[word] : ~sum0[word])
+							& ((matches & 2) != 0 ? sum1[word] : ~sum1[word])
+							& ((matches & 4) != 0 ? sum2[word] : ~sum2[word]);
+					tally(hits, table.tierOf(matches, true), Long.bitCount(equal & with_red));
+					tally(hits, table.tierOf(matches, false), Long.bitCount(equal & without_red));
+				}
+			}
+		}
+		return hits;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns every ticket matching at least the given
+	 * amount of white numbers of the draw, and its red number too if asked.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) Powerball draw - the drawn
+	 * numbers. 2) int min_white_matches - the least white numbers matched. 3)
+	 * boolean red_match - whether the red number must match as well. 4) int
+	 * limit - the most tickets returned.
+	 */
+	public List<Powerball> matching(Powerball draw, int min_white_matches, boolean red_match, int limit) {
+		Snapshot snapshot = this.snapshot();
+		List<Powerball> found = new ArrayList<Powerball>();
+		long[][] words = newChunkWords();
+		int[] numbers = new int[Powerball.WHITE_PICKS];
+		int count = draw.getWhiteNumbers(numbers);
+		for (int chunk = 0; chunk < snapshot.p_live.chunkCount() && found.size() < limit; chunk++) {
+			if (snapshot.p_live.chunkCardinality(chunk) == 0) {
+				continue;
+			}
+			loadChunk(snapshot, chunk, numbers, count, draw.getRedNumber(), words);
+			for (int word = 0; word < TicketBitmap.CHUNK_WORDS && found.size() < limit; word++) {
+				long selected = 0L;
+				for (int matches = min_white_matches; matches <= Powerball.WHITE_PICKS; matches++) {
+					selected |= ((matches & 1) != 0 ? words[2][word] : ~words[2][word])
+							& ((matches & 2) != 0 ? words[3][word] : ~words[3][word])
+							& ((matches & 4) != 0 ? words[4][word] : ~words[4][word]);
+				}
+				selected &= words[0][word] & (red_match ? words[1][word] : -1L);
+				while (selected != 0 && found.size() < limit) {
+					int id = (chunk << TicketBitmap.CHUNK_BITS) + (word << 6) + Long.numberOfTrailingZeros(selected);
+					found.add(Powerball.fromCode(this.p_game, snapshot.p_codes[chunk][id & (SEGMENT_SIZE - 1)]));
+					selected &= selected - 1;
+				}
+			}
+		}
+		return found;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that expands one chunk of the live, red and
+	 * drawn white bitmaps of a snapshot and adds the white ones together. Afterwards words[0]
+	 * holds the live tickets, words[1] the tickets with the drawn red number
+	 * and words[2] to words[4] the bits 0 to 2 of every ticket's white match
+	 * count. REQUIRED ARGUMENTS: 1) Snapshot snapshot - the bitmaps read. 2)
+	 * int chunk - the chunk number. 3) int[] numbers - the drawn white numbers.
+	 * 4) int count - how many drawn white numbers there are. 5) int red_number
+	 * - the drawn red number. 6) long[][] words - scratch arrays from
+	 * "newChunkWords".
+	 */
+	private static void loadChunk(Snapshot snapshot, int chunk, int[] numbers, int count, int red_number,
+			long[][] words) {
+		snapshot.p_live.expand(chunk, words[0]);
+		snapshot.p_red[red_number].expand(chunk, words[1]);
+		long[] sum0 = words[2];
+		long[] sum1 = words[3];
+		long[] sum2 = words[4];
+		long[] white = words[5];
+		Arrays.fill(sum0, 0L);
+		Arrays.fill(sum1, 0L);
+		Arrays.fill(sum2, 0L);
+		for (int i = 0; i < count; i++) {
+			snapshot.p_white[numbers[i]].expand(chunk, white);
+			for (int word = 0; word < TicketBitmap.CHUNK_WORDS; word++) {
+				// Ripple-carry add of one bit into the three bit counters.
+				long carry0 = sum0[word] & white[word];
+				sum0[word] ^= white[word];
+				long carry1 = sum1[word] & carry0;
+				sum1[word] ^= carry0;
+				sum2[word] |= carry1;
+			}
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the id of a ticket, or -1 if it is not
+	 * in the index. Called with the write lock held. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) Powerball
+	 * pball - the ticket to find.
+	 */
+	private int find(Powerball pball) {
+		long code = pball.toCode();
+		int[] numbers = new int[Powerball.WHITE_PICKS];
+		if (pball.getWhiteNumbers(numbers) == 0) {
+			return -1;
+		}
+		TicketBitmap white = this.p_white[numbers[0]];
+		TicketBitmap red = this.p_red[pball.getRedNumber()];
+		long[] white_words = new long[TicketBitmap.CHUNK_WORDS];
+		long[] red_words = new long[TicketBitmap.CHUNK_WORDS];
+		for (int chunk = 0; chunk < white.chunkCount(); chunk++) {
+			if (white.chunkCardinality(chunk) == 0 || red.chunkCardinality(chunk) == 0) {
+				continue;
+			}
+			white.expand(chunk, white_words);
+			red.expand(chunk, red_words);
+			for (int word = 0; word < TicketBitmap.CHUNK_WORDS; word++) {
+				long candidates = white_words[word] & red_words[word];
+				while (candidates != 0) {
+					int id = (chunk << TicketBitmap.CHUNK_BITS) + (word << 6) + Long.numberOfTrailingZeros(candidates);
+					if (this.p_codes[chunk][id & (SEGMENT_SIZE - 1)] == code) {
+						return id;
+					}
+					candidates &= candidates - 1;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * DESCRIPTION: Method that records the code of the ticket with an id. A
+	 * segment shared with a snapshot is copied first when the id may be read
+	 * through it; ids handed out since the last snapshot are beyond every
+	 * snapshot's live tickets and are written in place. AFFECTED FIELDS: 1)
+	 * p_codes 2) p_codes_owned REQUIRED ARGUMENTS: 1) int id - the ticket id.
+	 * 2) long code - the packed ticket.
+	 */
+	private void setCode(int id, long code) {
+		int chunk = id >>> TicketBitmap.CHUNK_BITS;
+		int offset = id & (SEGMENT_SIZE - 1);
+		if (chunk >= this.p_codes.length) {
+			int length = Math.max(chunk + 1, this.p_codes.length * 2);
+			this.p_codes = Arrays.copyOf(this.p_codes, length);
+			this.p_codes_owned = Arrays.copyOf(this.p_codes_owned, length);
+		}
+		long[] segment = this.p_codes[chunk];
+		if (segment == null) {
+			segment = new long[Math.max(1024, offset + 1)];
+		} else if (offset >= segment.length) {
+			segment = Arrays.copyOf(segment, Math.min(SEGMENT_SIZE, Math.max(offset + 1, segment.length * 2)));
+		} else if (!this.p_codes_owned[chunk] && id < this.p_published_ids) {
+			segment = segment.clone();
+		}
+		if (segment != this.p_codes[chunk]) {
+			this.p_codes[chunk] = segment;
+			this.p_codes_owned[chunk] = true;
+		}
+		segment[offset] = code;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the snapshot holding every change made
+	 * so far, publishing one first if the index changed since the last.
+	 * AFFECTED FIELDS: 1) p_snapshot 2) p_dirty REQUIRED ARGUMENTS: None.
+	 */
+	private Snapshot snapshot() {
+		if (this.p_dirty) {
+			this.p_write_lock.lock();
+			try {
+				if (this.p_dirty) {
+					this.publish();
+				}
+			} finally {
+				this.p_write_lock.unlock();
+			}
+		}
+		return this.p_snapshot;
+	}
+
+	/*
+	 * DESCRIPTION: Method that publishes the current bitmaps and codes to draw
+	 * checks. Called with the write lock held. AFFECTED FIELDS: 1) p_snapshot
+	 * 2) p_codes_owned 3) p_published_ids 4) p_dirty REQUIRED ARGUMENTS: None.
+	 */
+	private void publish() {
+		TicketBitmap[] white = new TicketBitmap[this.p_white.length];
+		for (int number = Powerball.WHITE_MIN; number < white.length; number++) {
+			white[number] = this.p_white[number].snapshot();
+		}
+		TicketBitmap[] red = new TicketBitmap[this.p_red.length];
+		for (int number = Powerball.RED_MIN; number < red.length; number++) {
+			red[number] = this.p_red[number].snapshot();
+		}
+		Arrays.fill(this.p_codes_owned, false);
+		this.p_published_ids = this.p_next_id;
+		this.p_snapshot = new Snapshot(this.p_live.snapshot(), white, red, this.p_codes.clone(), this.p_size);
+		this.p_dirty = false;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that allocates the scratch arrays used by
+	 * "loadChunk". REQUIRED ARGUMENTS: None.
+	 */
+	private static long[][] newChunkWords() {
+		return new long[6][TicketBitmap.CHUNK_WORDS];
+	}
+
+	/*
+	 * DESCRIPTION: Static method that adds hits to a tier, sending matches
+	 * without a prize to the last entry. REQUIRED ARGUMENTS: 1) long[] hits -
+	 * the tier counts. 2) int tier - the tier or "PrizeTable.NO_PRIZE". 3) int
+	 * count - the hits to add.
+	 */
+	private static void tally(long[] hits, int tier, int count) {
+		hits[tier == PrizeTable.NO_PRIZE ? hits.length - 1 : tier] += count;
+	}
+
+	/*
+	 * DESCRIPTION: Bitmaps, codes and size of the index as of one snapshot.
+	 * Nothing in a snapshot is modified once it is published.
+	 */
+	private static final class Snapshot {
+
+		private final TicketBitmap p_live;
+		private final TicketBitmap[] p_white;
+		private final TicketBitmap[] p_red;
+		private final long[][] p_codes;
+		private final int p_size;
+
+		Snapshot(TicketBitmap live, TicketBitmap[] white, TicketBitmap[] red, long[][] codes, int size) {
+			this.p_live = live;
+			this.p_white = white;
+			this.p_red = red;
+			this.p_codes = codes;
+			this.p_size = size;
+		}
+	}
+}
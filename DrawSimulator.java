@@ -0,0 +1,215 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Parallel Monte Carlo draw simulator. Runs a given amount of random draws
+ * and scores every ticket against each one, counting how often every prize
+ * tier is hit. Draw ranges are split in half recursively on the fork-join
+ * pool and every split also splits the random generator, so the draws made
+ * depend only on the starting generator and not on how many threads run.
+ * Tickets are scored from a column snapshot in tiles that stay in cache while
+ * a block of draws is run against them, using two popcounts per ticket.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+public final class DrawSimulator {
+
+	// Amount of draws a task runs before it is no longer split.
+	private static final int DRAWS_PER_TASK = 1024;
+	// Amount of tickets scored against a block of draws at once.
+	private static final int TICKETS_PER_TILE = 2048;
+
+	// Game the draws are made in and its prize table used to score tickets.
+	private final LotteryGame p_game;
+	private final PrizeTable p_table;
+	// Jackpot paid for the top tier.
+	private final long p_jackpot;
+
+	public DrawSimulator(LotteryGame game, long jackpot) {
+		this.p_game = game;
+		this.p_table = game.getPrizeTable();
+		this.p_jackpot = jackpot;
+	}
+
+	/*
+	 * DESCRIPTION: Method that runs the given amount of random draws against
+	 * the tickets and returns the hit count of every tier. AFFECTED FIELDS:
+	 * None. REQUIRED ARGUMENTS: 1) Iterable<Powerball> tickets - the tickets
+	 * to score. 2) long draws - the amount of draws. 3)
+	 * RandomGenerator.SplittableGenerator random - the generator the draws
+	 * are made from.
+	 */
+	public Result simulate(Iterable<Powerball> tickets, long draws, RandomGenerator.SplittableGenerator random) {
+		long start = System.nanoTime();
+		TicketColumns columns = TicketColumns.of(tickets);
+		long[] hits = ForkJoinPool.commonPool().invoke(new DrawTask(columns, 0, draws, random));
+		return new Result(this.p_table, this.p_jackpot, columns.p_size, draws, hits, System.nanoTime() - start);
+	}
+
+	/*
+	 * DESCRIPTION: Fork-join task that runs a range of draws and returns the
+	 * hit count of every tier, with the last entry counting tickets that won
+	 * nothing.
+	 */
+	private final class DrawTask extends RecursiveTask<long[]> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final TicketColumns p_columns;
+		private final long p_from;
+		private final long p_to;
+		private final RandomGenerator.SplittableGenerator p_random;
+
+		DrawTask(TicketColumns columns, long from, long to, RandomGenerator.SplittableGenerator random) {
+			this.p_columns = columns;
+			this.p_from = from;
+			this.p_to = to;
+			this.p_random = random;
+		}
+
+		@Override
+		protected long[] compute() {
+			if (this.p_to - this.p_from <= DRAWS_PER_TASK) {
+				return this.run();
+			}
+			long middle = (this.p_from + this.p_to) >>> 1;
+			DrawTask left = new DrawTask(this.p_columns, this.p_from, middle, this.p_random.split());
+			DrawTask right = new DrawTask(this.p_columns, middle, this.p_to, this.p_random);
+			left.fork();
+			long[] hits = right.compute();
+			long[] left_hits = left.join();
+			for (int i = 0; i < hits.length; i++) {
+				hits[i] += left_hits[i];
+			}
+			return hits;
+		}
+
+		/*
+		 * DESCRIPTION: Method that makes this task's draws and scores every
+		 * ticket against them one tile of tickets at a time.
+		 */
+		private long[] run() {
+			int draws = (int) (this.p_to - this.p_from);
+			long[] draw_low = new long[draws];
+			long[] draw_high = new long[draws];
+			byte[] draw_red = new byte[draws];
+			LotteryGame game = DrawSimulator.this.p_game;
+			for (int d = 0; d < draws; d++) {
+				Powerball draw = Powerball.random(game, this.p_random);
+				draw_low[d] = draw.getWhiteLow();
+				draw_high[d] = draw.getWhiteHigh();
+				draw_red[d] = (byte) draw.getRedNumber();
+			}
+			int[] lookup = DrawSimulator.this.p_table.tierLookup();
+			int no_prize = DrawSimulator.this.p_table.getTierCount();
+			for (int i = 0; i < lookup.length; i++) {
+				if (lookup[i] == PrizeTable.NO_PRIZE) {
+					lookup[i] = no_prize;
+				}
+			}
+			long[] hits = new long[no_prize + 1];
+			long[] white_low = this.p_columns.p_white_low;
+			long[] white_high = this.p_columns.p_white_high;
+			byte[] red = this.p_columns.p_red;
+			int size = this.p_columns.p_size;
+			for (int tile = 0; tile < size; tile += TICKETS_PER_TILE) {
+				int tile_end = Math.min(size, tile + TICKETS_PER_TILE);
+				for (int d = 0; d < draws; d++) {
+					long low = draw_low[d];
+					long high = draw_high[d];
+					byte draw_red_number = draw_red[d];
+					for (int t = tile; t < tile_end; t++) {
+						int matches = Long.bitCount(white_low[t] & low) + Long.bitCount(white_high[t] & high);
+						hits[lookup[(matches << 1) | (red[t] == draw_red_number ? 1 : 0)]]++;
+					}
+				}
+			}
+			return hits;
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Outcome of a simulation: hit counts per tier along with the
+	 * money spent on and won by the tickets over every draw.
+	 */
+	public static final class Result {
+
+		private final PrizeTable p_table;
+		private final long p_jackpot;
+		private final int p_tickets;
+		private final long p_draws;
+		private final long[] p_hits;
+		private final long p_elapsed_nanos;
+
+		Result(PrizeTable table, long jackpot, int tickets, long draws, long[] hits, long elapsed_nanos) {
+			this.p_table = table;
+			this.p_jackpot = jackpot;
+			this.p_tickets = tickets;
+			this.p_draws = draws;
+			this.p_hits = hits;
+			this.p_elapsed_nanos = elapsed_nanos;
+		}
+
+		public PrizeTable getPrizeTable() {
+			return this.p_table;
+		}
+
+		public int getTickets() {
+			return this.p_tickets;
+		}
+
+		public long getDraws() {
+			return this.p_draws;
+		}
+
+		public long getHits(int tier) {
+			return this.p_hits[tier];
+		}
+
+		// Money spent buying every ticket for every draw, in dollars.
+		public long getSpend() {
+			return this.p_draws * this.p_tickets * this.p_table.getTicketPrice();
+		}
+
+		// Money won over every draw, in dollars, paying the full jackpot on
+		// every jackpot hit.
+		public long getWinnings() {
+			long winnings = 0;
+			for (int tier = 0; tier < this.p_table.getTierCount(); tier++) {
+				winnings += this.p_hits[tier] * this.p_table.getPrize(tier, this.p_jackpot);
+			}
+			return winnings;
+		}
+
+		public long getElapsedNanos() {
+			return this.p_elapsed_nanos;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder builder = new StringBuilder();
+			long scored = this.p_draws * this.p_tickets;
+			builder.append(String.format("%-10s %19s %18s %15s%n", "Tier", "Hits", "Odds (1 in)", "Prize"));
+			for (int tier = 0; tier < this.p_table.getTierCount(); tier++) {
+				long hits = this.p_hits[tier];
+				builder.append(String.format("%-10s %,19d %18s %,15d%n", this.p_table.getTierName(tier), hits,
+						hits == 0 ? "-" : String.format("%,.1f", (double) scored / hits),
+						this.p_table.getPrize(tier, this.p_jackpot)));
+			}
+			long spend = this.getSpend();
+			long winnings = this.getWinnings();
+			builder.append(String.format("Draws: %,d  Tickets: %,d  Time: %.3f s%n", this.p_draws, this.p_tickets,
+					this.p_elapsed_nanos / 1e9));
+			builder.append(String.format("Spent: $%,d  Won: $%,d  Return: %.2f%%", spend, winnings,
+					spend == 0 ? 0.0 : 100.0 * winnings / spend));
+			return builder.toString();
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Running statistics over the draws of one game: how often every white and
+ * red number was drawn, how often every pair and triple of white numbers
+ * were drawn together, and how many draws ago every number last came up
+ * along with its longest absence. Every statistic is updated in constant
+ * time as a draw is added, so appending new results never recomputes the
+ * draws before them. Pairs are counted in a flat square matrix and triples
+ * by their colexicographic rank, 54,740 counters for Powerball.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public final class DrawStatistics {
+
+	// Game of the counted draws.
+	private final LotteryGame p_game;
+	// Row length of the pair matrix, one more than the largest white number.
+	private final int p_stride;
+	// Times every white and red number was drawn, indexed by number.
+	private final int[] p_white_counts;
+	private final int[] p_red_counts;
+	// Times every pair of white numbers was drawn together, at [a * stride +
+	// b] for a < b.
+	private final int[] p_pair_counts;
+	// Times every triple of white numbers was drawn together, by rank.
+	private final int[] p_triple_counts;
+	// Index of the draw every number last came up in, or -1 if never.
+	private final int[] p_white_last;
+	private final int[] p_red_last;
+	// Longest run of draws every number went without coming up.
+	private final int[] p_white_longest_gap;
+	private final int[] p_red_longest_gap;
+	// Amount of counted draws.
+	private int p_draws;
+	// White numbers of the draw being added.
+	private final int[] p_whites = new int[Powerball.WHITE_PICKS];
+
+	public DrawStatistics(LotteryGame game) {
+		this.p_game = game;
+		this.p_stride = game.getWhiteMax() + 1;
+		this.p_white_counts = new int[this.p_stride];
+		this.p_red_counts = new int[game.getRedMax() + 1];
+		this.p_pair_counts = new int[this.p_stride * this.p_stride];
+		this.p_triple_counts = new int[game.subsetCount(3)];
+		this.p_white_last = new int[this.p_white_counts.length];
+		this.p_red_last = new int[this.p_red_counts.length];
+		this.p_white_longest_gap = new int[this.p_white_counts.length];
+		this.p_red_longest_gap = new int[this.p_red_counts.length];
+		Arrays.fill(this.p_white_last, -1);
+		Arrays.fill(this.p_red_last, -1);
+	}
+
+	/*
+	 * DESCRIPTION: Method that counts one more draw, made after every draw
+	 * counted so far. AFFECTED FIELDS: Every counter. REQUIRED ARGUMENTS: 1)
+	 * Powerball draw - the drawn numbers.
+	 */
+	public void add(Powerball draw) {
+		int[] whites = this.p_whites;
+		int count = draw.getWhiteNumbers(whites);
+		int index = this.p_draws++;
+		for (int i = 0; i < count; i++) {
+			int a = whites[i];
+			this.p_white_counts[a]++;
+			this.p_white_longest_gap[a] = Math.max(this.p_white_longest_gap[a], index - this.p_white_last[a] - 1);
+			this.p_white_last[a] = index;
+			for (int j = i + 1; j < count; j++) {
+				int b = whites[j];
+				this.p_pair_counts[a * this.p_stride + b]++;
+				for (int k = j + 1; k < count; k++) {
+					this.p_triple_counts[tripleRank(a, b, whites[k])]++;
+				}
+			}
+		}
+		int red = draw.getRedNumber();
+		this.p_red_counts[red]++;
+		this.p_red_longest_gap[red] = Math.max(this.p_red_longest_gap[red], index - this.p_red_last[red] - 1);
+		this.p_red_last[red] = index;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns the colexicographic rank of a
+	 * triple of white numbers. REQUIRED ARGUMENTS: 1) int a 2) int b 3) int c
+	 * - white numbers with a < b < c.
+	 */
+	private static int tripleRank(int a, int b, int c) {
+		return RecurrenceIndex.binomial(a - Powerball.WHITE_MIN, 1)
+				+ RecurrenceIndex.binomial(b - Powerball.WHITE_MIN, 2)
+				+ RecurrenceIndex.binomial(c - Powerball.WHITE_MIN, 3);
+	}
+
+	public LotteryGame getGame() {
+		return this.p_game;
+	}
+
+	public int getDraws() {
+		return this.p_draws;
+	}
+
+	public int getWhiteCount(int number) {
+		return this.p_white_counts[number];
+	}
+
+	public int getRedCount(int number) {
+		return this.p_red_counts[number];
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns how many draws held both white numbers.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) int a 2) int b - two
+	 * different white numbers in any order.
+	 */
+	public int getPairCount(int a, int b) {
+		return a < b ? this.p_pair_counts[a * this.p_stride + b] : this.p_pair_counts[b * this.p_stride + a];
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns how many draws held all three white
+	 * numbers. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) int a 2) int b
+	 * 3) int c - three different white numbers in ascending order.
+	 */
+	public int getTripleCount(int a, int b, int c) {
+		return this.p_triple_counts[tripleRank(a, b, c)];
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns how many draws have passed since the
+	 * white number last came up, or the amount of draws if it never did.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) int number - the white
+	 * number.
+	 */
+	public int getWhiteGap(int number) {
+		return this.p_draws - this.p_white_last[number] - 1;
+	}
+
+	public int getRedGap(int number) {
+		return this.p_draws - this.p_red_last[number] - 1;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the longest run of draws the white
+	 * number went without coming up, the current run included. AFFECTED
+	 * FIELDS: None. REQUIRED ARGUMENTS: 1) int number - the white number.
+	 */
+	public int getWhiteLongestGap(int number) {
+		return Math.max(this.p_white_longest_gap[number], this.getWhiteGap(number));
+	}
+
+	public int getRedLongestGap(int number) {
+		return Math.max(this.p_red_longest_gap[number], this.getRedGap(number));
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the white numbers ordered from the most
+	 * to the least drawn, ties broken by the smaller number. AFFECTED FIELDS:
+	 * None. REQUIRED ARGUMENTS: None.
+	 */
+	public int[] whitesByCount() {
+		return byDescending(this.p_white_counts);
+	}
+
+	public int[] redsByCount() {
+		return byDescending(this.p_red_counts);
+	}
+
+	private static int[] byDescending(int[] counts) {
+		return IntStream.range(Powerball.WHITE_MIN, counts.length).boxed()
+				.sorted((x, y) -> counts[x] != counts[y] ? Integer.compare(counts[y], counts[x])
+						: Integer.compare(x, y))
+				.mapToInt(Integer::intValue).toArray();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("Draws: %,d%n", this.p_draws));
+		if (this.p_draws == 0) {
+			return builder.toString();
+		}
+		int[] whites = this.whitesByCount();
+		int[] reds = this.redsByCount();
+		builder.append("Most drawn white numbers:");
+		for (int i = 0; i < 10; i++) {
+			builder.append(' ').append(whites[i]).append(" (").append(this.p_white_counts[whites[i]]).append(')');
+		}
+		builder.append(String.format("%nLeast drawn white numbers:"));
+		for (int i = whites.length - 1; i >= whites.length - 10; i--) {
+			builder.append(' ').append(whites[i]).append(" (").append(this.p_white_counts[whites[i]]).append(')');
+		}
+		builder.append(String.format("%nMost drawn %s numbers:", this.p_game.getBonusName()));
+		for (int i = 0; i < 5; i++) {
+			builder.append(' ').append(reds[i]).append(" (").append(this.p_red_counts[reds[i]]).append(')');
+		}
+		int[] overdue = IntStream.range(Powerball.WHITE_MIN, this.p_stride).boxed()
+				.sorted((x, y) -> Integer.compare(this.getWhiteGap(y), this.getWhiteGap(x)))
+				.mapToInt(Integer::intValue).toArray();
+		builder.append(String.format("%nMost overdue white numbers:"));
+		for (int i = 0; i < 5; i++) {
+			builder.append(' ').append(overdue[i]).append(" (").append(this.getWhiteGap(overdue[i]))
+					.append(" draws, longest ").append(this.getWhiteLongestGap(overdue[i])).append(')');
+		}
+		int best_a = 0;
+		int best_b = 0;
+		for (int a = Powerball.WHITE_MIN; a < this.p_stride; a++) {
+			for (int b = a + 1; b < this.p_stride; b++) {
+				if (best_a == 0 || this.getPairCount(a, b) > this.getPairCount(best_a, best_b)) {
+					best_a = a;
+					best_b = b;
+				}
+			}
+		}
+		builder.append(String.format("%nMost drawn pair: %d %d (%d draws)", best_a, best_b,
+				this.getPairCount(best_a, best_b)));
+		int[] best = new int[3];
+		for (int c = 3; c < this.p_stride; c++) {
+			for (int b = 2; b < c; b++) {
+				for (int a = 1; a < b; a++) {
+					int count = this.getTripleCount(a, b, c);
+					if (best[0] == 0 || count > this.getTripleCount(best[0], best[1], best[2])) {
+						best[0] = a;
+						best[1] = b;
+						best[2] = c;
+					}
+				}
+			}
+		}
+		builder.append(String.format("%nMost drawn triple: %d %d %d (%d draws)%n", best[0], best[1], best[2],
+				this.getTripleCount(best[0], best[1], best[2])));
+		return builder.toString();
+	}
+}
@@ -0,0 +1,430 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Exact odds engine. Scores a ticket set against every possible draw instead
+ * of a random sample, giving the exact hit count of every prize tier, the
+ * exact amount of draws whose best ticket lands in each tier and the mean and
+ * spread of the money won per draw.
+ * The white draws are enumerated depth first in ascending number order while
+ * a histogram of tickets by match count and red number is kept up to date:
+ * adding a number to the draw only moves the tickets holding that number,
+ * found through a per-number list, one match count up. The red numbers of a
+ * white draw, 26 for Powerball, are then scored from the histogram alone.
+ * White draws are split by their two smallest numbers into fork-join tasks
+ * with their own counts. The tables are sized from the game when the engine
+ * is created.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public final class ExactOdds {
+
+	// Amount of white match counts, from 0 to 5.
+	private static final int MATCHES = Powerball.WHITE_PICKS + 1;
+	// Amount of pairs a task handles before it is no longer split.
+	private static final int PAIRS_PER_TASK = 8;
+
+	// Prize tiers used for scoring.
+	private final PrizeTable p_table;
+	// Jackpot paid for tier 0, in dollars.
+	private final long p_jackpot;
+	// Amount of possible draws, C(white max, 5) * red max for the game.
+	private final long p_draws;
+	// Amount of red and white numbers.
+	private final int p_reds;
+	private final int p_whites;
+	// Amount of pairs of smallest numbers, each one task of white draws.
+	private final int p_pairs;
+
+	public ExactOdds(LotteryGame game, long jackpot) {
+		this.p_table = game.getPrizeTable();
+		this.p_jackpot = jackpot;
+		this.p_draws = game.getRankCount();
+		this.p_reds = game.getRedMax();
+		this.p_whites = game.getWhiteMax();
+		this.p_pairs = RecurrenceIndex.binomial(this.p_whites, 2);
+	}
+
+	/*
+	 * DESCRIPTION: Method that scores the tickets against every possible draw
+	 * and returns the exact outcome. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: 1) Iterable<Powerball> tickets - the tickets to score.
+	 */
+	public Result enumerate(Iterable<Powerball> tickets) {
+		long start = System.nanoTime();
+		TicketColumns columns = TicketColumns.of(tickets);
+		Tally tally = ForkJoinPool.commonPool().invoke(new PairTask(new Tickets(columns, this.p_whites, this.p_reds), 0,
+				this.p_pairs));
+		int no_prize = this.p_table.getTierCount();
+		long[] hits = new long[no_prize + 1];
+		for (int m = 0; m < MATCHES; m++) {
+			// Every ticket matching m whites matches the red number in 1 of
+			// the draws sharing those whites and misses it in the rest.
+			hits[this.tier(m, true)] += tally.p_matches[m];
+			hits[this.tier(m, false)] += tally.p_matches[m] * (this.p_reds - 1);
+		}
+		long elapsed = System.nanoTime() - start;
+		DrawSimulator.Result totals = new DrawSimulator.Result(this.p_table, this.p_jackpot, columns.p_size,
+				this.p_draws, hits, elapsed);
+		return new Result(totals, tally.p_best, tally.p_winnings_squared);
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the tier of a match, with "NO_PRIZE"
+	 * mapped past the last tier. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1)
+	 * int matches - white numbers matched. 2) boolean red - whether the red
+	 * number matched.
+	 */
+	private int tier(int matches, boolean red) {
+		int tier = this.p_table.tierOf(matches, red);
+		return tier == PrizeTable.NO_PRIZE ? this.p_table.getTierCount() : tier;
+	}
+
+	private long prize(int matches, boolean red) {
+		int tier = this.p_table.tierOf(matches, red);
+		return tier == PrizeTable.NO_PRIZE ? 0L : this.p_table.getPrize(tier, this.p_jackpot);
+	}
+
+	/*
+	 * DESCRIPTION: Tickets laid out for enumeration: the tickets holding every
+	 * white number and the red number of every ticket.
+	 */
+	private static final class Tickets {
+
+		// Ids of the tickets holding each white number, by number - 1.
+		final int[][] p_by_white;
+		// Red number - 1 of every ticket.
+		final short[] p_red;
+		// Amount of tickets with each red number - 1.
+		final int[] p_red_counts;
+		final int p_size;
+
+		Tickets(TicketColumns columns, int whites, int reds) {
+			this.p_size = columns.p_size;
+			this.p_red = new short[this.p_size];
+			this.p_red_counts = new int[reds];
+			int[] counts = new int[whites];
+			for (int t = 0; t < this.p_size; t++) {
+				this.p_red[t] = (short) (columns.p_red[t] - Powerball.RED_MIN);
+				this.p_red_counts[this.p_red[t]]++;
+				for (int white = 0; white < whites; white++) {
+					if (holds(columns, t, white)) {
+						counts[white]++;
+					}
+				}
+			}
+			this.p_by_white = new int[whites][];
+			for (int white = 0; white < whites; white++) {
+				this.p_by_white[white] = new int[counts[white]];
+				counts[white] = 0;
+			}
+			for (int t = 0; t < this.p_size; t++) {
+				for (int white = 0; white < whites; white++) {
+					if (holds(columns, t, white)) {
+						this.p_by_white[white][counts[white]++] = t;
+					}
+				}
+			}
+		}
+
+		private static boolean holds(TicketColumns columns, int ticket, int white) {
+			return white < 64 ? (columns.p_white_low[ticket] & (1L << white)) != 0
+					: (columns.p_white_high[ticket] & (1L << (white - 64))) != 0;
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Totals gathered by the tasks: tickets by match count summed
+	 * over white draws, draws by the tier of their best ticket, and the sum of
+	 * the squared money won per draw.
+	 */
+	private final class Tally {
+
+		final long[] p_matches = new long[MATCHES];
+		final long[] p_best = new long[ExactOdds.this.p_table.getTierCount() + 1];
+		double p_winnings_squared = 0.0;
+
+		void add(Tally other) {
+			for (int m = 0; m < MATCHES; m++) {
+				this.p_matches[m] += other.p_matches[m];
+			}
+			for (int tier = 0; tier < this.p_best.length; tier++) {
+				this.p_best[tier] += other.p_best[tier];
+			}
+			this.p_winnings_squared += other.p_winnings_squared;
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Fork-join task over a range of pairs of smallest white
+	 * numbers, in colexicographic pair order.
+	 */
+	private final class PairTask extends RecursiveTask<Tally> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Tickets p_tickets;
+		private final int p_from;
+		private final int p_to;
+
+		PairTask(Tickets tickets, int from, int to) {
+			this.p_tickets = tickets;
+			this.p_from = from;
+			this.p_to = to;
+		}
+
+		@Override
+		protected Tally compute() {
+			if (this.p_to - this.p_from <= PAIRS_PER_TASK) {
+				Tally tally = new Tally();
+				Walk walk = new Walk(this.p_tickets, tally);
+				for (int pair = this.p_from; pair < this.p_to; pair++) {
+					walk.run(pair);
+				}
+				return tally;
+			}
+			int middle = (this.p_from + this.p_to) >>> 1;
+			PairTask left = new PairTask(this.p_tickets, this.p_from, middle);
+			PairTask right = new PairTask(this.p_tickets, middle, this.p_to);
+			left.fork();
+			Tally tally = right.compute();
+			tally.add(left.join());
+			return tally;
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Depth-first walk over the white draws starting with one
+	 * pair of smallest numbers, holding the histogram of tickets by match
+	 * count and red number along with every ticket's place in it.
+	 */
+	private final class Walk {
+
+		private final Tickets p_tickets;
+		private final Tally p_tally;
+		// Amount of red and white numbers, copied from the engine.
+		private final int p_reds = ExactOdds.this.p_reds;
+		private final int p_whites = ExactOdds.this.p_whites;
+		// Histogram slot of every ticket, "matches * reds + red".
+		private final short[] p_slots;
+		// Tickets in every histogram slot.
+		private final int[] p_histogram = new int[MATCHES * this.p_reds];
+		// Change made to the histogram by the last white number of a draw,
+		// which is scored without being entered.
+		private final int[] p_delta = new int[MATCHES * this.p_reds];
+		// Tickets by match count in the scored draw.
+		private final int[] p_totals = new int[MATCHES];
+		// Tier and prize of every match count, with and without the red
+		// number.
+		private final int[] p_tier_red = new int[MATCHES];
+		private final int[] p_tier_plain = new int[MATCHES];
+		private final long[] p_prize_red = new long[MATCHES];
+		private final long[] p_prize_plain = new long[MATCHES];
+
+		Walk(Tickets tickets, Tally tally) {
+			this.p_tickets = tickets;
+			this.p_tally = tally;
+			this.p_slots = new short[tickets.p_size];
+			for (int t = 0; t < tickets.p_size; t++) {
+				this.p_slots[t] = tickets.p_red[t];
+			}
+			System.arraycopy(tickets.p_red_counts, 0, this.p_histogram, 0, this.p_reds);
+			for (int m = 0; m < MATCHES; m++) {
+				this.p_tier_red[m] = ExactOdds.this.tier(m, true);
+				this.p_tier_plain[m] = ExactOdds.this.tier(m, false);
+				this.p_prize_red[m] = ExactOdds.this.prize(m, true);
+				this.p_prize_plain[m] = ExactOdds.this.prize(m, false);
+			}
+		}
+
+		/*
+		 * DESCRIPTION: Method that walks every white draw whose two smallest
+		 * numbers form the pair of the given colexicographic index.
+		 */
+		void run(int pair) {
+			int second = 1;
+			while (RecurrenceIndex.binomial(second + 1, 2) <= pair) {
+				second++;
+			}
+			int first = pair - RecurrenceIndex.binomial(second, 2);
+			this.move(first, this.p_reds);
+			this.move(second, this.p_reds);
+			this.descend(second + 1, 2);
+			this.move(second, -this.p_reds);
+			this.move(first, -this.p_reds);
+		}
+
+		private void descend(int from, int picked) {
+			if (picked == Powerball.WHITE_PICKS - 1) {
+				// Draws completed with a number no ticket holds all score the
+				// same, so the first of them is scored for the rest.
+				Tally unheld = null;
+				for (int white = from; white < this.p_whites; white++) {
+					if (this.p_tickets.p_by_white[white].length != 0) {
+						this.score(white, this.p_tally);
+					} else {
+						if (unheld == null) {
+							unheld = new Tally();
+							this.score(white, unheld);
+						}
+						this.p_tally.add(unheld);
+					}
+				}
+				return;
+			}
+			for (int white = from; white <= this.p_whites - (Powerball.WHITE_PICKS - picked); white++) {
+				this.move(white, this.p_reds);
+				this.descend(white + 1, picked + 1);
+				this.move(white, -this.p_reds);
+			}
+		}
+
+		/*
+		 * DESCRIPTION: Method that adds a white number to the draw, or takes
+		 * it out again, moving the tickets holding it one match up or down.
+		 */
+		private void move(int white, int step) {
+			int[] histogram = this.p_histogram;
+			short[] slots = this.p_slots;
+			for (int t : this.p_tickets.p_by_white[white]) {
+				int slot = slots[t];
+				histogram[slot]--;
+				histogram[slot + step]++;
+				slots[t] = (short) (slot + step);
+			}
+		}
+
+		/*
+		 * DESCRIPTION: Method that scores the current draw completed with the
+		 * given white number, once with every red number, into a tally. For a red number,
+		 * the tickets holding it score their match count with the red prize
+		 * and all others without it, so the best tier comes from the highest
+		 * match count on either side.
+		 */
+		private void score(int white, Tally tally) {
+			int reds = this.p_reds;
+			int[] delta = this.p_delta;
+			short[] slots = this.p_slots;
+			for (int t : this.p_tickets.p_by_white[white]) {
+				int slot = slots[t];
+				delta[slot]--;
+				delta[slot + reds]++;
+			}
+			int[] histogram = this.p_histogram;
+			int[] totals = this.p_totals;
+			long base = 0;
+			for (int m = 0, slot = 0; m < MATCHES; m++) {
+				int total = 0;
+				for (int r = 0; r < reds; r++, slot++) {
+					delta[slot] += histogram[slot];
+					total += delta[slot];
+				}
+				totals[m] = total;
+				tally.p_matches[m] += total;
+				base += total * this.p_prize_plain[m];
+			}
+			long[] best = tally.p_best;
+			int none = best.length - 1;
+			int top = MATCHES - 1;
+			while (top >= 0 && totals[top] == 0) {
+				top--;
+			}
+			double winnings_squared = 0.0;
+			for (int r = 0; r < reds; r++) {
+				// Best tier among the tickets without this red number.
+				int tier = none;
+				for (int m = top; m >= 0; m--) {
+					if (totals[m] != delta[m * reds + r]) {
+						tier = this.p_tier_plain[m];
+						break;
+					}
+				}
+				// Best tier among the tickets with it, and the extra money
+				// they win.
+				long winnings = base;
+				for (int m = top; m >= 0; m--) {
+					int with_red = delta[m * reds + r];
+					if (with_red != 0) {
+						tier = Math.min(tier, this.p_tier_red[m]);
+						winnings += with_red * (this.p_prize_red[m] - this.p_prize_plain[m]);
+					}
+				}
+				best[tier]++;
+				winnings_squared += (double) winnings * winnings;
+			}
+			tally.p_winnings_squared += winnings_squared;
+			Arrays.fill(delta, 0);
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Exact outcome of a ticket set over every possible draw.
+	 */
+	public static final class Result {
+
+		// Hit counts of every tier summed over tickets and draws.
+		private final DrawSimulator.Result p_totals;
+		// Draws by the tier of their best ticket, with no prize last.
+		private final long[] p_best;
+		// Sum over draws of the squared money won.
+		private final double p_winnings_squared;
+
+		Result(DrawSimulator.Result totals, long[] best, double winnings_squared) {
+			this.p_totals = totals;
+			this.p_best = best;
+			this.p_winnings_squared = winnings_squared;
+		}
+
+		public DrawSimulator.Result getTotals() {
+			return this.p_totals;
+		}
+
+		// Draws whose best ticket wins the given tier, or wins nothing for
+		// the tier count.
+		public long getBestDraws(int tier) {
+			return this.p_best[tier];
+		}
+
+		// Draws in which at least one ticket wins a prize.
+		public long getWinningDraws() {
+			return this.p_totals.getDraws() - this.p_best[this.p_best.length - 1];
+		}
+
+		public double getMeanWinnings() {
+			return (double) this.p_totals.getWinnings() / this.p_totals.getDraws();
+		}
+
+		public double getWinningsDeviation() {
+			double mean = this.getMeanWinnings();
+			return Math.sqrt(Math.max(0.0, this.p_winnings_squared / this.p_totals.getDraws() - mean * mean));
+		}
+
+		@Override
+		public String toString() {
+			PrizeTable table = this.p_totals.getPrizeTable();
+			long all_draws = this.p_totals.getDraws();
+			StringBuilder builder = new StringBuilder();
+			builder.append(this.p_totals).append(System.lineSeparator());
+			builder.append(String.format("%-10s %15s %18s%n", "Best tier", "Draws", "Odds (1 in)"));
+			for (int tier = 0; tier < this.p_best.length; tier++) {
+				long draws = this.p_best[tier];
+				builder.append(String.format("%-10s %,15d %18s%n",
+						tier < table.getTierCount() ? table.getTierName(tier) : "none", draws,
+						draws == 0 ? "-" : String.format("%,.2f", (double) all_draws / draws)));
+			}
+			long winning = this.getWinningDraws();
+			builder.append(String.format("Draws won by any ticket: %,d of %,d (1 in %s)%n", winning, all_draws,
+					winning == 0 ? "-" : String.format("%,.2f", (double) all_draws / winning)));
+			builder.append(String.format("Won per draw: mean $%,.4f  standard deviation $%,.2f",
+					this.getMeanWinnings(), this.getWinningsDeviation()));
+			return builder.toString();
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Lock-free histogram of durations. Durations are counted in power-of-two
+ * buckets of nanoseconds, which bounds the error of any percentile to a
+ * factor of two while recording costs a couple of atomic adds.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class LatencyHistogram {
+
+	// Amount of buckets; bucket i counts durations below 2^i nanoseconds.
+	private static final int BUCKETS = 64;
+
+	// Name shown in reports.
+	private final String p_name;
+	// Count of durations in every bucket.
+	private final AtomicLongArray p_buckets = new AtomicLongArray(BUCKETS);
+	// Amount and sum of all durations.
+	private final LongAdder p_count = new LongAdder();
+	private final LongAdder p_total_nanos = new LongAdder();
+	// Longest duration recorded.
+	private final AtomicLong p_max_nanos = new AtomicLong();
+
+	public LatencyHistogram(String name) {
+		this.p_name = name;
+	}
+
+	public String getName() {
+		return this.p_name;
+	}
+
+	/*
+	 * DESCRIPTION: Method that records one duration. AFFECTED FIELDS: Every
+	 * field but "p_name". REQUIRED ARGUMENTS: 1) long nanos - the duration in
+	 * nanoseconds.
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0L);
+		this.p_buckets.incrementAndGet(Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(value)));
+		this.p_count.increment();
+		this.p_total_nanos.add(value);
+		this.p_max_nanos.accumulateAndGet(value, Math::max);
+	}
+
+	public long getCount() {
+		return this.p_count.sum();
+	}
+
+	public long getTotalNanos() {
+		return this.p_total_nanos.sum();
+	}
+
+	public long getMaxNanos() {
+		return this.p_max_nanos.get();
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns an upper bound of the given percentile
+	 * in nanoseconds, or 0 if nothing was recorded. AFFECTED FIELDS: None.
+	 * REQUIRED ARGUMENTS: 1) double percentile - from 0 to 100.
+	 */
+	public long getPercentileNanos(double percentile) {
+		long count = this.getCount();
+		if (count == 0) {
+			return 0L;
+		}
+		long rank = (long) Math.ceil(count * percentile / 100.0);
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += this.p_buckets.get(bucket);
+			if (seen >= rank) {
+				return Math.min(bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket), this.getMaxNanos());
+			}
+		}
+		return this.getMaxNanos();
+	}
+
+	/*
+	 * DESCRIPTION: Method that clears every recorded duration. AFFECTED
+	 * FIELDS: Every field but "p_name". REQUIRED ARGUMENTS: None.
+	 */
+	public void reset() {
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			this.p_buckets.set(bucket, 0L);
+		}
+		this.p_count.reset();
+		this.p_total_nanos.reset();
+		this.p_max_nanos.set(0L);
+	}
+
+	@Override
+	public String toString() {
+		long count = this.getCount();
+		return String.format("%-16s count=%-8d mean=%10.3f ms  p50<=%10.3f ms  p99<=%10.3f ms  max=%10.3f ms",
+				this.p_name, count, count == 0 ? 0.0 : this.getTotalNanos() / 1e6 / count,
+				this.getPercentileNanos(50) / 1e6, this.getPercentileNanos(99) / 1e6, this.getMaxNanos() / 1e6);
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Definition of a supported lottery game: the ranges of its white and bonus
+ * numbers, how many white numbers a ticket picks, its prize table, the date
+ * its current rules took effect and the prefix of its save files. The generators, indexes, simulator and odds
+ * engine all take a game and size their tables from it, so one engine runs
+ * every game. Games are final constants rather than subclasses, which keeps
+ * the hot loops free of virtual calls: they read the game's ranges once into
+ * locals and then work on the same packed ticket bits for every game.
+ * Every ticket records the id of its game in bits the packed Powerball
+ * layout leaves unused, and the ranges of every game have to fit that
+ * layout: white numbers up to "Powerball.WHITE_CAPACITY", bonus numbers up
+ * to "Powerball.RED_CAPACITY" and "Powerball.WHITE_PICKS" white numbers.
+ * The supported games are currently:
+ * Powerball - 5 of 69 white, 1 of 26 red, $2, since October 7, 2015
+ * Mega Millions - 5 of 70 white, 1 of 24 Mega Ball, $5, since April 8, 2025
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.time.LocalDate;
+
+public final class LotteryGame {
+
+	public static final LotteryGame POWERBALL = new LotteryGame(0, "Powerball", "Powerball", "red", 69, 26,
+			PrizeTable.POWERBALL, LocalDate.of(2015, 10, 7));
+	public static final LotteryGame MEGA_MILLIONS = new LotteryGame(1, "Mega Millions", "MegaMillions",
+			"Mega Ball", 70, 24, PrizeTable.MEGA_MILLIONS, LocalDate.of(2025, 4, 8));
+	// Every supported game, indexed by id.
+	private static final LotteryGame[] S_GAMES = { POWERBALL, MEGA_MILLIONS };
+
+	// Id of the game, stored in every one of its tickets.
+	private final int p_id;
+	// Name shown to the user, and the prefix of the game's save files.
+	private final String p_name;
+	private final String p_file_prefix;
+	// Name of the bonus ball.
+	private final String p_bonus_name;
+	// Largest white and bonus numbers; both ranges start at 1.
+	private final int p_white_max;
+	private final int p_red_max;
+	// Prize tiers and ticket price.
+	private final PrizeTable p_table;
+	// Date of the first draw under the current ranges and prize table.
+	private final LocalDate p_rules_start;
+	// Amount of distinct white number sets and of distinct complete tickets.
+	private final int p_white_sets;
+	private final int p_rank_count;
+
+	private LotteryGame(int id, String name, String file_prefix, String bonus_name, int white_max, int red_max,
+			PrizeTable table, LocalDate rules_start) {
+		if (white_max < Powerball.WHITE_PICKS || white_max > Powerball.WHITE_CAPACITY || red_max < 1
+				|| red_max > Powerball.RED_CAPACITY) {
+			throw new IllegalArgumentException("The number ranges of " + name + " do not fit a ticket.");
+		}
+		this.p_id = id;
+		this.p_name = name;
+		this.p_file_prefix = file_prefix;
+		this.p_bonus_name = bonus_name;
+		this.p_white_max = white_max;
+		this.p_red_max = red_max;
+		this.p_table = table;
+		this.p_rules_start = rules_start;
+		this.p_white_sets = RecurrenceIndex.binomial(white_max, Powerball.WHITE_PICKS);
+		this.p_rank_count = Math.multiplyExact(this.p_white_sets, red_max);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns every supported game in id
+	 * order. REQUIRED ARGUMENTS: None.
+	 */
+	public static LotteryGame[] values() {
+		return S_GAMES.clone();
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns the game with the given id.
+	 * REQUIRED ARGUMENTS: 1) int id - the id stored in a ticket.
+	 */
+	static LotteryGame byId(int id) {
+		return S_GAMES[id];
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns the game with the given name,
+	 * ignoring case, spaces, dashes and underscores, so "megamillions" and
+	 * "mega-millions" both name Mega Millions. Throws
+	 * IllegalArgumentException for an unknown game. REQUIRED ARGUMENTS: 1)
+	 * String name - the name of the game.
+	 */
+	public static LotteryGame forName(String name) {
+		String key = name.replaceAll("[\\s_-]", "");
+		for (LotteryGame game : S_GAMES) {
+			if (game.p_file_prefix.equalsIgnoreCase(key)) {
+				return game;
+			}
+		}
+		throw new IllegalArgumentException("Unknown lottery game \"" + name + "\".");
+	}
+
+	public int getId() {
+		return this.p_id;
+	}
+
+	public String getName() {
+		return this.p_name;
+	}
+
+	public String getFilePrefix() {
+		return this.p_file_prefix;
+	}
+
+	public String getBonusName() {
+		return this.p_bonus_name;
+	}
+
+	public int getWhiteMax() {
+		return this.p_white_max;
+	}
+
+	public int getRedMax() {
+		return this.p_red_max;
+	}
+
+	public int getWhitePicks() {
+		return Powerball.WHITE_PICKS;
+	}
+
+	public PrizeTable getPrizeTable() {
+		return this.p_table;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the date of the first draw under the
+	 * game's current rules. Earlier draws used other ranges or prizes and do
+	 * not describe the current game. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: None.
+	 */
+	public LocalDate getRulesStart() {
+		return this.p_rules_start;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the amount of distinct white number
+	 * sets, C(white max, 5). AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public int getWhiteSetCount() {
+		return this.p_white_sets;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the amount of distinct complete
+	 * tickets. Every one of them has a rank from 0 up to, but not including,
+	 * this count. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public int getRankCount() {
+		return this.p_rank_count;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the amount of distinct k-sized subsets
+	 * of the white number range. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1)
+	 * int size - the subset size k, from 0 to "WHITE_PICKS".
+	 */
+	public int subsetCount(int size) {
+		return RecurrenceIndex.binomial(this.p_white_max, size);
+	}
+
+	@Override
+	public String toString() {
+		return this.p_name;
+	}
+}
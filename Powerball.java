@@ -2,7 +2,7 @@
  * AUTHOR:
  * Alno "Crucerne" Lau
  * LAST MODIFIED:
- * 03/06/16
+ * 10/17/26
  * DESCRIPTION:
  * Powerball lottery ticket generator and simulator.
  * The values for the lottery balls are based upon the ranges found at the official 
@@ -10,10 +10,15 @@
  * red balls are currently:
  * white - 1 to 69
  * red - 1 to 26
+ * The same ticket class and menu also run every other game in LotteryGame.
+ * A ticket records its game, and the menu works on one game at a time with
+ * its own save files.
  */
 
 package com.crucerne.www.lottery.generator;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -21,43 +26,116 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Serializable;
-import java.util.Iterator;
-import java.util.Random;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.InputMismatchException;
+import java.util.List;
 import java.util.Scanner;
-import java.util.TreeSet;
-import java.util.concurrent.ConcurrentSkipListSet;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.random.RandomGenerator;
 
-public class Powerball implements Serializable, Comparable<Powerball>, Runnable {
+public class Powerball implements Serializable, Comparable<Powerball> {
 
-	// Serial Version ID Last Modified: 03/03/16
-	private static final long serialVersionUID = 549747274699951680L;
-	// Concurrent set collection used for storing randomly generated tickets.
-	private volatile static ConcurrentSkipListSet<Powerball> s_powerball_tickets = new ConcurrentSkipListSet<Powerball>();
+	// Serial Version ID Last Modified: 10/17/26
+	private static final long serialVersionUID = 2417983641590213077L;
+	// Game whose tickets, settings and save files the menu works on.
+	private volatile static LotteryGame s_game = LotteryGame.POWERBALL;
+	// Off-heap store of the randomly generated tickets, in the order they
+	// were generated.
+	private volatile static TicketStore s_powerball_tickets = new TicketStore(s_game);
 	// Maximum recurring numbers allowed in all randomly generated tickets.
-	private static int s_recur_limit = 3;
+	private volatile static int s_recur_limit = 3;
+	// Conflict index that rejects tickets breaking the recurrence limit.
+	private volatile static RecurrenceIndex s_recurrence_index = new RecurrenceIndex(s_game, s_recur_limit);
+	// Inverted index from every number to the randomly generated tickets
+	// holding it, used to check tickets against a draw.
+	private volatile static DrawIndex s_draw_index = new DrawIndex(s_game);
+	// Most tickets buffered between two stages of a ticket stream.
+	private static int s_stream_window = 65536;
+	// Amount of tickets shown on one page of the ticket viewer.
+	private static final int S_PAGE_SIZE = 20;
+	// Jackpot paid for the top prize tier when simulating draws, in dollars.
+	private static long s_jackpot = 20000000L;
+	// Consecutive rejections after which random generation hands the rest
+	// of a run to the coverage generator.
+	private static final long RANDOM_STALL_LIMIT = 100000L;
+	// Seeded source of every random run, or null to draw from unseeded
+	// thread-local generators.
+	private volatile static TicketRandom s_random = null;
 	// Winning Powerball number set.
-	private static Powerball s_winning_powerball = new Powerball();
-	// String name for Powerball Settings file.
-	private static final String S_POWERBALL_SETTINGS = "PowerballSettings.bin";
-	// String name for winning Powerball file. 
-	private static final String S_POWERBALL_WIN = "PowerballWin.bin";
-	// String name for random Powerball tickets file.
-	private static final String S_POWERBALL_RANDOM = "PowerballRandomTickets.bin";
-
-	// Possible value ranges for Powerball's white and red balls.
+	private volatile static Powerball s_winning_powerball = new Powerball();
+	// Save file names end with these strings and start with the file prefix
+	// of the game, such as "PowerballSettings.bin".
+	// String name ending for Settings file.
+	private static final String S_SETTINGS_SUFFIX = "Settings.bin";
+	// String name ending for winning ticket file.
+	private static final String S_WIN_SUFFIX = "Win.bin";
+	// String name ending for random tickets file.
+	private static final String S_RANDOM_SUFFIX = "Tickets.dat";
+	// String name ending for the journal of changes to the random tickets.
+	private static final String S_JOURNAL_SUFFIX = "Tickets.log";
+	// String name ending for the store of imported historical draws.
+	private static final String S_HISTORY_SUFFIX = "History.dat";
+	// Imported historical draws of the current game, or null until first read.
+	private static DrawHistory s_draw_history = null;
+	// Weights random tickets are drawn with, or null to draw them uniformly.
+	private volatile static TicketWeights s_weights = null;
+	// Open ticket store, or null until tickets are first read or written.
+	private static TicketJournal s_ticket_journal = null;
+	// Batches of generated and evicted tickets not yet appended to the ticket
+	// store, in the order they happened, so a ticket evicted and generated
+	// again is replayed as it is held.
+	private static final ConcurrentLinkedQueue<UnsavedBatch> s_unsaved_batches = new ConcurrentLinkedQueue<UnsavedBatch>();
+	// Whether the tickets were cleared since the ticket store was last saved.
+	// Changed along with s_unsaved_batches while holding its lock, as saves
+	// drain both on the save thread.
+	private volatile static boolean s_unsaved_clear = false;
+	// Changing the tickets and queueing the change share the read lock, so
+	// any amount of generator threads publish at once; a compaction takes it
+	// exclusively, so its snapshot holds exactly the changes it drained.
+	private static final ReentrantReadWriteLock s_publish_lock = new ReentrantReadWriteLock();
+	// Most conflicting pairs the menu lists after an audit.
+	private static final int S_AUDIT_PAIRS = 20;
+
+	// Smallest white and red ball of every game. The largest ones depend on
+	// the game; see LotteryGame.
 	public static final int WHITE_MIN = 1;
-	public static final int WHITE_MAX = 69;
 	public static final int RED_MIN = 1;
-	public static final int RED_MAX = 26;
+	// Largest white and red ball any game may use, set by the packed layout
+	// and the ticket code.
+	public static final int WHITE_CAPACITY = 72;
+	public static final int RED_CAPACITY = 31;
+	// Amount of white balls in every Powerball.
+	public static final int WHITE_PICKS = 5;
+
+	// Bit layout of the packed Powerball fields. White balls 1 to 64 are bits 0
+	// to 63 of "p_white_low". White balls 65 to 72 are bits 0 to 7 of
+	// "p_high_bits", the red ball is stored in bits 8 to 15 of the same word
+	// and the id of the ticket's game in bits 16 to 23.
+	private static final int LOW_WHITE_BITS = 64;
+	private static final long HIGH_WHITE_MASK = (1L << (WHITE_CAPACITY - LOW_WHITE_BITS)) - 1;
+	private static final int RED_SHIFT = 8;
+	private static final long RED_MASK = 0xFFL << RED_SHIFT;
+	private static final int GAME_SHIFT = 16;
+
+	// Layout of the packed ticket code used by ticket files. The white numbers
+	// take 7 bits each in ascending order with the smallest in the highest
+	// bits, followed by the red number in the lowest 5 bits. Codes compare in
+	// the same order as Powerball objects.
+	private static final int CODE_WHITE_BITS = 7;
+	private static final int CODE_RED_BITS = 5;
+	// Amount of bytes needed to hold a packed ticket code.
+	public static final int CODE_BYTES = (WHITE_PICKS * CODE_WHITE_BITS + CODE_RED_BITS + 7) / 8;
 
 	// Powerball fields
-	private TreeSet<Integer> p_white_numbers = new TreeSet<Integer>();
-	private int p_red_number = 1;
+	private long p_white_low = 0L;
+	private long p_high_bits = (long) RED_MIN << RED_SHIFT;
 
 	// #REGION CONSTRUCTORS
 
@@ -71,18 +149,21 @@ public class Powerball implements Serializable, Comparable<Powerball>, Runnable
 	 * assign the default values of 2, 3, 4, 5, and 6 respectively. 3) The
 	 * constructor that takes another Powerball object as argument will make a
 	 * copy of other object by making a copy of the other Powerball's white and
-	 * red numbers.
+	 * red numbers. 4) Constructors that take a LotteryGame first make a ticket
+	 * of that game; all others make Powerball tickets.
 	 */
 	public Powerball() {
-		while (this.p_white_numbers.size() != 5) {
-			this.p_white_numbers.add(ThreadLocalRandom.current().nextInt(WHITE_MAX) + WHITE_MIN);
-		}
-		this.p_red_number = ThreadLocalRandom.current().nextInt(RED_MAX) + RED_MIN;
+		this.assignRandomNumbers(LotteryGame.POWERBALL, ThreadLocalRandom.current());
 	}
 
 	public Powerball(Powerball pball) {
-		this.p_white_numbers = new TreeSet<Integer>(pball.p_white_numbers);
-		this.p_red_number = new Integer(pball.p_red_number);
+		this.p_white_low = pball.p_white_low;
+		this.p_high_bits = pball.p_high_bits;
+	}
+
+	private Powerball(long white_low, long high_bits) {
+		this.p_white_low = white_low;
+		this.p_high_bits = high_bits;
 	}
 
 	public Powerball(int first) {
@@ -106,12 +187,17 @@ public class Powerball implements Serializable, Comparable<Powerball>, Runnable
 	}
 
 	public Powerball(int first, int second, int third, int fourth, int fifth, int sixth) {
-		this.p_white_numbers.add(first);
-		this.p_white_numbers.add(second);
-		this.p_white_numbers.add(third);
-		this.p_white_numbers.add(fourth);
-		this.p_white_numbers.add(fifth);
-		this.p_red_number = sixth;
+		this(LotteryGame.POWERBALL, first, second, third, fourth, fifth, sixth);
+	}
+
+	public Powerball(LotteryGame game, int first, int second, int third, int fourth, int fifth, int sixth) {
+		this.p_high_bits = (long) game.getId() << GAME_SHIFT;
+		this.addWhiteNumber(first);
+		this.addWhiteNumber(second);
+		this.addWhiteNumber(third);
+		this.addWhiteNumber(fourth);
+		this.addWhiteNumber(fifth);
+		this.setRedNumber(sixth);
 	}
 	// #END CONSTRUCTORS
 
@@ -125,6 +211,52 @@ public class Powerball implements Serializable, Comparable<Powerball>, Runnable
 	 */
 	public static void setRecurLimit(int new_limit) {
 		s_recur_limit = new_limit;
+		s_recurrence_index = RecurrenceIndex.rebuild(s_game, new_limit, s_powerball_tickets);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that switches the menu to another lottery
+	 * game. The tickets, indexes and winning ticket of the previous game are
+	 * dropped from memory and its ticket store is closed, so unsaved changes
+	 * have to be written first; the recurrence limit carries over until the
+	 * new game's settings are read. Saves still queued for the previous game
+	 * are waited for first. AFFECTED FIELDS: 1) s_game 2)
+	 * s_powerball_tickets 3) s_recurrence_index 4) s_draw_index 5)
+	 * s_winning_powerball 6) s_ticket_journal 7) s_draw_history 8) s_weights
+	 * REQUIRED ARGUMENTS: 1) LotteryGame new_game - the game to switch to.
+	 */
+	public static void setGame(LotteryGame new_game) {
+		Powerball.flushSaves();
+		if (Powerball.s_ticket_journal != null) {
+			try {
+				Powerball.s_ticket_journal.close();
+			} catch (IOException e) {
+				System.out.println("ERROR: Unexpected issue occurred while closing the ticket store!");
+			}
+			Powerball.s_ticket_journal = null;
+		}
+		s_game = new_game;
+		s_powerball_tickets = new TicketStore(new_game);
+		s_recurrence_index = new RecurrenceIndex(new_game, s_recur_limit);
+		s_draw_index = new DrawIndex(new_game);
+		s_unsaved_batches.clear();
+		s_unsaved_clear = false;
+		s_winning_powerball = Powerball.random(new_game, ThreadLocalRandom.current());
+		s_draw_history = null;
+		s_weights = null;
+	}
+
+	public static LotteryGame getCurrentGame() {
+		return s_game;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns the name of a save file of the
+	 * current game. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) String
+	 * suffix - the end of the file name.
+	 */
+	private static String saveFile(String suffix) {
+		return s_game.getFilePrefix() + suffix;
 	}
 
 	/*
@@ -136,6 +268,67 @@ public class Powerball implements Serializable, Comparable<Powerball>, Runnable
 		return s_recur_limit;
 	}
 
+	/*
+	 * DESCRIPTION: Static method that returns the amount of randomly generated
+	 * tickets currently held. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public static int getTicketCount() {
+		return s_powerball_tickets.size();
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns a ticket universe holding the
+	 * randomly generated tickets currently held, for merges that keep them
+	 * and comparisons with ticket files. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: None.
+	 */
+	public static TicketUniverse getTicketUniverse() {
+		return s_powerball_tickets.toUniverse();
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns the bytes of direct memory held
+	 * by the ticket store, outside the Java heap. AFFECTED FIELDS: None.
+	 * REQUIRED ARGUMENTS: None.
+	 */
+	public static long getTicketStoreBytes() {
+		return s_powerball_tickets.getOffHeapBytes();
+	}
+
+	/*
+	 * DESCRIPTION: Static method that sets the source of random numbers. With
+	 * a seeded source, generation, streaming, winning number draws and
+	 * simulations repeat exactly in a session that runs them in the same
+	 * order, whatever the amount of worker threads. AFFECTED FIELDS: 1)
+	 * s_random REQUIRED ARGUMENTS: 1) TicketRandom new_random - the new
+	 * source, or null for unseeded runs.
+	 */
+	public static void setRandom(TicketRandom new_random) {
+		s_random = new_random;
+	}
+
+	public static TicketRandom getRandom() {
+		return s_random;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that sets the jackpot used when simulating
+	 * draws. AFFECTED FIELDS: 1) s_jackpot REQUIRED ARGUMENTS: 1) long
+	 * new_jackpot - the new jackpot in dollars.
+	 */
+	public static void setJackpot(long new_jackpot) {
+		s_jackpot = new_jackpot;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that sets the most tickets queued between the
+	 * stages of a ticket stream. AFFECTED FIELDS: 1) s_stream_window
+	 * REQUIRED ARGUMENTS: 1) int new_window - the new window size.
+	 */
+	public static void setStreamWindow(int new_window) {
+		s_stream_window = new_window;
+	}
+
 	/*
 	 * DESCRIPTION: Static method that serves as the central hub for all
 	 * Powerball lottery activities and methods. This method takes the user
@@ -154,7 +347,7 @@ public class Powerball implements Serializable, Comparable<Powerball>, Runnable
 			// Generate a random winning Powerball option.
 			if (choice.toString().equals("g")) {
 				Powerball.winningNumberGeneratorOption();
-				System.out.println("A new winning Powerball has been generated: " + Powerball.s_winning_powerball);
+				System.out.println("A new winning " + s_game + " has been generated: " + Powerball.s_winning_powerball);
 				Powerball.writeWinningPowerball();
 			}
 			// Generate user specified amount of random Powerball tickets
@@ -166,37 +359,173 @@ public class Powerball implements Serializable, Comparable<Powerball>, Runnable
 					@SuppressWarnings("resource")
 					Scanner int_scanner = new Scanner(System.in);
 					desired_amount = int_scanner.nextInt();
-					if (desired_amount < 1 || desired_amount > 30000) {
-						System.out.println("Invalid input; value must be greater than 0 and less than 30,001.");
-					} else if (desired_amount <= Powerball.s_powerball_tickets.size()) {
-						System.out.println(
-								"Desired amount of tickets is less than or equal to the current number of generated tickets. "
-										+ "Clearing previously generated tickets...");
-						Powerball.s_powerball_tickets.clear();
+					if (desired_amount < 1) {
+						System.out.println("Invalid input; value must be greater than 0.");
+					} else {
+						if (desired_amount <= Powerball.s_powerball_tickets.size()) {
+							System.out.println(
+									"Desired amount of tickets is less than or equal to the current number of generated tickets. "
+											+ "Clearing previously generated tickets...");
+							Powerball.clearRandomGeneratedTickets();
+						}
 						System.out.println("Computing...");
-						Powerball.parallelRandomTicketGeneratorOption(desired_amount);
-						System.out.println("Tickets generation complete.");
+						TicketGenerator.Result result = Powerball.parallelRandomTicketGeneratorOption(desired_amount);
+						if (result.isSaturated()) {
+							Powerball.showSaturationMessage();
+						}
+						System.out.println(String.format("Tickets generation complete: %,d tickets in %.3f seconds.",
+								result.getGenerated(), result.getElapsedNanos() / 1e9));
 						Powerball.writeRandomGeneratedTickets();
+					}
+				} catch (InputMismatchException e) {
+					System.out.println("Invalid input; value must be a whole number.");
+				} catch (Exception e) {
+					System.out.println("ERROR: Unexpected IO issue occurred!");
+				}
+			}
+			// Build user specified amount of Powerball tickets with the
+			// coverage generator option.
+			else if (choice.toString().equals("b")) {
+				System.out.println("The recurrence limit of " + Powerball.getRecurLimit() + " allows at most "
+						+ String.format("%,d", CoverageGenerator.maxTickets(s_game, Powerball.getRecurLimit())) + " tickets.");
+				System.out.println("Enter the amount of tickets to build:\n");
+				try {
+					@SuppressWarnings("resource")
+					Scanner build_scanner = new Scanner(System.in);
+					int desired_amount = build_scanner.nextInt();
+					if (desired_amount < 1) {
+						System.out.println("Invalid input; value must be greater than 0.");
 					} else {
+						if (desired_amount <= Powerball.s_powerball_tickets.size()) {
+							System.out.println(
+									"Desired amount of tickets is less than or equal to the current number of generated tickets. "
+											+ "Clearing previously generated tickets...");
+							Powerball.clearRandomGeneratedTickets();
+						}
 						System.out.println("Computing...");
-						Powerball.parallelRandomTicketGeneratorOption(desired_amount,
-								desired_amount - Powerball.s_powerball_tickets.size());
-						System.out.println("Tickets generation complete.");
+						TicketGenerator.Result result = Powerball.coverageTicketGeneratorOption(
+								desired_amount - s_powerball_tickets.size());
+						if (result.isSaturated()) {
+							Powerball.showSaturationMessage();
+						}
+						System.out.println(String.format("Tickets build complete: %,d tickets in %.3f seconds.",
+								result.getGenerated(), result.getElapsedNanos() / 1e9));
+						Powerball.showCoverageOption();
 						Powerball.writeRandomGeneratedTickets();
 					}
+				} catch (InputMismatchException e) {
+					System.out.println("Invalid input; value must be a whole number.");
+				} catch (Exception e) {
+					System.out.println("ERROR: Unexpected IO issue occurred!");
+				}
+			}
+			// Stream user specified amount of random Powerball tickets to a
+			// file or the console without saving them.
+			else if (choice.toString().equals("s")) {
+				System.out.println("Enter the amount of tickets to stream:\n");
+				try {
+					@SuppressWarnings("resource")
+					Scanner stream_scanner = new Scanner(System.in);
+					int stream_amount = stream_scanner.nextInt();
+					stream_scanner.nextLine();
+					System.out.println("Enter a file name to write to, or leave blank for the console:");
+					String file_name = stream_scanner.nextLine().trim();
+					if (stream_amount < 1) {
+						System.out.println("Invalid input; value must be greater than 0.");
+					} else {
+						TicketGenerator.Result result = Powerball.streamRandomTicketsOption(stream_amount,
+								file_name.isEmpty() ? null : file_name);
+						if (result.isSaturated()) {
+							System.out.println("The recurrence limit of " + Powerball.getRecurLimit()
+									+ " leaves no room for more tickets; stopped at " + result.getGenerated()
+									+ " tickets.");
+						}
+						System.out.println("Streamed " + result.getGenerated() + " tickets.");
+					}
+				} catch (IOException e) {
+					System.out.println("ERROR: Unexpected issue occurred while streaming tickets!");
+				} catch (InputMismatchException e) {
+					System.out.println("Invalid input; value must be a whole number.");
+				} catch (Exception e) {
+					System.out.println("ERROR: Unexpected IO issue occurred!");
+				}
+			}
+			// Simulate user specified amount of random draws against the
+			// saved tickets option.
+			else if (choice.toString().equals("m")) {
+				System.out.println("Enter the amount of draws to simulate:\n");
+				try {
+					@SuppressWarnings("resource")
+					Scanner draw_scanner = new Scanner(System.in);
+					long draws = draw_scanner.nextLong();
+					if (draws < 1) {
+						System.out.println("Invalid input; value must be greater than 0.");
+					} else if (s_powerball_tickets.isEmpty()) {
+						System.out.println("No tickets generated yet!");
+					} else {
+						System.out.println("Computing...");
+						System.out.println(Powerball.simulateDrawsOption(draws));
+					}
+				} catch (InputMismatchException e) {
+					System.out.println("Invalid input; value must be a whole number.");
 				} catch (Exception e) {
 					System.out.println("ERROR: Unexpected IO issue occurred!");
 				}
 			}
+			// Exact odds of the saved tickets over every possible draw option.
+			else if (choice.toString().equals("o")) {
+				if (s_powerball_tickets.isEmpty()) {
+					System.out.println("No tickets generated yet!");
+				} else {
+					System.out.println("Computing...");
+					System.out.println(Powerball.exactOddsOption());
+				}
+			}
+			// Check saved tickets against the winning Powerball option.
+			else if (choice.toString().equals("c")) {
+				if (s_powerball_tickets.isEmpty()) {
+					System.out.println("No tickets generated yet!");
+				} else {
+					Powerball.checkWinningNumberOption();
+				}
+			}
 			// Show winning Powerball option.
 			else if (choice.toString().equals("w")) {
-				System.out.print("The current winning Powerball is: ");
+				System.out.print("The current winning " + s_game + " is: ");
 				Powerball.showWinningNumberOption();
 			}
-			// View all randomly generated tickets option.
+			// View the saved tickets a page at a time option.
 			else if (choice.toString().equals("v")) {
 				Powerball.showRandomGeneratedTicketsOption();
 			}
+			// Export the saved tickets to a file or the console option.
+			else if (choice.toString().equals("x")) {
+				if (s_powerball_tickets.isEmpty()) {
+					System.out.println("No tickets generated yet!");
+				} else {
+					try {
+						@SuppressWarnings("resource")
+						Scanner export_scanner = new Scanner(System.in);
+						System.out.println("Enter a file name to write to, or leave blank for the console:");
+						String file_name = export_scanner.nextLine().trim();
+						System.out.println("Enter the format (text, csv, or jsonl):");
+						TicketExporter.Format format = TicketExporter.Format
+								.forName(export_scanner.nextLine().trim());
+						System.out.println(
+								"Enter a filter such as \"7 21 red=12\", or leave blank for every ticket:");
+						TicketFilter filter = TicketFilter.parse(s_game, export_scanner.nextLine());
+						long exported = Powerball.exportTicketsOption(file_name.isEmpty() ? null : file_name, format,
+								filter);
+						System.out.println("Exported " + exported + " tickets.");
+					} catch (IllegalArgumentException e) {
+						System.out.println("Invalid input; " + e.getMessage());
+					} catch (IOException e) {
+						System.out.println("ERROR: Unexpected issue occurred while exporting tickets!");
+					} catch (Exception e) {
+						System.out.println("ERROR: Unexpected IO issue occurred!");
+					}
+				}
+			}
 			// Delete all saved tickets option.
 			else if (choice.toString().equals("d")) {
 				Powerball.deleteRandomTicketsOption();
@@ -218,7 +547,104 @@ public class Powerball implements Serializable, Comparable<Powerball>, Runnable
 						Powerball.setRecurLimit(new_limit);
 						System.out.println("Recurrence limit has been set to " + new_limit + ".");
 						Powerball.writeRecurrenceLimit();
+						RecurrenceAudit audit = Powerball.auditTicketsOption();
+						if (audit.getViolatingPairs() > 0) {
+							System.out.println(String.format(
+									"%,d saved tickets break the new limit in %,d pairs; [u] lists and repairs them.",
+									audit.getViolatingTickets(), audit.getViolatingPairs()));
+						}
 					}
+				} catch (InputMismatchException e) {
+					System.out.println("Invalid input; value must be a whole number.");
+				} catch (Exception e) {
+					System.out.println("ERROR: Unexpected IO issue occurred!");
+				}
+			}
+			// Audit saved tickets against the recurrence limit option.
+			else if (choice.toString().equals("u")) {
+				if (s_powerball_tickets.isEmpty()) {
+					System.out.println("No tickets generated yet!");
+				} else {
+					RecurrenceAudit audit = Powerball.auditTicketsOption();
+					System.out.println(audit);
+					if (audit.getViolatingPairs() > 0) {
+						Powerball.showAuditPairs(audit);
+						long[] evicted = audit.repair();
+						System.out.println("Evict " + evicted.length + " tickets so no two break the limit? [y/n]");
+						@SuppressWarnings("resource")
+						Scanner repair_scanner = new Scanner(System.in);
+						if (repair_scanner.hasNextLine() && repair_scanner.nextLine().trim().equalsIgnoreCase("y")) {
+							System.out.println(Powerball.evictTicketsOption(evicted) + " tickets have been evicted.");
+							Powerball.writeRandomGeneratedTickets();
+						}
+					}
+				}
+			}
+			// Show runtime metrics option.
+			else if (choice.toString().equals("i")) {
+				Powerball.showMetricsOption();
+			}
+			// Import historical draws and show their statistics option.
+			else if (choice.toString().equals("a")) {
+				System.out.println("Enter a CSV file of draw results to import, or leave blank to only show"
+						+ " the statistics:");
+				try {
+					@SuppressWarnings("resource")
+					Scanner import_scanner = new Scanner(System.in);
+					String file_name = import_scanner.nextLine().trim();
+					if (!file_name.isEmpty()) {
+						System.out.println(Powerball.importDrawsOption(file_name));
+					}
+					Powerball.showDrawStatisticsOption();
+				} catch (IllegalArgumentException e) {
+					System.out.println("ERROR: " + e.getMessage());
+				} catch (IOException e) {
+					System.out.println("ERROR: Unexpected issue occurred while importing draws!");
+				} catch (Exception e) {
+					System.out.println("ERROR: Unexpected IO issue occurred!");
+				}
+			}
+			// Set the weighting of random ticket numbers option.
+			else if (choice.toString().equals("n")) {
+				System.out.println("Random tickets are drawn " + (s_weights == null ? "uniformly"
+						: "with " + s_weights + " weights") + ".");
+				System.out.println("Enter uniform, hot (favor the most drawn numbers), or cold (favor the most"
+						+ " overdue numbers):");
+				try {
+					@SuppressWarnings("resource")
+					Scanner weight_scanner = new Scanner(System.in);
+					String mode = weight_scanner.nextLine().trim();
+					Powerball.setWeighting(mode.equalsIgnoreCase("uniform") ? null : TicketWeights.Mode.forName(mode));
+					System.out.println("Random tickets are now drawn " + (s_weights == null ? "uniformly"
+							: "with " + s_weights + " weights") + ".");
+				} catch (IllegalArgumentException e) {
+					System.out.println("Invalid input; " + e.getMessage());
+				} catch (Exception e) {
+					System.out.println("ERROR: Unexpected IO issue occurred!");
+				}
+			}
+			// Switch lottery game option.
+			else if (choice.toString().equals("t")) {
+				LotteryGame[] games = LotteryGame.values();
+				System.out.println("The current game is: " + s_game);
+				System.out.println("Enter the number of the game to switch to:");
+				for (int i = 0; i < games.length; i++) {
+					System.out.println("[" + (i + 1) + "] - " + games[i]);
+				}
+				try {
+					@SuppressWarnings("resource")
+					Scanner game_scanner = new Scanner(System.in);
+					int game_number = game_scanner.nextInt();
+					if (game_number < 1 || game_number > games.length) {
+						System.out.println("Invalid input; value must be between 1 and " + games.length + ".");
+					} else {
+						Powerball.switchGameOption(games[game_number - 1]);
+						System.out.println("Switched to " + s_game + " with " + s_powerball_tickets.size()
+								+ " saved tickets.");
+						Powerball.helpOption();
+					}
+				} catch (InputMismatchException e) {
+					System.out.println("Invalid input; value must be a whole number.");
 				} catch (Exception e) {
 					System.out.println("ERROR: Unexpected IO issue occurred!");
 				}
@@ -229,7 +655,8 @@ public class Powerball implements Serializable, Comparable<Powerball>, Runnable
 			}
 		}
 		// Exit option
-		System.out.println("Exiting Powerball lottery simulator.");
+		Powerball.flushSaves();
+		System.out.println("Exiting " + s_game + " lottery simulator.");
 		scanner.close();
 	}
 
@@ -240,14 +667,26 @@ public class Powerball implements Serializable, Comparable<Powerball>, Runnable
 	 */
 	public static void helpOption() {
 		System.out.println("Enter the letter for the corresponding command from the list:");
-		System.out.println("[g] - Generate a new random winning Powerball number set.");
-		System.out.println("[r] - Generate user specified random Powerball tickets.");
-		System.out.println("[w] - Show winning Powerball.");
-		System.out.println("[v] - View previously saved tickets.");
+		System.out.println("Current game: " + s_game + ".");
+		System.out.println("[g] - Generate a new random winning " + s_game + " number set.");
+		System.out.println("[r] - Generate user specified random " + s_game + " tickets.");
+		System.out.println("[b] - Build user specified " + s_game + " tickets with the coverage generator.");
+		System.out.println("[s] - Stream user specified random " + s_game + " tickets to a file or the console.");
+		System.out.println("[m] - Simulate random draws against saved tickets.");
+		System.out.println("[o] - Compute the exact odds of saved tickets over every possible draw.");
+		System.out.println("[c] - Check saved tickets against the winning " + s_game + ".");
+		System.out.println("[w] - Show winning " + s_game + ".");
+		System.out.println("[v] - View previously saved tickets a page at a time.");
+		System.out.println("[x] - Export saved tickets as text, CSV, or JSON Lines.");
 		System.out.println("[d] - Delete all saved tickets.");
 		System.out.println("[l] - Set new number recurrence limit.");
+		System.out.println("[u] - Audit saved tickets against the recurrence limit and repair them.");
+		System.out.println("[i] - Show generator and file runtime metrics.");
+		System.out.println("[a] - Import historical " + s_game + " draws from a CSV file and show their statistics.");
+		System.out.println("[n] - Weight random ticket numbers by the historical draws.");
+		System.out.println("[t] - Switch to another lottery game.");
 		System.out.println("[h] - View command list.");
-		System.out.println("[e] - Exit Powerball lottery.\n");
+		System.out.println("[e] - Exit " + s_game + " lottery.\n");
 	}
 
 	/*
@@ -258,65 +697,315 @@ public class Powerball implements Serializable, Comparable<Powerball>, Runnable
 	 * FIELDS: 1) s_winning_powerball REQUIRED ARGUMENTS: None.
 	 */
 	public static void winningNumberGeneratorOption() {
-		Random random = new Random();
-		if (s_winning_powerball != null) {
-			s_winning_powerball.p_white_numbers.clear();
-		}
-		while (s_winning_powerball.p_white_numbers.size() != 5) {
-			s_winning_powerball.p_white_numbers.add(random.nextInt(WHITE_MAX) + WHITE_MIN);
+		TicketRandom random = s_random;
+		if (s_winning_powerball == null) {
+			s_winning_powerball = new Powerball();
 		}
-		s_winning_powerball.p_red_number = random.nextInt(RED_MAX) + RED_MIN;
+		s_winning_powerball.assignRandomNumbers(s_game,
+				random == null ? ThreadLocalRandom.current() : random.fork().stream(0));
 	}
 
 	/*
-	 * DEPRECATED 03/06/16 DESCRIPTION: Static method that generates a specified
-	 * amount of Powerball tickets in multithreading. If recurring tickets are
-	 * generated, the method will call the overloaded method of itself until the
-	 * desired amount of tickets has been achieved. AFFECTED FIELDS: 1)
+	 * DESCRIPTION: Static method that generates random Powerball tickets until
+	 * the set holds the specified amount of tickets. AFFECTED FIELDS: 1)
 	 * s_powerball_tickets REQUIRED ARGUMENTS: int number_of_tickets - the
-	 * amount of tickets the user wishes to generate.
+	 * amount of tickets the user wishes to have.
 	 */
-	public static void parallelRandomTicketGeneratorOption(int number_of_tickets) {
-		ExecutorService executor = Executors.newFixedThreadPool(number_of_tickets);
-		for (int i = 0; i < number_of_tickets; i++) {
-			executor.submit(new Powerball());
+	public static TicketGenerator.Result parallelRandomTicketGeneratorOption(int number_of_tickets) {
+		return Powerball.parallelRandomTicketGeneratorOption(number_of_tickets,
+				number_of_tickets - s_powerball_tickets.size());
+	}
+
+	/*
+	 * DESCRIPTION: Static method that generates a specified amount of
+	 * Powerball tickets on a worker pool sized to the available cores. Workers
+	 * draw tickets in batches, reject those breaking the recurrence limit and
+	 * add the rest to the set in bulk. Once random tickets stop fitting, the
+	 * coverage generator places the rest, so a nearly saturated limit costs
+	 * one sweep over the white number sets rather than an open-ended run of
+	 * rejections. Generation stops early if the recurrence limit leaves no
+	 * room for more tickets; the returned result reports how many tickets
+	 * were actually added. AFFECTED FIELDS: 1)
+	 * s_powerball_tickets REQUIRED ARGUMENTS: 1) int number_of_tickets - the
+	 * amount of tickets the user wishes to generate. 2) int tickets_remaining
+	 * - the number of tickets still needed to be generated for the goal to be
+	 * met.
+	 */
+	public static TicketGenerator.Result parallelRandomTicketGeneratorOption(int number_of_tickets,
+			int tickets_remaining) {
+		PowerballMetrics metrics = PowerballMetrics.get();
+		TicketGenerator generator = new TicketGenerator(s_recurrence_index, Powerball::publishTickets,
+				Runtime.getRuntime().availableProcessors(), TicketGenerator.DEFAULT_BATCH_SIZE, RANDOM_STALL_LIMIT,
+				s_weights);
+		TicketRandom random = s_random == null ? null : s_random.fork();
+		long start = System.nanoTime();
+		TicketGenerator.Result result = random == null ? generator.generate(tickets_remaining)
+				: generator.generate(tickets_remaining, random);
+		if (result.isSaturated()) {
+			CoverageGenerator coverage = new CoverageGenerator(s_recurrence_index, Powerball::publishTickets);
+			TicketGenerator.Result rest = coverage.generate(tickets_remaining - result.getGenerated(),
+					random == null ? ThreadLocalRandom.current() : random.stream(-1L));
+			result = new TicketGenerator.Result(tickets_remaining, result.getGenerated() + rest.getGenerated(),
+					result.getAttempts() + rest.getAttempts(), result.getBatches() + rest.getBatches(),
+					result.getThreads(), rest.isSaturated(), System.nanoTime() - start);
+		}
+		metrics.record(PowerballMetrics.Timer.GENERATE, start);
+		metrics.recordRun(result);
+		return result;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that draws up to a specified amount of new
+	 * tickets on the calling thread and adds them to the saved tickets. Many
+	 * callers can run at once: each claims its tickets in the shared
+	 * recurrence index through atomic updates, so no caller waits on another.
+	 * Fewer tickets are returned once "RANDOM_STALL_LIMIT" candidates in a row
+	 * are rejected. AFFECTED FIELDS: 1) s_powerball_tickets REQUIRED
+	 * ARGUMENTS: 1) int number_of_tickets - the most tickets to draw.
+	 */
+	public static List<Powerball> drawTicketsOption(int number_of_tickets) {
+		long start = System.nanoTime();
+		RecurrenceIndex index = s_recurrence_index;
+		TicketWeights weights = s_weights;
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		List<Powerball> batch = new ArrayList<Powerball>(number_of_tickets);
+		long attempts = 0;
+		long rejected_in_row = 0;
+		while (batch.size() < number_of_tickets && rejected_in_row < RANDOM_STALL_LIMIT) {
+			Powerball candidate = weights == null ? Powerball.random(s_game, random) : weights.draw(random);
+			attempts++;
+			if (index.tryInsert(candidate)) {
+				batch.add(candidate);
+				rejected_in_row = 0;
+			} else {
+				rejected_in_row++;
+			}
+		}
+		if (!batch.isEmpty()) {
+			Powerball.publishTickets(batch);
 		}
-		executor.shutdown();
+		PowerballMetrics metrics = PowerballMetrics.get();
+		metrics.record(PowerballMetrics.Timer.GENERATE, start);
+		metrics.recordRun(new TicketGenerator.Result(number_of_tickets, batch.size(), attempts, 1, 1,
+				batch.size() < number_of_tickets, System.nanoTime() - start));
+		return batch;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that adds a specified amount of Powerball
+	 * tickets with the coverage generator alone, which walks the white number
+	 * sets in a fixed order and keeps every one that fits the recurrence
+	 * limit. Its run time stays the same however full the set is, and a run
+	 * that stops early leaves a set no ticket can be added to. AFFECTED
+	 * FIELDS: 1) s_powerball_tickets REQUIRED ARGUMENTS: 1) int
+	 * tickets_remaining - the amount of tickets to add.
+	 */
+	public static TicketGenerator.Result coverageTicketGeneratorOption(int tickets_remaining) {
+		CoverageGenerator generator = new CoverageGenerator(s_recurrence_index, Powerball::publishTickets);
+		long start = System.nanoTime();
+		TicketGenerator.Result result = generator.generate(tickets_remaining,
+				s_random == null ? ThreadLocalRandom.current() : s_random.fork().stream(0));
+		PowerballMetrics metrics = PowerballMetrics.get();
+		metrics.record(PowerballMetrics.Timer.GENERATE, start);
+		metrics.recordRun(result);
+		return result;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that adds a batch of generated tickets to the
+	 * store and the draw index and queues it for the next save, under the
+	 * read lock of "s_publish_lock" so a compaction never snapshots a batch
+	 * that is not queued yet. Called from generator threads. AFFECTED FIELDS: 1) s_powerball_tickets 2)
+	 * s_draw_index 3) s_unsaved_batches REQUIRED ARGUMENTS: 1)
+	 * List<Powerball> batch - the accepted tickets.
+	 */
+	private static void publishTickets(List<Powerball> batch) {
+		PowerballMetrics metrics = PowerballMetrics.get();
+		s_publish_lock.readLock().lock();
 		try {
-			executor.awaitTermination(1, TimeUnit.DAYS);
-		} catch (InterruptedException e) {
-			System.out.println("ERROR: Thread pool exceeded allotted time.");
+			long start = System.nanoTime();
+			s_powerball_tickets.addAll(batch);
+			metrics.record(PowerballMetrics.Timer.PUBLISH, start);
+			start = System.nanoTime();
+			s_draw_index.addAll(batch);
+			metrics.record(PowerballMetrics.Timer.INDEX, start);
+			s_unsaved_batches.add(new UnsavedBatch(batch, false));
+		} finally {
+			s_publish_lock.readLock().unlock();
 		}
-		if (s_powerball_tickets.size() < number_of_tickets) {
-			Powerball.parallelRandomTicketGeneratorOption(number_of_tickets,
-					number_of_tickets - s_powerball_tickets.size());
+	}
+
+	/*
+	 * DESCRIPTION: Static method that tells the user the recurrence limit left
+	 * no room for more tickets, along with the most tickets it allows.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	private static void showSaturationMessage() {
+		System.out.println("The recurrence limit of " + Powerball.getRecurLimit()
+				+ " leaves no room for more tickets; stopped at " + s_powerball_tickets.size() + " tickets (at most "
+				+ String.format("%,d", CoverageGenerator.maxTickets(s_game, Powerball.getRecurLimit()))
+				+ " possible).");
+	}
+
+	/*
+	 * DESCRIPTION: Static method that shows how many distinct white number
+	 * pairs and triples the saved tickets cover. AFFECTED FIELDS: None.
+	 * REQUIRED ARGUMENTS: None.
+	 */
+	public static void showCoverageOption() {
+		for (int size = 2; size <= 3; size++) {
+			long covered = CoverageGenerator.coveredSubsets(s_game, s_powerball_tickets, size);
+			long total = s_game.subsetCount(size);
+			System.out.println(String.format("%s covered: %,d of %,d (%.2f%%)", size == 2 ? "Pairs" : "Triples",
+					covered, total, 100.0 * covered / total));
 		}
 	}
 
 	/*
-	 * DESCRIPTION: Recursive static method that generates a specified amount of
-	 * Powerball tickets in multithreading. If recurring tickets are generated,
-	 * the method will call itself until the desired amount of tickets has been
-	 * met. AFFECTED FIELDS: 1) s_powerball_tickets REQUIRED ARGUMENTS: 1) int
-	 * number_of_tickets - the amount of tickets the user wishes to generate. 2)
-	 * int tickets_remaining - the number of tickets still needed to be
-	 * generated for the goal to be met.
+	 * DESCRIPTION: Static method that streams a specified amount of random
+	 * Powerball tickets under the current recurrence limit to a file or the
+	 * console, one ticket per line. Streamed tickets are not kept in memory or
+	 * added to the saved tickets, and at most "s_stream_window" tickets are
+	 * queued between the pipeline stages. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: 1) int number_of_tickets - the amount of tickets to stream. 2)
+	 * String file_name - the file to write to, or null for the console.
 	 */
-	public static void parallelRandomTicketGeneratorOption(int number_of_tickets, int tickets_remaining) {
-		ExecutorService executor = Executors.newFixedThreadPool(tickets_remaining);
-		for (int i = 0; i < tickets_remaining; i++) {
-			executor.submit(new Powerball());
+	public static TicketGenerator.Result streamRandomTicketsOption(int number_of_tickets, String file_name)
+			throws IOException {
+		PowerballMetrics metrics = PowerballMetrics.get();
+		TicketStream stream = new TicketStream(s_game, s_recur_limit, s_stream_window,
+				Runtime.getRuntime().availableProcessors(), s_weights);
+		TicketRandom random = s_random == null ? null : s_random.fork();
+		long start = System.nanoTime();
+		TicketGenerator.Result result;
+		if (file_name == null) {
+			Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+			result = stream.stream(number_of_tickets, out, random);
+		} else {
+			try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file_name, false)))) {
+				result = stream.stream(number_of_tickets, out, random);
+			}
 		}
-		executor.shutdown();
-		try {
-			executor.awaitTermination(1, TimeUnit.DAYS);
-		} catch (InterruptedException e) {
-			System.out.println("ERROR: Thread pool exceeded allotted time.");
+		metrics.record(PowerballMetrics.Timer.STREAM, start);
+		metrics.recordRun(result);
+		return result;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that streams a specified amount of Powerball
+	 * tickets built by the coverage generator under the current recurrence
+	 * limit to a file or the console, one ticket per line, without saving
+	 * them. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) int
+	 * number_of_tickets - the amount of tickets to stream. 2) String file_name
+	 * - the file to write to, or null for the console.
+	 */
+	public static TicketGenerator.Result streamCoverageTicketsOption(int number_of_tickets, String file_name)
+			throws IOException {
+		TicketStream stream = new TicketStream(s_game, s_recur_limit, s_stream_window);
+		RandomGenerator random = s_random == null ? ThreadLocalRandom.current() : s_random.fork().stream(0);
+		long start = System.nanoTime();
+		TicketGenerator.Result result;
+		if (file_name == null) {
+			Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+			result = stream.cover(number_of_tickets, out, random);
+		} else {
+			try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file_name, false)))) {
+				result = stream.cover(number_of_tickets, out, random);
+			}
+		}
+		PowerballMetrics metrics = PowerballMetrics.get();
+		metrics.record(PowerballMetrics.Timer.STREAM, start);
+		metrics.recordRun(result);
+		return result;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that runs a specified amount of random draws
+	 * in parallel and scores every saved ticket against each draw, counting
+	 * the hits of every prize tier along with the money spent and won.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) long number_of_draws - the
+	 * amount of draws to simulate.
+	 */
+	public static DrawSimulator.Result simulateDrawsOption(long number_of_draws) {
+		long start = System.nanoTime();
+		DrawSimulator simulator = new DrawSimulator(s_game, s_jackpot);
+		TicketRandom random = s_random;
+		DrawSimulator.Result result = simulator.simulate(s_powerball_tickets, number_of_draws,
+				random == null ? new SplittableRandom() : random.fork().splittable());
+		PowerballMetrics.get().record(PowerballMetrics.Timer.SIMULATE, start);
+		return result;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that scores the saved tickets against every
+	 * possible draw in parallel, giving the exact hits of every prize tier,
+	 * the exact odds of the best ticket landing in each tier and the mean and
+	 * spread of the money won per draw. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: None.
+	 */
+	public static ExactOdds.Result exactOddsOption() {
+		long start = System.nanoTime();
+		ExactOdds.Result result = new ExactOdds(s_game, s_jackpot).enumerate(s_powerball_tickets);
+		PowerballMetrics.get().record(PowerballMetrics.Timer.ODDS, start);
+		return result;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that checks every saved ticket against the
+	 * winning Powerball through the per-number index and shows the hits of
+	 * every prize tier, followed by the tickets matching 4 or more white
+	 * numbers. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public static DrawSimulator.Result checkWinningNumberOption() {
+		return Powerball.checkDrawOption(s_winning_powerball);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that checks every saved ticket against the
+	 * given draw through the per-number index and shows the hits of every
+	 * prize tier, followed by the tickets matching 4 or more white numbers.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) Powerball draw - the drawn
+	 * numbers.
+	 */
+	public static DrawSimulator.Result checkDrawOption(Powerball draw) {
+		DrawSimulator.Result result = Powerball.checkDraw(draw);
+		System.out.println("Winning " + s_game + ": " + draw);
+		System.out.println(result);
+		List<Powerball> winners = s_draw_index.matching(draw, 4, false, 20);
+		if (!winners.isEmpty()) {
+			System.out.println("Tickets matching 4 or more white numbers:");
+			for (Powerball pball : winners) {
+				System.out.println(pball);
+			}
 		}
-		if (s_powerball_tickets.size() < number_of_tickets) {
-			Powerball.parallelRandomTicketGeneratorOption(number_of_tickets,
-					number_of_tickets - s_powerball_tickets.size());
+		return result;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that checks every saved ticket against the
+	 * given draw through the per-number index and returns the hits of every
+	 * prize tier without showing them. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: 1) Powerball draw - the drawn numbers.
+	 */
+	public static DrawSimulator.Result checkDraw(Powerball draw) {
+		long start = System.nanoTime();
+		DrawIndex index = s_draw_index;
+		PrizeTable table = s_game.getPrizeTable();
+		long[] hits = index.countTiers(draw, table);
+		// Counted from the hits, which come from a single snapshot of the index
+		// even while tickets are being added.
+		int tickets = 0;
+		for (long tier_hits : hits) {
+			tickets += (int) tier_hits;
 		}
+		DrawSimulator.Result result = new DrawSimulator.Result(table, s_jackpot, tickets, 1, hits,
+				System.nanoTime() - start);
+		PowerballMetrics.get().record(PowerballMetrics.Timer.CHECK, start);
+		return result;
+	}
+
+	public static Powerball getWinningPowerball() {
+		return s_winning_powerball;
 	}
 
 	/*
@@ -325,87 +1014,457 @@ public class Powerball implements Serializable, Comparable<Powerball>, Runnable
 	 * user. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
 	 */
 	public static void showWinningNumberOption() {
-		if (!s_winning_powerball.p_white_numbers.isEmpty()) {
+		if (s_winning_powerball.getWhiteCount() != 0) {
 			System.out.println(s_winning_powerball.toString());
 		} else {
-			System.out.println("A winning Powerball has not been retrieved/generated yet!");
+			System.out.println("A winning " + s_game + " has not been retrieved/generated yet!");
 		}
 	}
 
 	/*
-	 * DESCRIPTION: Static method that displays the randomly generated tickets.
-	 * If no tickets has been generated yet, a message will be displayed to the
+	 * DESCRIPTION: Static method that displays the randomly generated tickets
+	 * kept by a filter the user enters, "S_PAGE_SIZE" tickets at a time, in
+	 * the order they were generated. Pages are found by walking the store's
+	 * log forwards from the position of the last ticket shown or backwards
+	 * from the first, so no page needs the tickets before it to be copied. If
+	 * no tickets has been generated yet, a message will be displayed to the
 	 * user. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
 	 */
 	public static void showRandomGeneratedTicketsOption() {
-		if (!s_powerball_tickets.isEmpty()) {
-			for (Powerball pball : s_powerball_tickets) {
-				System.out.println(pball);
+		TicketStore tickets = s_powerball_tickets;
+		if (tickets.isEmpty()) {
+			System.out.println("No tickets generated yet!");
+			return;
+		}
+		@SuppressWarnings("resource")
+		Scanner page_scanner = new Scanner(System.in);
+		System.out.println("Enter a filter such as \"7 21 red=12\", or leave blank for every ticket:");
+		TicketFilter filter;
+		try {
+			filter = TicketFilter.parse(s_game, page_scanner.nextLine());
+		} catch (IllegalArgumentException e) {
+			System.out.println("Invalid input; " + e.getMessage());
+			return;
+		}
+		Powerball[] page = new Powerball[S_PAGE_SIZE];
+		long[] positions = new long[S_PAGE_SIZE];
+		StringBuilder text = new StringBuilder(S_PAGE_SIZE * 32);
+		long first = -1;
+		long last = -1;
+		int page_number = 0;
+		String command = "n";
+		while (true) {
+			int count;
+			if (command.equals("n") || command.isEmpty()) {
+				count = Powerball.fillPage(tickets, last + 1, 1, filter, page, positions);
+				if (count > 0) {
+					page_number++;
+				}
+			} else if (command.equals("p") && first >= 0) {
+				count = Powerball.fillPage(tickets, first - 1, -1, filter, page, positions);
+				for (int i = 0, j = count - 1; i < j; i++, j--) {
+					Powerball swap = page[i];
+					page[i] = page[j];
+					page[j] = swap;
+					long position = positions[i];
+					positions[i] = positions[j];
+					positions[j] = position;
+				}
+				if (count > 0) {
+					page_number--;
+				}
+			} else if (command.equals("q")) {
+				return;
+			} else {
+				count = -1;
+			}
+			text.setLength(0);
+			if (count > 0) {
+				first = positions[0];
+				last = positions[count - 1];
+				text.append("Page ").append(page_number).append(" (").append(filter).append(", ")
+						.append(tickets.size()).append(" saved tickets):\n");
+				for (int i = 0; i < count; i++) {
+					page[i].appendTo(text).append('\n');
+				}
+			} else if (count == 0) {
+				text.append(page_number == 0 ? "No tickets match the filter.\n" : "No more tickets that way.\n");
 			}
-			System.out.println("The current number of tickets is: " + s_powerball_tickets.size());
+			if (page_number == 0) {
+				System.out.print(text);
+				return;
+			}
+			text.append("[n] - Next page. [p] - Previous page. [q] - Back to the menu.\n");
+			System.out.print(text);
+			if (!page_scanner.hasNextLine()) {
+				return;
+			}
+			command = page_scanner.nextLine().trim().toLowerCase();
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Static method that fills a page with the tickets kept by a
+	 * filter, walking the log of a store from a position in one direction, and
+	 * returns how many were found. AFFECTED FIELDS: None. REQUIRED ARGUMENTS:
+	 * 1) TicketStore tickets - the store to walk. 2) long start - the first
+	 * log position to look at. 3) int step - 1 to walk forwards, -1 to walk
+	 * backwards. 4) TicketFilter filter - the filter the tickets must pass. 5)
+	 * Powerball[] page - the page to fill. 6) long[] positions - receives the
+	 * log position of every ticket on the page.
+	 */
+	private static int fillPage(TicketStore tickets, long start, int step, TicketFilter filter, Powerball[] page,
+			long[] positions) {
+		int count = 0;
+		long records = tickets.getRecordCount();
+		for (long position = start; count < page.length && position >= 0 && position < records; position += step) {
+			long code = tickets.getCode(position);
+			if (code >= 0) {
+				Powerball pball = Powerball.fromCode(tickets.getGame(), code);
+				if (filter.test(pball)) {
+					page[count] = pball;
+					positions[count++] = position;
+				}
+			}
+		}
+		return count;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that generates one shard of random tickets
+	 * under the current recurrence limit from the numbered stream of the
+	 * seeded random source and writes it sorted to a ticket file. Shards are
+	 * not added to the saved tickets; see "mergeShardsOption". AFFECTED
+	 * FIELDS: None. REQUIRED ARGUMENTS: 1) int number_of_tickets - the amount
+	 * of tickets in the shard. 2) int shard - the shard number. 3) String
+	 * file_name - the shard file to write.
+	 */
+	public static TicketShards.ShardResult generateShardOption(int number_of_tickets, int shard, String file_name)
+			throws IOException {
+		if (s_random == null) {
+			throw new IllegalArgumentException("Shards need a seed so every shard draws its own random stream.");
+		}
+		long start = System.nanoTime();
+		TicketShards.ShardResult result = TicketShards.generate(s_game, s_recur_limit, number_of_tickets, s_random,
+				shard, file_name);
+		PowerballMetrics.get().record(PowerballMetrics.Timer.SHARD, start);
+		return result;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that merges sorted ticket files, such as
+	 * shards, under the current recurrence limit into a ticket file or into
+	 * the ticket store. Merging into the store replaces the saved tickets: the
+	 * new snapshot gets the next stamp, so the old journal is discarded the
+	 * next time the store is opened. The tickets in memory are not reloaded.
+	 * AFFECTED FIELDS: 1) s_ticket_journal REQUIRED ARGUMENTS: 1) List<String>
+	 * file_names - the sorted ticket files. 2) long max_tickets - the most
+	 * tickets to keep. 3) String out_file - the ticket file to write, or null
+	 * for the ticket store.
+	 */
+	public static TicketShards.MergeResult mergeShardsOption(List<String> file_names, long max_tickets,
+			String out_file) throws IOException {
+		return Powerball.mergeShardsOption(file_names, max_tickets, out_file, null);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that merges sorted ticket files as above,
+	 * always keeping the given tickets and holding new tickets to the
+	 * recurrence limit against them, so saved tickets can be added to rather
+	 * than replaced. AFFECTED FIELDS: 1) s_ticket_journal REQUIRED ARGUMENTS:
+	 * 1) to 3) as above. 4) TicketUniverse kept - the tickets to keep, or
+	 * null.
+	 */
+	public static TicketShards.MergeResult mergeShardsOption(List<String> file_names, long max_tickets,
+			String out_file, TicketUniverse kept) throws IOException {
+		long start = System.nanoTime();
+		TicketShards.MergeResult result;
+		if (out_file != null) {
+			result = TicketShards.merge(s_game, s_recur_limit, file_names, max_tickets, out_file, 0L, kept);
 		} else {
-			System.out.println("No tickets generated yet!");
+			Powerball.flushSaves();
+			if (Powerball.s_ticket_journal != null) {
+				Powerball.s_ticket_journal.close();
+				Powerball.s_ticket_journal = null;
+			}
+			String snapshot = Powerball.saveFile(S_RANDOM_SUFFIX);
+			long stamp = 1L;
+			if (new File(snapshot).exists()) {
+				try (TicketFile old_snapshot = TicketFile.open(snapshot)) {
+					stamp = old_snapshot.getStamp() + 1;
+				}
+			}
+			result = TicketShards.merge(s_game, s_recur_limit, file_names, max_tickets, snapshot, stamp, kept);
+		}
+		PowerballMetrics.get().record(PowerballMetrics.Timer.MERGE, start);
+		return result;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that writes the saved tickets kept by a
+	 * filter to a file or the console in the given format and returns how
+	 * many were written. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) String
+	 * file_name - the file to write to, or null for the console. 2)
+	 * TicketExporter.Format format - the format of the lines. 3) TicketFilter
+	 * filter - the filter the tickets must pass.
+	 */
+	public static long exportTicketsOption(String file_name, TicketExporter.Format format, TicketFilter filter)
+			throws IOException {
+		long start = System.nanoTime();
+		long exported;
+		try (TicketExporter exporter = file_name == null ? TicketExporter.toConsole(format)
+				: TicketExporter.toFile(file_name, format)) {
+			exported = exporter.export(s_powerball_tickets, filter);
+		}
+		PowerballMetrics.get().record(PowerballMetrics.Timer.EXPORT, start);
+		return exported;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns the imported historical draws of
+	 * the current game, reading them from their store on first use. AFFECTED
+	 * FIELDS: 1) s_draw_history REQUIRED ARGUMENTS: None.
+	 */
+	public static DrawHistory readDrawHistory() throws IOException {
+		if (s_draw_history == null) {
+			s_draw_history = DrawHistory.open(s_game, Powerball.saveFile(S_HISTORY_SUFFIX));
+		}
+		return s_draw_history;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that imports the draws of a CSV file dated
+	 * after the last stored draw, appending them to the store and counting
+	 * them into the statistics. Ticket weights in use are rebuilt from the new
+	 * statistics. AFFECTED FIELDS: 1) s_draw_history 2) s_weights REQUIRED
+	 * ARGUMENTS: 1) String csv_file - the CSV file to import.
+	 */
+	public static DrawHistory.ImportResult importDrawsOption(String csv_file) throws IOException {
+		long start = System.nanoTime();
+		DrawHistory history = Powerball.readDrawHistory();
+		DrawHistory.ImportResult result = history.importCsv(csv_file);
+		TicketWeights weights = s_weights;
+		if (weights != null && result.getImported() > 0) {
+			s_weights = TicketWeights.of(history.getStatistics(), weights.getMode());
+		}
+		PowerballMetrics.get().record(PowerballMetrics.Timer.IMPORT, start);
+		return result;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that shows the statistics of the imported
+	 * historical draws. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public static void showDrawStatisticsOption() throws IOException {
+		DrawHistory history = Powerball.readDrawHistory();
+		if (history.size() == 0) {
+			System.out.println("No historical " + s_game + " draws imported yet!");
+		} else {
+			System.out.println("Historical " + s_game + " draws from " + history.getDate(0) + " to "
+					+ history.getDate(history.size() - 1) + ":");
+			System.out.print(history.getStatistics());
 		}
 	}
 
+	/*
+	 * DESCRIPTION: Static method that sets how random tickets are drawn: with
+	 * weights built from the imported historical draws, or uniformly. Throws
+	 * IllegalArgumentException if weights are asked for before any draws are
+	 * imported. AFFECTED FIELDS: 1) s_weights REQUIRED ARGUMENTS: 1)
+	 * TicketWeights.Mode mode - the weighting, or null for uniform draws.
+	 */
+	public static void setWeighting(TicketWeights.Mode mode) throws IOException {
+		s_weights = mode == null ? null : TicketWeights.of(Powerball.readDrawHistory().getStatistics(), mode);
+	}
+
+	public static TicketWeights getWeights() {
+		return s_weights;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that shows the generator counters and the
+	 * time spent in every timed section, including the ticket and settings
+	 * reads and writes. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public static void showMetricsOption() {
+		System.out.print(PowerballMetrics.get());
+		System.out.println(String.format("Background saves: %,d written, %,d merged into a waiting save.",
+				SaveQueue.get().getWritten(), SaveQueue.get().getMerged()));
+		System.out.println(String.format("Ticket store: %,d tickets in %,d bytes of direct memory.",
+				s_powerball_tickets.size(), s_powerball_tickets.getOffHeapBytes()));
+	}
+
 	/*
 	 * DESCRIPTION: Static method that deletes all current and saved randomly
 	 * generated tickets. AFFECTED FIELDS: s_powerball_tickets. REQUIRED
 	 * ARGUMENTS: None.
 	 */
 	public static void deleteRandomTicketsOption() {
-		Powerball.s_powerball_tickets.clear();
+		Powerball.clearRandomGeneratedTickets();
 		Powerball.writeRandomGeneratedTickets();
 	}
 
+	/*
+	 * DESCRIPTION: Static method that saves the tickets of the current game,
+	 * switches to another game and loads its recurrence limit, winning ticket
+	 * and saved tickets. AFFECTED FIELDS: Every game field. REQUIRED
+	 * ARGUMENTS: 1) LotteryGame new_game - the game to switch to.
+	 */
+	public static void switchGameOption(LotteryGame new_game) {
+		Powerball.writeRandomGeneratedTickets();
+		Powerball.setGame(new_game);
+		Powerball.readRecurrenceLimit();
+		Powerball.readWinningPowerball();
+		Powerball.readRandomGeneratedTickets();
+	}
+
+	/*
+	 * DESCRIPTION: Static method that removes all randomly generated tickets
+	 * from memory along with their index entries. The removal is saved to the
+	 * ticket store by the next "writeRandomGeneratedTickets". AFFECTED FIELDS:
+	 * 1) s_powerball_tickets 2) s_recurrence_index 3) s_draw_index REQUIRED
+	 * ARGUMENTS: None.
+	 */
+	public static void clearRandomGeneratedTickets() {
+		Powerball.s_publish_lock.readLock().lock();
+		try {
+			Powerball.s_powerball_tickets.clear();
+			Powerball.s_recurrence_index.clear();
+			Powerball.s_draw_index.clear();
+			synchronized (Powerball.s_unsaved_batches) {
+				Powerball.s_unsaved_batches.clear();
+				Powerball.s_unsaved_clear = true;
+			}
+		} finally {
+			Powerball.s_publish_lock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Static method that audits the randomly generated tickets
+	 * against the current recurrence limit and returns the audit, which can
+	 * list the pairs of tickets breaking it and pick tickets to evict.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public static RecurrenceAudit auditTicketsOption() {
+		long start = System.nanoTime();
+		RecurrenceAudit audit = RecurrenceAudit.of(s_powerball_tickets, s_recur_limit);
+		PowerballMetrics.get().record(PowerballMetrics.Timer.AUDIT, start);
+		return audit;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that removes the given tickets, such as the
+	 * ones picked by "RecurrenceAudit.repair", from memory along with their
+	 * index entries and returns how many were removed. Both indexes are
+	 * rebuilt from the remaining tickets, which takes one pass however many
+	 * tickets are evicted, and the removal is appended to the journal by the
+	 * next "writeRandomGeneratedTickets". AFFECTED FIELDS: 1)
+	 * s_powerball_tickets 2) s_recurrence_index 3) s_draw_index 4)
+	 * s_unsaved_batches REQUIRED ARGUMENTS: 1) long[] codes - the packed codes
+	 * of the tickets to remove.
+	 */
+	public static int evictTicketsOption(long[] codes) {
+		List<Powerball> evicted = new ArrayList<Powerball>();
+		s_publish_lock.readLock().lock();
+		try {
+			for (long code : codes) {
+				if (s_powerball_tickets.removeCode(code)) {
+					evicted.add(Powerball.fromCode(s_game, code));
+				}
+			}
+			if (!evicted.isEmpty()) {
+				s_unsaved_batches.add(new UnsavedBatch(evicted, true));
+			}
+		} finally {
+			s_publish_lock.readLock().unlock();
+		}
+		s_recurrence_index = RecurrenceIndex.rebuild(s_game, s_recur_limit, s_powerball_tickets);
+		s_draw_index = DrawIndex.of(s_game, s_powerball_tickets);
+		return evicted.size();
+	}
+
+	/*
+	 * DESCRIPTION: Static method that prints up to "S_AUDIT_PAIRS" of the
+	 * pairs of tickets breaking the recurrence limit found by an audit.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) RecurrenceAudit audit -
+	 * the audit to list.
+	 */
+	private static void showAuditPairs(RecurrenceAudit audit) {
+		StringBuilder text = new StringBuilder();
+		int[] shown = { 0 };
+		audit.forEachPair((first, second, shared) -> {
+			first.appendTo(text).append(" and ");
+			second.appendTo(text).append(" share ").append(shared).append(" white numbers.\n");
+			return ++shown[0] < S_AUDIT_PAIRS;
+		});
+		if (audit.getViolatingPairs() > S_AUDIT_PAIRS) {
+			text.append(String.format("... and %,d more pairs.%n", audit.getViolatingPairs() - S_AUDIT_PAIRS));
+		}
+		System.out.print(text);
+	}
+
 	// #REGION READ/WRITE METHODS
 
 	/*
 	 * DESCRIPTION: Static method that reads the recurrence limit saved from the
 	 * Powerball settings file. AFFECTED FIELDS: s_recur_limit. REQUIRED
-	 * ARGUMENTS/FIELDS: String S_POWERBALL_SETTINGS - this string stores the
-	 * name of the file used for reading the integer.
+	 * ARGUMENTS/FIELDS: String S_SETTINGS_SUFFIX - this string stores the
+	 * end of the name of the file used for reading the integer.
 	 */
 	public static void readRecurrenceLimit() {
-		File file = new File(S_POWERBALL_SETTINGS);
+		long start = System.nanoTime();
+		String file_name = Powerball.saveFile(S_SETTINGS_SUFFIX);
+		File file = new File(file_name);
 		if (file.exists()) {
-			try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(S_POWERBALL_SETTINGS))) {
-				Powerball.s_recur_limit = ois.readInt();
+			try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file_name))) {
+				Powerball.setRecurLimit(ois.readInt());
 			} catch (FileNotFoundException e) {
 				System.out.println("ERROR: File not found!");
 			} catch (IOException e) {
 				System.out.println("ERROR: Unexpected issue occurred while reading recurrence limit from file!");
 			}
 		}
+		PowerballMetrics.get().record(PowerballMetrics.Timer.READ_SETTINGS, start);
 	}
 
 	/*
-	 * DESCRIPTION: Static method that writes the recurrence limit to the
-	 * Powerball settings file. AFFECTED FIELDS: None. REQUIRED
-	 * ARGUMENTS/FIELDS: String S_POWERBALL_SETTINGS - this string stores the
-	 * name of the file used for writing the integer.
+	 * DESCRIPTION: Static method that queues a write of the recurrence limit
+	 * to the Powerball settings file and returns at once. The file is replaced
+	 * atomically with the limit current when the write runs. AFFECTED FIELDS:
+	 * None. REQUIRED ARGUMENTS/FIELDS: String S_SETTINGS_SUFFIX - this string
+	 * stores the end of the name of the file used for writing the integer.
 	 */
-	public static void writeRecurrenceLimit() {
-		try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(S_POWERBALL_SETTINGS, false))) {
-			oos.writeInt(Powerball.getRecurLimit());
-		} catch (FileNotFoundException e) {
-			System.out.println("ERROR: File not found!");
-		} catch (IOException e) {
-			System.out.println("ERROR: Unexpected issue occurred while writing recurrence limit to file!");
-		}
+	public static CompletableFuture<Void> writeRecurrenceLimit() {
+		String file_name = Powerball.saveFile(S_SETTINGS_SUFFIX);
+		return SaveQueue.get().submit(file_name, "Unexpected issue occurred while writing recurrence limit to file!",
+				() -> {
+					long start = System.nanoTime();
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+						oos.writeInt(Powerball.getRecurLimit());
+					}
+					SaveQueue.writeAtomically(file_name, bytes.toByteArray());
+					PowerballMetrics.get().record(PowerballMetrics.Timer.WRITE_SETTINGS, start);
+				});
 	}
 
 	/*
 	 * DESCRIPTION: Static method that reads the winning Powerball saved from
-	 * the winning Powerball file. AFFECTED FIELDS: s_winning_powerball.
-	 * REQUIRED ARGUMENTS/FIELDS: String S_POWERBALL_WIN - this string stores
-	 * the name of the file used for reading the Powerball object.
+	 * the winning Powerball file and returns whether one was read. AFFECTED
+	 * FIELDS: s_winning_powerball. REQUIRED ARGUMENTS/FIELDS: String
+	 * S_WIN_SUFFIX - this string stores the end of the name of the file used
+	 * for reading the Powerball object.
 	 */
-	public static void readWinningPowerball() {
-		File file = new File(S_POWERBALL_WIN);
+	public static boolean readWinningPowerball() {
+		long start = System.nanoTime();
+		boolean read = false;
+		String file_name = Powerball.saveFile(S_WIN_SUFFIX);
+		File file = new File(file_name);
 		if (file.exists()) {
-			try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(S_POWERBALL_WIN))) {
+			try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file_name))) {
 				Powerball.s_winning_powerball = (Powerball) ois.readObject();
+				read = true;
 			} catch (FileNotFoundException e) {
 				System.out.println("ERROR: File not found!");
 			} catch (IOException e) {
@@ -414,74 +1473,472 @@ public class Powerball implements Serializable, Comparable<Powerball>, Runnable
 				System.out.println("ERROR: Failed to load data from file!");
 			}
 		}
+		PowerballMetrics.get().record(PowerballMetrics.Timer.READ_WINNING, start);
+		return read;
 	}
 
 	/*
-	 * DESCRIPTION: Static method that writes the winning Powerball to the
-	 * winning Powerball file. AFFECTED FIELDS: None. REQUIRED ARGUMENTS/FIELDS:
-	 * String S_POWERBALL_WIN - this string stores the name of the file used for
-	 * writing the Powerball object.
+	 * DESCRIPTION: Static method that queues a write of the winning Powerball
+	 * to the winning Powerball file and returns at once. The file is replaced
+	 * atomically with the winning ticket current when the write runs.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS/FIELDS: String S_WIN_SUFFIX -
+	 * this string stores the end of the name of the file used for writing the
+	 * Powerball object.
 	 */
-	public static void writeWinningPowerball() {
-		try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(S_POWERBALL_WIN, false))) {
-			oos.writeObject(Powerball.s_winning_powerball);
-		} catch (FileNotFoundException e) {
-			System.out.println("ERROR: File not found!");
-		} catch (IOException e) {
-			System.out.println("ERROR: Unexpected issue occurred while writing winning Powerball to file!");
-		}
+	public static CompletableFuture<Void> writeWinningPowerball() {
+		String file_name = Powerball.saveFile(S_WIN_SUFFIX);
+		return SaveQueue.get().submit(file_name, "Unexpected issue occurred while writing winning Powerball to file!",
+				() -> {
+					long start = System.nanoTime();
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+						oos.writeObject(Powerball.s_winning_powerball);
+					}
+					SaveQueue.writeAtomically(file_name, bytes.toByteArray());
+					PowerballMetrics.get().record(PowerballMetrics.Timer.WRITE_WINNING, start);
+				});
 	}
 
 	/*
-	 * DESCRIPTION: Static method that reads the Powerball objects saved from
-	 * the random Powerball tickets file. AFFECTED FIELDS: s_powerball_tickets.
-	 * REQUIRED ARGUMENTS/FIELDS: String S_POWERBALL_RANDOM - this string stores
-	 * the name of the file used for reading the Powerball objects.
+	 * DESCRIPTION: Static method that reads the tickets saved in the random
+	 * Powerball ticket store. The snapshot file is memory-mapped and decoded
+	 * record by record, then the changes in the journal are replayed on top of
+	 * it. The store is left open for later saves. AFFECTED FIELDS: 1)
+	 * s_powerball_tickets 2) s_recurrence_index 3) s_ticket_journal REQUIRED
+	 * ARGUMENTS/FIELDS: 1) String S_RANDOM_SUFFIX - this string stores the
+	 * end of the name of the snapshot file. 2) String S_JOURNAL_SUFFIX - this
+	 * string stores the end of the name of the journal file.
 	 */
-	@SuppressWarnings("unchecked")
 	public static void readRandomGeneratedTickets() {
-		File file = new File(S_POWERBALL_RANDOM);
-		if (file.exists()) {
-			try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(S_POWERBALL_RANDOM))) {
-				Powerball.s_powerball_tickets = (ConcurrentSkipListSet<Powerball>) ois.readObject();
-			} catch (FileNotFoundException e) {
-				System.out.println("ERROR: File not found!");
+		long start = System.nanoTime();
+		if (new File(Powerball.saveFile(S_RANDOM_SUFFIX)).exists()
+				|| new File(Powerball.saveFile(S_JOURNAL_SUFFIX)).exists()) {
+			try {
+				TicketJournal journal = Powerball.openTicketJournal();
+				LotteryGame game = s_game;
+				TicketStore loaded = new TicketStore(game);
+				journal.replay(loaded::addCode, loaded::removeCode, loaded::clear);
+				Powerball.s_powerball_tickets = loaded;
+				Powerball.s_recurrence_index = RecurrenceIndex.rebuild(game, s_recur_limit, loaded);
+				Powerball.s_draw_index = DrawIndex.of(game, loaded);
+				Powerball.s_unsaved_batches.clear();
+				Powerball.s_unsaved_clear = false;
+				if (journal.needsCompaction()) {
+					journal.compact(loaded);
+				}
 			} catch (IOException e) {
 				System.out.println(
 						"ERROR: Unexpected issue occurred while reading randomly generated tickets from file!");
-			} catch (ClassNotFoundException e) {
+			} catch (IllegalArgumentException e) {
 				System.out.println("ERROR: Failed to load data from file!");
 			}
 		}
+		PowerballMetrics.get().record(PowerballMetrics.Timer.READ_TICKETS, start);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that queues a save of the changes made to
+	 * the randomly generated Powerball tickets and returns at once. Newly
+	 * generated tickets and deletions are appended to the journal, so the cost
+	 * of a save follows the size of the change rather than the size of the
+	 * store, and changes made while the save waits to run are saved with it.
+	 * The store is compacted into a new snapshot once the journal outgrows it
+	 * or most stored records are dead; the compaction holds "s_publish_lock"
+	 * exclusively and drains the queue once more first, so a batch published
+	 * meanwhile is neither missing from the snapshot nor appended after it
+	 * again. AFFECTED FIELDS: 1) s_ticket_journal
+	 * 2) s_unsaved_batches REQUIRED ARGUMENTS/FIELDS: 1) String
+	 * S_RANDOM_SUFFIX - this string stores the end of the name of the
+	 * snapshot file. 2) String S_JOURNAL_SUFFIX - this string stores the end
+	 * of the name of the journal file.
+	 */
+	public static CompletableFuture<Void> writeRandomGeneratedTickets() {
+		return SaveQueue.get().submit(Powerball.saveFile(S_RANDOM_SUFFIX),
+				"Unexpected issue occurred while writing randomly generated tickets to file!", () -> {
+					long start = System.nanoTime();
+					TicketJournal journal = Powerball.openTicketJournal();
+					Powerball.drainUnsavedBatches(journal);
+					if (journal.needsCompaction()) {
+						Powerball.s_publish_lock.writeLock().lock();
+						try {
+							Powerball.drainUnsavedBatches(journal);
+							journal.compact(Powerball.s_powerball_tickets);
+						} finally {
+							Powerball.s_publish_lock.writeLock().unlock();
+						}
+					}
+					PowerballMetrics.get().record(PowerballMetrics.Timer.WRITE_TICKETS, start);
+				});
 	}
 
 	/*
-	 * DESCRIPTION: Static method that writes all randomly generated Powerball
-	 * tickets to the random Powerball tickets file. AFFECTED FIELDS:
-	 * s_powerball_tickets. REQUIRED ARGUMENTS/FIELDS: String S_POWERBALL_RANDOM
-	 * - this string stores the name of the file used for writing the Powerball
-	 * objects.
+	 * DESCRIPTION: Static method that appends the queued changes to the
+	 * journal in the order they happened. A batch leaves the queue only once
+	 * it is written, so a failed write is retried by the next save. AFFECTED
+	 * FIELDS: 1) s_unsaved_batches 2) s_unsaved_clear REQUIRED ARGUMENTS: 1)
+	 * TicketJournal journal - the open ticket store.
 	 */
-	public static void writeRandomGeneratedTickets() {
-		try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(S_POWERBALL_RANDOM, false))) {
-			// oos.writeInt(Powerball.s_powerball_tickets.size());
-			oos.writeObject(Powerball.s_powerball_tickets);
-		} catch (FileNotFoundException e) {
-			System.out.println("ERROR: File not found!");
-		} catch (IOException e) {
-			System.out.println("ERROR: Unexpected issue occurred while writing randomly generated tickets to file!");
+	private static void drainUnsavedBatches(TicketJournal journal) throws IOException {
+		synchronized (Powerball.s_unsaved_batches) {
+			if (Powerball.s_unsaved_clear) {
+				journal.clear();
+				Powerball.s_unsaved_clear = false;
+			}
+			UnsavedBatch batch;
+			while ((batch = Powerball.s_unsaved_batches.peek()) != null) {
+				if (batch.p_evicted) {
+					journal.delete(batch.p_tickets);
+				} else {
+					journal.add(batch.p_tickets);
+				}
+				Powerball.s_unsaved_batches.poll();
+			}
 		}
 	}
 
+	/*
+	 * DESCRIPTION: Static method that waits until every queued save has run
+	 * and returns whether all saves since the last wait succeeded. A failed
+	 * save has already shown its error. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public static boolean flushSaves() {
+		return SaveQueue.get().flush().join();
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns the open ticket store, opening
+	 * it first if needed. AFFECTED FIELDS: 1) s_ticket_journal REQUIRED
+	 * ARGUMENTS: None.
+	 */
+	private static TicketJournal openTicketJournal() throws IOException {
+		if (Powerball.s_ticket_journal == null) {
+			Powerball.s_ticket_journal = TicketJournal.open(Powerball.saveFile(S_RANDOM_SUFFIX),
+					Powerball.saveFile(S_JOURNAL_SUFFIX));
+		}
+		return Powerball.s_ticket_journal;
+	}
+
 	// #END READ/WRITE METHODS
 
 	// #END STATIC METHODS
 
+	// #REGION INSTANCE METHODS
+
+	/*
+	 * DESCRIPTION: Method that returns the amount of white numbers this
+	 * Powerball holds. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public int getWhiteCount() {
+		return Long.bitCount(this.p_white_low) + Long.bitCount(this.p_high_bits & HIGH_WHITE_MASK);
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the lottery game this Powerball
+	 * belongs to. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public LotteryGame getGame() {
+		return LotteryGame.byId((int) (this.p_high_bits >>> GAME_SHIFT));
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the red number of this Powerball.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public int getRedNumber() {
+		return (int) ((this.p_high_bits & RED_MASK) >>> RED_SHIFT);
+	}
+
+	/*
+	 * DESCRIPTION: Method that checks whether this Powerball holds the given
+	 * white number. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) int number -
+	 * the white number to look for.
+	 */
+	public boolean containsWhite(int number) {
+		if (number < WHITE_MIN || number > WHITE_CAPACITY) {
+			return false;
+		}
+		if (number <= LOW_WHITE_BITS) {
+			return (this.p_white_low & (1L << (number - WHITE_MIN))) != 0;
+		}
+		return (this.p_high_bits & (1L << (number - WHITE_MIN - LOW_WHITE_BITS))) != 0;
+	}
+
+	/*
+	 * DESCRIPTION: Method that copies the white numbers of this Powerball in
+	 * ascending order into the given array and returns how many were copied.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) int[] destination - an
+	 * array with room for at least "WHITE_PICKS" numbers.
+	 */
+	public int getWhiteNumbers(int[] destination) {
+		int count = 0;
+		long bits = this.p_white_low;
+		while (bits != 0) {
+			destination[count++] = Long.numberOfTrailingZeros(bits) + WHITE_MIN;
+			bits &= bits - 1;
+		}
+		bits = this.p_high_bits & HIGH_WHITE_MASK;
+		while (bits != 0) {
+			destination[count++] = Long.numberOfTrailingZeros(bits) + WHITE_MIN + LOW_WHITE_BITS;
+			bits &= bits - 1;
+		}
+		return count;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the amount of white numbers this
+	 * Powerball shares with another Powerball. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: 1) Powerball pball - the Powerball to compare against.
+	 */
+	public int whiteOverlap(Powerball pball) {
+		return Long.bitCount(this.p_white_low & pball.p_white_low)
+				+ Long.bitCount(this.p_high_bits & pball.p_high_bits & HIGH_WHITE_MASK);
+	}
+
+	/*
+	 * DESCRIPTION: Method that appends this Powerball in the same format as
+	 * "toString" to the given builder, letting callers reuse one buffer for
+	 * many tickets. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) StringBuilder
+	 * builder - the builder to append to.
+	 */
+	public StringBuilder appendTo(StringBuilder builder) {
+		builder.append('[');
+		boolean first = true;
+		long bits = this.p_white_low;
+		int offset = WHITE_MIN;
+		for (int word = 0; word < 2; word++) {
+			while (bits != 0) {
+				if (!first) {
+					builder.append(", ");
+				}
+				builder.append(Long.numberOfTrailingZeros(bits) + offset);
+				bits &= bits - 1;
+				first = false;
+			}
+			bits = this.p_high_bits & HIGH_WHITE_MASK;
+			offset = WHITE_MIN + LOW_WHITE_BITS;
+		}
+		return builder.append("] [").append(this.getRedNumber()).append(']');
+	}
+
+	/*
+	 * DESCRIPTION: Method that sets the bit of a white number in the packed
+	 * fields after checking it against the range of the ticket's game.
+	 * AFFECTED FIELDS: 1) p_white_low 2) p_high_bits REQUIRED ARGUMENTS: 1)
+	 * int number - a white number between "WHITE_MIN" and the game's largest
+	 * white number.
+	 */
+	private void addWhiteNumber(int number) {
+		int white_max = this.getGame().getWhiteMax();
+		if (number < WHITE_MIN || number > white_max) {
+			throw new IllegalArgumentException("White number must be between " + WHITE_MIN + " and " + white_max
+					+ ": " + number);
+		}
+		this.setWhiteBit(number);
+	}
+
+	/*
+	 * DESCRIPTION: Method that sets the bit of a white number already known
+	 * to be in range. AFFECTED FIELDS: 1) p_white_low 2) p_high_bits REQUIRED
+	 * ARGUMENTS: 1) int number - the white number.
+	 */
+	private void setWhiteBit(int number) {
+		if (number <= LOW_WHITE_BITS) {
+			this.p_white_low |= 1L << (number - WHITE_MIN);
+		} else {
+			this.p_high_bits |= 1L << (number - WHITE_MIN - LOW_WHITE_BITS);
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that replaces the red number in the packed fields.
+	 * AFFECTED FIELDS: 1) p_high_bits REQUIRED ARGUMENTS: 1) int number - a red
+	 * number between "RED_MIN" and the game's largest red number.
+	 */
+	private void setRedNumber(int number) {
+		LotteryGame game = this.getGame();
+		int red_max = game.getRedMax();
+		if (number < RED_MIN || number > red_max) {
+			String name = game.getBonusName();
+			throw new IllegalArgumentException(Character.toUpperCase(name.charAt(0)) + name.substring(1)
+					+ " number must be between " + RED_MIN + " and " + red_max + ": " + number);
+		}
+		this.p_high_bits = (this.p_high_bits & ~RED_MASK) | ((long) number << RED_SHIFT);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that creates a ticket of the given game with
+	 * random numbers drawn from the given generator, letting parallel tasks
+	 * each use their own generator. REQUIRED ARGUMENTS: 1) LotteryGame game -
+	 * the game of the ticket. 2) RandomGenerator random - the random number
+	 * generator to draw from.
+	 */
+	public static Powerball random(LotteryGame game, RandomGenerator random) {
+		Powerball pball = new Powerball(0L, 0L);
+		pball.assignRandomNumbers(game, random);
+		return pball;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the bitmask of white numbers 1 to 64,
+	 * with white number n in bit n - 1. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: None.
+	 */
+	long getWhiteLow() {
+		return this.p_white_low;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the bitmask of white numbers 65 to 72,
+	 * with white number n in bit n - 65. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: None.
+	 */
+	long getWhiteHigh() {
+		return this.p_high_bits & HIGH_WHITE_MASK;
+	}
+
+	/*
+	 * DESCRIPTION: Method that makes this Powerball a ticket of the given game
+	 * with random numbers drawn from the given generator. The numbers are
+	 * drawn within the game's ranges, so they are set without checking.
+	 * AFFECTED FIELDS: 1) p_white_low 2) p_high_bits REQUIRED ARGUMENTS: 1)
+	 * LotteryGame game - the game of the ticket. 2) RandomGenerator random -
+	 * the random number generator to draw from.
+	 */
+	private void assignRandomNumbers(LotteryGame game, RandomGenerator random) {
+		int white_max = game.getWhiteMax();
+		this.p_white_low = 0L;
+		this.p_high_bits = (long) game.getId() << GAME_SHIFT;
+		while (this.getWhiteCount() != WHITE_PICKS) {
+			this.setWhiteBit(random.nextInt(white_max) + WHITE_MIN);
+		}
+		this.p_high_bits |= (long) (random.nextInt(game.getRedMax()) + RED_MIN) << RED_SHIFT;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the packed code of this Powerball, a
+	 * 40-bit number holding its white and red numbers. Codes sort in the same
+	 * order as "compareTo". AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public long toCode() {
+		long code = 0L;
+		int count = 0;
+		long bits = this.p_white_low;
+		int offset = WHITE_MIN;
+		for (int word = 0; word < 2; word++) {
+			while (bits != 0) {
+				code = (code << CODE_WHITE_BITS) | (Long.numberOfTrailingZeros(bits) + offset);
+				bits &= bits - 1;
+				count++;
+			}
+			bits = this.p_high_bits & HIGH_WHITE_MASK;
+			offset = WHITE_MIN + LOW_WHITE_BITS;
+		}
+		code <<= CODE_WHITE_BITS * (WHITE_PICKS - count);
+		return (code << CODE_RED_BITS) | this.getRedNumber();
+	}
+
+	/*
+	 * DESCRIPTION: Static method that creates a ticket of the given game from
+	 * a packed code made by "toCode". Codes do not record the game, which is
+	 * known from the file or index they come from. Throws
+	 * IllegalArgumentException if the code holds a number outside the game's
+	 * ranges. REQUIRED ARGUMENTS: 1) LotteryGame game - the game of the
+	 * ticket. 2) long code - the packed code.
+	 */
+	public static Powerball fromCode(LotteryGame game, long code) {
+		Powerball pball = new Powerball(0L, (long) game.getId() << GAME_SHIFT);
+		for (int i = WHITE_PICKS - 1; i >= 0; i--) {
+			int number = (int) ((code >>> (CODE_RED_BITS + i * CODE_WHITE_BITS)) & ((1 << CODE_WHITE_BITS) - 1));
+			if (number != 0) {
+				pball.addWhiteNumber(number);
+			}
+		}
+		pball.setRedNumber((int) (code & ((1 << CODE_RED_BITS) - 1)));
+		return pball;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that copies the white numbers of a packed
+	 * code in ascending order into the given array and returns how many were
+	 * copied, without creating a ticket. REQUIRED ARGUMENTS: 1) long code -
+	 * the packed code. 2) int[] destination - an array with room for at least
+	 * "WHITE_PICKS" numbers.
+	 */
+	static int whitesOfCode(long code, int[] destination) {
+		int count = 0;
+		for (int i = WHITE_PICKS - 1; i >= 0; i--) {
+			int number = (int) ((code >>> (CODE_RED_BITS + i * CODE_WHITE_BITS)) & ((1 << CODE_WHITE_BITS) - 1));
+			if (number != 0) {
+				destination[count++] = number;
+			}
+		}
+		return count;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the rank of this Powerball among all
+	 * complete tickets of its game. The white numbers are ranked in
+	 * colexicographic order,
+	 * the sum of C(number - 1, position) over the ascending numbers, and the
+	 * red number varies fastest. Throws IllegalStateException if the ticket is
+	 * incomplete. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public int toRank() {
+		int rank = 0;
+		int picked = 0;
+		long bits = this.p_white_low;
+		int offset = 0;
+		for (int word = 0; word < 2; word++) {
+			while (bits != 0) {
+				rank += RecurrenceIndex.binomial(Long.numberOfTrailingZeros(bits) + offset, ++picked);
+				bits &= bits - 1;
+			}
+			bits = this.p_high_bits & HIGH_WHITE_MASK;
+			offset = LOW_WHITE_BITS;
+		}
+		int red = this.getRedNumber();
+		if (picked != WHITE_PICKS || red == 0) {
+			throw new IllegalStateException("Only complete tickets have a rank: " + this);
+		}
+		return rank * this.getGame().getRedMax() + (red - RED_MIN);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns the ticket of the given game
+	 * with the given rank, the inverse of "toRank". Throws
+	 * IllegalArgumentException if the rank is out of range. REQUIRED
+	 * ARGUMENTS: 1) LotteryGame game - the game of the ticket. 2) int rank -
+	 * the rank, from 0 up to, but not including, the game's rank count.
+	 */
+	public static Powerball fromRank(LotteryGame game, int rank) {
+		int rank_count = game.getRankCount();
+		if (rank < 0 || rank >= rank_count) {
+			throw new IllegalArgumentException("Rank must be between 0 and " + (rank_count - 1) + ": " + rank);
+		}
+		Powerball pball = new Powerball(0L, (long) game.getId() << GAME_SHIFT);
+		int red_max = game.getRedMax();
+		int remaining = rank / red_max;
+		int candidate = game.getWhiteMax() - WHITE_MIN;
+		for (int position = WHITE_PICKS; position > 0; position--) {
+			while (RecurrenceIndex.binomial(candidate, position) > remaining) {
+				candidate--;
+			}
+			remaining -= RecurrenceIndex.binomial(candidate, position);
+			pball.setWhiteBit(candidate + WHITE_MIN);
+			candidate--;
+		}
+		pball.p_high_bits |= (long) (rank % red_max + RED_MIN) << RED_SHIFT;
+		return pball;
+	}
+
+	// #END INSTANCE METHODS
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((p_white_numbers == null) ? 0 : p_white_numbers.hashCode());
+		result = prime * result + Long.hashCode(p_white_low);
+		result = prime * result + Long.hashCode(p_high_bits);
 		return result;
 	}
 
@@ -494,46 +1951,51 @@ public class Powerball implements Serializable, Comparable<Powerball>, Runnable
 		if (getClass() != obj.getClass())
 			return false;
 		Powerball other = (Powerball) obj;
-		if (p_white_numbers == null) {
-			if (other.p_white_numbers != null)
-				return false;
-		}
-		Powerball temp1 = new Powerball(this);
-		temp1.p_white_numbers.retainAll(other.p_white_numbers);
-		if (temp1.p_white_numbers.size() < s_recur_limit)
+		if (p_white_low != other.p_white_low)
+			return false;
+		if (p_high_bits != other.p_high_bits)
 			return false;
 		return true;
 	}
 
 	@Override
 	public String toString() {
-		return p_white_numbers + " [" + p_red_number + "]";
-	}
-
-	@Override
-	public void run() {
-		Powerball.s_powerball_tickets.add(this);
+		return this.appendTo(new StringBuilder(24)).toString();
 	}
 
 	@Override
 	public int compareTo(Powerball pball) {
-		int count = 0;
-		Iterator<Integer> thisIterator = this.p_white_numbers.iterator();
-		Iterator<Integer> otherIterator = pball.p_white_numbers.iterator();
-		int thisInt = 0;
-		int otherInt = 0;
-		while (count != Powerball.s_recur_limit) {
-			thisInt = thisIterator.next();
-			otherInt = otherIterator.next();
-			if (thisInt < otherInt) {
-				return -1;
-			} else if (thisInt > otherInt) {
-				return 1;
-			} else {
-				count++;
-			}
+		// The ticket holding the smallest white number the two do not share
+		// comes first, which matches comparing their sorted white numbers.
+		long diff = this.p_white_low ^ pball.p_white_low;
+		if (diff != 0) {
+			return (this.p_white_low & Long.lowestOneBit(diff)) != 0 ? -1 : 1;
 		}
-		return 0;
+		diff = (this.p_high_bits ^ pball.p_high_bits) & HIGH_WHITE_MASK;
+		if (diff != 0) {
+			return (this.p_high_bits & Long.lowestOneBit(diff)) != 0 ? -1 : 1;
+		}
+		diff = this.p_high_bits ^ pball.p_high_bits;
+		if ((diff & RED_MASK) != 0) {
+			return Integer.compare(this.getRedNumber(), pball.getRedNumber());
+		}
+		// Tickets of different games with the same numbers order by game.
+		return Long.compare(this.p_high_bits >>> GAME_SHIFT, pball.p_high_bits >>> GAME_SHIFT);
 	}
 
+
+	/*
+	 * DESCRIPTION: Batch of tickets added to or evicted from the store since
+	 * it was last saved.
+	 */
+	private static final class UnsavedBatch {
+
+		private final List<Powerball> p_tickets;
+		private final boolean p_evicted;
+
+		UnsavedBatch(List<Powerball> tickets, boolean evicted) {
+			this.p_tickets = tickets;
+			this.p_evicted = evicted;
+		}
+	}
 }
@@ -0,0 +1,251 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Process-wide counters and latency histograms for ticket generation and the
+ * ticket store. Generator runs feed the counters from their results, while
+ * timed sections record into one histogram per timer. Comparing the time
+ * spent publishing batches with the time of the whole run tells contention on
+ * the shared ticket set apart from time spent drawing candidates, and the
+ * read/write timers show time spent in I/O. The metrics are registered with
+ * the platform MBean server on first use.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public final class PowerballMetrics implements PowerballMetricsMXBean {
+
+	// Name the metrics are registered under.
+	public static final String OBJECT_NAME = "com.crucerne.www.lottery:type=PowerballMetrics";
+
+	// Timed sections.
+	public enum Timer {
+		GENERATE("generate"), PUBLISH("publish"), INDEX("index"), STREAM("stream"), EXPORT("export"),
+		SIMULATE("simulate"), ODDS("odds"), CHECK("check"), IMPORT("importDraws"), READ_TICKETS("readTickets"),
+		WRITE_TICKETS("writeTickets"), READ_SETTINGS("readSettings"), WRITE_SETTINGS("writeSettings"),
+		READ_WINNING("readWinning"), WRITE_WINNING("writeWinning"), SERVE_TICKETS("serveTickets"),
+		SERVE_CHECK("serveCheck"), SERVE_STATS("serveStats"), SERVE_METRICS("serveMetrics"), SHARD("generateShard"),
+		MERGE("mergeShards"), AUDIT("auditTickets");
+
+		private final String p_name;
+
+		private Timer(String name) {
+			this.p_name = name;
+		}
+
+		public String getName() {
+			return this.p_name;
+		}
+	}
+
+	// Process-wide instance, registered lazily.
+	private static volatile PowerballMetrics s_instance;
+
+	// Generator counters.
+	private final LongAdder p_runs = new LongAdder();
+	private final LongAdder p_generated = new LongAdder();
+	private final LongAdder p_attempts = new LongAdder();
+	private final LongAdder p_batches = new LongAdder();
+	private final LongAdder p_saturated = new LongAdder();
+	// Figures of the latest generator run.
+	private volatile int p_last_threads;
+	private volatile double p_last_rate;
+	// One histogram per timer, indexed by ordinal.
+	private final LatencyHistogram[] p_timers;
+
+	private PowerballMetrics() {
+		Timer[] timers = Timer.values();
+		this.p_timers = new LatencyHistogram[timers.length];
+		for (Timer timer : timers) {
+			this.p_timers[timer.ordinal()] = new LatencyHistogram(timer.getName());
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns the process-wide metrics,
+	 * creating and registering them over JMX on the first call. A failed
+	 * registration leaves the metrics usable from the menu. AFFECTED FIELDS:
+	 * 1) s_instance REQUIRED ARGUMENTS: None.
+	 */
+	public static PowerballMetrics get() {
+		PowerballMetrics metrics = s_instance;
+		if (metrics == null) {
+			synchronized (PowerballMetrics.class) {
+				metrics = s_instance;
+				if (metrics == null) {
+					metrics = new PowerballMetrics();
+					try {
+						ManagementFactory.getPlatformMBeanServer().registerMBean(metrics,
+								new ObjectName(OBJECT_NAME));
+					} catch (JMException e) {
+						System.out.println("ERROR: Failed to register runtime metrics over JMX!");
+					}
+					s_instance = metrics;
+				}
+			}
+		}
+		return metrics;
+	}
+
+	/*
+	 * DESCRIPTION: Method that adds the figures of a finished generator run to
+	 * the counters. AFFECTED FIELDS: Every generator counter. REQUIRED
+	 * ARGUMENTS: 1) TicketGenerator.Result result - the finished run.
+	 */
+	public void recordRun(TicketGenerator.Result result) {
+		this.p_runs.increment();
+		this.p_generated.add(result.getGenerated());
+		this.p_attempts.add(result.getAttempts());
+		this.p_batches.add(result.getBatches());
+		if (result.isSaturated()) {
+			this.p_saturated.increment();
+		}
+		this.p_last_threads = result.getThreads();
+		this.p_last_rate = result.getElapsedNanos() == 0 ? 0.0
+				: result.getGenerated() * 1e9 / result.getElapsedNanos();
+	}
+
+	/*
+	 * DESCRIPTION: Method that records the time elapsed since the given start
+	 * into a timer. AFFECTED FIELDS: 1) p_timers REQUIRED ARGUMENTS: 1) Timer
+	 * timer - the timed section. 2) long start_nanos - the "System.nanoTime"
+	 * reading taken when the section began.
+	 */
+	public void record(Timer timer, long start_nanos) {
+		this.p_timers[timer.ordinal()].record(System.nanoTime() - start_nanos);
+	}
+
+	public LatencyHistogram getTimer(Timer timer) {
+		return this.p_timers[timer.ordinal()];
+	}
+
+	@Override
+	public long getGeneratorRuns() {
+		return this.p_runs.sum();
+	}
+
+	@Override
+	public long getTicketsGenerated() {
+		return this.p_generated.sum();
+	}
+
+	@Override
+	public long getCandidatesDrawn() {
+		return this.p_attempts.sum();
+	}
+
+	@Override
+	public long getRecurrenceRejections() {
+		return this.p_attempts.sum() - this.p_generated.sum();
+	}
+
+	@Override
+	public long getBatchesPublished() {
+		return this.p_batches.sum();
+	}
+
+	@Override
+	public long getSaturatedRuns() {
+		return this.p_saturated.sum();
+	}
+
+	@Override
+	public int getLastThreadCount() {
+		return this.p_last_threads;
+	}
+
+	@Override
+	public double getLastTicketsPerSecond() {
+		return this.p_last_rate;
+	}
+
+	@Override
+	public int getTicketCount() {
+		return Powerball.getTicketCount();
+	}
+
+	@Override
+	public Map<String, Long> getTimerCounts() {
+		Map<String, Long> counts = new LinkedHashMap<String, Long>();
+		for (LatencyHistogram histogram : this.p_timers) {
+			counts.put(histogram.getName(), histogram.getCount());
+		}
+		return counts;
+	}
+
+	@Override
+	public Map<String, Double> getTimerTotalMillis() {
+		return this.timerMillis(histogram -> histogram.getTotalNanos());
+	}
+
+	@Override
+	public Map<String, Double> getTimerMeanMillis() {
+		return this.timerMillis(
+				histogram -> histogram.getCount() == 0 ? 0.0 : (double) histogram.getTotalNanos() / histogram.getCount());
+	}
+
+	@Override
+	public Map<String, Double> getTimerP99Millis() {
+		return this.timerMillis(histogram -> histogram.getPercentileNanos(99));
+	}
+
+	@Override
+	public Map<String, Double> getTimerMaxMillis() {
+		return this.timerMillis(histogram -> histogram.getMaxNanos());
+	}
+
+	/*
+	 * DESCRIPTION: Method that clears every counter and timer. AFFECTED
+	 * FIELDS: All fields. REQUIRED ARGUMENTS: None.
+	 */
+	@Override
+	public void reset() {
+		this.p_runs.reset();
+		this.p_generated.reset();
+		this.p_attempts.reset();
+		this.p_batches.reset();
+		this.p_saturated.reset();
+		this.p_last_threads = 0;
+		this.p_last_rate = 0.0;
+		for (LatencyHistogram histogram : this.p_timers) {
+			histogram.reset();
+		}
+	}
+
+	private Map<String, Double> timerMillis(ToDoubleFunction<LatencyHistogram> nanos) {
+		Map<String, Double> millis = new LinkedHashMap<String, Double>();
+		for (LatencyHistogram histogram : this.p_timers) {
+			millis.put(histogram.getName(), nanos.applyAsDouble(histogram) / 1e6);
+		}
+		return millis;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Generator runs:          %,d (%,d saturated)%n", this.getGeneratorRuns(),
+				this.getSaturatedRuns()));
+		sb.append(String.format("Tickets generated:       %,d%n", this.getTicketsGenerated()));
+		sb.append(String.format("Candidates drawn:        %,d%n", this.getCandidatesDrawn()));
+		sb.append(String.format("Recurrence rejections:   %,d%n", this.getRecurrenceRejections()));
+		sb.append(String.format("Batches published:       %,d%n", this.getBatchesPublished()));
+		sb.append(String.format("Last run worker threads: %d%n", this.getLastThreadCount()));
+		sb.append(String.format("Last run tickets/second: %,.0f%n", this.getLastTicketsPerSecond()));
+		sb.append(String.format("Saved tickets:           %,d%n", this.getTicketCount()));
+		for (LatencyHistogram histogram : this.p_timers) {
+			sb.append(histogram).append(System.lineSeparator());
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Management interface of the Powerball runtime metrics, published over JMX
+ * under "com.crucerne.www.lottery:type=PowerballMetrics". Durations are
+ * reported in milliseconds and keyed by timer name.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.Map;
+
+public interface PowerballMetricsMXBean {
+
+	long getGeneratorRuns();
+
+	long getTicketsGenerated();
+
+	long getCandidatesDrawn();
+
+	long getRecurrenceRejections();
+
+	long getBatchesPublished();
+
+	long getSaturatedRuns();
+
+	int getLastThreadCount();
+
+	double getLastTicketsPerSecond();
+
+	int getTicketCount();
+
+	Map<String, Long> getTimerCounts();
+
+	Map<String, Double> getTimerTotalMillis();
+
+	Map<String, Double> getTimerMeanMillis();
+
+	Map<String, Double> getTimerP99Millis();
+
+	Map<String, Double> getTimerMaxMillis();
+
+	void reset();
+}
@@ -0,0 +1,126 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Prize tiers of a lottery and the lookup from a ticket's white and red
+ * matches to its tier. Tier 0 is the jackpot, whose amount changes from draw
+ * to draw and is supplied by the caller; every other tier pays a fixed
+ * amount. The Powerball table follows the official prize chart:
+ * 5 + red - jackpot
+ * 5 - $1,000,000
+ * 4 + red - $50,000
+ * 4 - $100
+ * 3 + red - $100
+ * 3 - $7
+ * 2 + red - $7
+ * 1 + red - $4
+ * 0 + red - $4
+ * The Mega Millions table follows the chart of the $5 game played since
+ * April 2025, whose multiplier of 2 to 10 is built into every prize below
+ * the jackpot. The fixed tiers pay the 2x amount every winning ticket is
+ * guaranteed, so returns computed from it are a lower bound:
+ * 5 + Mega Ball - jackpot
+ * 5 - $2,000,000
+ * 4 + Mega Ball - $20,000
+ * 4 - $1,000
+ * 3 + Mega Ball - $400
+ * 3 - $20
+ * 2 + Mega Ball - $20
+ * 1 + Mega Ball - $14
+ * 0 + Mega Ball - $10
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.Arrays;
+
+public final class PrizeTable {
+
+	// Tier returned for matches that win nothing.
+	public static final int NO_PRIZE = -1;
+
+	public static final PrizeTable POWERBALL = new PrizeTable(Powerball.WHITE_PICKS, 2,
+			new String[] { "5 + red", "5", "4 + red", "4", "3 + red", "3", "2 + red", "1 + red", "0 + red" },
+			new int[] { 5, 5, 4, 4, 3, 3, 2, 1, 0 }, new boolean[] { true, false, true, false, true, false, true,
+					true, true },
+			new long[] { 0L, 1000000L, 50000L, 100L, 100L, 7L, 7L, 4L, 4L });
+	public static final PrizeTable MEGA_MILLIONS = new PrizeTable(Powerball.WHITE_PICKS, 5,
+			new String[] { "5 + mega", "5", "4 + mega", "4", "3 + mega", "3", "2 + mega", "1 + mega", "0 + mega" },
+			new int[] { 5, 5, 4, 4, 3, 3, 2, 1, 0 }, new boolean[] { true, false, true, false, true, false, true,
+					true, true },
+			new long[] { 0L, 2000000L, 20000L, 1000L, 400L, 20L, 20L, 14L, 10L });
+
+	// Price of one ticket in dollars.
+	private final long p_ticket_price;
+	// Names, white matches, red matches and prizes of every tier, best first.
+	private final String[] p_names;
+	private final int[] p_white_matches;
+	private final boolean[] p_red_matches;
+	private final long[] p_prizes;
+	// Tier of every match, indexed by "white matches * 2 + red match".
+	private final int[] p_tier_by_match;
+
+	public PrizeTable(int white_picks, long ticket_price, String[] names, int[] white_matches,
+			boolean[] red_matches, long[] prizes) {
+		this.p_ticket_price = ticket_price;
+		this.p_names = names.clone();
+		this.p_white_matches = white_matches.clone();
+		this.p_red_matches = red_matches.clone();
+		this.p_prizes = prizes.clone();
+		this.p_tier_by_match = new int[(white_picks + 1) * 2];
+		Arrays.fill(this.p_tier_by_match, NO_PRIZE);
+		for (int tier = 0; tier < names.length; tier++) {
+			this.p_tier_by_match[white_matches[tier] * 2 + (red_matches[tier] ? 1 : 0)] = tier;
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the tier won by a ticket with the given
+	 * matches, or "NO_PRIZE". AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) int
+	 * white_matches - white numbers matched. 2) boolean red_match - whether the
+	 * red number matched.
+	 */
+	public int tierOf(int white_matches, boolean red_match) {
+		return this.p_tier_by_match[white_matches * 2 + (red_match ? 1 : 0)];
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns a copy of the match to tier lookup,
+	 * indexed by "white matches * 2 + red match", for use in scoring loops.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public int[] tierLookup() {
+		return this.p_tier_by_match.clone();
+	}
+
+	public int getTierCount() {
+		return this.p_names.length;
+	}
+
+	public String getTierName(int tier) {
+		return this.p_names[tier];
+	}
+
+	public int getWhiteMatches(int tier) {
+		return this.p_white_matches[tier];
+	}
+
+	public boolean isRedMatch(int tier) {
+		return this.p_red_matches[tier];
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the prize of a tier in dollars, using
+	 * the given jackpot for tier 0. AFFECTED FIELDS: None. REQUIRED ARGUMENTS:
+	 * 1) int tier - the tier. 2) long jackpot - the current jackpot.
+	 */
+	public long getPrize(int tier, long jackpot) {
+		return tier == 0 ? jackpot : this.p_prizes[tier];
+	}
+
+	public long getTicketPrice() {
+		return this.p_ticket_price;
+	}
+}
@@ -0,0 +1,332 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Audit of a ticket store against a recurrence limit. Tickets saved before
+ * the limit was lowered, or merged from elsewhere, may share k or more white
+ * numbers with each other, and the recurrence index only keeps such tickets
+ * from growing in number. The audit finds them without comparing every pair
+ * of tickets: tickets are bucketed by every j-sized subset of their white
+ * numbers, j from k to 5, in one parallel pass that counts the owners of
+ * every subset. A pair sharing s white numbers meets in C(s, j) buckets of
+ * size j, so by inclusion and exclusion over the subset sizes
+ *     sum over j of (-1)^(j - k) * C(j - 1, k - 1) * C(s, j)
+ * is 1 for s >= k and 0 otherwise, which gives the exact amount of tickets
+ * every ticket breaks the limit with from the bucket sizes alone. Pairs are
+ * only listed on request, from the buckets of size k, each pair under the
+ * subset of its k smallest shared numbers so it is listed once. A repair
+ * keeps the tickets with the fewest conflicts first and evicts every ticket
+ * that conflicts with one already kept, which leaves no conflicts and
+ * usually evicts far fewer tickets than one per pair.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public final class RecurrenceAudit {
+
+	// Receives the pairs of tickets breaking the limit; returning false stops
+	// the listing.
+	public interface PairAction {
+		boolean accept(Powerball first, Powerball second, int shared);
+	}
+
+	// Amount of tickets a task handles before it is no longer split.
+	private static final int TICKETS_PER_TASK = 4096;
+
+	private final LotteryGame p_game;
+	private final int p_limit;
+	// Packed codes of the audited tickets.
+	private final long[] p_codes;
+	private final int p_size;
+	// Owners of every j-sized subset of the white range, at index j.
+	private final AtomicIntegerArray[] p_owners = new AtomicIntegerArray[Powerball.WHITE_PICKS + 1];
+	// Amount of tickets every ticket breaks the limit with.
+	private final int[] p_conflicts;
+	private final long p_pairs;
+	private final int p_violating;
+	// Rank and owners of the k-sized subset shared by the most tickets.
+	private int p_worst_rank = -1;
+	private int p_worst_owners = 0;
+	private final long p_elapsed_nanos;
+
+	private RecurrenceAudit(LotteryGame game, int limit, long[] codes, int size) {
+		long start = System.nanoTime();
+		this.p_game = game;
+		this.p_limit = limit;
+		this.p_codes = codes;
+		this.p_size = size;
+		this.p_conflicts = new int[size];
+		for (int j = limit; j <= Powerball.WHITE_PICKS; j++) {
+			this.p_owners[j] = new AtomicIntegerArray(game.subsetCount(j));
+		}
+		ForkJoinPool.commonPool().invoke(new Task(false, 0, size));
+		long[] totals = ForkJoinPool.commonPool().invoke(new Task(true, 0, size));
+		// Every pair is counted once from each of its tickets.
+		this.p_pairs = totals[0] / 2;
+		this.p_violating = (int) totals[1];
+		AtomicIntegerArray owners = this.p_owners[limit];
+		for (int rank = 0; rank < owners.length(); rank++) {
+			if (owners.get(rank) > this.p_worst_owners) {
+				this.p_worst_owners = owners.get(rank);
+				this.p_worst_rank = rank;
+			}
+		}
+		this.p_elapsed_nanos = System.nanoTime() - start;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that audits every ticket of a store against a
+	 * recurrence limit. The codes of the tickets are copied first, so the
+	 * store may change while the audit runs. REQUIRED ARGUMENTS: 1)
+	 * TicketStore tickets - the tickets to audit. 2) int limit - the amount of
+	 * shared white numbers that breaks the limit, from 1 to "WHITE_PICKS".
+	 */
+	public static RecurrenceAudit of(TicketStore tickets, int limit) {
+		if (limit < 1 || limit > Powerball.WHITE_PICKS) {
+			throw new IllegalArgumentException("Recurrence limit must be between 1 and " + Powerball.WHITE_PICKS
+					+ ": " + limit);
+		}
+		long[][] codes = { new long[Math.max(16, tickets.size())] };
+		int[] size = { 0 };
+		tickets.forEachCode(code -> {
+			if (size[0] == codes[0].length) {
+				codes[0] = Arrays.copyOf(codes[0], (int) Math.min(Integer.MAX_VALUE - 8, codes[0].length * 2L));
+			}
+			codes[0][size[0]++] = code;
+		});
+		return new RecurrenceAudit(tickets.getGame(), limit, codes[0], size[0]);
+	}
+
+	public LotteryGame getGame() {
+		return this.p_game;
+	}
+
+	public int getLimit() {
+		return this.p_limit;
+	}
+
+	public int getTickets() {
+		return this.p_size;
+	}
+
+	// Pairs of tickets sharing "p_limit" or more white numbers.
+	public long getViolatingPairs() {
+		return this.p_pairs;
+	}
+
+	// Tickets in at least one such pair.
+	public int getViolatingTickets() {
+		return this.p_violating;
+	}
+
+	public long getElapsedNanos() {
+		return this.p_elapsed_nanos;
+	}
+
+	/*
+	 * DESCRIPTION: Method that passes every pair of tickets breaking the limit
+	 * to the action, with the amount of white numbers they share, until the
+	 * pairs run out or the action returns false. Returns the amount of pairs
+	 * passed. Throws IllegalStateException if the conflicting tickets are too
+	 * many to bucket in memory. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1)
+	 * PairAction action - receives the pairs.
+	 */
+	public long forEachPair(PairAction action) {
+		AtomicIntegerArray owners = this.p_owners[this.p_limit];
+		int subsets = owners.length();
+		// Buckets of every shared k-sized subset, laid out one after another.
+		int[] starts = new int[subsets + 1];
+		long total = 0;
+		for (int rank = 0; rank < subsets; rank++) {
+			starts[rank] = (int) total;
+			total += owners.get(rank) > 1 ? owners.get(rank) : 0;
+			if (total > Integer.MAX_VALUE - 8) {
+				throw new IllegalStateException("Too many conflicting tickets to list their pairs.");
+			}
+		}
+		starts[subsets] = (int) total;
+		int[] members = new int[(int) total];
+		int[] ends = Arrays.copyOf(starts, subsets);
+		int[] numbers = new int[Powerball.WHITE_PICKS];
+		int[] masks = RecurrenceIndex.subsetMasks(this.p_limit);
+		for (int t = 0; t < this.p_size; t++) {
+			if (this.p_conflicts[t] > 0) {
+				int count = Powerball.whitesOfCode(this.p_codes[t], numbers);
+				for (int mask : masks) {
+					int rank = RecurrenceIndex.subsetRank(numbers, count, mask);
+					if (rank >= 0 && owners.get(rank) > 1) {
+						members[ends[rank]++] = t;
+					}
+				}
+			}
+		}
+		int[] first = new int[Powerball.WHITE_PICKS];
+		int[] second = new int[Powerball.WHITE_PICKS];
+		int[] shared = new int[Powerball.WHITE_PICKS];
+		int smallest = (1 << this.p_limit) - 1;
+		long listed = 0;
+		for (int rank = 0; rank < subsets; rank++) {
+			for (int a = starts[rank]; a < starts[rank + 1]; a++) {
+				int first_count = Powerball.whitesOfCode(this.p_codes[members[a]], first);
+				for (int b = a + 1; b < starts[rank + 1]; b++) {
+					int second_count = Powerball.whitesOfCode(this.p_codes[members[b]], second);
+					int shared_count = intersect(first, first_count, second, second_count, shared);
+					if (RecurrenceIndex.subsetRank(shared, shared_count, smallest) == rank) {
+						listed++;
+						if (!action.accept(Powerball.fromCode(this.p_game, this.p_codes[members[a]]),
+								Powerball.fromCode(this.p_game, this.p_codes[members[b]]), shared_count)) {
+							return listed;
+						}
+					}
+				}
+			}
+		}
+		return listed;
+	}
+
+	/*
+	 * DESCRIPTION: Method that picks the tickets to evict so that no two
+	 * remaining tickets break the limit. Conflicting tickets are kept in order
+	 * of their conflict count, fewest first, and a ticket is evicted when it
+	 * breaks the limit with a ticket already kept. Returns the packed codes of
+	 * the evicted tickets. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public long[] repair() {
+		long[] order = new long[this.p_violating];
+		int count = 0;
+		for (int t = 0; t < this.p_size; t++) {
+			if (this.p_conflicts[t] > 0) {
+				order[count++] = ((long) this.p_conflicts[t] << 32) | t;
+			}
+		}
+		Arrays.parallelSort(order);
+		// Tickets without conflicts own every subset they hold alone, so only
+		// the conflicting ones need to be indexed.
+		RecurrenceIndex kept = new RecurrenceIndex(this.p_game, this.p_limit);
+		long[] evicted = new long[count];
+		int evicted_count = 0;
+		for (long key : order) {
+			long code = this.p_codes[(int) key];
+			if (!kept.tryInsert(Powerball.fromCode(this.p_game, code))) {
+				evicted[evicted_count++] = code;
+			}
+		}
+		return Arrays.copyOf(evicted, evicted_count);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that copies the numbers found in two sorted
+	 * arrays in ascending order and returns how many there are. REQUIRED
+	 * ARGUMENTS: 1) int[] first 2) int first_count 3) int[] second 4) int
+	 * second_count 5) int[] shared - receives the common numbers.
+	 */
+	private static int intersect(int[] first, int first_count, int[] second, int second_count, int[] shared) {
+		int count = 0;
+		for (int i = 0, j = 0; i < first_count && j < second_count;) {
+			if (first[i] == second[j]) {
+				shared[count++] = first[i];
+				i++;
+				j++;
+			} else if (first[i] < second[j]) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Audited %,d tickets against a recurrence limit of %d: ", this.p_size, this.p_limit));
+		if (this.p_pairs == 0) {
+			return sb.append("no tickets break it.").toString();
+		}
+		sb.append(String.format("%,d tickets break it in %,d pairs.", this.p_violating, this.p_pairs));
+		int[] numbers = new int[this.p_limit];
+		int rank = this.p_worst_rank;
+		for (int i = this.p_limit; i > 0; i--) {
+			int number = i - 1;
+			while (RecurrenceIndex.binomial(number + 1, i) <= rank) {
+				number++;
+			}
+			rank -= RecurrenceIndex.binomial(number, i);
+			numbers[i - 1] = number + Powerball.WHITE_MIN;
+		}
+		sb.append(String.format("%nMost shared white numbers: %s, held by %,d tickets.", Arrays.toString(numbers),
+				this.p_worst_owners));
+		return sb.toString();
+	}
+
+	/*
+	 * DESCRIPTION: Fork-join task over a range of tickets. The first pass
+	 * counts the owners of every subset; the second works out the conflicts
+	 * of every ticket from them and returns the sum of the conflicts and the
+	 * amount of tickets with any.
+	 */
+	private final class Task extends RecursiveTask<long[]> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final boolean p_conflicts_pass;
+		private final int p_from;
+		private final int p_to;
+
+		Task(boolean conflicts_pass, int from, int to) {
+			this.p_conflicts_pass = conflicts_pass;
+			this.p_from = from;
+			this.p_to = to;
+		}
+
+		@Override
+		protected long[] compute() {
+			if (this.p_to - this.p_from > TICKETS_PER_TASK) {
+				int middle = (this.p_from + this.p_to) >>> 1;
+				Task left = new Task(this.p_conflicts_pass, this.p_from, middle);
+				left.fork();
+				long[] totals = new Task(this.p_conflicts_pass, middle, this.p_to).compute();
+				long[] other = left.join();
+				totals[0] += other[0];
+				totals[1] += other[1];
+				return totals;
+			}
+			RecurrenceAudit audit = RecurrenceAudit.this;
+			long[] totals = new long[2];
+			int[] numbers = new int[Powerball.WHITE_PICKS];
+			for (int t = this.p_from; t < this.p_to; t++) {
+				int count = Powerball.whitesOfCode(audit.p_codes[t], numbers);
+				long conflicts = 0;
+				for (int j = audit.p_limit; j <= count; j++) {
+					AtomicIntegerArray owners = audit.p_owners[j];
+					long others = 0;
+					for (int mask : RecurrenceIndex.subsetMasks(j)) {
+						int rank = RecurrenceIndex.subsetRank(numbers, count, mask);
+						if (rank < 0) {
+							continue;
+						} else if (this.p_conflicts_pass) {
+							others += owners.get(rank) - 1;
+						} else {
+							owners.incrementAndGet(rank);
+						}
+					}
+					long weight = RecurrenceIndex.binomial(j - 1, audit.p_limit - 1);
+					conflicts += ((j - audit.p_limit) % 2 == 0 ? weight : -weight) * others;
+				}
+				if (this.p_conflicts_pass) {
+					audit.p_conflicts[t] = (int) conflicts;
+					totals[0] += conflicts;
+					totals[1] += conflicts > 0 ? 1 : 0;
+				}
+			}
+			return totals;
+		}
+	}
+}
@@ -0,0 +1,287 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Conflict index that enforces the recurrence limit across a set of tickets.
+ * Two tickets break a recurrence limit of k when they share k or more white
+ * numbers, which is the same as sharing at least one k-sized subset of their
+ * white numbers. The index keeps one bit for every possible k-subset of the
+ * white ball range, addressed by the subset's combinatorial rank, so a ticket
+ * is checked and inserted by claiming the C(5, k) bits of its own subsets
+ * (10 bits for a limit of 3). Bits are claimed with compare-and-set, so any
+ * number of threads may insert at once without locking.
+ * An index is built for one lottery game and holds C(white max, k) bits,
+ * about 6.5 KB for Powerball and 6.8 KB for Mega Millions at a limit of 3.
+ * A bit records that some ticket owns a subset, not which one or how many,
+ * so only a ticket that owns all of its bits alone, which "tryInsert"
+ * guarantees, can be removed again. Tickets inserted by "forceInsert" or
+ * "rebuild" may share bits; the index is rebuilt to drop one of them.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public final class RecurrenceIndex {
+
+	// Binomial coefficients C(n, k) for every n in the white ball range of any
+	// game and k up to the amount of white balls in a ticket.
+	private static final int[][] S_BINOMIALS = new int[Powerball.WHITE_CAPACITY + 1][Powerball.WHITE_PICKS + 1];
+	// Position masks of every k-sized subset of a ticket's white numbers,
+	// grouped by k.
+	private static final int[][] S_SUBSET_MASKS = new int[Powerball.WHITE_PICKS + 1][];
+
+	static {
+		for (int n = 0; n <= Powerball.WHITE_CAPACITY; n++) {
+			S_BINOMIALS[n][0] = 1;
+			for (int k = 1; k <= Math.min(n, Powerball.WHITE_PICKS); k++) {
+				S_BINOMIALS[n][k] = S_BINOMIALS[n - 1][k - 1] + S_BINOMIALS[n - 1][k];
+			}
+		}
+		for (int k = 0; k <= Powerball.WHITE_PICKS; k++) {
+			S_SUBSET_MASKS[k] = new int[S_BINOMIALS[Powerball.WHITE_PICKS][k]];
+			int count = 0;
+			for (int mask = 0; mask < (1 << Powerball.WHITE_PICKS); mask++) {
+				if (Integer.bitCount(mask) == k) {
+					S_SUBSET_MASKS[k][count++] = mask;
+				}
+			}
+		}
+	}
+
+	// Game and recurrence limit the index was built for.
+	private final LotteryGame p_game;
+	private final int p_limit;
+	// One bit per k-subset of the white ball range, set when a ticket owns it.
+	private final AtomicLongArray p_claimed;
+
+	/*
+	 * DESCRIPTION: Constructor that creates an empty index for the given game
+	 * and recurrence limit. REQUIRED ARGUMENTS: 1) LotteryGame game - the game
+	 * of the indexed tickets. 2) int limit - the amount of shared white
+	 * numbers that makes two tickets conflict, from 1 to "WHITE_PICKS".
+	 */
+	public RecurrenceIndex(LotteryGame game, int limit) {
+		if (limit < 1 || limit > Powerball.WHITE_PICKS) {
+			throw new IllegalArgumentException("Recurrence limit must be between 1 and " + Powerball.WHITE_PICKS
+					+ ": " + limit);
+		}
+		this.p_game = game;
+		this.p_limit = limit;
+		this.p_claimed = new AtomicLongArray((game.subsetCount(limit) + 63) >>> 6);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns C(n, k) for n up to
+	 * "WHITE_CAPACITY" and k up to "WHITE_PICKS". REQUIRED ARGUMENTS: 1) int n
+	 * 2) int k
+	 */
+	static int binomial(int n, int k) {
+		return (k < 0 || n < k) ? 0 : S_BINOMIALS[n][k];
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns the position masks of every
+	 * k-sized subset of a ticket's white numbers, for use with "subsetRank".
+	 * The array is shared and must not be changed. REQUIRED ARGUMENTS: 1) int
+	 * size - the subset size k, from 0 to "WHITE_PICKS".
+	 */
+	static int[] subsetMasks(int size) {
+		return S_SUBSET_MASKS[size];
+	}
+
+	public LotteryGame getGame() {
+		return this.p_game;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the recurrence limit of this index.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public int getLimit() {
+		return this.p_limit;
+	}
+
+	/*
+	 * DESCRIPTION: Method that atomically checks a ticket against the index and
+	 * inserts it when it does not share "p_limit" or more white numbers with
+	 * any ticket already inserted. If one of the ticket's subsets is already
+	 * owned, the subsets claimed so far are released and the ticket is
+	 * rejected. A concurrent insert that is rolled back this way can briefly
+	 * make another ticket look conflicting, so rejections are conservative but
+	 * an accepted ticket never breaks the limit. AFFECTED FIELDS: 1) p_claimed
+	 * REQUIRED ARGUMENTS: 1) Powerball pball - the ticket to insert.
+	 */
+	public boolean tryInsert(Powerball pball) {
+		int[] numbers = new int[Powerball.WHITE_PICKS];
+		int count = pball.getWhiteNumbers(numbers);
+		int[] masks = S_SUBSET_MASKS[this.p_limit];
+		for (int i = 0; i < masks.length; i++) {
+			if (!this.claim(subsetRank(numbers, count, masks[i]))) {
+				for (int j = 0; j < i; j++) {
+					this.release(subsetRank(numbers, count, masks[j]));
+				}
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * DESCRIPTION: Method that inserts a ticket without checking it, so tickets
+	 * that already exist keep blocking new ones even if they break the limit
+	 * between themselves. Returns false if the ticket shared a subset with an
+	 * earlier ticket; such a ticket must not be passed to "remove". AFFECTED FIELDS: 1) p_claimed REQUIRED ARGUMENTS: 1)
+	 * Powerball pball - the ticket to insert.
+	 */
+	public boolean forceInsert(Powerball pball) {
+		int[] numbers = new int[Powerball.WHITE_PICKS];
+		int count = pball.getWhiteNumbers(numbers);
+		boolean clean = true;
+		for (int mask : S_SUBSET_MASKS[this.p_limit]) {
+			clean &= this.claim(subsetRank(numbers, count, mask));
+		}
+		return clean;
+	}
+
+	/*
+	 * DESCRIPTION: Method that claims every subset of a ticket and returns how
+	 * many of them were not claimed before, which counts the subsets a set of
+	 * tickets covers. AFFECTED FIELDS: 1) p_claimed REQUIRED ARGUMENTS: 1)
+	 * Powerball pball - the ticket to insert.
+	 */
+	int claimNew(Powerball pball) {
+		int[] numbers = new int[Powerball.WHITE_PICKS];
+		int count = pball.getWhiteNumbers(numbers);
+		int claimed = 0;
+		for (int mask : S_SUBSET_MASKS[this.p_limit]) {
+			int rank = subsetRank(numbers, count, mask);
+			if (rank >= 0 && this.claim(rank)) {
+				claimed++;
+			}
+		}
+		return claimed;
+	}
+
+	/*
+	 * DESCRIPTION: Method that checks whether a ticket would conflict with the
+	 * index without inserting it. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1)
+	 * Powerball pball - the ticket to check.
+	 */
+	public boolean conflicts(Powerball pball) {
+		int[] numbers = new int[Powerball.WHITE_PICKS];
+		int count = pball.getWhiteNumbers(numbers);
+		for (int mask : S_SUBSET_MASKS[this.p_limit]) {
+			int rank = subsetRank(numbers, count, mask);
+			if (rank >= 0 && (this.p_claimed.get(rank >>> 6) & (1L << rank)) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * DESCRIPTION: Method that releases the subsets of a ticket previously
+	 * accepted by "tryInsert" so that they may be used again. Only valid for
+	 * such tickets: a ticket inserted by "forceInsert" or "rebuild" may share
+	 * its bits with another ticket, which would lose them too and stop
+	 * blocking new tickets. To drop those tickets, rebuild the index from the
+	 * tickets that remain. AFFECTED FIELDS: 1) p_claimed REQUIRED ARGUMENTS:
+	 * 1) Powerball pball - the ticket to remove.
+	 */
+	public void remove(Powerball pball) {
+		int[] numbers = new int[Powerball.WHITE_PICKS];
+		int count = pball.getWhiteNumbers(numbers);
+		for (int mask : S_SUBSET_MASKS[this.p_limit]) {
+			this.release(subsetRank(numbers, count, mask));
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that releases every subset in the index. AFFECTED
+	 * FIELDS: 1) p_claimed REQUIRED ARGUMENTS: None.
+	 */
+	public void clear() {
+		for (int i = 0; i < this.p_claimed.length(); i++) {
+			this.p_claimed.set(i, 0L);
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Static method that builds a new index for the given game
+	 * and limit out of existing tickets. Tickets that already break the new
+	 * limit are kept and still block new tickets, and none of the tickets may
+	 * be passed to "remove". REQUIRED ARGUMENTS: 1)
+	 * LotteryGame game - the game of the tickets. 2) int limit - the
+	 * recurrence limit. 3) Iterable<Powerball> tickets - the existing tickets.
+	 */
+	public static RecurrenceIndex rebuild(LotteryGame game, int limit, Iterable<Powerball> tickets) {
+		RecurrenceIndex index = new RecurrenceIndex(game, limit);
+		for (Powerball pball : tickets) {
+			index.forceInsert(pball);
+		}
+		return index;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns the colexicographic rank of the
+	 * subset of "numbers" picked by the positions in "mask". Numbers beyond
+	 * "count" are treated as absent, so tickets missing white numbers never
+	 * conflict through them. REQUIRED ARGUMENTS: 1) int[] numbers - white
+	 * numbers in ascending order. 2) int count - how many numbers are valid. 3)
+	 * int mask - the positions that form the subset.
+	 */
+	static int subsetRank(int[] numbers, int count, int mask) {
+		int rank = 0;
+		int picked = 0;
+		for (int position = 0; position < Powerball.WHITE_PICKS; position++) {
+			if ((mask & (1 << position)) != 0) {
+				if (position >= count) {
+					return -1;
+				}
+				rank += S_BINOMIALS[numbers[position] - Powerball.WHITE_MIN][++picked];
+			}
+		}
+		return rank;
+	}
+
+	/*
+	 * DESCRIPTION: Method that sets the bit of a subset, returning false if it
+	 * was already set. AFFECTED FIELDS: 1) p_claimed REQUIRED ARGUMENTS: 1) int
+	 * rank - the subset rank, or -1 for a subset that does not exist.
+	 */
+	private boolean claim(int rank) {
+		if (rank < 0) {
+			return true;
+		}
+		int word = rank >>> 6;
+		long bit = 1L << rank;
+		long current;
+		do {
+			current = this.p_claimed.get(word);
+			if ((current & bit) != 0) {
+				return false;
+			}
+		} while (!this.p_claimed.compareAndSet(word, current, current | bit));
+		return true;
+	}
+
+	/*
+	 * DESCRIPTION: Method that clears the bit of a subset. AFFECTED FIELDS: 1)
+	 * p_claimed REQUIRED ARGUMENTS: 1) int rank - the subset rank, or -1 for a
+	 * subset that does not exist.
+	 */
+	private void release(int rank) {
+		if (rank < 0) {
+			return;
+		}
+		int word = rank >>> 6;
+		long bit = 1L << rank;
+		long current;
+		do {
+			current = this.p_claimed.get(word);
+		} while (!this.p_claimed.compareAndSet(word, current, current & ~bit));
+	}
+}
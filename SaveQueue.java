@@ -0,0 +1,150 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Background writer of the save files. Saves are queued under the name of
+ * the file they write and run one at a time, in order, on a single daemon
+ * thread, so the menu returns as soon as a save is queued. A save queued
+ * while an earlier save of the same file is still waiting to start is
+ * merged into it: the waiting save reads the state when it runs, so one
+ * write covers every change made before it started. Every caller gets a
+ * future completed once its changes are on disk, or completed exceptionally
+ * if the save failed. Small files are replaced whole through
+ * "writeAtomically", which writes a temporary file, forces it to disk and
+ * renames it over the old one, so a crash leaves either the old or the new
+ * file and never a truncated one.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class SaveQueue {
+
+	// Body of a save, run on the save thread.
+	public interface SaveTask {
+		void save() throws IOException;
+	}
+
+	private static final SaveQueue S_INSTANCE = new SaveQueue();
+
+	private final ExecutorService p_executor = Executors.newSingleThreadExecutor(task -> {
+		Thread thread = new Thread(task, "save-queue");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// Saves waiting to start, by the name of the file they write.
+	private final Map<String, CompletableFuture<Void>> p_waiting = new HashMap<String, CompletableFuture<Void>>();
+	// Saves run and saves merged into a waiting one.
+	private final LongAdder p_written = new LongAdder();
+	private final LongAdder p_merged = new LongAdder();
+	// Whether a save failed since the last flush. Only used on the save
+	// thread.
+	private boolean p_failed = false;
+
+	private SaveQueue() {
+	}
+
+	public static SaveQueue get() {
+		return S_INSTANCE;
+	}
+
+	/*
+	 * DESCRIPTION: Method that queues a save of a file, or returns the future
+	 * of the save of the same file already waiting to start. A failed save
+	 * prints the given error message. AFFECTED FIELDS: 1) p_waiting 2)
+	 * p_merged REQUIRED ARGUMENTS: 1) String file_name - the file the save
+	 * writes. 2) String error_message - the message shown if the save fails.
+	 * 3) SaveTask task - the save itself.
+	 */
+	public synchronized CompletableFuture<Void> submit(String file_name, String error_message, SaveTask task) {
+		CompletableFuture<Void> waiting = this.p_waiting.get(file_name);
+		if (waiting != null) {
+			this.p_merged.increment();
+			return waiting;
+		}
+		CompletableFuture<Void> future = new CompletableFuture<Void>();
+		this.p_waiting.put(file_name, future);
+		this.p_executor.execute(() -> {
+			synchronized (this) {
+				// Changes made from now on need a save of their own.
+				this.p_waiting.remove(file_name);
+			}
+			try {
+				task.save();
+				this.p_written.increment();
+				future.complete(null);
+			} catch (IOException | RuntimeException e) {
+				System.out.println("ERROR: " + error_message);
+				this.p_failed = true;
+				future.completeExceptionally(e);
+			}
+		});
+		return future;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns a future completed once every save
+	 * queued so far has run, holding whether all saves since the last flush
+	 * succeeded. AFFECTED FIELDS: 1) p_failed REQUIRED ARGUMENTS: None.
+	 */
+	public CompletableFuture<Boolean> flush() {
+		return CompletableFuture.supplyAsync(() -> {
+			boolean succeeded = !this.p_failed;
+			this.p_failed = false;
+			return succeeded;
+		}, this.p_executor);
+	}
+
+	public long getWritten() {
+		return this.p_written.sum();
+	}
+
+	public long getMerged() {
+		return this.p_merged.sum();
+	}
+
+	/*
+	 * DESCRIPTION: Static method that replaces a file with the given bytes so
+	 * that a crash leaves either the whole old file or the whole new one. The
+	 * bytes go to a temporary file next to it, which is forced to disk and
+	 * renamed over the file; the directory is then forced where the platform
+	 * allows it, so the rename itself survives a power loss. REQUIRED
+	 * ARGUMENTS: 1) String file_name - the file to replace. 2) byte[] bytes -
+	 * the new contents.
+	 */
+	public static void writeAtomically(String file_name, byte[] bytes) throws IOException {
+		Path file = Paths.get(file_name).toAbsolutePath();
+		Path temp = Paths.get(file_name + ".tmp").toAbsolutePath();
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		try (FileChannel directory = FileChannel.open(file.getParent(), StandardOpenOption.READ)) {
+			directory.force(true);
+		} catch (IOException e) {
+			// Some platforms cannot open or force a directory; the rename is
+			// still atomic there.
+		}
+	}
+}
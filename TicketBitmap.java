@@ -0,0 +1,225 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Compressed bitmap of ticket ids. Ids are split into chunks of 65,536 and
+ * every chunk is held in whichever container is smaller for its population:
+ * a sorted array of the low 16 bits of each id while the chunk has at most
+ * 4,096 ids, or a plain 1,024 word bitmap once it has more. Scoring loops
+ * work on one chunk at a time by expanding the containers into word arrays.
+ * A snapshot shares every container with the bitmap it was taken from; the
+ * bitmap copies a shared container the first time it changes it afterwards,
+ * so a snapshot never changes and can be read without a lock while the
+ * bitmap goes on being updated.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.Arrays;
+
+final class TicketBitmap {
+
+	// Amount of ids covered by one chunk.
+	static final int CHUNK_BITS = 16;
+	// Amount of 64-bit words in an expanded chunk.
+	static final int CHUNK_WORDS = (1 << CHUNK_BITS) / 64;
+	// Most ids a chunk keeps in array form.
+	private static final int ARRAY_LIMIT = 4096;
+
+	// Container of every chunk: a char[] of sorted low bits, a long[] bitmap
+	// or null when the chunk is empty.
+	private Object[] p_containers = new Object[0];
+	// Amount of ids in every chunk.
+	private int[] p_counts = new int[0];
+	// Whether the container of every chunk belongs to this bitmap alone
+	// rather than being shared with a snapshot.
+	private boolean[] p_owned = new boolean[0];
+
+	TicketBitmap() {
+	}
+
+	private TicketBitmap(Object[] containers, int[] counts) {
+		this.p_containers = containers;
+		this.p_counts = counts;
+		this.p_owned = new boolean[containers.length];
+	}
+
+	/*
+	 * DESCRIPTION: Method that adds an id, returning false if it was already
+	 * present. AFFECTED FIELDS: 1) p_containers 2) p_counts 3) p_owned
+	 * REQUIRED ARGUMENTS: 1) int id - a non-negative ticket id.
+	 */
+	boolean add(int id) {
+		int chunk = id >>> CHUNK_BITS;
+		char low = (char) id;
+		if (chunk >= this.p_containers.length) {
+			int length = Math.max(chunk + 1, this.p_containers.length * 2);
+			this.p_containers = Arrays.copyOf(this.p_containers, length);
+			this.p_counts = Arrays.copyOf(this.p_counts, length);
+			this.p_owned = Arrays.copyOf(this.p_owned, length);
+		}
+		if (this.contains(id)) {
+			return false;
+		}
+		Object container = this.ownContainer(chunk);
+		int count = this.p_counts[chunk];
+		if (container instanceof long[]) {
+			((long[]) container)[low >>> 6] |= 1L << low;
+		} else {
+			char[] values = container == null ? new char[4] : (char[]) container;
+			int position = -Arrays.binarySearch(values, 0, count, low) - 1;
+			if (count == ARRAY_LIMIT) {
+				long[] words = new long[CHUNK_WORDS];
+				for (int i = 0; i < count; i++) {
+					words[values[i] >>> 6] |= 1L << values[i];
+				}
+				words[low >>> 6] |= 1L << low;
+				this.p_containers[chunk] = words;
+			} else {
+				if (count == values.length) {
+					values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, count * 2));
+				}
+				System.arraycopy(values, position, values, position + 1, count - position);
+				values[position] = low;
+				this.p_containers[chunk] = values;
+			}
+		}
+		this.p_counts[chunk] = count + 1;
+		return true;
+	}
+
+	/*
+	 * DESCRIPTION: Method that removes an id, returning false if it was not
+	 * present. Bitmaps that shrink back to the array limit are turned into
+	 * arrays again. AFFECTED FIELDS: 1) p_containers 2) p_counts 3)
+	 * p_owned REQUIRED ARGUMENTS: 1) int id - a non-negative ticket id.
+	 */
+	boolean remove(int id) {
+		if (!this.contains(id)) {
+			return false;
+		}
+		int chunk = id >>> CHUNK_BITS;
+		char low = (char) id;
+		Object container = this.ownContainer(chunk);
+		int count = this.p_counts[chunk];
+		if (container instanceof long[]) {
+			long[] words = (long[]) container;
+			words[low >>> 6] &= ~(1L << low);
+			if (count - 1 == ARRAY_LIMIT) {
+				char[] values = new char[ARRAY_LIMIT];
+				int size = 0;
+				for (int word = 0; word < CHUNK_WORDS; word++) {
+					long bits = words[word];
+					while (bits != 0) {
+						values[size++] = (char) ((word << 6) + Long.numberOfTrailingZeros(bits));
+						bits &= bits - 1;
+					}
+				}
+				this.p_containers[chunk] = values;
+			}
+		} else {
+			char[] values = (char[]) container;
+			int position = Arrays.binarySearch(values, 0, count, low);
+			System.arraycopy(values, position + 1, values, position, count - position - 1);
+			if (count == 1) {
+				this.p_containers[chunk] = null;
+			}
+		}
+		this.p_counts[chunk] = count - 1;
+		return true;
+	}
+
+	/*
+	 * DESCRIPTION: Method that checks whether an id is present. AFFECTED
+	 * FIELDS: None. REQUIRED ARGUMENTS: 1) int id - a non-negative ticket id.
+	 */
+	boolean contains(int id) {
+		int chunk = id >>> CHUNK_BITS;
+		if (chunk >= this.p_containers.length || this.p_containers[chunk] == null) {
+			return false;
+		}
+		char low = (char) id;
+		Object container = this.p_containers[chunk];
+		if (container instanceof long[]) {
+			return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+		}
+		return Arrays.binarySearch((char[]) container, 0, this.p_counts[chunk], low) >= 0;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the amount of chunks, which bounds the
+	 * chunk numbers passed to "expand". AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: None.
+	 */
+	int chunkCount() {
+		return this.p_containers.length;
+	}
+
+	/*
+	 * DESCRIPTION: Method that writes a chunk as "CHUNK_WORDS" words into the
+	 * destination array. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) int
+	 * chunk - the chunk number. 2) long[] destination - receives the words.
+	 */
+	void expand(int chunk, long[] destination) {
+		Arrays.fill(destination, 0, CHUNK_WORDS, 0L);
+		if (chunk >= this.p_containers.length || this.p_containers[chunk] == null) {
+			return;
+		}
+		Object container = this.p_containers[chunk];
+		if (container instanceof long[]) {
+			System.arraycopy((long[]) container, 0, destination, 0, CHUNK_WORDS);
+		} else {
+			char[] values = (char[]) container;
+			for (int i = 0, count = this.p_counts[chunk]; i < count; i++) {
+				destination[values[i] >>> 6] |= 1L << values[i];
+			}
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the amount of ids in a chunk. AFFECTED
+	 * FIELDS: None. REQUIRED ARGUMENTS: 1) int chunk - the chunk number.
+	 */
+	int chunkCardinality(int chunk) {
+		return chunk < this.p_counts.length ? this.p_counts[chunk] : 0;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns a bitmap holding the ids present now,
+	 * which later changes to this bitmap leave untouched. Only the chunk
+	 * tables are copied; the containers are shared until this bitmap next
+	 * changes them. AFFECTED FIELDS: 1) p_owned REQUIRED ARGUMENTS: None.
+	 */
+	TicketBitmap snapshot() {
+		Arrays.fill(this.p_owned, false);
+		return new TicketBitmap(this.p_containers.clone(), this.p_counts.clone());
+	}
+
+	/*
+	 * DESCRIPTION: Method that removes every id. AFFECTED FIELDS: 1)
+	 * p_containers 2) p_counts 3) p_owned REQUIRED ARGUMENTS: None.
+	 */
+	void clear() {
+		this.p_containers = new Object[0];
+		this.p_counts = new int[0];
+		this.p_owned = new boolean[0];
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the container of a chunk, first
+	 * replacing it with a copy if it is shared with a snapshot. AFFECTED
+	 * FIELDS: 1) p_containers 2) p_owned REQUIRED ARGUMENTS: 1) int chunk - the
+	 * chunk number.
+	 */
+	private Object ownContainer(int chunk) {
+		Object container = this.p_containers[chunk];
+		if (container != null && !this.p_owned[chunk]) {
+			container = container instanceof long[] ? ((long[]) container).clone() : ((char[]) container).clone();
+			this.p_containers[chunk] = container;
+		}
+		this.p_owned[chunk] = true;
+		return container;
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Column snapshot of a ticket collection for scoring loops. Each ticket's
+ * white number bitmasks and red number are copied into parallel primitive
+ * arrays, so scoring a draw against every ticket walks flat memory instead of
+ * chasing Powerball objects through a set.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.Arrays;
+
+final class TicketColumns {
+
+	// White numbers 1 to 64 of every ticket, with number n in bit n - 1.
+	final long[] p_white_low;
+	// White numbers 65 to 72 of every ticket, with number n in bit n - 65.
+	final long[] p_white_high;
+	// Red number of every ticket.
+	final byte[] p_red;
+	// Amount of tickets.
+	final int p_size;
+
+	private TicketColumns(long[] white_low, long[] white_high, byte[] red, int size) {
+		this.p_white_low = white_low;
+		this.p_white_high = white_high;
+		this.p_red = red;
+		this.p_size = size;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that copies the given tickets into columns in
+	 * iteration order. REQUIRED ARGUMENTS: 1) Iterable<Powerball> tickets - the
+	 * tickets to copy.
+	 */
+	static TicketColumns of(Iterable<Powerball> tickets) {
+		int capacity = 1024;
+		long[] white_low = new long[capacity];
+		long[] white_high = new long[capacity];
+		byte[] red = new byte[capacity];
+		int size = 0;
+		for (Powerball pball : tickets) {
+			if (size == capacity) {
+				capacity = (int) Math.min(Integer.MAX_VALUE - 8, capacity * 2L);
+				white_low = Arrays.copyOf(white_low, capacity);
+				white_high = Arrays.copyOf(white_high, capacity);
+				red = Arrays.copyOf(red, capacity);
+			}
+			white_low[size] = pball.getWhiteLow();
+			white_high[size] = pball.getWhiteHigh();
+			red[size] = (byte) pball.getRedNumber();
+			size++;
+		}
+		return new TicketColumns(white_low, white_high, red, size);
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Writes tickets to a file or the console as plain text, CSV or JSON Lines,
+ * one ticket per line. Numbers are formatted straight into one reusable byte
+ * buffer that is handed to the channel whenever it fills, so exporting
+ * creates no strings per ticket and the console is written without going
+ * through the locking of "System.out". Formats:
+ * text - [4, 8, 15, 16, 23] [12]
+ * csv - 4,8,15,16,23,12 after a "white1,...,white5,red" header line
+ * jsonl - {"white":[4,8,15,16,23],"red":12}
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public final class TicketExporter implements Closeable {
+
+	// Formats tickets can be written in.
+	public enum Format {
+		TEXT, CSV, JSONL;
+
+		/*
+		 * DESCRIPTION: Static method that returns the format with the given
+		 * name, ignoring case. Throws IllegalArgumentException if no format
+		 * has the name. REQUIRED ARGUMENTS: 1) String name - the name of the
+		 * format.
+		 */
+		public static Format forName(String name) {
+			for (Format format : Format.values()) {
+				if (format.name().equalsIgnoreCase(name)) {
+					return format;
+				}
+			}
+			throw new IllegalArgumentException("Unknown export format \"" + name + "\"; use text, csv or jsonl.");
+		}
+	}
+
+	// Size of the buffer handed to the channel.
+	private static final int BUFFER_BYTES = 1 << 16;
+	// Most bytes one ticket can take in any format.
+	private static final int MAX_LINE_BYTES = 64;
+
+	// Channel the tickets are written to.
+	private final WritableByteChannel p_channel;
+	// Whether closing the exporter closes the channel.
+	private final boolean p_owns_channel;
+	private final Format p_format;
+	// Buffer the lines are formatted into.
+	private final ByteBuffer p_buffer = ByteBuffer.allocate(BUFFER_BYTES);
+	// White numbers of the ticket being formatted.
+	private final int[] p_whites = new int[Powerball.WHITE_PICKS];
+	// Amount of tickets written.
+	private long p_written;
+
+	private TicketExporter(WritableByteChannel channel, boolean owns_channel, Format format) {
+		this.p_channel = channel;
+		this.p_owns_channel = owns_channel;
+		this.p_format = format;
+		if (format == Format.CSV) {
+			for (int i = 1; i <= this.p_whites.length; i++) {
+				this.putAscii("white").putNumber(i).p_buffer.put((byte) ',');
+			}
+			this.putAscii("red\n");
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Static method that opens an exporter writing to the given
+	 * file, replacing its contents. REQUIRED ARGUMENTS: 1) String file_name -
+	 * the file to write to. 2) Format format - the format of the lines.
+	 */
+	public static TicketExporter toFile(String file_name, Format format) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(file_name), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		return new TicketExporter(channel, true, format);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that opens an exporter writing to the
+	 * standard output. Closing the exporter flushes it but leaves the standard
+	 * output open. REQUIRED ARGUMENTS: 1) Format format - the format of the
+	 * lines.
+	 */
+	public static TicketExporter toConsole(Format format) {
+		System.out.flush();
+		return new TicketExporter(Channels.newChannel(new FileOutputStream(FileDescriptor.out)), false, format);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that opens an exporter writing to an output
+	 * stream, such as the body of a network response. Closing the exporter
+	 * flushes it but leaves the stream open. REQUIRED ARGUMENTS: 1)
+	 * OutputStream out - the stream to write to. 2) Format format - the
+	 * format of the lines.
+	 */
+	public static TicketExporter toStream(OutputStream out, Format format) {
+		return new TicketExporter(Channels.newChannel(out), false, format);
+	}
+
+	public long getWritten() {
+		return this.p_written;
+	}
+
+	/*
+	 * DESCRIPTION: Method that writes every ticket kept by the filter and
+	 * returns how many were written. AFFECTED FIELDS: 1) p_buffer 2) p_written
+	 * REQUIRED ARGUMENTS: 1) Iterable<Powerball> tickets - the tickets to
+	 * export. 2) TicketFilter filter - the filter the tickets must pass.
+	 */
+	public long export(Iterable<Powerball> tickets, TicketFilter filter) throws IOException {
+		long start = this.p_written;
+		boolean all = filter.isAll();
+		for (Powerball pball : tickets) {
+			if (all || filter.test(pball)) {
+				this.write(pball);
+			}
+		}
+		return this.p_written - start;
+	}
+
+	/*
+	 * DESCRIPTION: Method that writes one ticket. AFFECTED FIELDS: 1) p_buffer
+	 * 2) p_written REQUIRED ARGUMENTS: 1) Powerball pball - the ticket to
+	 * write.
+	 */
+	public void write(Powerball pball) throws IOException {
+		if (this.p_buffer.remaining() < MAX_LINE_BYTES) {
+			this.drain();
+		}
+		ByteBuffer buffer = this.p_buffer;
+		int[] whites = this.p_whites;
+		int count = pball.getWhiteNumbers(whites);
+		switch (this.p_format) {
+		case TEXT:
+			buffer.put((byte) '[');
+			for (int i = 0; i < count; i++) {
+				if (i > 0) {
+					buffer.put((byte) ',').put((byte) ' ');
+				}
+				this.putNumber(whites[i]);
+			}
+			buffer.put((byte) ']').put((byte) ' ').put((byte) '[');
+			this.putNumber(pball.getRedNumber());
+			buffer.put((byte) ']');
+			break;
+		case CSV:
+			for (int i = 0; i < count; i++) {
+				this.putNumber(whites[i]);
+				buffer.put((byte) ',');
+			}
+			this.putNumber(pball.getRedNumber());
+			break;
+		case JSONL:
+			this.putAscii("{\"white\":[");
+			for (int i = 0; i < count; i++) {
+				if (i > 0) {
+					buffer.put((byte) ',');
+				}
+				this.putNumber(whites[i]);
+			}
+			this.putAscii("],\"red\":");
+			this.putNumber(pball.getRedNumber());
+			buffer.put((byte) '}');
+			break;
+		}
+		buffer.put((byte) '\n');
+		this.p_written++;
+	}
+
+	/*
+	 * DESCRIPTION: Method that writes the buffered lines to the channel.
+	 * AFFECTED FIELDS: 1) p_buffer REQUIRED ARGUMENTS: None.
+	 */
+	public void flush() throws IOException {
+		this.drain();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			this.drain();
+		} finally {
+			if (this.p_owns_channel) {
+				this.p_channel.close();
+			}
+		}
+	}
+
+	private void drain() throws IOException {
+		this.p_buffer.flip();
+		while (this.p_buffer.hasRemaining()) {
+			this.p_channel.write(this.p_buffer);
+		}
+		this.p_buffer.clear();
+	}
+
+	private TicketExporter putNumber(int number) {
+		if (number >= 100) {
+			this.p_buffer.put((byte) ('0' + number / 100));
+			number %= 100;
+			this.p_buffer.put((byte) ('0' + number / 10));
+		} else if (number >= 10) {
+			this.p_buffer.put((byte) ('0' + number / 10));
+		}
+		this.p_buffer.put((byte) ('0' + number % 10));
+		return this;
+	}
+
+	private TicketExporter putAscii(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			this.p_buffer.put((byte) text.charAt(i));
+		}
+		return this;
+	}
+}
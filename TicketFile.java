@@ -0,0 +1,282 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Compact binary ticket file. The file starts with a 24 byte header followed
+ * by one fixed-width record per ticket holding its packed code:
+ * bytes 0-3 - magic number "PBTK"
+ * bytes 4-5 - format version
+ * bytes 6-7 - record width in bytes
+ * bytes 8-15 - ticket count
+ * bytes 16-23 - stamp tying the file to its ticket journal (version 2 only)
+ * Version 1 files have a 16 byte header and a stamp of 0.
+ * Records are big-endian, so a file written from a sorted set is sorted by
+ * code. Files are read through memory-mapped buffers, letting callers iterate
+ * or randomly access tickets without creating objects.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+public final class TicketFile implements Closeable {
+
+	// Magic number identifying a ticket file, "PBTK" in ASCII.
+	public static final int MAGIC = 0x5042544B;
+	// Current version of the file format.
+	public static final short VERSION = 2;
+	// Size of the file header in bytes.
+	public static final int HEADER_BYTES = 24;
+	// Size of the header of version 1 files in bytes.
+	private static final int V1_HEADER_BYTES = 16;
+	// Size of one ticket record in bytes.
+	public static final int RECORD_BYTES = Powerball.CODE_BYTES;
+	// Amount of records covered by one mapped region of the file.
+	private static final long RECORDS_PER_REGION = (1L << 30) / RECORD_BYTES;
+	// Size of the buffer used when writing records.
+	private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+	// Open channel of the file.
+	private final FileChannel p_channel;
+	// Mapped regions of the file's records.
+	private final MappedByteBuffer[] p_regions;
+	// Amount of tickets in the file.
+	private final long p_size;
+	// Stamp written in the header.
+	private final long p_stamp;
+
+	private TicketFile(FileChannel channel, MappedByteBuffer[] regions, long size, long stamp) {
+		this.p_channel = channel;
+		this.p_regions = regions;
+		this.p_size = size;
+		this.p_stamp = stamp;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that opens a ticket file for reading, checking
+	 * its header and length. REQUIRED ARGUMENTS: 1) String file_name - the file
+	 * to open.
+	 */
+	public static TicketFile open(String file_name) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(file_name), StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				// Keep reading until the header is complete or the file ends.
+			}
+			header.flip();
+			if (header.remaining() < V1_HEADER_BYTES || header.getInt() != MAGIC) {
+				throw new IOException(file_name + " is not a ticket file.");
+			}
+			short version = header.getShort();
+			short width = header.getShort();
+			long size = header.getLong();
+			if ((version != 1 && version != VERSION) || width != RECORD_BYTES) {
+				throw new IOException(file_name + " has unsupported format version " + version + ".");
+			}
+			int header_bytes = version == 1 ? V1_HEADER_BYTES : HEADER_BYTES;
+			if (header.remaining() < header_bytes - V1_HEADER_BYTES) {
+				throw new IOException(file_name + " is not a ticket file.");
+			}
+			long stamp = version == 1 ? 0L : header.getLong();
+			if (size < 0 || channel.size() < header_bytes + size * RECORD_BYTES) {
+				throw new IOException(file_name + " is shorter than its header claims.");
+			}
+			int region_count = (int) ((size + RECORDS_PER_REGION - 1) / RECORDS_PER_REGION);
+			MappedByteBuffer[] regions = new MappedByteBuffer[region_count];
+			for (int i = 0; i < region_count; i++) {
+				long first = i * RECORDS_PER_REGION;
+				long records = Math.min(RECORDS_PER_REGION, size - first);
+				regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, header_bytes + first * RECORD_BYTES,
+						records * RECORD_BYTES);
+			}
+			return new TicketFile(channel, regions, size, stamp);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Static method that writes tickets to a new ticket file with
+	 * a stamp of 0, replacing any existing file of the same name. AFFECTED
+	 * FIELDS: None. REQUIRED ARGUMENTS: 1) String file_name - the file to
+	 * write. 2) Iterable<Powerball> tickets - the tickets to write, in file
+	 * order.
+	 */
+	public static long write(String file_name, Iterable<Powerball> tickets) throws IOException {
+		return write(file_name, tickets, 0L);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that writes tickets to a new ticket file and
+	 * forces it to disk, replacing any existing file of the same name. Returns
+	 * the amount of tickets written. AFFECTED FIELDS: None. REQUIRED ARGUMENTS:
+	 * 1) String file_name - the file to write. 2) Iterable<Powerball> tickets -
+	 * the tickets to write, in file order. 3) long stamp - the stamp to put in
+	 * the header.
+	 */
+	public static long write(String file_name, Iterable<Powerball> tickets, long stamp) throws IOException {
+		Iterator<Powerball> iterator = tickets.iterator();
+		return write(file_name, new PrimitiveIterator.OfLong() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public long nextLong() {
+				return iterator.next().toCode();
+			}
+		}, stamp);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that writes packed ticket codes to a new
+	 * ticket file and forces it to disk, replacing any existing file of the
+	 * same name. The codes are written as they are taken, so a file of any
+	 * size is written in constant memory. Returns the amount of tickets
+	 * written. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) String file_name
+	 * - the file to write. 2) PrimitiveIterator.OfLong codes - the codes to
+	 * write, in file order. 3) long stamp - the stamp to put in the header.
+	 */
+	public static long write(String file_name, PrimitiveIterator.OfLong codes, long stamp) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(file_name), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+			writeHeader(buffer, 0L, stamp);
+			long count = 0;
+			while (codes.hasNext()) {
+				if (buffer.remaining() < RECORD_BYTES) {
+					drain(channel, buffer);
+				}
+				putRecord(buffer, codes.nextLong());
+				count++;
+			}
+			drain(channel, buffer);
+			writeHeader(buffer, count, stamp);
+			buffer.flip();
+			long position = 0;
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			channel.force(true);
+			return count;
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the amount of tickets in the file.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public long size() {
+		return this.p_size;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the stamp written in the header.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public long getStamp() {
+		return this.p_stamp;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the packed code of the ticket at the
+	 * given position. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) long index
+	 * - the position of the ticket, from 0 to "size() - 1".
+	 */
+	public long getCode(long index) {
+		if (index < 0 || index >= this.p_size) {
+			throw new IndexOutOfBoundsException("Ticket " + index + " of " + this.p_size);
+		}
+		MappedByteBuffer region = this.p_regions[(int) (index / RECORDS_PER_REGION)];
+		return getRecord(region, (int) (index % RECORDS_PER_REGION) * RECORD_BYTES);
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the ticket at the given position as a
+	 * new Powerball of the given game. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: 1) LotteryGame game - the game of the file's tickets. 2) long
+	 * index - the position of the ticket.
+	 */
+	public Powerball get(LotteryGame game, long index) {
+		return Powerball.fromCode(game, this.getCode(index));
+	}
+
+	/*
+	 * DESCRIPTION: Method that passes the packed code of every ticket to the
+	 * consumer in file order. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1)
+	 * LongConsumer action - receives every code.
+	 */
+	public void forEachCode(LongConsumer action) {
+		for (MappedByteBuffer region : this.p_regions) {
+			int limit = region.capacity();
+			for (int offset = 0; offset < limit; offset += RECORD_BYTES) {
+				action.accept(getRecord(region, offset));
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.p_channel.close();
+	}
+
+	/*
+	 * DESCRIPTION: Static method that puts one record into a buffer. REQUIRED
+	 * ARGUMENTS: 1) ByteBuffer buffer - the buffer. 2) long code - the packed
+	 * ticket code.
+	 */
+	static void putRecord(ByteBuffer buffer, long code) {
+		buffer.putInt((int) (code >>> 8));
+		buffer.put((byte) code);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that reads one record at an absolute position
+	 * of a buffer. REQUIRED ARGUMENTS: 1) ByteBuffer buffer - the buffer. 2)
+	 * int offset - the position of the record.
+	 */
+	static long getRecord(ByteBuffer buffer, int offset) {
+		return ((buffer.getInt(offset) & 0xFFFFFFFFL) << 8) | (buffer.get(offset + 4) & 0xFFL);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that puts a file header into an empty buffer.
+	 * REQUIRED ARGUMENTS: 1) ByteBuffer buffer - the buffer. 2) long count -
+	 * the ticket count. 3) long stamp - the journal stamp.
+	 */
+	static void writeHeader(ByteBuffer buffer, long count, long stamp) {
+		buffer.clear();
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.putShort((short) RECORD_BYTES);
+		buffer.putLong(count);
+		buffer.putLong(stamp);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that writes out everything put into a buffer
+	 * and empties it. REQUIRED ARGUMENTS: 1) FileChannel channel - the channel
+	 * to write to. 2) ByteBuffer buffer - the buffer.
+	 */
+	static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
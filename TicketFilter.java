@@ -0,0 +1,131 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Condition on the numbers of a ticket, used to narrow the tickets that are
+ * viewed or exported. A filter holds the white numbers a ticket must contain
+ * and optionally the red number it must have. Filters are written as terms
+ * separated by spaces or commas: a bare number or "white=<n>" requires that
+ * white number, and "red=<n>" requires that red number, so "7 21 red=12"
+ * keeps the tickets holding 7 and 21 with a red 12. An empty filter keeps
+ * every ticket.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+public final class TicketFilter implements Predicate<Powerball> {
+
+	// Filter that keeps every ticket.
+	public static final TicketFilter ALL = new TicketFilter(new int[0], 0);
+
+	// White numbers a ticket must contain.
+	private final int[] p_whites;
+	// Red number a ticket must have, or 0 for any.
+	private final int p_red;
+
+	private TicketFilter(int[] whites, int red) {
+		this.p_whites = whites;
+		this.p_red = red;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that reads a filter from its written form,
+	 * checking every number against the ranges of the given game. Throws
+	 * IllegalArgumentException if a term cannot be read. REQUIRED ARGUMENTS:
+	 * 1) LotteryGame game - the game of the filtered tickets. 2) String spec
+	 * - the terms of the filter, or null for a filter keeping every ticket.
+	 */
+	public static TicketFilter parse(LotteryGame game, String spec) {
+		if (spec == null || spec.isBlank()) {
+			return ALL;
+		}
+		int[] whites = new int[game.getWhitePicks()];
+		int white_count = 0;
+		int red = 0;
+		for (String term : spec.trim().split("[\\s,]+")) {
+			int equals = term.indexOf('=');
+			String key = equals < 0 ? "white" : term.substring(0, equals).trim().toLowerCase();
+			int number = TicketFilter.parseNumber(term.substring(equals + 1).trim(), term);
+			if (key.equals("white")) {
+				if (number < Powerball.WHITE_MIN || number > game.getWhiteMax()) {
+					throw new IllegalArgumentException("White number must be between " + Powerball.WHITE_MIN + " and "
+							+ game.getWhiteMax() + ": " + number);
+				}
+				boolean repeated = false;
+				for (int i = 0; i < white_count; i++) {
+					repeated |= whites[i] == number;
+				}
+				if (repeated) {
+					continue;
+				}
+				if (white_count == whites.length) {
+					throw new IllegalArgumentException(
+							"A filter can require at most " + whites.length + " white numbers.");
+				}
+				whites[white_count++] = number;
+			} else if (key.equals("red")) {
+				if (number < Powerball.RED_MIN || number > game.getRedMax()) {
+					throw new IllegalArgumentException("Red number must be between " + Powerball.RED_MIN + " and "
+							+ game.getRedMax() + ": " + number);
+				}
+				if (red != 0 && red != number) {
+					throw new IllegalArgumentException("A filter can require only one red number.");
+				}
+				red = number;
+			} else {
+				throw new IllegalArgumentException("Unknown filter term \"" + term + "\"; use white=<n> or red=<n>.");
+			}
+		}
+		return new TicketFilter(Arrays.copyOf(whites, white_count), red);
+	}
+
+	private static int parseNumber(String value, String term) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid filter term \"" + term + "\"; value must be a whole number.");
+		}
+	}
+
+	public boolean isAll() {
+		return this.p_whites.length == 0 && this.p_red == 0;
+	}
+
+	/*
+	 * DESCRIPTION: Method that checks whether a ticket holds every required
+	 * number. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) Powerball pball -
+	 * the ticket to check.
+	 */
+	@Override
+	public boolean test(Powerball pball) {
+		if (this.p_red != 0 && pball.getRedNumber() != this.p_red) {
+			return false;
+		}
+		for (int white : this.p_whites) {
+			if (!pball.containsWhite(white)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		if (this.isAll()) {
+			return "all tickets";
+		}
+		StringBuilder builder = new StringBuilder();
+		for (int white : this.p_whites) {
+			builder.append(builder.length() == 0 ? "" : " ").append(white);
+		}
+		if (this.p_red != 0) {
+			builder.append(builder.length() == 0 ? "" : " ").append("red=").append(this.p_red);
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,420 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Parallel ticket generation engine. A fixed number of workers, one per
+ * available core, draws candidate tickets with its own thread-local random
+ * generator, checks them against the recurrence index and hands accepted
+ * tickets to a sink in batches. The run ends when the requested amount has
+ * been published or when no worker has been able to place a ticket for a long
+ * stretch of attempts, which means the recurrence limit leaves no room for
+ * the remaining tickets.
+ * Runs given a seeded random source are reproducible: candidates are drawn in
+ * numbered chunks from the source's numbered streams, workers only discard
+ * candidates that already conflict with committed tickets, and the calling
+ * thread commits the chunks in order. The same seed and starting tickets give
+ * the same tickets whatever the amount of workers.
+ * Generators given ticket weights draw candidates with those weights instead
+ * of uniformly.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+public final class TicketGenerator {
+
+	// Default amount of candidate tickets a worker draws before publishing.
+	public static final int DEFAULT_BATCH_SIZE = 1024;
+	// Amount of drawn chunks a seeded run lets each worker hold ahead of the
+	// committed chunks.
+	private static final int CHUNKS_AHEAD_PER_THREAD = 4;
+	// Default amount of consecutive rejected candidates after which a worker
+	// decides the recurrence limit has been saturated.
+	public static final long DEFAULT_STALL_LIMIT = 2000000L;
+
+	// Recurrence index every candidate ticket is checked against.
+	private final RecurrenceIndex p_index;
+	// Receives every batch of accepted tickets. Called from worker threads.
+	private final Consumer<List<Powerball>> p_sink;
+	// Amount of worker threads.
+	private final int p_threads;
+	// Amount of candidate tickets drawn per batch.
+	private final int p_batch_size;
+	// Consecutive rejections tolerated by a worker before giving up.
+	private final long p_stall_limit;
+	// Weights candidates are drawn with, or null to draw them uniformly.
+	private final TicketWeights p_weights;
+
+	/*
+	 * DESCRIPTION: Constructor for a generator sized to the available cores
+	 * with the default batch size and stall limit. REQUIRED ARGUMENTS: 1)
+	 * RecurrenceIndex index - the index tickets are checked against. 2)
+	 * Consumer<List<Powerball>> sink - receives accepted tickets in batches.
+	 */
+	public TicketGenerator(RecurrenceIndex index, Consumer<List<Powerball>> sink) {
+		this(index, sink, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE, DEFAULT_STALL_LIMIT);
+	}
+
+	public TicketGenerator(RecurrenceIndex index, Consumer<List<Powerball>> sink, int threads, int batch_size,
+			long stall_limit) {
+		this(index, sink, threads, batch_size, stall_limit, null);
+	}
+
+	/*
+	 * DESCRIPTION: Constructor for a generator drawing candidates with the
+	 * given weights. REQUIRED ARGUMENTS: 1) RecurrenceIndex index - the index
+	 * tickets are checked against. 2) Consumer<List<Powerball>> sink -
+	 * receives accepted tickets in batches. 3) int threads - the amount of
+	 * workers. 4) int batch_size - candidates drawn per batch. 5) long
+	 * stall_limit - consecutive rejections before giving up. 6) TicketWeights
+	 * weights - the weights of the game's numbers, or null for uniform draws.
+	 */
+	public TicketGenerator(RecurrenceIndex index, Consumer<List<Powerball>> sink, int threads, int batch_size,
+			long stall_limit, TicketWeights weights) {
+		if (threads < 1 || batch_size < 1 || stall_limit < 1) {
+			throw new IllegalArgumentException("Thread count, batch size and stall limit must be positive.");
+		}
+		this.p_index = index;
+		this.p_sink = sink;
+		this.p_threads = threads;
+		this.p_batch_size = batch_size;
+		this.p_stall_limit = stall_limit;
+		if (weights != null && weights.getGame() != index.getGame()) {
+			throw new IllegalArgumentException("Weights of " + weights.getGame() + " cannot draw "
+					+ index.getGame() + " tickets.");
+		}
+		this.p_weights = weights;
+	}
+
+	/*
+	 * DESCRIPTION: Method that generates the given amount of new tickets and
+	 * publishes them to the sink, returning once the amount has been reached
+	 * or the recurrence limit has been saturated. AFFECTED FIELDS: None.
+	 * REQUIRED ARGUMENTS: 1) int amount - the amount of new tickets wanted.
+	 */
+	public Result generate(int amount) {
+		long start = System.nanoTime();
+		AtomicInteger remaining = new AtomicInteger(Math.max(amount, 0));
+		AtomicLong attempts = new AtomicLong();
+		AtomicLong batches = new AtomicLong();
+		AtomicBoolean saturated = new AtomicBoolean();
+		int workers = (int) Math.min(this.p_threads, ((long) remaining.get() + this.p_batch_size - 1) / this.p_batch_size);
+		if (workers > 0) {
+			ExecutorService executor = Executors.newFixedThreadPool(workers);
+			try {
+				List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(workers);
+				for (int i = 0; i < workers; i++) {
+					tasks.add(() -> {
+						this.work(remaining, attempts, batches, saturated);
+						return null;
+					});
+				}
+				for (Future<Void> future : executor.invokeAll(tasks)) {
+					future.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Ticket generation worker failed.", e.getCause());
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		return new Result(amount, Math.max(amount, 0) - remaining.get(), attempts.get(), batches.get(), workers,
+				saturated.get(), System.nanoTime() - start);
+	}
+
+	/*
+	 * DESCRIPTION: Method that generates the given amount of new tickets from
+	 * the numbered streams of a seeded source and publishes them to the sink
+	 * on the calling thread. Workers draw chunks of candidates and drop those
+	 * conflicting with committed tickets; the calling thread commits the
+	 * chunks in chunk order, so the outcome does not depend on the amount of
+	 * workers or their timing. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1)
+	 * int amount - the amount of new tickets wanted. 2) TicketRandom random -
+	 * the source candidates are drawn from.
+	 */
+	public Result generate(int amount, TicketRandom random) {
+		long start = System.nanoTime();
+		int remaining = Math.max(amount, 0);
+		long attempts = 0;
+		long batches = 0;
+		boolean saturated = false;
+		int window = this.p_threads * CHUNKS_AHEAD_PER_THREAD;
+		ChunkWindow chunks = new ChunkWindow(window);
+		int workers = (int) Math.min(this.p_threads, ((long) remaining + this.p_batch_size - 1) / this.p_batch_size);
+		if (workers > 0) {
+			ExecutorService executor = Executors.newFixedThreadPool(workers);
+			try {
+				List<Future<?>> futures = new ArrayList<Future<?>>(workers);
+				for (int i = 0; i < workers; i++) {
+					futures.add(executor.submit(() -> {
+						this.draw(chunks, random);
+						return null;
+					}));
+				}
+				List<Powerball> batch = new ArrayList<Powerball>(this.p_batch_size);
+				long rejected_in_row = 0;
+				for (long chunk = 0; remaining > 0 && !saturated; chunk++) {
+					Powerball[] candidates = chunks.take(chunk, futures);
+					for (int i = 0; i < candidates.length && remaining > 0; i++) {
+						attempts++;
+						// The calling thread is the only writer, so a checked
+						// insert never leaves claims of a rejected ticket
+						// behind for the workers to see.
+						if (candidates[i] != null && !this.p_index.conflicts(candidates[i])) {
+							this.p_index.forceInsert(candidates[i]);
+							batch.add(candidates[i]);
+							remaining--;
+							rejected_in_row = 0;
+						} else if (++rejected_in_row >= this.p_stall_limit) {
+							saturated = true;
+							break;
+						}
+					}
+					batches++;
+					if (!batch.isEmpty()) {
+						this.p_sink.accept(new ArrayList<Powerball>(batch));
+						batch.clear();
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Ticket generation worker failed.", e.getCause());
+			} finally {
+				chunks.close();
+				executor.shutdownNow();
+			}
+		}
+		return new Result(amount, Math.max(amount, 0) - remaining, attempts, batches, workers, saturated,
+				System.nanoTime() - start);
+	}
+
+	/*
+	 * DESCRIPTION: Method run by every worker of a seeded run. Takes the next
+	 * chunk number, draws the chunk from the stream of that number, blanks out
+	 * candidates already conflicting with committed tickets and hands the
+	 * chunk over, until the window is closed. Committed tickets only come
+	 * from earlier chunks, so every blanked candidate would also have been
+	 * rejected in order. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1)
+	 * ChunkWindow chunks - the window chunks are handed over through. 2)
+	 * TicketRandom random - the source of the streams.
+	 */
+	private void draw(ChunkWindow chunks, TicketRandom random) throws InterruptedException {
+		long chunk;
+		while ((chunk = chunks.next()) >= 0) {
+			RandomGenerator generator = random.stream(chunk);
+			LotteryGame game = this.p_index.getGame();
+			TicketWeights weights = this.p_weights;
+			Powerball[] candidates = new Powerball[this.p_batch_size];
+			for (int i = 0; i < candidates.length; i++) {
+				Powerball candidate = weights == null ? Powerball.random(game, generator) : weights.draw(generator);
+				candidates[i] = this.p_index.conflicts(candidate) ? null : candidate;
+			}
+			chunks.put(chunk, candidates);
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method run by every worker. Draws batches of candidates,
+	 * reserves as many slots as it accepted and publishes those tickets.
+	 * Accepted tickets beyond the reserved slots are released from the index
+	 * again. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) AtomicInteger
+	 * remaining - tickets still wanted. 2) AtomicLong attempts - total
+	 * candidates drawn. 3) AtomicLong batches - total batches drawn. 4)
+	 * AtomicBoolean saturated - set when a worker stalls.
+	 */
+	private void work(AtomicInteger remaining, AtomicLong attempts, AtomicLong batches, AtomicBoolean saturated) {
+		List<Powerball> batch = new ArrayList<Powerball>(this.p_batch_size);
+		LotteryGame game = this.p_index.getGame();
+		TicketWeights weights = this.p_weights;
+		long rejected_in_row = 0;
+		while (remaining.get() > 0 && !saturated.get() && !Thread.currentThread().isInterrupted()) {
+			for (int i = 0; i < this.p_batch_size; i++) {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				Powerball candidate = weights == null ? Powerball.random(game, random) : weights.draw(random);
+				if (this.p_index.tryInsert(candidate)) {
+					batch.add(candidate);
+					rejected_in_row = 0;
+				} else {
+					rejected_in_row++;
+				}
+			}
+			attempts.addAndGet(this.p_batch_size);
+			batches.incrementAndGet();
+			int reserved = reserve(remaining, batch.size());
+			for (int i = reserved; i < batch.size(); i++) {
+				this.p_index.remove(batch.get(i));
+			}
+			if (reserved > 0) {
+				this.p_sink.accept(new ArrayList<Powerball>(batch.subList(0, reserved)));
+			}
+			batch.clear();
+			if (rejected_in_row >= this.p_stall_limit) {
+				saturated.set(true);
+			}
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Static method that takes up to "wanted" slots from the
+	 * remaining count and returns how many were taken. REQUIRED ARGUMENTS: 1)
+	 * AtomicInteger remaining - tickets still wanted. 2) int wanted - slots to
+	 * take.
+	 */
+	private static int reserve(AtomicInteger remaining, int wanted) {
+		int current;
+		int taken;
+		do {
+			current = remaining.get();
+			taken = Math.min(current, wanted);
+			if (taken <= 0) {
+				return 0;
+			}
+		} while (!remaining.compareAndSet(current, current - taken));
+		return taken;
+	}
+
+	/*
+	 * DESCRIPTION: Hands drawn chunks from the workers to the committing
+	 * thread in chunk order. Workers may run at most the window size ahead of
+	 * the next chunk to commit, which bounds the memory held by a seeded run.
+	 */
+	private static final class ChunkWindow {
+
+		// Drawn chunks waiting to be committed, at their number modulo the
+		// window size.
+		private final Powerball[][] p_slots;
+		// Number of the next chunk handed to a worker.
+		private long p_next_drawn = 0;
+		// Number of the next chunk to commit.
+		private long p_next_committed = 0;
+		// Set once the run ended.
+		private boolean p_closed = false;
+
+		ChunkWindow(int size) {
+			this.p_slots = new Powerball[size][];
+		}
+
+		/*
+		 * DESCRIPTION: Method that returns the next chunk number to draw,
+		 * waiting while the window is full, or -1 once it is closed.
+		 */
+		synchronized long next() throws InterruptedException {
+			while (!this.p_closed && this.p_next_drawn - this.p_next_committed >= this.p_slots.length) {
+				this.wait();
+			}
+			return this.p_closed ? -1L : this.p_next_drawn++;
+		}
+
+		synchronized void put(long chunk, Powerball[] candidates) {
+			this.p_slots[(int) (chunk % this.p_slots.length)] = candidates;
+			this.notifyAll();
+		}
+
+		/*
+		 * DESCRIPTION: Method that waits for the given chunk, which must be
+		 * the next one to commit, and removes it from the window. Fails if a
+		 * worker failed, as the chunk would never arrive.
+		 */
+		synchronized Powerball[] take(long chunk, List<Future<?>> workers)
+				throws InterruptedException, ExecutionException {
+			int slot = (int) (chunk % this.p_slots.length);
+			while (this.p_slots[slot] == null) {
+				for (Future<?> worker : workers) {
+					if (worker.isDone()) {
+						worker.get();
+					}
+				}
+				this.wait(10);
+			}
+			Powerball[] candidates = this.p_slots[slot];
+			this.p_slots[slot] = null;
+			this.p_next_committed = chunk + 1;
+			this.notifyAll();
+			return candidates;
+		}
+
+		synchronized void close() {
+			this.p_closed = true;
+			this.notifyAll();
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Outcome of a generation run.
+	 */
+	public static final class Result {
+
+		private final int p_requested;
+		private final int p_generated;
+		private final long p_attempts;
+		private final long p_batches;
+		private final int p_threads;
+		private final boolean p_saturated;
+		private final long p_elapsed_nanos;
+
+		Result(int requested, int generated, long attempts, long batches, int threads, boolean saturated,
+				long elapsed_nanos) {
+			this.p_requested = requested;
+			this.p_generated = generated;
+			this.p_attempts = attempts;
+			this.p_batches = batches;
+			this.p_threads = threads;
+			this.p_saturated = saturated;
+			this.p_elapsed_nanos = elapsed_nanos;
+		}
+
+		public int getRequested() {
+			return this.p_requested;
+		}
+
+		public int getGenerated() {
+			return this.p_generated;
+		}
+
+		public long getAttempts() {
+			return this.p_attempts;
+		}
+
+		// Candidate tickets the recurrence limit turned away.
+		public long getRejections() {
+			return this.p_attempts - this.p_generated;
+		}
+
+		// Rounds of candidate batches drawn by all workers together.
+		public long getBatches() {
+			return this.p_batches;
+		}
+
+		public int getThreads() {
+			return this.p_threads;
+		}
+
+		// True when generation stopped early because the recurrence limit left
+		// no room for more tickets.
+		public boolean isSaturated() {
+			return this.p_saturated && this.p_generated < this.p_requested;
+		}
+
+		public long getElapsedNanos() {
+			return this.p_elapsed_nanos;
+		}
+	}
+}
@@ -0,0 +1,407 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Append-only ticket store made of two segments: a ticket file snapshot and a
+ * journal of changes made since the snapshot was written. New tickets,
+ * deleted tickets and "delete all" are appended to the journal as entries,
+ * so saving a change only costs the I/O of the change itself. Once the
+ * journal outgrows the snapshot, or most stored records are dead, the live
+ * tickets are compacted into a new snapshot and the journal starts over.
+ * The journal file starts with an 16 byte header:
+ * bytes 0-3 - magic number "PBJL"
+ * bytes 4-5 - format version
+ * bytes 6-7 - record width in bytes
+ * bytes 8-15 - stamp of the snapshot the journal applies to
+ * followed by entries of:
+ * byte 0 - entry type: 'A' add, 'D' delete or 'C' delete all
+ * bytes 1-4 - record count
+ * records - one packed ticket code per record
+ * last 4 bytes - CRC-32 of the entry type, count and records
+ * A journal whose stamp does not match the snapshot was left behind by an
+ * interrupted compaction and is discarded, and an entry cut short by a crash
+ * is dropped along with anything after it.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+
+public final class TicketJournal implements Closeable {
+
+	// Magic number identifying a journal file, "PBJL" in ASCII.
+	public static final int MAGIC = 0x50424A4C;
+	// Current version of the journal format.
+	public static final short VERSION = 1;
+	// Size of the journal header in bytes.
+	public static final int HEADER_BYTES = 16;
+	// Entry types.
+	private static final byte ENTRY_ADD = 'A';
+	private static final byte ENTRY_DELETE = 'D';
+	private static final byte ENTRY_CLEAR = 'C';
+	// Bytes an entry takes besides its records.
+	private static final int ENTRY_OVERHEAD = 1 + 4 + 4;
+	// Journals with fewer records than this are never compacted.
+	private static final long MIN_COMPACTION_RECORDS = 65536;
+	// Size of the buffer used when appending entries.
+	private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+	// Names of the snapshot and journal files.
+	private final String p_snapshot_name;
+	private final String p_journal_name;
+	// Journal channel, positioned at the end of the last complete entry.
+	private FileChannel p_channel;
+	// Stamp shared by the current snapshot and journal.
+	private long p_stamp;
+	// Records in the snapshot and in the journal.
+	private long p_snapshot_records;
+	private long p_journal_records;
+	// Stored records known to be dead because of deletes.
+	private long p_dead_records;
+	// Reused buffer for appended entries.
+	private final ByteBuffer p_buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+
+	private TicketJournal(String snapshot_name, String journal_name) {
+		this.p_snapshot_name = snapshot_name;
+		this.p_journal_name = journal_name;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that opens the store made of the given
+	 * snapshot and journal, creating an empty journal if there is none or if
+	 * the existing one is stale. A missing snapshot counts as empty. REQUIRED
+	 * ARGUMENTS: 1) String snapshot_name - the ticket file snapshot. 2) String
+	 * journal_name - the journal file.
+	 */
+	public static TicketJournal open(String snapshot_name, String journal_name) throws IOException {
+		TicketJournal journal = new TicketJournal(snapshot_name, journal_name);
+		if (Files.exists(Paths.get(snapshot_name))) {
+			try (TicketFile snapshot = TicketFile.open(snapshot_name)) {
+				journal.p_stamp = snapshot.getStamp();
+				journal.p_snapshot_records = snapshot.size();
+			}
+		}
+		journal.openJournal();
+		return journal;
+	}
+
+	/*
+	 * DESCRIPTION: Method that replays the store from the start: every
+	 * snapshot ticket is passed to "added", then every journal entry to the
+	 * matching callback in the order written. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: 1) LongConsumer added - receives codes of added tickets. 2)
+	 * LongConsumer deleted - receives codes of deleted tickets. 3) Runnable
+	 * cleared - called for every "delete all".
+	 */
+	public void replay(LongConsumer added, LongConsumer deleted, Runnable cleared) throws IOException {
+		if (this.p_snapshot_records > 0) {
+			try (TicketFile snapshot = TicketFile.open(this.p_snapshot_name)) {
+				snapshot.forEachCode(added);
+			}
+		}
+		long end = this.p_channel.position();
+		try (FileChannel channel = FileChannel.open(Paths.get(this.p_journal_name), StandardOpenOption.READ)) {
+			channel.position(HEADER_BYTES);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel),
+					WRITE_BUFFER_BYTES));
+			long position = HEADER_BYTES;
+			while (position < end) {
+				byte type = in.readByte();
+				int count = in.readInt();
+				for (int i = 0; i < count; i++) {
+					long code = ((in.readInt() & 0xFFFFFFFFL) << 8) | (in.readByte() & 0xFFL);
+					if (type == ENTRY_ADD) {
+						added.accept(code);
+					} else {
+						deleted.accept(code);
+					}
+				}
+				in.readInt();
+				if (type == ENTRY_CLEAR) {
+					cleared.run();
+				}
+				position += ENTRY_OVERHEAD + (long) count * TicketFile.RECORD_BYTES;
+			}
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that appends an entry adding the given tickets.
+	 * AFFECTED FIELDS: 1) p_journal_records REQUIRED ARGUMENTS: 1)
+	 * Collection<Powerball> tickets - the new tickets.
+	 */
+	public synchronized void add(Collection<Powerball> tickets) throws IOException {
+		this.appendEntry(ENTRY_ADD, tickets);
+	}
+
+	/*
+	 * DESCRIPTION: Method that appends an entry with tombstones for the given
+	 * tickets. AFFECTED FIELDS: 1) p_journal_records 2) p_dead_records
+	 * REQUIRED ARGUMENTS: 1) Collection<Powerball> tickets - the deleted
+	 * tickets.
+	 */
+	public synchronized void delete(Collection<Powerball> tickets) throws IOException {
+		this.appendEntry(ENTRY_DELETE, tickets);
+		this.p_dead_records += 2L * tickets.size();
+	}
+
+	/*
+	 * DESCRIPTION: Method that appends an entry deleting every ticket stored so
+	 * far. AFFECTED FIELDS: 1) p_dead_records REQUIRED ARGUMENTS: None.
+	 */
+	public synchronized void clear() throws IOException {
+		this.appendEntry(ENTRY_CLEAR, Collections.<Powerball>emptyList());
+		this.p_dead_records = this.p_snapshot_records + this.p_journal_records;
+	}
+
+	/*
+	 * DESCRIPTION: Method that checks whether the store would be worth
+	 * compacting: the journal holds more records than the snapshot, or more
+	 * than half of all stored records are dead. AFFECTED FIELDS: None.
+	 * REQUIRED ARGUMENTS: None.
+	 */
+	public synchronized boolean needsCompaction() {
+		long stored = this.p_snapshot_records + this.p_journal_records;
+		if (stored < MIN_COMPACTION_RECORDS && this.p_dead_records < stored) {
+			return false;
+		}
+		return this.p_journal_records > this.p_snapshot_records || this.p_dead_records * 2 > stored;
+	}
+
+	/*
+	 * DESCRIPTION: Method that writes the live tickets into a new snapshot and
+	 * starts an empty journal. Both files are written under temporary names,
+	 * forced to disk and renamed into place, with the snapshot first, and the
+	 * directory is forced afterwards so the renames survive a power loss. A
+	 * crash between the two renames leaves the old journal behind with a
+	 * stale stamp, which "open" discards. If a rename fails, the journal is
+	 * opened again for whichever snapshot is in place, so the store stays
+	 * usable. AFFECTED FIELDS: 1) p_channel 2) p_stamp 3) p_snapshot_records
+	 * 4) p_journal_records 5) p_dead_records REQUIRED ARGUMENTS: 1)
+	 * Iterable<Powerball> live - every ticket currently stored.
+	 */
+	public synchronized void compact(Iterable<Powerball> live) throws IOException {
+		long stamp = this.p_stamp + 1;
+		Path snapshot = Paths.get(this.p_snapshot_name);
+		Path journal = Paths.get(this.p_journal_name);
+		Path snapshot_temp = Paths.get(this.p_snapshot_name + ".tmp");
+		Path journal_temp = Paths.get(this.p_journal_name + ".tmp");
+		long records = TicketFile.write(snapshot_temp.toString(), live, stamp);
+		try (FileChannel channel = FileChannel.open(journal_temp, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeHeader(channel, stamp);
+		}
+		this.p_channel.close();
+		try {
+			Files.move(snapshot_temp, snapshot, StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+			this.p_stamp = stamp;
+			this.p_snapshot_records = records;
+			Files.move(journal_temp, journal, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			try (FileChannel directory = FileChannel.open(snapshot.toAbsolutePath().getParent(),
+					StandardOpenOption.READ)) {
+				directory.force(true);
+			} catch (IOException e) {
+				// Some platforms cannot open or force a directory; the renames
+				// are still atomic there.
+			}
+		} finally {
+			this.openJournal();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		this.p_channel.close();
+	}
+
+	/*
+	 * DESCRIPTION: Method that opens the journal file, starting a new one if it
+	 * is missing or stale, and scans its entries. The channel is left at the
+	 * end of the last complete entry and anything after it is truncated.
+	 * AFFECTED FIELDS: 1) p_channel 2) p_journal_records 3) p_dead_records
+	 * REQUIRED ARGUMENTS: None.
+	 */
+	private void openJournal() throws IOException {
+		this.p_channel = FileChannel.open(Paths.get(this.p_journal_name), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.p_journal_records = 0;
+		this.p_dead_records = 0;
+		try {
+			long end = this.scan();
+			if (end < 0) {
+				this.p_channel.truncate(0);
+				writeHeader(this.p_channel, this.p_stamp);
+				end = HEADER_BYTES;
+			} else if (end < this.p_channel.size()) {
+				this.p_channel.truncate(end);
+				this.p_channel.force(true);
+			}
+			this.p_channel.position(end);
+		} catch (IOException | RuntimeException e) {
+			this.p_channel.close();
+			throw e;
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that checks the journal header and the CRC of every
+	 * entry, counting records as it goes. Returns the end of the last complete
+	 * entry, or -1 if the header is missing, invalid or stale. AFFECTED
+	 * FIELDS: 1) p_journal_records 2) p_dead_records REQUIRED ARGUMENTS: None.
+	 */
+	private long scan() throws IOException {
+		this.p_channel.position(0);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(this.p_channel),
+				WRITE_BUFFER_BYTES));
+		try {
+			if (in.readInt() != MAGIC || in.readShort() != VERSION || in.readShort() != TicketFile.RECORD_BYTES
+					|| in.readLong() != this.p_stamp) {
+				return -1;
+			}
+		} catch (EOFException e) {
+			return -1;
+		}
+		long position = HEADER_BYTES;
+		long size = this.p_channel.size();
+		byte[] record = new byte[TicketFile.RECORD_BYTES];
+		CRC32 crc = new CRC32();
+		try {
+			while (position + ENTRY_OVERHEAD <= size) {
+				byte type = in.readByte();
+				int count = in.readInt();
+				if ((type != ENTRY_ADD && type != ENTRY_DELETE && type != ENTRY_CLEAR) || count < 0
+						|| position + ENTRY_OVERHEAD + (long) count * record.length > size) {
+					break;
+				}
+				crc.reset();
+				crc.update(type);
+				crc.update(count >>> 24);
+				crc.update(count >>> 16);
+				crc.update(count >>> 8);
+				crc.update(count);
+				for (int i = 0; i < count; i++) {
+					in.readFully(record);
+					crc.update(record, 0, record.length);
+				}
+				if (in.readInt() != (int) crc.getValue()) {
+					break;
+				}
+				if (type == ENTRY_ADD) {
+					this.p_journal_records += count;
+				} else if (type == ENTRY_DELETE) {
+					this.p_journal_records += count;
+					this.p_dead_records += 2L * count;
+				} else {
+					this.p_dead_records = this.p_snapshot_records + this.p_journal_records;
+				}
+				position += ENTRY_OVERHEAD + (long) count * record.length;
+			}
+		} catch (EOFException e) {
+			// A torn entry at the end of the journal; keep what came before it.
+		}
+		return position;
+	}
+
+	/*
+	 * DESCRIPTION: Method that writes one entry at the end of the journal and
+	 * forces it to disk. If writing fails, the partial entry is cut off again
+	 * so later entries are not lost behind it. AFFECTED FIELDS: 1)
+	 * p_journal_records REQUIRED ARGUMENTS: 1) byte type - the entry type. 2)
+	 * Collection<Powerball> tickets - the tickets of the entry.
+	 */
+	private void appendEntry(byte type, Collection<Powerball> tickets) throws IOException {
+		long start = this.p_channel.position();
+		try {
+			this.writeEntry(type, tickets);
+		} catch (IOException | RuntimeException e) {
+			this.p_channel.truncate(start);
+			this.p_channel.position(start);
+			throw e;
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that writes the bytes of one entry at the current
+	 * journal position. AFFECTED FIELDS: 1) p_journal_records REQUIRED
+	 * ARGUMENTS: 1) byte type - the entry type. 2) Collection<Powerball>
+	 * tickets - the tickets of the entry.
+	 */
+	private void writeEntry(byte type, Collection<Powerball> tickets) throws IOException {
+		ByteBuffer buffer = this.p_buffer;
+		CRC32 crc = new CRC32();
+		buffer.clear();
+		buffer.put(type);
+		buffer.putInt(tickets.size());
+		int count = 0;
+		for (Powerball pball : tickets) {
+			if (buffer.remaining() < TicketFile.RECORD_BYTES) {
+				this.drain(crc);
+			}
+			TicketFile.putRecord(buffer, pball.toCode());
+			count++;
+		}
+		if (count != tickets.size()) {
+			throw new IllegalStateException("Tickets changed while being saved.");
+		}
+		this.drain(crc);
+		buffer.putInt((int) crc.getValue());
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			this.p_channel.write(buffer);
+		}
+		this.p_channel.force(false);
+		this.p_journal_records += count;
+	}
+
+	/*
+	 * DESCRIPTION: Method that adds the buffered bytes to the entry CRC and
+	 * writes them out. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) CRC32 crc
+	 * - the CRC of the entry being written.
+	 */
+	private void drain(CRC32 crc) throws IOException {
+		this.p_buffer.flip();
+		crc.update(this.p_buffer.duplicate());
+		while (this.p_buffer.hasRemaining()) {
+			this.p_channel.write(this.p_buffer);
+		}
+		this.p_buffer.clear();
+	}
+
+	/*
+	 * DESCRIPTION: Static method that writes a journal header at the start of
+	 * a channel and forces it to disk. REQUIRED ARGUMENTS: 1) FileChannel
+	 * channel - the journal channel. 2) long stamp - the snapshot stamp.
+	 */
+	private static void writeHeader(FileChannel channel, long stamp) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		header.putInt(MAGIC);
+		header.putShort(VERSION);
+		header.putShort((short) TicketFile.RECORD_BYTES);
+		header.putLong(stamp);
+		header.flip();
+		long position = 0;
+		while (header.hasRemaining()) {
+			position += channel.write(header, position);
+		}
+		channel.force(true);
+	}
+}
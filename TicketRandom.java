@@ -0,0 +1,132 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Seeded source of random generators for reproducible runs. A seed and an
+ * algorithm name from the JDK random generator families define an endless
+ * sequence of independent streams, and stream "n" is always built from the
+ * same derived seed. Parallel work draws from numbered streams instead of
+ * per-thread generators, so the numbers it sees do not depend on which
+ * thread, or how many threads, happen to run it. Every run started from a
+ * source takes a fresh child source through "fork", so consecutive runs
+ * differ while the whole session stays reproducible from the first seed.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+public final class TicketRandom {
+
+	// Algorithm used when none is named.
+	public static final String DEFAULT_ALGORITHM = "SplittableRandom";
+	// Odd constant spacing the derived seeds, from the golden ratio.
+	private static final long SEED_GAMMA = 0x9E3779B97F4A7C15L;
+
+	// Builds the generators of every stream.
+	private final RandomGeneratorFactory<RandomGenerator> p_factory;
+	// Seed every stream and child source is derived from.
+	private final long p_seed;
+	// Number of the next child source handed out by "fork".
+	private final AtomicLong p_next_fork = new AtomicLong();
+
+	private TicketRandom(RandomGeneratorFactory<RandomGenerator> factory, long seed) {
+		this.p_factory = factory;
+		this.p_seed = seed;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns a source seeded with the given
+	 * seed using the default algorithm. REQUIRED ARGUMENTS: 1) long seed - the
+	 * seed.
+	 */
+	public static TicketRandom seeded(long seed) {
+		return TicketRandom.seeded(seed, DEFAULT_ALGORITHM);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns a source seeded with the given
+	 * seed using the named algorithm, which must be splittable so draws can be
+	 * simulated from it. Throws IllegalArgumentException for an unknown or
+	 * unsplittable algorithm. REQUIRED ARGUMENTS: 1) long seed - the seed. 2)
+	 * String algorithm - a JDK random generator name such as
+	 * "SplittableRandom" or "L64X128MixRandom".
+	 */
+	public static TicketRandom seeded(long seed, String algorithm) {
+		RandomGeneratorFactory<RandomGenerator> factory = RandomGeneratorFactory.of(algorithm);
+		if (!factory.isSplittable()) {
+			throw new IllegalArgumentException("Random generator " + algorithm + " is not splittable.");
+		}
+		return new TicketRandom(factory, seed);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns a source with a fresh random
+	 * seed, which can be read back through "getSeed" to repeat the run.
+	 * REQUIRED ARGUMENTS: None.
+	 */
+	public static TicketRandom unseeded() {
+		return TicketRandom.seeded(ThreadLocalRandom.current().nextLong());
+	}
+
+	public long getSeed() {
+		return this.p_seed;
+	}
+
+	public String getAlgorithm() {
+		return this.p_factory.name();
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the generator of the numbered stream.
+	 * The same seed, algorithm and number always give the same sequence.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) long number - the stream
+	 * number.
+	 */
+	public RandomGenerator stream(long number) {
+		return this.p_factory.create(TicketRandom.derive(this.p_seed, number));
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns a splittable generator seeded from this
+	 * source, for work split recursively such as draw simulation. AFFECTED
+	 * FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public RandomGenerator.SplittableGenerator splittable() {
+		return (RandomGenerator.SplittableGenerator) this.p_factory.create(TicketRandom.derive(this.p_seed, -1L));
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the next child source. Children are
+	 * numbered in the order they are taken, so a session that starts the same
+	 * runs in the same order sees the same numbers. AFFECTED FIELDS: 1)
+	 * p_next_fork REQUIRED ARGUMENTS: None.
+	 */
+	public TicketRandom fork() {
+		long number = this.p_next_fork.getAndIncrement();
+		return new TicketRandom(this.p_factory, TicketRandom.derive(this.p_seed ^ SEED_GAMMA, number));
+	}
+
+	/*
+	 * DESCRIPTION: Static method that derives the seed of a stream by mixing
+	 * the source seed with the stream number through the SplitMix64
+	 * finalizer, so nearby numbers give unrelated seeds. REQUIRED ARGUMENTS:
+	 * 1) long seed - the source seed. 2) long number - the stream number.
+	 */
+	private static long derive(long seed, long number) {
+		long z = seed + (number + 1) * SEED_GAMMA;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	@Override
+	public String toString() {
+		return this.getAlgorithm() + " seed " + this.p_seed;
+	}
+}
@@ -0,0 +1,306 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * HTTP front end of the ticket generator for local tools, listening on the
+ * loopback address. Every request runs on its own virtual thread when the
+ * JVM provides them, or on a fixed pool of platform threads otherwise. All
+ * requests share the saved tickets, the recurrence index and the draw index.
+ * The recurrence index claims tickets through atomic updates and the ticket
+ * store only takes its shared lock, so ticket requests generate in parallel;
+ * they then add their batch to the draw index one request at a time, under
+ * its write lock, and hand it to the save queue. Draw checks read the latest
+ * published snapshot of the draw index and take no lock, so a check never
+ * waits on a ticket request or on another check. Ticket requests do wait
+ * while the ticket store rebuilds its table after it fills up. At most
+ * "max_requests" requests are served at once; any request beyond that is
+ * answered at once with 503 and a Retry-After header rather than queued,
+ * which keeps the latency of admitted requests predictable.
+ * The time of every request is recorded per endpoint in the runtime
+ * metrics. Endpoints, all GET:
+ * /tickets?count=<n>&format=<text|csv|jsonl> - draws and saves new tickets
+ * /check?draw=<w>,<w>,<w>,<w>,<w>,<red> - checks the saved tickets against a
+ * draw, or against the winning ticket when no draw is given
+ * /stats - ticket counts and request counters
+ * /metrics - generator counters and the latency of every timed section
+ */
+
+package com.crucerne.www.lottery;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.crucerne.www.lottery.generator.CoverageGenerator;
+import com.crucerne.www.lottery.generator.LotteryGame;
+import com.crucerne.www.lottery.generator.Powerball;
+import com.crucerne.www.lottery.generator.PowerballMetrics;
+import com.crucerne.www.lottery.generator.TicketExporter;
+import com.crucerne.www.lottery.generator.TicketFilter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public final class TicketServer {
+
+	// Port and amount of requests served at once when none are given.
+	public static final int DEFAULT_PORT = 8080;
+	public static final int DEFAULT_MAX_REQUESTS = 256;
+	// Most tickets one request can ask for.
+	public static final int MAX_TICKETS_PER_REQUEST = 10000;
+
+	private final HttpServer p_server;
+	private final ExecutorService p_executor;
+	// Whether requests run on virtual threads.
+	private final boolean p_virtual;
+	// Permits of the requests being served.
+	private final Semaphore p_permits;
+	private final int p_max_requests;
+	// Requests served and requests turned away for lack of a permit.
+	private final LongAdder p_served = new LongAdder();
+	private final LongAdder p_rejected = new LongAdder();
+
+	// Body of an endpoint, run once the request has a permit.
+	private interface Endpoint {
+		void serve(HttpExchange exchange, Map<String, String> query) throws IOException;
+	}
+
+	private TicketServer(HttpServer server, ExecutorService executor, boolean virtual, int max_requests) {
+		this.p_server = server;
+		this.p_executor = executor;
+		this.p_virtual = virtual;
+		this.p_permits = new Semaphore(max_requests);
+		this.p_max_requests = max_requests;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that starts a server for the current game on
+	 * the given loopback port. The saved tickets should be read first.
+	 * REQUIRED ARGUMENTS: 1) int port - the port to listen on. 2) int
+	 * max_requests - the most requests served at once.
+	 */
+	public static TicketServer start(int port, int max_requests) throws IOException {
+		if (max_requests < 1) {
+			throw new IllegalArgumentException("The most requests served at once must be greater than 0.");
+		}
+		ExecutorService executor = TicketServer.newVirtualThreadExecutor();
+		boolean virtual = executor != null;
+		if (!virtual) {
+			// Twice the permits, so requests beyond the limit still get a
+			// thread to be turned away on.
+			executor = Executors.newFixedThreadPool(2 * max_requests);
+		}
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+				max_requests);
+		TicketServer ticket_server = new TicketServer(server, executor, virtual, max_requests);
+		ticket_server.route("/tickets", PowerballMetrics.Timer.SERVE_TICKETS, ticket_server::tickets);
+		ticket_server.route("/check", PowerballMetrics.Timer.SERVE_CHECK, ticket_server::check);
+		ticket_server.route("/stats", PowerballMetrics.Timer.SERVE_STATS, ticket_server::stats);
+		ticket_server.route("/metrics", PowerballMetrics.Timer.SERVE_METRICS, ticket_server::metrics);
+		server.setExecutor(executor);
+		server.start();
+		return ticket_server;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns an executor starting a virtual
+	 * thread per task, or null if the JVM has no virtual threads. The factory
+	 * is looked up reflectively so the project still builds and runs on Java
+	 * 17. REQUIRED ARGUMENTS: None.
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	public int getPort() {
+		return this.p_server.getAddress().getPort();
+	}
+
+	public boolean isVirtual() {
+		return this.p_virtual;
+	}
+
+	/*
+	 * DESCRIPTION: Method that stops accepting requests, lets the requests
+	 * being served finish for up to the given time and stops the threads.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) int delay_seconds - the
+	 * longest wait for running requests.
+	 */
+	public void stop(int delay_seconds) {
+		this.p_server.stop(delay_seconds);
+		this.p_executor.shutdown();
+		try {
+			this.p_executor.awaitTermination(delay_seconds, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that routes a path to an endpoint behind the
+	 * admission limit, answering with 503 when no permit is free, 405 for
+	 * methods other than GET and 400 for invalid parameters, and recording the
+	 * time of every admitted request. AFFECTED FIELDS: 1) p_served 2)
+	 * p_rejected REQUIRED ARGUMENTS: 1) String path - the path served. 2)
+	 * PowerballMetrics.Timer timer - the timer of the endpoint. 3) Endpoint
+	 * endpoint - the body of the endpoint.
+	 */
+	private void route(String path, PowerballMetrics.Timer timer, Endpoint endpoint) {
+		this.p_server.createContext(path, exchange -> {
+			if (!this.p_permits.tryAcquire()) {
+				this.p_rejected.increment();
+				exchange.getResponseHeaders().set("Retry-After", "1");
+				TicketServer.send(exchange, 503, "ERROR: Too many requests; retry later.\n");
+				exchange.close();
+				return;
+			}
+			long start = System.nanoTime();
+			try {
+				if (!exchange.getRequestMethod().equals("GET")) {
+					TicketServer.send(exchange, 405, "ERROR: Only GET requests are served.\n");
+				} else if (!exchange.getRequestURI().getPath().equals(path)) {
+					TicketServer.send(exchange, 404, "ERROR: Unknown path.\n");
+				} else {
+					endpoint.serve(exchange, TicketServer.query(exchange));
+				}
+			} catch (IllegalArgumentException e) {
+				TicketServer.send(exchange, 400, "ERROR: " + e.getMessage() + "\n");
+			} finally {
+				exchange.close();
+				this.p_permits.release();
+				this.p_served.increment();
+				PowerballMetrics.get().record(timer, start);
+			}
+		});
+	}
+
+	/*
+	 * DESCRIPTION: Method that draws the asked amount of new tickets, queues
+	 * them to be saved and sends them in the asked format. The
+	 * "X-Saturated" header is true when the recurrence limit left room for
+	 * fewer tickets. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1)
+	 * HttpExchange exchange - the request. 2) Map<String, String> query - its
+	 * parameters.
+	 */
+	private void tickets(HttpExchange exchange, Map<String, String> query) throws IOException {
+		int count = TicketServer.parseInt(query.getOrDefault("count", "1"), "count");
+		if (count < 1 || count > MAX_TICKETS_PER_REQUEST) {
+			throw new IllegalArgumentException("The count must be between 1 and " + MAX_TICKETS_PER_REQUEST + ".");
+		}
+		TicketExporter.Format format = TicketExporter.Format.forName(query.getOrDefault("format", "text"));
+		List<Powerball> tickets = Powerball.drawTicketsOption(count);
+		// Queued saves of several requests are merged into one journal write.
+		Powerball.writeRandomGeneratedTickets();
+		exchange.getResponseHeaders().set("Content-Type", format == TicketExporter.Format.CSV ? "text/csv"
+				: format == TicketExporter.Format.JSONL ? "application/x-ndjson" : "text/plain");
+		exchange.getResponseHeaders().set("X-Saturated", String.valueOf(tickets.size() < count));
+		exchange.sendResponseHeaders(200, 0);
+		try (TicketExporter exporter = TicketExporter.toStream(exchange.getResponseBody(), format)) {
+			exporter.export(tickets, TicketFilter.ALL);
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that checks the saved tickets against the given
+	 * draw, or the winning ticket, and sends the hits of every prize tier.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) HttpExchange exchange -
+	 * the request. 2) Map<String, String> query - its parameters.
+	 */
+	private void check(HttpExchange exchange, Map<String, String> query) throws IOException {
+		LotteryGame game = Powerball.getCurrentGame();
+		Powerball draw = Powerball.getWinningPowerball();
+		String numbers = query.get("draw");
+		if (numbers != null) {
+			String[] fields = numbers.split("[,\\s]+");
+			if (fields.length != 6) {
+				throw new IllegalArgumentException(
+						"A draw needs 5 white numbers and 1 " + game.getBonusName() + " number.");
+			}
+			int[] values = new int[6];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = TicketServer.parseInt(fields[i], "draw number");
+			}
+			draw = new Powerball(game, values[0], values[1], values[2], values[3], values[4], values[5]);
+		} else if (draw == null || draw.getWhiteCount() == 0) {
+			throw new IllegalArgumentException("A winning " + game + " ticket has not been retrieved/generated yet.");
+		}
+		TicketServer.send(exchange, 200, "Draw: " + draw + System.lineSeparator() + Powerball.checkDraw(draw)
+				+ System.lineSeparator());
+	}
+
+	private void stats(HttpExchange exchange, Map<String, String> query) throws IOException {
+		LotteryGame game = Powerball.getCurrentGame();
+		int limit = Powerball.getRecurLimit();
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Game:                  %s%n", game));
+		sb.append(String.format("Recurrence limit:      %d (at most %,d tickets)%n", limit,
+				CoverageGenerator.maxTickets(game, limit)));
+		sb.append(String.format("Saved tickets:         %,d%n", Powerball.getTicketCount()));
+		sb.append(String.format("Ticket store memory:   %,d bytes off-heap%n", Powerball.getTicketStoreBytes()));
+		sb.append(String.format("Requests in flight:    %d of %d%n",
+				this.p_max_requests - this.p_permits.availablePermits(), this.p_max_requests));
+		sb.append(String.format("Requests served:       %,d%n", this.p_served.sum()));
+		sb.append(String.format("Requests turned away:  %,d%n", this.p_rejected.sum()));
+		sb.append(String.format("Request threads:       %s%n", this.p_virtual ? "virtual" : "platform pool"));
+		TicketServer.send(exchange, 200, sb.toString());
+	}
+
+	private void metrics(HttpExchange exchange, Map<String, String> query) throws IOException {
+		TicketServer.send(exchange, 200, PowerballMetrics.get().toString());
+	}
+
+	/*
+	 * DESCRIPTION: Static method that sends a complete plain text response.
+	 * REQUIRED ARGUMENTS: 1) HttpExchange exchange - the request. 2) int
+	 * status - the HTTP status code. 3) String body - the response text.
+	 */
+	private static void send(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static Map<String, String> query(HttpExchange exchange) {
+		Map<String, String> query = new HashMap<String, String>();
+		String raw = exchange.getRequestURI().getRawQuery();
+		if (raw == null || raw.isEmpty()) {
+			return query;
+		}
+		for (String pair : raw.split("&")) {
+			int equals = pair.indexOf('=');
+			String key = equals < 0 ? pair : pair.substring(0, equals);
+			String value = equals < 0 ? "" : pair.substring(equals + 1);
+			query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+		}
+		return query;
+	}
+
+	private static int parseInt(String value, String name) {
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + name + " \"" + value + "\"; value must be a whole number.");
+		}
+	}
+}
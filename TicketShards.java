@@ -0,0 +1,376 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Sharded ticket generation for runs larger than one process. Every shard is
+ * generated on its own, possibly by another process or machine, from the
+ * numbered stream of a shared seed, so shards draw disjoint random
+ * sequences and a run repeats exactly. A shard holds the recurrence limit
+ * among its own tickets and is written as a ticket file sorted by code. The
+ * merge reads any amount of sorted ticket files at once through their mapped
+ * records and combines them in one streaming pass: the smallest code of all
+ * files is taken next, duplicates are dropped and the recurrence limit is
+ * checked across shard boundaries against one index, so the merged store is
+ * written in constant memory however many tickets it holds. Merging favors
+ * the smaller code when tickets of two shards conflict, so the result does
+ * not depend on the order the shards are given in. A merge into saved
+ * tickets is given them as a ticket universe: they are claimed in the index
+ * before the first file is read and always kept, so new tickets give way to
+ * saved ones whatever their codes. A shard draws its tickets from a ticket
+ * universe without replacement, so no candidate is tried twice.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+import java.util.random.RandomGenerator;
+
+public final class TicketShards {
+
+	// Consecutive rejections after which a shard stops, as the recurrence
+	// limit leaves little room for more tickets.
+	private static final long STALL_LIMIT = 100000L;
+	// Most tickets one shard can hold, bound by the array they are sorted in.
+	public static final int MAX_SHARD_TICKETS = Integer.MAX_VALUE - 8;
+
+	private TicketShards() {
+	}
+
+	/*
+	 * DESCRIPTION: Static method that generates one shard of random tickets
+	 * under the recurrence limit and writes them sorted by code to a ticket
+	 * file. The file is written under a temporary name and renamed into place,
+	 * so a merge never sees half a shard. REQUIRED ARGUMENTS: 1) LotteryGame
+	 * game - the game of the tickets. 2) int limit - the recurrence limit. 3)
+	 * int count - the amount of tickets to generate. 4) TicketRandom random -
+	 * the source shared by every shard. 5) int shard - the number of the
+	 * shard, which picks its random stream. 6) String file_name - the shard
+	 * file to write.
+	 */
+	public static ShardResult generate(LotteryGame game, int limit, int count, TicketRandom random, int shard,
+			String file_name) throws IOException {
+		if (count < 1 || count > MAX_SHARD_TICKETS) {
+			throw new IllegalArgumentException("The ticket count of a shard must be between 1 and "
+					+ MAX_SHARD_TICKETS + ".");
+		}
+		if (shard < 0) {
+			throw new IllegalArgumentException("The shard number must not be negative.");
+		}
+		long start = System.nanoTime();
+		RandomGenerator generator = random.stream(shard);
+		RecurrenceIndex index = new RecurrenceIndex(game, limit);
+		// Every ticket tried, kept or not, so no candidate is drawn twice.
+		TicketUniverse tried = new TicketUniverse(game);
+		long[] codes = new long[Math.min(count, 1 << 16)];
+		int size = 0;
+		long stalled = 0;
+		while (size < count && stalled < STALL_LIMIT && tried.size() < game.getRankCount()) {
+			Powerball pball = tried.drawNew(generator);
+			if (index.tryInsert(pball)) {
+				if (size == codes.length) {
+					codes = Arrays.copyOf(codes, (int) Math.min((long) size * 2, count));
+				}
+				codes[size++] = pball.toCode();
+				stalled = 0;
+			} else {
+				stalled++;
+			}
+		}
+		Arrays.parallelSort(codes, 0, size);
+		TicketShards.writeAtomically(file_name, TicketShards.iterate(codes, size), 0L);
+		return new ShardResult(shard, size, size < count, System.nanoTime() - start);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that merges sorted ticket files into one
+	 * ticket file, dropping duplicates and tickets that break the recurrence
+	 * limit with a ticket taken before them. The merged file is written under
+	 * a temporary name and renamed into place once complete, and is left
+	 * untouched if a file turns out not to be sorted by code. REQUIRED
+	 * ARGUMENTS: 1) LotteryGame game - the game of the tickets. 2) int limit -
+	 * the recurrence limit. 3) List<String> file_names - the sorted ticket
+	 * files. 4) long max_tickets - the most tickets to keep. 5) String
+	 * out_file - the merged file to write. 6) long stamp - the stamp to put in
+	 * its header.
+	 */
+	public static MergeResult merge(LotteryGame game, int limit, List<String> file_names, long max_tickets,
+			String out_file, long stamp) throws IOException {
+		return TicketShards.merge(game, limit, file_names, max_tickets, out_file, stamp, null);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that merges sorted ticket files into one
+	 * ticket file as above, keeping every ticket of "kept" wherever it shows
+	 * up and holding the recurrence limit of new tickets against them. Kept
+	 * tickets count toward the most tickets to keep, and only show up in the
+	 * merged file if they are in one of the files. REQUIRED ARGUMENTS: 1) to
+	 * 6) as above. 7) TicketUniverse kept - the tickets to keep, or null.
+	 */
+	public static MergeResult merge(LotteryGame game, int limit, List<String> file_names, long max_tickets,
+			String out_file, long stamp, TicketUniverse kept) throws IOException {
+		if (file_names.isEmpty()) {
+			throw new IllegalArgumentException("No ticket files to merge.");
+		}
+		long start = System.nanoTime();
+		List<TicketFile> files = new ArrayList<TicketFile>();
+		try {
+			for (String file_name : file_names) {
+				files.add(TicketFile.open(file_name));
+			}
+			Merger merger = new Merger(game, limit, files, file_names, max_tickets, kept);
+			long written;
+			try {
+				written = TicketShards.writeAtomically(out_file, merger, stamp);
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			return new MergeResult(files.size(), merger.p_read, written, merger.p_duplicates, merger.p_conflicts,
+					System.nanoTime() - start);
+		} finally {
+			for (TicketFile file : files) {
+				file.close();
+			}
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Static method that writes codes to a ticket file under a
+	 * temporary name, then renames it over the given file. Returns the amount
+	 * of tickets written. REQUIRED ARGUMENTS: 1) String file_name - the file
+	 * to write. 2) PrimitiveIterator.OfLong codes - the codes in file order.
+	 * 3) long stamp - the stamp to put in the header.
+	 */
+	private static long writeAtomically(String file_name, PrimitiveIterator.OfLong codes, long stamp)
+			throws IOException {
+		String temp_name = file_name + ".tmp";
+		long written;
+		try {
+			written = TicketFile.write(temp_name, codes, stamp);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(Paths.get(temp_name));
+			throw e;
+		}
+		Files.move(Paths.get(temp_name), Paths.get(file_name), StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+		return written;
+	}
+
+	private static PrimitiveIterator.OfLong iterate(long[] codes, int size) {
+		return Arrays.stream(codes, 0, size).iterator();
+	}
+
+	/*
+	 * Streaming k-way merge over sorted ticket files. A heap holds the number
+	 * of every file that still has tickets, ordered by the code at its
+	 * position, and every code taken is checked against the recurrence index
+	 * before it is handed out, unless it is one of the kept tickets, which
+	 * were claimed in the index up front.
+	 */
+	private static final class Merger implements PrimitiveIterator.OfLong {
+
+		private final LotteryGame p_game;
+		private final RecurrenceIndex p_index;
+		private final TicketUniverse p_kept;
+		private final List<TicketFile> p_files;
+		private final List<String> p_file_names;
+		// Most new tickets to keep, leaving room for every kept ticket.
+		private final long p_max_new;
+		// Position and code of the next ticket of every file.
+		private final long[] p_positions;
+		private final long[] p_heads;
+		private final PriorityQueue<Integer> p_heap;
+		// Last code taken from any file, to drop duplicates.
+		private long p_last_code = -1;
+		// Next accepted code, if "p_ready".
+		private long p_next;
+		private boolean p_ready = false;
+		private long p_read = 0;
+		private long p_accepted = 0;
+		private long p_kept_taken = 0;
+		private long p_duplicates = 0;
+		private long p_conflicts = 0;
+
+		Merger(LotteryGame game, int limit, List<TicketFile> files, List<String> file_names, long max_tickets,
+				TicketUniverse kept) {
+			this.p_game = game;
+			this.p_index = new RecurrenceIndex(game, limit);
+			this.p_kept = kept;
+			this.p_files = files;
+			this.p_file_names = file_names;
+			if (kept != null) {
+				kept.forEachRank(rank -> this.p_index.forceInsert(Powerball.fromRank(game, rank)));
+			}
+			this.p_max_new = Math.max(0, max_tickets - (kept == null ? 0 : kept.size()));
+			this.p_positions = new long[files.size()];
+			this.p_heads = new long[files.size()];
+			this.p_heap = new PriorityQueue<Integer>(Math.max(1, files.size()),
+					(a, b) -> Long.compare(this.p_heads[a], this.p_heads[b]));
+			for (int i = 0; i < files.size(); i++) {
+				if (files.get(i).size() > 0) {
+					this.p_heads[i] = files.get(i).getCode(0);
+					this.p_heap.add(i);
+				}
+			}
+		}
+
+		/*
+		 * DESCRIPTION: Method that takes codes off the heap until one is kept or
+		 * passes the recurrence index, the files run out or the most tickets
+		 * are kept. Throws UncheckedIOException if a file is out of order.
+		 * AFFECTED FIELDS: Every counter. REQUIRED ARGUMENTS: None.
+		 */
+		@Override
+		public boolean hasNext() {
+			while (!this.p_ready && !this.p_heap.isEmpty() && (this.p_accepted < this.p_max_new
+					|| this.p_kept != null && this.p_kept_taken < this.p_kept.size())) {
+				int file = this.p_heap.poll();
+				long code = this.p_heads[file];
+				long position = ++this.p_positions[file];
+				if (position < this.p_files.get(file).size()) {
+					long next = this.p_files.get(file).getCode(position);
+					if (next < code) {
+						throw new UncheckedIOException(
+								new IOException(this.p_file_names.get(file) + " is not sorted by ticket code."));
+					}
+					this.p_heads[file] = next;
+					this.p_heap.add(file);
+				}
+				this.p_read++;
+				if (code == this.p_last_code) {
+					this.p_duplicates++;
+				} else if (this.p_kept != null && this.p_kept.contains(Powerball.fromCode(this.p_game, code))) {
+					this.p_next = code;
+					this.p_ready = true;
+					this.p_kept_taken++;
+				} else if (this.p_accepted < this.p_max_new
+						&& this.p_index.tryInsert(Powerball.fromCode(this.p_game, code))) {
+					this.p_next = code;
+					this.p_ready = true;
+					this.p_accepted++;
+				} else if (this.p_accepted < this.p_max_new) {
+					this.p_conflicts++;
+				}
+				this.p_last_code = code;
+			}
+			return this.p_ready;
+		}
+
+		@Override
+		public long nextLong() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			this.p_ready = false;
+			return this.p_next;
+		}
+	}
+
+	/*
+	 * Outcome of generating one shard.
+	 */
+	public static final class ShardResult {
+
+		private final int p_shard;
+		private final int p_generated;
+		private final boolean p_saturated;
+		private final long p_elapsed_nanos;
+
+		ShardResult(int shard, int generated, boolean saturated, long elapsed_nanos) {
+			this.p_shard = shard;
+			this.p_generated = generated;
+			this.p_saturated = saturated;
+			this.p_elapsed_nanos = elapsed_nanos;
+		}
+
+		public int getShard() {
+			return this.p_shard;
+		}
+
+		public int getGenerated() {
+			return this.p_generated;
+		}
+
+		// Whether the recurrence limit left room for fewer tickets than asked.
+		public boolean isSaturated() {
+			return this.p_saturated;
+		}
+
+		public long getElapsedNanos() {
+			return this.p_elapsed_nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Shard %d: %,d tickets%s.", this.p_shard, this.p_generated,
+					this.p_saturated ? " (recurrence limit reached)" : "");
+		}
+	}
+
+	/*
+	 * Outcome of merging ticket files.
+	 */
+	public static final class MergeResult {
+
+		private final int p_files;
+		private final long p_read;
+		private final long p_written;
+		private final long p_duplicates;
+		private final long p_conflicts;
+		private final long p_elapsed_nanos;
+
+		MergeResult(int files, long read, long written, long duplicates, long conflicts, long elapsed_nanos) {
+			this.p_files = files;
+			this.p_read = read;
+			this.p_written = written;
+			this.p_duplicates = duplicates;
+			this.p_conflicts = conflicts;
+			this.p_elapsed_nanos = elapsed_nanos;
+		}
+
+		public int getFiles() {
+			return this.p_files;
+		}
+
+		public long getRead() {
+			return this.p_read;
+		}
+
+		public long getWritten() {
+			return this.p_written;
+		}
+
+		// Tickets found in more than one file.
+		public long getDuplicates() {
+			return this.p_duplicates;
+		}
+
+		// Tickets dropped for breaking the recurrence limit with a ticket of
+		// another file.
+		public long getConflicts() {
+			return this.p_conflicts;
+		}
+
+		public long getElapsedNanos() {
+			return this.p_elapsed_nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Merged %,d files: %,d tickets read, %,d kept, %,d duplicates and %,d recurrence"
+					+ " conflicts dropped.", this.p_files, this.p_read, this.p_written, this.p_duplicates,
+					this.p_conflicts);
+		}
+	}
+}
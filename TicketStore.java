@@ -0,0 +1,504 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Off-heap set of the tickets of one game, sized for hundreds of millions of
+ * tickets. Tickets are kept as packed codes in fixed-width records of
+ * direct memory rather than as objects, so the garbage collector never
+ * traces them and its pauses do not grow with the store. The store has two
+ * parts:
+ * - an append log of 8 byte records, in segments of 1,048,576 records
+ * allocated as the log grows, listing tickets in the order they were added.
+ * Records are written and read atomically, so a reader never sees half a
+ * code;
+ * - a hash table of 4 byte slots, also in direct memory, holding the log
+ * position of every ticket plus one, found by linear probing from the hash
+ * of its code.
+ * Adding a ticket reserves the next log record with an atomic counter,
+ * writes the code and claims an empty slot with compare-and-set, so any
+ * amount of threads add tickets at once without locking; a ticket already
+ * present loses the race for its slot and its record is marked dead.
+ * Removing a ticket turns its slot into a tombstone and marks its record
+ * dead. Once live and dead slots fill 70% of the table, the store is rebuilt
+ * with a table twice the size of the live tickets and a log without dead
+ * records; adding and removing share a read lock that only rebuilds and
+ * "clear" take exclusively. Iterators keep the log they started on, so a
+ * rebuild never disturbs them; like the concurrent collections, they may or
+ * may not see tickets added after they started. Direct memory is limited by
+ * -XX:MaxDirectMemorySize, which defaults to the maximum heap size; a store
+ * of 100,000,000 tickets takes about 1.8 GB.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+public final class TicketStore implements Iterable<Powerball> {
+
+	// Records of the log and slots of the table in one memory segment.
+	private static final int LOG_SEGMENT_BITS = 20;
+	private static final int LOG_SEGMENT_MASK = (1 << LOG_SEGMENT_BITS) - 1;
+	private static final int SEGMENT_BITS = 24;
+	private static final int SEGMENT_MASK = (1 << SEGMENT_BITS) - 1;
+	// Most tickets a store can hold, as slots hold log positions in an int.
+	public static final int MAX_TICKETS = Integer.MAX_VALUE - 1;
+	private static final int RECORD_BYTES = Long.BYTES;
+	private static final int SLOT_BYTES = Integer.BYTES;
+	// Record of a removed ticket, or of a ticket that was already present.
+	// Unwritten records read as 0, which is not a valid code either.
+	private static final long DEAD = -1L;
+	// Slot values of a slot never used and of a slot whose ticket was removed.
+	private static final int EMPTY = 0;
+	private static final int TOMBSTONE = -1;
+	// Smallest table, and the share of used slots that triggers a rebuild.
+	private static final int MIN_TABLE_BITS = 12;
+	private static final double MAX_LOAD = 0.7;
+	// Atomic access to the slots of a direct buffer.
+	private static final VarHandle S_SLOT = MethodHandles.byteBufferViewVarHandle(int[].class,
+			ByteOrder.nativeOrder());
+	// Atomic access to the records of a direct buffer.
+	private static final VarHandle S_RECORD = MethodHandles.byteBufferViewVarHandle(long[].class,
+			ByteOrder.nativeOrder());
+
+	// Game of the stored tickets.
+	private final LotteryGame p_game;
+	// Taken shared to add and remove tickets, and exclusively to rebuild.
+	private final ReentrantReadWriteLock p_lock = new ReentrantReadWriteLock();
+	// Current log and hash table, replaced whole by a rebuild.
+	private volatile Log p_log;
+	private ByteBuffer[] p_slots;
+	private long p_slot_mask;
+	private long p_max_used;
+	// Slots holding a ticket or a tombstone.
+	private final AtomicLong p_used = new AtomicLong();
+	// Amount of tickets in the store.
+	private final AtomicInteger p_size = new AtomicInteger();
+
+	public TicketStore(LotteryGame game) {
+		this.p_game = game;
+		this.p_log = new Log();
+		this.allocateTable(MIN_TABLE_BITS);
+	}
+
+	public LotteryGame getGame() {
+		return this.p_game;
+	}
+
+	public int size() {
+		return this.p_size.get();
+	}
+
+	public boolean isEmpty() {
+		return this.p_size.get() == 0;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the bytes of direct memory held by the
+	 * log and the hash table. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public long getOffHeapBytes() {
+		this.p_lock.readLock().lock();
+		try {
+			return this.p_log.bytes() + (this.p_slot_mask + 1) * SLOT_BYTES;
+		} finally {
+			this.p_lock.readLock().unlock();
+		}
+	}
+
+	public boolean add(Powerball pball) {
+		return this.addCode(pball.toCode());
+	}
+
+	/*
+	 * DESCRIPTION: Method that adds a batch of tickets under one hold of the
+	 * shared lock and returns how many were not present yet. AFFECTED FIELDS:
+	 * 1) p_log 2) p_used 3) p_size REQUIRED ARGUMENTS: 1)
+	 * Collection<Powerball> tickets - the tickets to add.
+	 */
+	public int addAll(Collection<Powerball> tickets) {
+		int added = 0;
+		Iterator<Powerball> iterator = tickets.iterator();
+		while (iterator.hasNext()) {
+			this.p_lock.readLock().lock();
+			try {
+				while (iterator.hasNext() && !this.isFull()) {
+					added += this.insert(iterator.next().toCode()) ? 1 : 0;
+				}
+			} finally {
+				this.p_lock.readLock().unlock();
+			}
+			this.rebuildIfFull();
+		}
+		return added;
+	}
+
+	/*
+	 * DESCRIPTION: Method that adds a ticket by its packed code and returns
+	 * whether it was not present yet. AFFECTED FIELDS: 1) p_log 2) p_used 3)
+	 * p_size REQUIRED ARGUMENTS: 1) long code - the packed code of the ticket.
+	 */
+	public boolean addCode(long code) {
+		this.rebuildIfFull();
+		this.p_lock.readLock().lock();
+		try {
+			return this.insert(code);
+		} finally {
+			this.p_lock.readLock().unlock();
+		}
+	}
+
+	public boolean contains(Powerball pball) {
+		return this.containsCode(pball.toCode());
+	}
+
+	public boolean containsCode(long code) {
+		this.p_lock.readLock().lock();
+		try {
+			return this.find(code) >= 0;
+		} finally {
+			this.p_lock.readLock().unlock();
+		}
+	}
+
+	public boolean remove(Powerball pball) {
+		return this.removeCode(pball.toCode());
+	}
+
+	/*
+	 * DESCRIPTION: Method that removes a ticket by its packed code and returns
+	 * whether it was present. AFFECTED FIELDS: 1) p_log 2) p_size REQUIRED
+	 * ARGUMENTS: 1) long code - the packed code of the ticket.
+	 */
+	public boolean removeCode(long code) {
+		this.p_lock.readLock().lock();
+		try {
+			while (true) {
+				long slot = this.find(code);
+				if (slot < 0) {
+					return false;
+				}
+				int value = this.getSlot(slot);
+				if (value != EMPTY && value != TOMBSTONE && this.setSlot(slot, value, TOMBSTONE)) {
+					this.p_log.put(value - 1, DEAD);
+					this.p_size.decrementAndGet();
+					return true;
+				}
+			}
+		} finally {
+			this.p_lock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that removes every ticket and frees the direct
+	 * memory of the store. AFFECTED FIELDS: Every field. REQUIRED ARGUMENTS:
+	 * None.
+	 */
+	public void clear() {
+		this.p_lock.writeLock().lock();
+		try {
+			this.p_log = new Log();
+			this.allocateTable(MIN_TABLE_BITS);
+			this.p_used.set(0);
+			this.p_size.set(0);
+		} finally {
+			this.p_lock.writeLock().unlock();
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns how many log records have been used,
+	 * dead records included. Positions below it can be read with
+	 * "getCode". AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	public long getRecordCount() {
+		return this.p_log.count();
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the packed code at a log position, or
+	 * -1 if the record is dead or not written yet. Positions move when the
+	 * store is rebuilt. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) long
+	 * position - the log position, from 0 to "getRecordCount() - 1".
+	 */
+	public long getCode(long position) {
+		long code = this.p_log.get(position);
+		return code == DEAD || code == 0 ? -1 : code;
+	}
+
+	/*
+	 * DESCRIPTION: Method that passes the packed code of every ticket to the
+	 * consumer in log order, without creating objects. AFFECTED FIELDS: None.
+	 * REQUIRED ARGUMENTS: 1) LongConsumer action - receives every code.
+	 */
+	public void forEachCode(LongConsumer action) {
+		Log log = this.p_log;
+		long count = log.count();
+		for (long position = 0; position < count; position++) {
+			long code = log.get(position);
+			if (code != DEAD && code != 0) {
+				action.accept(code);
+			}
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns a ticket universe holding every ticket
+	 * of the store, for set operations with ticket files. AFFECTED FIELDS:
+	 * None. REQUIRED ARGUMENTS: None.
+	 */
+	public TicketUniverse toUniverse() {
+		TicketUniverse universe = new TicketUniverse(this.p_game);
+		this.forEachCode(code -> universe.addRank(Powerball.fromCode(this.p_game, code).toRank()));
+		return universe;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns an iterator over the tickets in the
+	 * order they were added, creating each ticket as it is reached. AFFECTED
+	 * FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	@Override
+	public Iterator<Powerball> iterator() {
+		Log log = this.p_log;
+		return new Iterator<Powerball>() {
+			private long p_position = 0;
+			private long p_next = -1;
+
+			@Override
+			public boolean hasNext() {
+				while (this.p_next < 0 && this.p_position < log.count()) {
+					long code = log.get(this.p_position++);
+					if (code != DEAD && code != 0) {
+						this.p_next = code;
+					}
+				}
+				return this.p_next >= 0;
+			}
+
+			@Override
+			public Powerball next() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				Powerball pball = Powerball.fromCode(TicketStore.this.p_game, this.p_next);
+				this.p_next = -1;
+				return pball;
+			}
+		};
+	}
+
+	/*
+	 * DESCRIPTION: Method that appends a code to the log and claims its slot,
+	 * marking the record dead if the ticket is already present. Called while
+	 * holding the shared lock. AFFECTED FIELDS: 1) p_log 2) p_used 3) p_size
+	 * REQUIRED ARGUMENTS: 1) long code - the packed code of the ticket.
+	 */
+	private boolean insert(long code) {
+		Log log = this.p_log;
+		long position = log.append(code);
+		int value = (int) (position + 1);
+		long slot = TicketStore.hash(code) & this.p_slot_mask;
+		while (true) {
+			int current = this.getSlot(slot);
+			if (current == EMPTY) {
+				if (this.setSlot(slot, EMPTY, value)) {
+					this.p_used.incrementAndGet();
+					this.p_size.incrementAndGet();
+					return true;
+				}
+				continue;
+			}
+			if (current != TOMBSTONE && log.get(current - 1) == code) {
+				log.put(position, DEAD);
+				return false;
+			}
+			slot = (slot + 1) & this.p_slot_mask;
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the slot holding a code, or -1 if it is
+	 * not in the store. Called while holding the shared lock. AFFECTED
+	 * FIELDS: None. REQUIRED ARGUMENTS: 1) long code - the packed code.
+	 */
+	private long find(long code) {
+		Log log = this.p_log;
+		long slot = TicketStore.hash(code) & this.p_slot_mask;
+		while (true) {
+			int current = this.getSlot(slot);
+			if (current == EMPTY) {
+				return -1;
+			}
+			if (current != TOMBSTONE && log.get(current - 1) == code) {
+				return slot;
+			}
+			slot = (slot + 1) & this.p_slot_mask;
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns whether the used slots passed the load
+	 * limit, or dead records of tickets added twice fill most of the log.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	private boolean isFull() {
+		return this.p_used.get() >= this.p_max_used || this.p_log.count() >= this.p_max_used * 2;
+	}
+
+	/*
+	 * DESCRIPTION: Method that rebuilds the store once it is full: the live
+	 * records are copied to a new log in order and indexed in a new table with
+	 * room for twice as many tickets. AFFECTED FIELDS: Every field. REQUIRED
+	 * ARGUMENTS: None.
+	 */
+	private void rebuildIfFull() {
+		if (!this.isFull()) {
+			return;
+		}
+		this.p_lock.writeLock().lock();
+		try {
+			if (!this.isFull()) {
+				return;
+			}
+			Log old_log = this.p_log;
+			Log log = new Log();
+			long count = old_log.count();
+			for (long position = 0; position < count; position++) {
+				long code = old_log.get(position);
+				if (code != DEAD && code != 0) {
+					log.append(code);
+				}
+			}
+			int bits = MIN_TABLE_BITS;
+			while ((1L << bits) < log.count() * 2) {
+				bits++;
+			}
+			this.allocateTable(bits);
+			long live = log.count();
+			for (long position = 0; position < live; position++) {
+				long slot = TicketStore.hash(log.get(position)) & this.p_slot_mask;
+				while (this.getSlot(slot) != EMPTY) {
+					slot = (slot + 1) & this.p_slot_mask;
+				}
+				this.setSlot(slot, EMPTY, (int) (position + 1));
+			}
+			this.p_log = log;
+			this.p_used.set(live);
+			this.p_size.set((int) live);
+		} finally {
+			this.p_lock.writeLock().unlock();
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that replaces the hash table with an empty one of
+	 * 2^bits slots. Called while holding the lock exclusively or from the
+	 * constructor. AFFECTED FIELDS: 1) p_slots 2) p_slot_mask 3) p_max_used
+	 * REQUIRED ARGUMENTS: 1) int bits - the base-2 logarithm of the size.
+	 */
+	private void allocateTable(int bits) {
+		long slots = 1L << bits;
+		int segment_slots = (int) Math.min(slots, 1L << SEGMENT_BITS);
+		ByteBuffer[] segments = new ByteBuffer[(int) (slots / segment_slots)];
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = ByteBuffer.allocateDirect(segment_slots * SLOT_BYTES).order(ByteOrder.nativeOrder());
+		}
+		this.p_slots = segments;
+		this.p_slot_mask = slots - 1;
+		this.p_max_used = Math.min((long) (slots * MAX_LOAD), MAX_TICKETS);
+	}
+
+	private int getSlot(long slot) {
+		return (int) S_SLOT.getVolatile(this.p_slots[(int) (slot >>> SEGMENT_BITS)],
+				(int) (slot & SEGMENT_MASK) * SLOT_BYTES);
+	}
+
+	private boolean setSlot(long slot, int expected, int value) {
+		return S_SLOT.compareAndSet(this.p_slots[(int) (slot >>> SEGMENT_BITS)],
+				(int) (slot & SEGMENT_MASK) * SLOT_BYTES, expected, value);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that spreads the bits of a code over a long
+	 * through the SplitMix64 finalizer, so codes differing only in their red
+	 * number land far apart. REQUIRED ARGUMENTS: 1) long code - the packed
+	 * code.
+	 */
+	private static long hash(long code) {
+		long z = code * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/*
+	 * Append log of packed codes in direct memory segments, allocated the
+	 * first time a record of the segment is written.
+	 */
+	private static final class Log {
+
+		private final AtomicReferenceArray<ByteBuffer> p_segments = new AtomicReferenceArray<ByteBuffer>(
+				(MAX_TICKETS >>> LOG_SEGMENT_BITS) + 1);
+		// Records reserved so far.
+		private final AtomicLong p_count = new AtomicLong();
+
+		long count() {
+			return Math.min(this.p_count.get(), MAX_TICKETS);
+		}
+
+		long bytes() {
+			long bytes = 0;
+			for (int i = 0; i < this.p_segments.length(); i++) {
+				ByteBuffer segment = this.p_segments.get(i);
+				bytes += segment == null ? 0 : segment.capacity();
+			}
+			return bytes;
+		}
+
+		/*
+		 * DESCRIPTION: Method that reserves the next record, writes the code to
+		 * it and returns its position. Throws IllegalStateException if the log
+		 * is full. AFFECTED FIELDS: 1) p_segments 2) p_count REQUIRED
+		 * ARGUMENTS: 1) long code - the packed code.
+		 */
+		long append(long code) {
+			long position = this.p_count.getAndIncrement();
+			if (position >= MAX_TICKETS) {
+				throw new IllegalStateException("A ticket store holds at most " + MAX_TICKETS + " tickets.");
+			}
+			this.put(position, code);
+			return position;
+		}
+
+		void put(long position, long code) {
+			int index = (int) (position >>> LOG_SEGMENT_BITS);
+			ByteBuffer segment = this.p_segments.get(index);
+			if (segment == null) {
+				ByteBuffer created = ByteBuffer.allocateDirect((LOG_SEGMENT_MASK + 1) * RECORD_BYTES)
+						.order(ByteOrder.nativeOrder());
+				segment = this.p_segments.compareAndSet(index, null, created) ? created : this.p_segments.get(index);
+			}
+			S_RECORD.setRelease(segment, (int) (position & LOG_SEGMENT_MASK) * RECORD_BYTES, code);
+		}
+
+		long get(long position) {
+			ByteBuffer segment = this.p_segments.get((int) (position >>> LOG_SEGMENT_BITS));
+			return segment == null ? 0
+					: (long) S_RECORD.getAcquire(segment, (int) (position & LOG_SEGMENT_MASK) * RECORD_BYTES);
+		}
+	}
+}
@@ -0,0 +1,350 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Streaming ticket generation pipeline. Tickets flow through three stages
+ * connected by bounded queues: generator workers draw candidate batches, a
+ * filter stage checks them against its own recurrence index, and the sink
+ * stage formats accepted tickets to a writer. The configured window is
+ * split evenly between the two queues, in batches of 1,024 tickets with at
+ * least one batch each, so a full sink stalls the filter, which in turn
+ * stalls the generators. Besides the queued tickets, every generator holds
+ * the batch it is drawing or waiting to queue, and the filter and the sink
+ * one batch each, so at most the window plus one batch per thread is
+ * buffered. Memory use is bounded by that and the fixed-size recurrence
+ * index no matter how many tickets are streamed. An interrupted stream
+ * fails with an InterruptedIOException rather than returning short.
+ * Streams given a seeded random source run on the ordered generator instead,
+ * which commits candidate chunks in order and so gives the same tickets on
+ * any amount of threads. Streams given ticket weights draw their candidates
+ * with those weights.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+public final class TicketStream {
+
+	// Amount of tickets handed between stages at once.
+	private static final int BATCH_SIZE = 1024;
+	// How long a blocked stage waits before re-checking whether the run ended.
+	private static final long POLL_MILLIS = 10;
+	// Marks the end of the accepted ticket queue.
+	private static final Powerball[] END_OF_STREAM = new Powerball[0];
+
+	// Game of the streamed tickets and the recurrence limit applied to them.
+	private final LotteryGame p_game;
+	private final int p_limit;
+	// Capacity of each of the two queues between stages, in batches.
+	private final int p_window_batches;
+	// Amount of generator worker threads.
+	private final int p_threads;
+	// Weights candidates are drawn with, or null to draw them uniformly.
+	private final TicketWeights p_weights;
+
+	/*
+	 * DESCRIPTION: Constructor for a pipeline with one generator worker per
+	 * available core. REQUIRED ARGUMENTS: 1) LotteryGame game - the game of
+	 * the streamed tickets. 2) int limit - the recurrence limit for the
+	 * streamed tickets. 3) int window - the most tickets queued between the
+	 * stages, split between the two queues.
+	 */
+	public TicketStream(LotteryGame game, int limit, int window) {
+		this(game, limit, window, Runtime.getRuntime().availableProcessors());
+	}
+
+	public TicketStream(LotteryGame game, int limit, int window, int threads) {
+		this(game, limit, window, threads, null);
+	}
+
+	public TicketStream(LotteryGame game, int limit, int window, int threads, TicketWeights weights) {
+		if (window < 1 || threads < 1) {
+			throw new IllegalArgumentException("Window and thread count must be positive.");
+		}
+		this.p_game = game;
+		this.p_limit = limit;
+		this.p_window_batches = Math.max(1, window / (2 * BATCH_SIZE));
+		this.p_threads = threads;
+		this.p_weights = weights;
+	}
+
+	/*
+	 * DESCRIPTION: Method that streams the given amount of tickets to the
+	 * writer, one ticket per line in the "toString" format. Stops early if the
+	 * recurrence limit leaves no room for more tickets. The writer is flushed
+	 * but not closed. A failure in any stage ends the run and is rethrown,
+	 * wrapped in an IOException if it is checked, and an interrupt of the
+	 * calling thread ends it with an InterruptedIOException. AFFECTED FIELDS:
+	 * None. REQUIRED ARGUMENTS: 1) int amount - the amount of tickets to
+	 * stream. 2) Writer out - where tickets are written.
+	 */
+	public TicketGenerator.Result stream(int amount, Writer out) throws IOException {
+		return this.stream(amount, out, null);
+	}
+
+	/*
+	 * DESCRIPTION: Method that streams the given amount of tickets to the
+	 * writer like "stream(int, Writer)", drawing them from the given source
+	 * when it is not null so the same seed streams the same tickets.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) int amount - the amount of
+	 * tickets to stream. 2) Writer out - where tickets are written. 3)
+	 * TicketRandom random - the seeded source, or null.
+	 */
+	public TicketGenerator.Result stream(int amount, Writer out, TicketRandom random) throws IOException {
+		if (random != null) {
+			return this.streamSeeded(amount, out, random);
+		}
+		long start = System.nanoTime();
+		RecurrenceIndex index = new RecurrenceIndex(this.p_game, this.p_limit);
+		BlockingQueue<Powerball[]> candidates = new ArrayBlockingQueue<Powerball[]>(this.p_window_batches);
+		BlockingQueue<Powerball[]> accepted = new ArrayBlockingQueue<Powerball[]>(this.p_window_batches);
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicBoolean saturated = new AtomicBoolean();
+		AtomicLong attempts = new AtomicLong();
+		long written = 0;
+		ExecutorService executor = Executors.newFixedThreadPool(this.p_threads + 1);
+		try {
+			List<Future<Void>> generators = new ArrayList<Future<Void>>(this.p_threads);
+			for (int i = 0; i < this.p_threads; i++) {
+				generators.add(executor.submit(() -> {
+					generate(this.p_game, this.p_weights, candidates, done);
+					return null;
+				}));
+			}
+			Future<Void> filter = executor.submit(() -> {
+				try {
+					filter(index, amount, candidates, accepted, attempts, saturated);
+				} finally {
+					done.set(true);
+				}
+				return null;
+			});
+			written = sink(accepted, out, filter, generators);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			InterruptedIOException failure = new InterruptedIOException("The ticket stream was interrupted.");
+			failure.initCause(e);
+			throw failure;
+		} finally {
+			done.set(true);
+			executor.shutdownNow();
+		}
+		out.flush();
+		return new TicketGenerator.Result(amount, (int) written, attempts.get(), attempts.get() / BATCH_SIZE,
+				this.p_threads, saturated.get(), System.nanoTime() - start);
+	}
+
+	/*
+	 * DESCRIPTION: Method that streams tickets drawn from a seeded source. The
+	 * ordered generator publishes each committed chunk on the calling thread,
+	 * which formats it straight to the writer. REQUIRED ARGUMENTS: 1) int
+	 * amount - the amount of tickets to stream. 2) Writer out - where tickets
+	 * are written. 3) TicketRandom random - the seeded source.
+	 */
+	private TicketGenerator.Result streamSeeded(int amount, Writer out, TicketRandom random) throws IOException {
+		TicketGenerator generator = new TicketGenerator(new RecurrenceIndex(this.p_game, this.p_limit),
+				lineWriter(out), this.p_threads, BATCH_SIZE, TicketGenerator.DEFAULT_STALL_LIMIT, this.p_weights);
+		TicketGenerator.Result result;
+		try {
+			result = generator.generate(amount, random);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		out.flush();
+		return result;
+	}
+
+	/*
+	 * DESCRIPTION: Method that streams the given amount of tickets built by
+	 * the coverage generator to the writer, one ticket per line. The run time
+	 * does not depend on how close the amount is to the most tickets the
+	 * recurrence limit allows. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1)
+	 * int amount - the amount of tickets to stream. 2) Writer out - where
+	 * tickets are written. 3) RandomGenerator random - picks the design class
+	 * and the first red number.
+	 */
+	public TicketGenerator.Result cover(int amount, Writer out, RandomGenerator random) throws IOException {
+		CoverageGenerator generator = new CoverageGenerator(new RecurrenceIndex(this.p_game, this.p_limit),
+				lineWriter(out));
+		TicketGenerator.Result result;
+		try {
+			result = generator.generate(amount, random);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		out.flush();
+		return result;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns a sink formatting every ticket
+	 * of a batch to the writer through one reused buffer. Write failures are
+	 * rethrown unchecked. REQUIRED ARGUMENTS: 1) Writer out - where tickets
+	 * are written.
+	 */
+	private static Consumer<List<Powerball>> lineWriter(Writer out) {
+		StringBuilder line = new StringBuilder(32);
+		char[] chars = new char[32];
+		return batch -> {
+			try {
+				for (Powerball pball : batch) {
+					line.setLength(0);
+					pball.appendTo(line).append(System.lineSeparator());
+					line.getChars(0, line.length(), chars, 0);
+					out.write(chars, 0, line.length());
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		};
+	}
+
+	/*
+	 * DESCRIPTION: Generator stage. Draws candidate batches until the run ends,
+	 * waiting whenever the candidate queue is full. REQUIRED ARGUMENTS: 1)
+	 * LotteryGame game - the game of the candidates. 2) TicketWeights weights
+	 * - the weights to draw with, or null for uniform draws. 3)
+	 * BlockingQueue<Powerball[]> candidates - the queue to fill. 4)
+	 * AtomicBoolean done - set when the run ended.
+	 */
+	private static void generate(LotteryGame game, TicketWeights weights, BlockingQueue<Powerball[]> candidates,
+			AtomicBoolean done) throws InterruptedException {
+		while (!done.get()) {
+			Powerball[] batch = new Powerball[BATCH_SIZE];
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			for (int i = 0; i < BATCH_SIZE; i++) {
+				batch[i] = weights == null ? Powerball.random(game, random) : weights.draw(random);
+			}
+			while (!done.get() && !candidates.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				// Sink is behind; wait for room.
+			}
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Filter stage. Takes candidate batches, keeps the tickets the
+	 * recurrence index accepts and passes them on until the amount has been
+	 * reached or the limit is saturated, then closes the accepted queue.
+	 * REQUIRED ARGUMENTS: 1) RecurrenceIndex index - the index of streamed
+	 * tickets. 2) int amount - tickets wanted. 3) BlockingQueue<Powerball[]>
+	 * candidates - the input queue. 4) BlockingQueue<Powerball[]> accepted -
+	 * the output queue. 5) AtomicLong attempts - candidates checked. 6)
+	 * AtomicBoolean saturated - set when the limit is saturated.
+	 */
+	private static void filter(RecurrenceIndex index, int amount, BlockingQueue<Powerball[]> candidates,
+			BlockingQueue<Powerball[]> accepted, AtomicLong attempts, AtomicBoolean saturated)
+			throws InterruptedException {
+		int remaining = amount;
+		long rejected_in_row = 0;
+		while (remaining > 0) {
+			Powerball[] batch = candidates.take();
+			int count = 0;
+			for (int i = 0; i < batch.length && count < remaining; i++) {
+				if (index.tryInsert(batch[i])) {
+					batch[count++] = batch[i];
+					rejected_in_row = 0;
+				} else {
+					rejected_in_row++;
+				}
+			}
+			attempts.addAndGet(batch.length);
+			if (count > 0) {
+				accepted.put(count == batch.length ? batch : Arrays.copyOf(batch, count));
+				remaining -= count;
+			}
+			if (rejected_in_row >= TicketGenerator.DEFAULT_STALL_LIMIT) {
+				saturated.set(true);
+				break;
+			}
+		}
+		accepted.put(END_OF_STREAM);
+	}
+
+	/*
+	 * DESCRIPTION: Sink stage, run on the calling thread. Formats accepted
+	 * tickets into one reused buffer and writes them out until the filter
+	 * closes the queue. Whenever the queue runs dry, the other stages are
+	 * checked, and the failure of any of them is rethrown here rather than
+	 * leaving the run short or waiting forever. Returns the amount of tickets
+	 * written. REQUIRED ARGUMENTS: 1) BlockingQueue<Powerball[]> accepted - the
+	 * input queue. 2) Writer out - where tickets are written. 3) Future<Void>
+	 * filter - the filter stage. 4) List<Future<Void>> generators - the
+	 * generator stages.
+	 */
+	private static long sink(BlockingQueue<Powerball[]> accepted, Writer out, Future<Void> filter,
+			List<Future<Void>> generators) throws IOException, InterruptedException {
+		StringBuilder line = new StringBuilder(32);
+		char[] chars = new char[32];
+		long written = 0;
+		while (true) {
+			Powerball[] batch = accepted.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+			if (batch == null) {
+				for (Future<Void> generator : generators) {
+					checkStage(generator);
+				}
+				if (filter.isDone() && accepted.isEmpty()) {
+					checkStage(filter);
+					break;
+				}
+				continue;
+			}
+			if (batch == END_OF_STREAM) {
+				break;
+			}
+			for (Powerball pball : batch) {
+				line.setLength(0);
+				pball.appendTo(line).append(System.lineSeparator());
+				line.getChars(0, line.length(), chars, 0);
+				out.write(chars, 0, line.length());
+			}
+			written += batch.length;
+		}
+		return written;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that rethrows the failure of a finished
+	 * stage. Unchecked failures are rethrown as they are and checked ones
+	 * wrapped in an IOException. REQUIRED ARGUMENTS: 1) Future<Void> stage -
+	 * the stage to check.
+	 */
+	private static void checkStage(Future<Void> stage) throws IOException, InterruptedException {
+		if (!stage.isDone() || stage.isCancelled()) {
+			return;
+		}
+		try {
+			stage.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else if (cause instanceof InterruptedException) {
+				throw (InterruptedException) cause;
+			}
+			throw new IOException("A ticket stream stage failed.", cause);
+		}
+	}
+}
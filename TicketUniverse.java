@@ -0,0 +1,356 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Set of tickets of one game held as one bit per possible ticket. Tickets are
+ * addressed by their rank, so the 292 million possible Powerball tickets take
+ * a fixed 36.5 MB no matter how many are held (37.8 MB for the 303 million
+ * Mega Millions tickets), membership is a single bit test and union,
+ * intersection and difference run word by word over two flat arrays of the
+ * same game. Shards draw their tickets from a universe without replacement,
+ * merges into the saved tickets use one to tell saved tickets from new ones,
+ * and the "compare" command runs its set algebra on them.
+ * Bits are set and cleared atomically, so tickets can be added from any
+ * number of threads. Set operations and scans expect no concurrent changes
+ * to the sets involved.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
+
+public final class TicketUniverse implements Iterable<Powerball> {
+
+	// Atomic access to the words of the bit array.
+	private static final VarHandle S_WORD = MethodHandles.arrayElementVarHandle(long[].class);
+
+	// Game of the held tickets and its amount of ticket ranks.
+	private final LotteryGame p_game;
+	private final int p_rank_count;
+	// Amount of 64-bit words covering every ticket rank.
+	private final int p_word_count;
+	// Bits of the last word that belong to a rank.
+	private final long p_last_word_mask;
+	// One bit per ticket rank, set when the ticket is held.
+	private final long[] p_words;
+	// Amount of tickets held.
+	private final LongAdder p_size = new LongAdder();
+
+	/*
+	 * DESCRIPTION: Constructor that creates an empty set. REQUIRED ARGUMENTS:
+	 * 1) LotteryGame game - the game of the tickets.
+	 */
+	public TicketUniverse(LotteryGame game) {
+		this.p_game = game;
+		this.p_rank_count = game.getRankCount();
+		this.p_word_count = (this.p_rank_count + 63) >>> 6;
+		this.p_last_word_mask = (this.p_rank_count & 63) == 0 ? -1L : (1L << this.p_rank_count) - 1;
+		this.p_words = new long[this.p_word_count];
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns a set holding the given
+	 * tickets. REQUIRED ARGUMENTS: 1) LotteryGame game - the game of the
+	 * tickets. 2) Iterable<Powerball> tickets - the tickets to hold.
+	 */
+	public static TicketUniverse of(LotteryGame game, Iterable<Powerball> tickets) {
+		TicketUniverse universe = new TicketUniverse(game);
+		for (Powerball pball : tickets) {
+			universe.add(pball);
+		}
+		return universe;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns a set holding the tickets of a
+	 * ticket file. REQUIRED ARGUMENTS: 1) LotteryGame game - the game of the
+	 * file's tickets. 2) String file_name - the ticket file.
+	 */
+	public static TicketUniverse read(LotteryGame game, String file_name) throws IOException {
+		TicketUniverse universe = new TicketUniverse(game);
+		try (TicketFile file = TicketFile.open(file_name)) {
+			file.forEachCode(code -> universe.addRank(Powerball.fromCode(game, code).toRank()));
+		}
+		return universe;
+	}
+
+	/*
+	 * DESCRIPTION: Method that writes the held tickets to a ticket file sorted
+	 * by code, so it can be merged like a shard, and returns the amount
+	 * written. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) String file_name
+	 * - the ticket file.
+	 */
+	public long write(String file_name) throws IOException {
+		long[] codes = new long[(int) this.size()];
+		int[] size = { 0 };
+		this.forEachRank(rank -> codes[size[0]++] = Powerball.fromRank(this.p_game, rank).toCode());
+		Arrays.parallelSort(codes, 0, size[0]);
+		return TicketFile.write(file_name, Arrays.stream(codes, 0, size[0]).iterator(), 0L);
+	}
+
+	public LotteryGame getGame() {
+		return this.p_game;
+	}
+
+	public long size() {
+		return this.p_size.sum();
+	}
+
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	/*
+	 * DESCRIPTION: Method that adds a ticket, returning false if it was
+	 * already held. AFFECTED FIELDS: 1) p_words 2) p_size REQUIRED ARGUMENTS:
+	 * 1) Powerball pball - a complete ticket.
+	 */
+	public boolean add(Powerball pball) {
+		return this.addRank(pball.toRank());
+	}
+
+	public boolean addRank(int rank) {
+		long mask = 1L << rank;
+		long old = (long) S_WORD.getAndBitwiseOr(this.p_words, rank >>> 6, mask);
+		if ((old & mask) != 0) {
+			return false;
+		}
+		this.p_size.increment();
+		return true;
+	}
+
+	/*
+	 * DESCRIPTION: Method that removes a ticket, returning false if it was
+	 * not held. AFFECTED FIELDS: 1) p_words 2) p_size REQUIRED ARGUMENTS: 1)
+	 * Powerball pball - a complete ticket.
+	 */
+	public boolean remove(Powerball pball) {
+		return this.removeRank(pball.toRank());
+	}
+
+	public boolean removeRank(int rank) {
+		long mask = 1L << rank;
+		long old = (long) S_WORD.getAndBitwiseAnd(this.p_words, rank >>> 6, ~mask);
+		if ((old & mask) == 0) {
+			return false;
+		}
+		this.p_size.decrement();
+		return true;
+	}
+
+	public boolean contains(Powerball pball) {
+		return this.containsRank(pball.toRank());
+	}
+
+	public boolean containsRank(int rank) {
+		return ((long) S_WORD.getVolatile(this.p_words, rank >>> 6) & (1L << rank)) != 0;
+	}
+
+	/*
+	 * DESCRIPTION: Method that draws a random ticket not held yet and adds it,
+	 * so repeated calls sample the possible tickets without replacement.
+	 * Throws IllegalStateException once every ticket is held. AFFECTED
+	 * FIELDS: 1) p_words 2) p_size REQUIRED ARGUMENTS: 1) RandomGenerator
+	 * random - the generator to draw from.
+	 */
+	public Powerball drawNew(RandomGenerator random) {
+		long free = this.p_rank_count - this.size();
+		if (free <= 0) {
+			throw new IllegalStateException("Every ticket has already been drawn.");
+		}
+		if (free * 64 >= this.p_rank_count) {
+			int rank;
+			do {
+				rank = random.nextInt(this.p_rank_count);
+			} while (!this.addRank(rank));
+			return Powerball.fromRank(this.p_game, rank);
+		}
+		// Nearly full; pick among the free ranks directly instead of retrying.
+		long skip = random.nextLong(free);
+		for (int word = 0; word < this.p_word_count; word++) {
+			long empty = ~this.p_words[word];
+			if (word == this.p_word_count - 1) {
+				empty &= this.p_last_word_mask;
+			}
+			int count = Long.bitCount(empty);
+			if (skip < count) {
+				for (; skip > 0; skip--) {
+					empty &= empty - 1;
+				}
+				int rank = (word << 6) + Long.numberOfTrailingZeros(empty);
+				this.addRank(rank);
+				return Powerball.fromRank(this.p_game, rank);
+			}
+			skip -= count;
+		}
+		throw new IllegalStateException("Every ticket has already been drawn.");
+	}
+
+	/*
+	 * DESCRIPTION: Method that adds every ticket of another set. AFFECTED
+	 * FIELDS: 1) p_words 2) p_size REQUIRED ARGUMENTS: 1) TicketUniverse other
+	 * - the other set.
+	 */
+	public TicketUniverse or(TicketUniverse other) {
+		long[] words = this.p_words;
+		long[] others = this.wordsOf(other);
+		long size = 0;
+		for (int i = 0; i < words.length; i++) {
+			size += Long.bitCount(words[i] |= others[i]);
+		}
+		this.resetSize(size);
+		return this;
+	}
+
+	/*
+	 * DESCRIPTION: Method that keeps only the tickets also held by another
+	 * set. AFFECTED FIELDS: 1) p_words 2) p_size REQUIRED ARGUMENTS: 1)
+	 * TicketUniverse other - the other set.
+	 */
+	public TicketUniverse and(TicketUniverse other) {
+		long[] words = this.p_words;
+		long[] others = this.wordsOf(other);
+		long size = 0;
+		for (int i = 0; i < words.length; i++) {
+			size += Long.bitCount(words[i] &= others[i]);
+		}
+		this.resetSize(size);
+		return this;
+	}
+
+	/*
+	 * DESCRIPTION: Method that removes every ticket held by another set.
+	 * AFFECTED FIELDS: 1) p_words 2) p_size REQUIRED ARGUMENTS: 1)
+	 * TicketUniverse other - the other set.
+	 */
+	public TicketUniverse andNot(TicketUniverse other) {
+		long[] words = this.p_words;
+		long[] others = this.wordsOf(other);
+		long size = 0;
+		for (int i = 0; i < words.length; i++) {
+			size += Long.bitCount(words[i] &= ~others[i]);
+		}
+		this.resetSize(size);
+		return this;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the amount of tickets held by both this
+	 * and another set without changing either. AFFECTED FIELDS: None.
+	 * REQUIRED ARGUMENTS: 1) TicketUniverse other - the other set.
+	 */
+	public long intersectionSize(TicketUniverse other) {
+		long[] words = this.p_words;
+		long[] others = this.wordsOf(other);
+		long size = 0;
+		for (int i = 0; i < words.length; i++) {
+			size += Long.bitCount(words[i] & others[i]);
+		}
+		return size;
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the bit array of another set after
+	 * checking that it holds tickets of the same game. AFFECTED FIELDS: None.
+	 * REQUIRED ARGUMENTS: 1) TicketUniverse other - the other set.
+	 */
+	private long[] wordsOf(TicketUniverse other) {
+		if (other.p_game != this.p_game) {
+			throw new IllegalArgumentException("Cannot combine " + this.p_game + " and " + other.p_game + " tickets");
+		}
+		return other.p_words;
+	}
+
+	public TicketUniverse copy() {
+		TicketUniverse copy = new TicketUniverse(this.p_game);
+		System.arraycopy(this.p_words, 0, copy.p_words, 0, this.p_word_count);
+		copy.p_size.add(this.size());
+		return copy;
+	}
+
+	public void clear() {
+		Arrays.fill(this.p_words, 0L);
+		this.p_size.reset();
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns the lowest held rank at or above the
+	 * given rank, or -1 if there is none. AFFECTED FIELDS: None. REQUIRED
+	 * ARGUMENTS: 1) int from - the rank to start at.
+	 */
+	public int nextRank(int from) {
+		if (from < 0) {
+			from = 0;
+		}
+		int word = from >>> 6;
+		if (word >= this.p_word_count) {
+			return -1;
+		}
+		long bits = this.p_words[word] & (-1L << from);
+		while (bits == 0) {
+			if (++word == this.p_word_count) {
+				return -1;
+			}
+			bits = this.p_words[word];
+		}
+		return (word << 6) + Long.numberOfTrailingZeros(bits);
+	}
+
+	/*
+	 * DESCRIPTION: Method that passes every held rank to the consumer in
+	 * ascending order. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1)
+	 * IntConsumer action - receives every rank.
+	 */
+	public void forEachRank(IntConsumer action) {
+		long[] words = this.p_words;
+		for (int word = 0; word < words.length; word++) {
+			long bits = words[word];
+			while (bits != 0) {
+				action.accept((word << 6) + Long.numberOfTrailingZeros(bits));
+				bits &= bits - 1;
+			}
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Method that returns an iterator over the held tickets in
+	 * rank order. AFFECTED FIELDS: None. REQUIRED ARGUMENTS: None.
+	 */
+	@Override
+	public Iterator<Powerball> iterator() {
+		return new Iterator<Powerball>() {
+			private int p_next = TicketUniverse.this.nextRank(0);
+
+			@Override
+			public boolean hasNext() {
+				return this.p_next >= 0;
+			}
+
+			@Override
+			public Powerball next() {
+				if (this.p_next < 0) {
+					throw new NoSuchElementException();
+				}
+				Powerball pball = Powerball.fromRank(TicketUniverse.this.p_game, this.p_next);
+				this.p_next = this.p_next == TicketUniverse.this.p_rank_count - 1 ? -1
+						: TicketUniverse.this.nextRank(this.p_next + 1);
+				return pball;
+			}
+		};
+	}
+
+	private void resetSize(long size) {
+		this.p_size.reset();
+		this.p_size.add(size);
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Non-uniform number selection for random tickets, weighted by the
+ * statistics of past draws. "hot" favors the numbers drawn most often and
+ * "cold" the numbers gone longest without being drawn; every number keeps a
+ * weight of at least 1, so none is ever ruled out. Weights are frozen into
+ * cumulative tables when created, so drawing a number is one binary search
+ * and the weights can be shared by every generator thread.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+public final class TicketWeights {
+
+	// Ways of turning draw statistics into number weights.
+	public enum Mode {
+		HOT, COLD;
+
+		/*
+		 * DESCRIPTION: Static method that returns the mode with the given name,
+		 * ignoring case. Throws IllegalArgumentException if no mode has the
+		 * name. REQUIRED ARGUMENTS: 1) String name - the name of the mode.
+		 */
+		public static Mode forName(String name) {
+			for (Mode mode : Mode.values()) {
+				if (mode.name().equalsIgnoreCase(name)) {
+					return mode;
+				}
+			}
+			throw new IllegalArgumentException("Unknown weighting \"" + name + "\"; use hot or cold.");
+		}
+	}
+
+	private final LotteryGame p_game;
+	private final Mode p_mode;
+	// Running totals of the white and red weights, entry n - 1 holding the
+	// weights of numbers 1 to n.
+	private final double[] p_white_totals;
+	private final double[] p_red_totals;
+
+	private TicketWeights(LotteryGame game, Mode mode, double[] white_totals, double[] red_totals) {
+		this.p_game = game;
+		this.p_mode = mode;
+		this.p_white_totals = white_totals;
+		this.p_red_totals = red_totals;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that creates the weights of the given mode
+	 * from draw statistics. Throws IllegalArgumentException if no draws have
+	 * been counted. REQUIRED ARGUMENTS: 1) DrawStatistics statistics - the
+	 * statistics of past draws. 2) Mode mode - how to weight the numbers.
+	 */
+	public static TicketWeights of(DrawStatistics statistics, Mode mode) {
+		if (statistics.getDraws() == 0) {
+			throw new IllegalArgumentException("No historical draws have been imported yet.");
+		}
+		LotteryGame game = statistics.getGame();
+		double[] whites = new double[game.getWhiteMax()];
+		double[] reds = new double[game.getRedMax()];
+		for (int i = 0; i < whites.length; i++) {
+			int number = i + Powerball.WHITE_MIN;
+			whites[i] = 1 + (mode == Mode.HOT ? statistics.getWhiteCount(number) : statistics.getWhiteGap(number));
+		}
+		for (int i = 0; i < reds.length; i++) {
+			int number = i + Powerball.RED_MIN;
+			reds[i] = 1 + (mode == Mode.HOT ? statistics.getRedCount(number) : statistics.getRedGap(number));
+		}
+		Arrays.parallelPrefix(whites, Double::sum);
+		Arrays.parallelPrefix(reds, Double::sum);
+		return new TicketWeights(game, mode, whites, reds);
+	}
+
+	public LotteryGame getGame() {
+		return this.p_game;
+	}
+
+	public Mode getMode() {
+		return this.p_mode;
+	}
+
+	/*
+	 * DESCRIPTION: Method that creates a ticket whose numbers are drawn with
+	 * the weights. White numbers are drawn until five different ones come up.
+	 * AFFECTED FIELDS: None. REQUIRED ARGUMENTS: 1) RandomGenerator random -
+	 * the random number generator to draw from.
+	 */
+	public Powerball draw(RandomGenerator random) {
+		int[] whites = new int[Powerball.WHITE_PICKS];
+		int count = 0;
+		while (count < whites.length) {
+			int number = pick(this.p_white_totals, random) + Powerball.WHITE_MIN;
+			boolean repeated = false;
+			for (int i = 0; i < count; i++) {
+				repeated |= whites[i] == number;
+			}
+			if (!repeated) {
+				whites[count++] = number;
+			}
+		}
+		int red = pick(this.p_red_totals, random) + Powerball.RED_MIN;
+		return new Powerball(this.p_game, whites[0], whites[1], whites[2], whites[3], whites[4], red);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that draws an index with a probability
+	 * proportional to its weight. REQUIRED ARGUMENTS: 1) double[] totals - the
+	 * running totals of the weights. 2) RandomGenerator random - the random
+	 * number generator to draw from.
+	 */
+	private static int pick(double[] totals, RandomGenerator random) {
+		double target = random.nextDouble(totals[totals.length - 1]);
+		int index = Arrays.binarySearch(totals, target);
+		return index < 0 ? -index - 1 : index + 1;
+	}
+
+	@Override
+	public String toString() {
+		return this.p_mode.name().toLowerCase();
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Benchmarks of "parallelRandomTicketGeneratorOption" at several ticket
+ * counts, starting from an empty ticket set every time. The recurrence limit
+ * defaults to 5 so every size is reachable; pass "-p limit=4" to measure a
+ * run closer to saturation.
+ */
+
+package com.crucerne.www.lottery.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crucerne.www.lottery.generator.Powerball;
+import com.crucerne.www.lottery.generator.TicketGenerator;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class GeneratorBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int tickets;
+
+	@Param({ "5" })
+	public int limit;
+
+	@Setup(Level.Invocation)
+	public void clearTickets() {
+		Powerball.setRecurLimit(this.limit);
+		Powerball.clearRandomGeneratedTickets();
+	}
+
+	@Benchmark
+	public TicketGenerator.Result parallelRandomTicketGeneratorOption() {
+		return Powerball.parallelRandomTicketGeneratorOption(this.tickets);
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Benchmarks of scoring ticket sets against draws: a single draw through the
+ * per-number index and a block of simulated draws through the column scan.
+ */
+
+package com.crucerne.www.lottery.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crucerne.www.lottery.generator.DrawIndex;
+import com.crucerne.www.lottery.generator.DrawSimulator;
+import com.crucerne.www.lottery.generator.LotteryGame;
+import com.crucerne.www.lottery.generator.Powerball;
+import com.crucerne.www.lottery.generator.PrizeTable;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class MatchingBenchmark {
+
+	@Param({ "100000", "1000000" })
+	public int tickets;
+
+	private List<Powerball> p_tickets;
+	private DrawIndex p_index;
+	private DrawSimulator p_simulator;
+
+	@Setup
+	public void setUp() {
+		this.p_tickets = new ArrayList<Powerball>(this.tickets);
+		for (int i = 0; i < this.tickets; i++) {
+			this.p_tickets.add(new Powerball());
+		}
+		this.p_index = DrawIndex.of(LotteryGame.POWERBALL, this.p_tickets);
+		this.p_simulator = new DrawSimulator(LotteryGame.POWERBALL, 20000000L);
+	}
+
+	@Benchmark
+	public long[] indexCheckDraw() {
+		return this.p_index.countTiers(new Powerball(), PrizeTable.POWERBALL);
+	}
+
+	@Benchmark
+	public DrawSimulator.Result simulate100Draws() {
+		return this.p_simulator.simulate(this.p_tickets, 100, new SplittableRandom());
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Benchmarks of the ticket store I/O behind "writeRandomGeneratedTickets" and
+ * "readRandomGeneratedTickets": writing a whole ticket file, reading one back
+ * into tickets, random access through the mapped file, appending a batch
+ * of 1,000 tickets to the journal of a store of the given size, exporting
+ * every ticket as CSV and merging the tickets back from 4 sorted shards at a
+ * recurrence limit of 5. Files are written to a temporary directory.
+ */
+
+package com.crucerne.www.lottery.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.crucerne.www.lottery.generator.LotteryGame;
+import com.crucerne.www.lottery.generator.Powerball;
+import com.crucerne.www.lottery.generator.TicketExporter;
+import com.crucerne.www.lottery.generator.TicketFile;
+import com.crucerne.www.lottery.generator.TicketFilter;
+import com.crucerne.www.lottery.generator.TicketJournal;
+import com.crucerne.www.lottery.generator.TicketShards;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+
+	@Param({ "10000", "1000000" })
+	public int tickets;
+
+	private Path p_directory;
+	private ConcurrentSkipListSet<Powerball> p_tickets;
+	private List<Powerball> p_batch;
+	private String p_written_file;
+	private String p_read_file;
+	private String p_export_file;
+	private String p_merged_file;
+	private List<String> p_shard_files;
+	private TicketFile p_mapped_file;
+	private TicketJournal p_journal;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		this.p_directory = Files.createTempDirectory("lottery-bench");
+		this.p_tickets = new ConcurrentSkipListSet<Powerball>();
+		while (this.p_tickets.size() < this.tickets) {
+			this.p_tickets.add(new Powerball());
+		}
+		this.p_batch = new ArrayList<Powerball>();
+		for (int i = 0; i < 1000; i++) {
+			this.p_batch.add(new Powerball());
+		}
+		this.p_written_file = this.p_directory.resolve("write.dat").toString();
+		this.p_read_file = this.p_directory.resolve("read.dat").toString();
+		this.p_export_file = this.p_directory.resolve("export.csv").toString();
+		TicketFile.write(this.p_read_file, this.p_tickets);
+		this.p_mapped_file = TicketFile.open(this.p_read_file);
+		String snapshot = this.p_directory.resolve("store.dat").toString();
+		TicketFile.write(snapshot, this.p_tickets);
+		this.p_journal = TicketJournal.open(snapshot, this.p_directory.resolve("store.log").toString());
+		this.p_merged_file = this.p_directory.resolve("merged.dat").toString();
+		this.p_shard_files = new ArrayList<String>();
+		List<List<Powerball>> shards = new ArrayList<List<Powerball>>();
+		for (int i = 0; i < 4; i++) {
+			this.p_shard_files.add(this.p_directory.resolve("shard" + i + ".dat").toString());
+			shards.add(new ArrayList<Powerball>());
+		}
+		int next = 0;
+		for (Powerball pball : this.p_tickets) {
+			shards.get(next++ % shards.size()).add(pball);
+		}
+		for (int i = 0; i < shards.size(); i++) {
+			TicketFile.write(this.p_shard_files.get(i), shards.get(i));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		this.p_mapped_file.close();
+		this.p_journal.close();
+		try (Stream<Path> files = Files.list(this.p_directory)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(this.p_directory);
+	}
+
+	@Benchmark
+	public long writeTicketFile() throws IOException {
+		return TicketFile.write(this.p_written_file, this.p_tickets);
+	}
+
+	@Benchmark
+	public void readTicketFile(Blackhole blackhole) throws IOException {
+		try (TicketFile file = TicketFile.open(this.p_read_file)) {
+			file.forEachCode(code -> blackhole.consume(Powerball.fromCode(LotteryGame.POWERBALL, code)));
+		}
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public long randomAccess() {
+		return this.p_mapped_file.getCode(ThreadLocalRandom.current().nextLong(this.p_mapped_file.size()));
+	}
+
+	@Benchmark
+	public void appendJournalBatch() throws IOException {
+		this.p_journal.add(this.p_batch);
+	}
+
+	@Benchmark
+	public long exportCsv() throws IOException {
+		try (TicketExporter exporter = TicketExporter.toFile(this.p_export_file, TicketExporter.Format.CSV)) {
+			return exporter.export(this.p_tickets, TicketFilter.ALL);
+		}
+	}
+
+	@Benchmark
+	public long mergeShards() throws IOException {
+		return TicketShards.merge(LotteryGame.POWERBALL, 5, this.p_shard_files, Long.MAX_VALUE, this.p_merged_file, 0L)
+				.getWritten();
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Benchmarks of single Powerball operations: creating a random ticket,
+ * comparing two tickets, ranking and unranking a ticket, and checking a
+ * ticket against the recurrence index, the last under every recurrence limit
+ * the menu allows.
+ */
+
+package com.crucerne.www.lottery.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crucerne.www.lottery.generator.LotteryGame;
+import com.crucerne.www.lottery.generator.Powerball;
+import com.crucerne.www.lottery.generator.RecurrenceIndex;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PowerballBenchmark {
+
+	// Amount of pre-made tickets cycled through by the comparison benchmarks.
+	private static final int TICKETS = 1024;
+
+	@Param({ "3", "4", "5" })
+	public int limit;
+
+	private Powerball[] p_tickets;
+	private int[] p_ranks;
+	private RecurrenceIndex p_index;
+	private int p_next;
+
+	@Setup
+	public void setUp() {
+		Powerball.setRecurLimit(this.limit);
+		this.p_tickets = new Powerball[TICKETS];
+		this.p_ranks = new int[TICKETS];
+		for (int i = 0; i < TICKETS; i++) {
+			this.p_tickets[i] = new Powerball();
+			this.p_ranks[i] = this.p_tickets[i].toRank();
+		}
+		// An index holding a few thousand tickets, as after a typical run.
+		this.p_index = new RecurrenceIndex(LotteryGame.POWERBALL, this.limit);
+		for (int i = 0; i < 5000; i++) {
+			this.p_index.tryInsert(new Powerball());
+		}
+	}
+
+	@Benchmark
+	public Powerball newPowerball() {
+		return new Powerball();
+	}
+
+	@Benchmark
+	public int compareTo() {
+		int i = this.p_next++ & (TICKETS - 1);
+		return this.p_tickets[i].compareTo(this.p_tickets[(i + 1) & (TICKETS - 1)]);
+	}
+
+	@Benchmark
+	public boolean equals() {
+		int i = this.p_next++ & (TICKETS - 1);
+		return this.p_tickets[i].equals(this.p_tickets[(i + 1) & (TICKETS - 1)]);
+	}
+
+	@Benchmark
+	public int toRank() {
+		return this.p_tickets[this.p_next++ & (TICKETS - 1)].toRank();
+	}
+
+	@Benchmark
+	public Powerball fromRank() {
+		return Powerball.fromRank(LotteryGame.POWERBALL, this.p_ranks[this.p_next++ & (TICKETS - 1)]);
+	}
+
+	@Benchmark
+	public boolean recurrenceCheck() {
+		return this.p_index.conflicts(this.p_tickets[this.p_next++ & (TICKETS - 1)]);
+	}
+
+	@Benchmark
+	public boolean recurrenceInsert() {
+		Powerball pball = this.p_tickets[this.p_next++ & (TICKETS - 1)];
+		boolean inserted = this.p_index.tryInsert(pball);
+		if (inserted) {
+			this.p_index.remove(pball);
+		}
+		return inserted;
+	}
+}
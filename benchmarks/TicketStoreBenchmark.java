@@ -0,0 +1,112 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Benchmarks of the off-heap ticket store against the sorted concurrent set
+ * it replaced: looking a ticket up, adding and removing a ticket, and
+ * walking every ticket, on stores of a million tickets.
+ */
+
+package com.crucerne.www.lottery.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crucerne.www.lottery.generator.LotteryGame;
+import com.crucerne.www.lottery.generator.Powerball;
+import com.crucerne.www.lottery.generator.TicketStore;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TicketStoreBenchmark {
+
+	// Amount of tickets in both collections.
+	private static final int STORED = 1000000;
+	// Amount of pre-made tickets cycled through, half of them stored.
+	private static final int TICKETS = 1024;
+
+	private TicketStore p_store;
+	private ConcurrentSkipListSet<Powerball> p_set;
+	private Powerball[] p_tickets;
+	private int p_next;
+
+	@Setup
+	public void setUp() {
+		SplittableRandom random = new SplittableRandom(42);
+		this.p_store = new TicketStore(LotteryGame.POWERBALL);
+		this.p_set = new ConcurrentSkipListSet<Powerball>();
+		this.p_tickets = new Powerball[TICKETS];
+		while (this.p_store.size() < STORED) {
+			Powerball pball = Powerball.random(LotteryGame.POWERBALL, random);
+			if (this.p_store.add(pball)) {
+				this.p_set.add(pball);
+			}
+		}
+		for (int i = 0; i < TICKETS; i++) {
+			this.p_tickets[i] = Powerball.random(LotteryGame.POWERBALL, random);
+			if ((i & 1) == 0 && this.p_store.add(this.p_tickets[i])) {
+				this.p_set.add(this.p_tickets[i]);
+			}
+		}
+	}
+
+	@Benchmark
+	public boolean storeContains() {
+		return this.p_store.contains(this.p_tickets[this.p_next++ & (TICKETS - 1)]);
+	}
+
+	@Benchmark
+	public boolean setContains() {
+		return this.p_set.contains(this.p_tickets[this.p_next++ & (TICKETS - 1)]);
+	}
+
+	@Benchmark
+	public boolean storeAddRemove() {
+		Powerball pball = this.p_tickets[this.p_next++ & (TICKETS - 1)];
+		return this.p_store.add(pball) && this.p_store.remove(pball);
+	}
+
+	@Benchmark
+	public boolean setAddRemove() {
+		Powerball pball = this.p_tickets[this.p_next++ & (TICKETS - 1)];
+		return this.p_set.add(pball) && this.p_set.remove(pball);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public long storeScan() {
+		long[] sum = new long[1];
+		this.p_store.forEachCode(code -> sum[0] += code);
+		return sum[0];
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public long setScan() {
+		long sum = 0;
+		for (Powerball pball : this.p_set) {
+			sum += pball.toCode();
+		}
+		return sum;
+	}
+}
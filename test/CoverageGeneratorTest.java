@@ -0,0 +1,100 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Tests of the constructive generator and its bounds: the Johnson bound for
+ * known limits, full passes that hold the limit, stay under the bound and
+ * leave no room for another ticket, and runs that stop at the amount asked
+ * for.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class CoverageGeneratorTest {
+
+	private static final int CANDIDATES = 10000;
+
+	@Test
+	public void maxTicketsMatchesKnownBounds() {
+		assertEquals(13, CoverageGenerator.maxTickets(LotteryGame.POWERBALL, 1));
+		assertEquals(234, CoverageGenerator.maxTickets(LotteryGame.POWERBALL, 2));
+		assertEquals(5161, CoverageGenerator.maxTickets(LotteryGame.POWERBALL, 3));
+		assertEquals(11238513, CoverageGenerator.maxTickets(LotteryGame.POWERBALL, 5));
+		assertEquals(14, CoverageGenerator.maxTickets(LotteryGame.MEGA_MILLIONS, 1));
+		assertEquals(LotteryGame.MEGA_MILLIONS.getWhiteSetCount(),
+				CoverageGenerator.maxTickets(LotteryGame.MEGA_MILLIONS, 5));
+		assertThrows(IllegalArgumentException.class, () -> CoverageGenerator.maxTickets(LotteryGame.POWERBALL, 0));
+		assertThrows(IllegalArgumentException.class, () -> CoverageGenerator.maxTickets(LotteryGame.POWERBALL, 6));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 2, 3, 4 })
+	public void fullPassHoldsTheLimitAndSaturates(int limit) {
+		LotteryGame game = LotteryGame.POWERBALL;
+		RecurrenceIndex index = new RecurrenceIndex(game, limit);
+		List<Powerball> tickets = new ArrayList<Powerball>();
+		TicketGenerator.Result result = new CoverageGenerator(index, tickets::addAll).generate(Integer.MAX_VALUE,
+				new SplittableRandom(limit));
+		assertTrue(result.isSaturated());
+		assertEquals(tickets.size(), result.getGenerated());
+		assertTrue(tickets.size() <= CoverageGenerator.maxTickets(game, limit));
+		assertEquals(tickets.size(), new HashSet<Powerball>(tickets).size());
+		// No two tickets share a white subset of the limit's size exactly when
+		// every ticket brings all of its own.
+		long subsets = RecurrenceIndex.binomial(Powerball.WHITE_PICKS, limit);
+		assertEquals(tickets.size() * subsets, CoverageGenerator.coveredSubsets(game, tickets, limit));
+		if (limit <= 3) {
+			for (int i = 0; i < tickets.size(); i++) {
+				for (int j = i + 1; j < tickets.size(); j++) {
+					assertTrue(tickets.get(i).whiteOverlap(tickets.get(j)) < limit);
+				}
+			}
+		}
+		SplittableRandom random = new SplittableRandom(100 + limit);
+		for (int i = 0; i < CANDIDATES; i++) {
+			assertTrue(index.conflicts(Powerball.random(game, random)));
+		}
+	}
+
+	@Test
+	public void runStopsAtTheAmountAskedFor() {
+		RecurrenceIndex index = new RecurrenceIndex(LotteryGame.POWERBALL, 3);
+		List<Powerball> tickets = new ArrayList<Powerball>();
+		CoverageGenerator generator = new CoverageGenerator(index, tickets::addAll);
+		TicketGenerator.Result result = generator.generate(100, new SplittableRandom(1));
+		assertFalse(result.isSaturated());
+		assertEquals(100, result.getGenerated());
+		assertEquals(100, tickets.size());
+		// A second run carries on from the tickets already in the index.
+		result = generator.generate(100, new SplittableRandom(2));
+		assertEquals(100, result.getGenerated());
+		assertEquals(200, new HashSet<Powerball>(tickets).size());
+		assertEquals(200 * RecurrenceIndex.binomial(Powerball.WHITE_PICKS, 3),
+				CoverageGenerator.coveredSubsets(LotteryGame.POWERBALL, tickets, 3));
+	}
+
+	@Test
+	public void coveredSubsetsCountsSharedSubsetsOnce() {
+		List<Powerball> tickets = List.of(new Powerball(1, 2, 3, 4, 5, 1), new Powerball(1, 2, 3, 4, 6, 2));
+		assertEquals(6, CoverageGenerator.coveredSubsets(LotteryGame.POWERBALL, tickets, 1));
+		// The tickets share the pairs of 1, 2, 3 and 4.
+		assertEquals(2 * 10 - 6, CoverageGenerator.coveredSubsets(LotteryGame.POWERBALL, tickets, 2));
+		assertEquals(2, CoverageGenerator.coveredSubsets(LotteryGame.POWERBALL, tickets, 5));
+	}
+}
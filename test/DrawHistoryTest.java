@@ -0,0 +1,54 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Tests of the draw history's CSV import: rows dated before the game's
+ * current rules are skipped even when their numbers fit its ranges, and a
+ * header line is not counted as a skipped row.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DrawHistoryTest {
+
+	@TempDir
+	Path p_directory;
+
+	@Test
+	public void powerballRowsBeforeOctober2015AreSkipped() throws IOException {
+		DrawHistory history = this.importRows(LotteryGame.POWERBALL, "Draw Date,W1,W2,W3,W4,W5,PB",
+				"10/03/2015,1,2,3,4,59,26", "10/07/2015,12,15,21,30,69,26", "2016-01-13,4,8,19,27,34,10");
+		assertEquals(2, history.size());
+		assertEquals(LocalDate.of(2015, 10, 7), history.getDate(0));
+	}
+
+	@Test
+	public void megaMillionsRowsBeforeApril2025AreSkipped() throws IOException {
+		DrawHistory history = this.importRows(LotteryGame.MEGA_MILLIONS, "2025-04-04,1,2,3,4,70,24",
+				"2025-04-08,5,6,7,8,70,24");
+		assertEquals(1, history.size());
+		assertEquals(LocalDate.of(2025, 4, 8), history.getDate(0));
+	}
+
+	private DrawHistory importRows(LotteryGame game, String... rows) throws IOException {
+		Path csv = this.p_directory.resolve("draws.csv");
+		Files.write(csv, List.of(rows));
+		DrawHistory history = DrawHistory.open(game, this.p_directory.resolve("History.dat").toString());
+		DrawHistory.ImportResult result = history.importCsv(csv.toString());
+		assertEquals(1, result.getSkipped());
+		return history;
+	}
+}
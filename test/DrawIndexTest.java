@@ -0,0 +1,164 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Tests of the draw index against a brute-force scan of its tickets: tier
+ * counts and matching tickets over several bitmap chunks, after removals
+ * that free ids for reuse, and after single changes that are only published
+ * by the next check.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class DrawIndexTest {
+
+	// Enough tickets to fill three bitmap chunks, one in eight of them drawn
+	// from a small pool of white numbers so that every tier gets hits.
+	private static final int TICKETS = 150000;
+	private static final int POOL_SIZE = 12;
+	private static final int DRAWS = 10;
+
+	@ParameterizedTest
+	@ValueSource(ints = { 0, 1 })
+	public void tierCountsMatchBruteForce(int game_id) {
+		LotteryGame game = LotteryGame.values()[game_id];
+		SplittableRandom random = new SplittableRandom(game_id);
+		Set<Powerball> tickets = randomTickets(game, random, TICKETS);
+		DrawIndex index = DrawIndex.of(game, tickets);
+		assertEquals(tickets.size(), index.size());
+		for (int i = 0; i < DRAWS; i++) {
+			Powerball draw = pooledTicket(game, random);
+			assertArrayEquals(bruteForceTiers(game, tickets, draw), index.countTiers(draw, game.getPrizeTable()));
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 0, 1 })
+	public void removalsAndSingleChangesAreCounted(int game_id) {
+		LotteryGame game = LotteryGame.values()[game_id];
+		SplittableRandom random = new SplittableRandom(100 + game_id);
+		List<Powerball> tickets = new ArrayList<Powerball>(randomTickets(game, random, TICKETS));
+		DrawIndex index = DrawIndex.of(game, tickets);
+		Set<Powerball> held = new LinkedHashSet<Powerball>(tickets);
+		// Remove every third ticket, then add new ones into the freed ids.
+		for (int i = 0; i < tickets.size(); i += 3) {
+			assertTrue(index.remove(tickets.get(i)));
+			held.remove(tickets.get(i));
+		}
+		assertFalse(index.remove(tickets.get(0)));
+		for (Powerball pball : randomTickets(game, random, TICKETS / 10)) {
+			if (held.add(pball)) {
+				index.add(pball);
+			}
+		}
+		assertEquals(held.size(), index.size());
+		for (int i = 0; i < DRAWS; i++) {
+			Powerball draw = pooledTicket(game, random);
+			assertArrayEquals(bruteForceTiers(game, held, draw), index.countTiers(draw, game.getPrizeTable()));
+			// A single change shows up in the very next check.
+			Powerball extra = pooledTicket(game, random);
+			if (held.add(extra)) {
+				index.add(extra);
+			} else {
+				held.remove(extra);
+				index.remove(extra);
+			}
+			assertArrayEquals(bruteForceTiers(game, held, draw), index.countTiers(draw, game.getPrizeTable()));
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 3, 4, 5 })
+	public void matchingFindsEveryTicketAndNoOther(int min_white_matches) {
+		LotteryGame game = LotteryGame.POWERBALL;
+		SplittableRandom random = new SplittableRandom(min_white_matches);
+		Set<Powerball> tickets = randomTickets(game, random, TICKETS);
+		DrawIndex index = DrawIndex.of(game, tickets);
+		for (int i = 0; i < DRAWS; i++) {
+			Powerball draw = pooledTicket(game, random);
+			for (boolean red_match : new boolean[] { false, true }) {
+				Set<Powerball> expected = new HashSet<Powerball>();
+				for (Powerball pball : tickets) {
+					if (whiteMatches(pball, draw) >= min_white_matches
+							&& (!red_match || pball.getRedNumber() == draw.getRedNumber())) {
+						expected.add(pball);
+					}
+				}
+				List<Powerball> found = index.matching(draw, min_white_matches, red_match, Integer.MAX_VALUE);
+				assertEquals(expected.size(), found.size());
+				assertEquals(expected, new HashSet<Powerball>(found));
+			}
+		}
+	}
+
+	private static long[] bruteForceTiers(LotteryGame game, Iterable<Powerball> tickets, Powerball draw) {
+		PrizeTable table = game.getPrizeTable();
+		long[] hits = new long[table.getTierCount() + 1];
+		for (Powerball pball : tickets) {
+			int tier = table.tierOf(whiteMatches(pball, draw), pball.getRedNumber() == draw.getRedNumber());
+			hits[tier == PrizeTable.NO_PRIZE ? hits.length - 1 : tier]++;
+		}
+		return hits;
+	}
+
+	private static int whiteMatches(Powerball pball, Powerball draw) {
+		int[] numbers = new int[Powerball.WHITE_PICKS];
+		int[] drawn = new int[Powerball.WHITE_PICKS];
+		pball.getWhiteNumbers(numbers);
+		draw.getWhiteNumbers(drawn);
+		int matches = 0;
+		for (int a : numbers) {
+			for (int b : drawn) {
+				if (a == b) {
+					matches++;
+				}
+			}
+		}
+		return matches;
+	}
+
+	/*
+	 * DESCRIPTION: Static method that draws distinct tickets, most of them
+	 * spread over the whole game and some with white numbers from a small
+	 * pool.
+	 */
+	private static Set<Powerball> randomTickets(LotteryGame game, SplittableRandom random, int count) {
+		Set<Powerball> tickets = new LinkedHashSet<Powerball>();
+		while (tickets.size() < count) {
+			tickets.add(random.nextInt(8) != 0 ? Powerball.random(game, random) : pooledTicket(game, random));
+		}
+		return tickets;
+	}
+
+	private static Powerball pooledTicket(LotteryGame game, SplittableRandom random) {
+		int[] pool = new int[POOL_SIZE];
+		for (int i = 0; i < POOL_SIZE; i++) {
+			pool[i] = i + 1;
+		}
+		for (int i = 0; i < Powerball.WHITE_PICKS; i++) {
+			int pick = i + random.nextInt(POOL_SIZE - i);
+			int number = pool[pick];
+			pool[pick] = pool[i];
+			pool[i] = number;
+		}
+		return new Powerball(game, pool[0], pool[1], pool[2], pool[3], pool[4],
+				Powerball.RED_MIN + random.nextInt(game.getRedMax()));
+	}
+}
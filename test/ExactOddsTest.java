@@ -0,0 +1,167 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Tests of the exact odds engine: a single ticket gets the closed form hit
+ * counts, and a small set of overlapping tickets gets the hit counts, best
+ * tiers, winnings and spread of a plain loop over every white draw.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class ExactOddsTest {
+
+	private static final long JACKPOT = 20000000L;
+
+	@ParameterizedTest
+	@ValueSource(ints = { 0, 1 })
+	public void singleTicketMatchesClosedForm(int game_id) {
+		LotteryGame game = LotteryGame.values()[game_id];
+		PrizeTable table = game.getPrizeTable();
+		int reds = game.getRedMax();
+		ExactOdds.Result result = new ExactOdds(game, JACKPOT)
+				.enumerate(List.of(new Powerball(game, 7, 19, 33, 41, 60, 3)));
+		DrawSimulator.Result totals = result.getTotals();
+		assertEquals(game.getRankCount(), totals.getDraws());
+		assertEquals(1, totals.getTickets());
+		long[] hits = new long[table.getTierCount() + 1];
+		long winnings = 0;
+		for (int m = 0; m <= Powerball.WHITE_PICKS; m++) {
+			long white_draws = (long) RecurrenceIndex.binomial(Powerball.WHITE_PICKS, m)
+					* RecurrenceIndex.binomial(game.getWhiteMax() - Powerball.WHITE_PICKS, Powerball.WHITE_PICKS - m);
+			for (boolean red : new boolean[] { true, false }) {
+				long draws = red ? white_draws : white_draws * (reds - 1);
+				int tier = table.tierOf(m, red);
+				hits[tier == PrizeTable.NO_PRIZE ? hits.length - 1 : tier] += draws;
+				winnings += tier == PrizeTable.NO_PRIZE ? 0 : draws * table.getPrize(tier, JACKPOT);
+			}
+		}
+		for (int tier = 0; tier < table.getTierCount(); tier++) {
+			assertEquals(hits[tier], totals.getHits(tier), table.getTierName(tier));
+			// With one ticket the best tier of a draw is the tier it hits.
+			assertEquals(hits[tier], result.getBestDraws(tier), table.getTierName(tier));
+		}
+		assertEquals(hits[hits.length - 1], result.getBestDraws(table.getTierCount()));
+		assertEquals(winnings, totals.getWinnings());
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 0, 1 })
+	public void ticketSetMatchesBruteForce(int game_id) {
+		LotteryGame game = LotteryGame.values()[game_id];
+		PrizeTable table = game.getPrizeTable();
+		int white_max = game.getWhiteMax();
+		int red_max = game.getRedMax();
+		// Tickets sharing four, three and no white numbers, some sharing a red
+		// number, so that the best ticket of a draw changes with the red.
+		List<Powerball> tickets = List.of(new Powerball(game, 1, 2, 3, 4, 5, 1),
+				new Powerball(game, 1, 2, 3, 4, 6, 1), new Powerball(game, 1, 2, 3, 7, 8, 2),
+				new Powerball(game, 10, 20, 30, 40, 50, 1), new Powerball(game, 3, 4, 5, 6, 7, red_max),
+				new Powerball(game, 60, 63, 64, 65, white_max, 9));
+		ExactOdds.Result result = new ExactOdds(game, JACKPOT).enumerate(tickets);
+		BruteForce expected = new BruteForce(game, tickets);
+		DrawSimulator.Result totals = result.getTotals();
+		assertEquals(game.getRankCount(), totals.getDraws());
+		for (int tier = 0; tier < table.getTierCount(); tier++) {
+			assertEquals(expected.p_hits[tier], totals.getHits(tier), table.getTierName(tier));
+		}
+		for (int tier = 0; tier <= table.getTierCount(); tier++) {
+			assertEquals(expected.p_best[tier], result.getBestDraws(tier), "best tier " + tier);
+		}
+		assertEquals(expected.p_winnings, totals.getWinnings());
+		double mean = (double) expected.p_winnings / game.getRankCount();
+		double deviation = Math.sqrt(expected.p_winnings_squared / game.getRankCount() - mean * mean);
+		assertEquals(mean, result.getMeanWinnings(), mean * 1e-12);
+		assertEquals(deviation, result.getWinningsDeviation(), deviation * 1e-9);
+	}
+
+	/*
+	 * DESCRIPTION: Outcome of a ticket set found by scoring every ticket
+	 * against every white draw. The red numbers held by no ticket all score
+	 * alike, so they are scored once and counted for each of them.
+	 */
+	private static final class BruteForce {
+
+		private final PrizeTable p_table;
+		private final int[] p_ticket_reds;
+		private final int[] p_held_reds;
+		private final int p_other_reds;
+		private final long[] p_hits;
+		private final long[] p_best;
+		private long p_winnings;
+		private double p_winnings_squared;
+
+		BruteForce(LotteryGame game, List<Powerball> tickets) {
+			this.p_table = game.getPrizeTable();
+			int count = tickets.size();
+			boolean[][] holds = new boolean[count][game.getWhiteMax() + 1];
+			this.p_ticket_reds = new int[count];
+			int[] numbers = new int[Powerball.WHITE_PICKS];
+			for (int t = 0; t < count; t++) {
+				tickets.get(t).getWhiteNumbers(numbers);
+				for (int number : numbers) {
+					holds[t][number] = true;
+				}
+				this.p_ticket_reds[t] = tickets.get(t).getRedNumber();
+			}
+			this.p_held_reds = Arrays.stream(this.p_ticket_reds).distinct().toArray();
+			this.p_other_reds = game.getRedMax() - this.p_held_reds.length;
+			this.p_hits = new long[this.p_table.getTierCount() + 1];
+			this.p_best = new long[this.p_table.getTierCount() + 1];
+			int whites = game.getWhiteMax();
+			int[] matches = new int[count];
+			for (int a = 1; a <= whites; a++) {
+				for (int b = a + 1; b <= whites; b++) {
+					for (int c = b + 1; c <= whites; c++) {
+						for (int d = c + 1; d <= whites; d++) {
+							for (int e = d + 1; e <= whites; e++) {
+								for (int t = 0; t < count; t++) {
+									boolean[] held = holds[t];
+									matches[t] = (held[a] ? 1 : 0) + (held[b] ? 1 : 0) + (held[c] ? 1 : 0)
+											+ (held[d] ? 1 : 0) + (held[e] ? 1 : 0);
+								}
+								for (int red : this.p_held_reds) {
+									this.score(matches, red, 1);
+								}
+								this.score(matches, 0, this.p_other_reds);
+							}
+						}
+					}
+				}
+			}
+		}
+
+		/*
+		 * DESCRIPTION: Method that scores one white draw with a red number,
+		 * counting it the given amount of times.
+		 */
+		private void score(int[] matches, int red, int times) {
+			int none = this.p_table.getTierCount();
+			int best = none;
+			long winnings = 0;
+			for (int t = 0; t < matches.length; t++) {
+				int tier = this.p_table.tierOf(matches[t], this.p_ticket_reds[t] == red);
+				if (tier == PrizeTable.NO_PRIZE) {
+					this.p_hits[none] += times;
+					continue;
+				}
+				this.p_hits[tier] += times;
+				best = Math.min(best, tier);
+				winnings += this.p_table.getPrize(tier, JACKPOT);
+			}
+			this.p_best[best] += times;
+			this.p_winnings += winnings * times;
+			this.p_winnings_squared += (double) winnings * winnings * times;
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Tests of the packed ticket encoding: codes and ranks round-trip for both
+ * games, including white numbers on either side of the 64 bit word, and
+ * "compareTo" agrees with "equals" and with the order of the codes.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class PowerballTest {
+
+	private static final int TICKETS = 100000;
+
+	@ParameterizedTest
+	@ValueSource(ints = { 0, 1 })
+	public void codesRoundTrip(int game_id) {
+		LotteryGame game = LotteryGame.values()[game_id];
+		for (Powerball pball : tickets(game, game_id)) {
+			Powerball decoded = Powerball.fromCode(game, pball.toCode());
+			assertEquals(pball, decoded);
+			assertEquals(pball.toString(), decoded.toString());
+			assertTrue(pball.toCode() < 1L << (Powerball.CODE_BYTES * 8));
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 0, 1 })
+	public void ranksRoundTripAndCoverTheGame(int game_id) {
+		LotteryGame game = LotteryGame.values()[game_id];
+		for (Powerball pball : tickets(game, game_id)) {
+			int rank = pball.toRank();
+			assertTrue(rank >= 0 && rank < game.getRankCount());
+			assertEquals(pball, Powerball.fromRank(game, rank));
+		}
+		int last = game.getRankCount() - 1;
+		assertEquals(new Powerball(game, 1, 2, 3, 4, 5, Powerball.RED_MIN), Powerball.fromRank(game, 0));
+		int white_max = game.getWhiteMax();
+		assertEquals(new Powerball(game, white_max - 4, white_max - 3, white_max - 2, white_max - 1, white_max,
+				game.getRedMax()), Powerball.fromRank(game, last));
+		for (int rank = 0; rank < TICKETS; rank++) {
+			assertEquals(rank, Powerball.fromRank(game, rank).toRank());
+			assertEquals(last - rank, Powerball.fromRank(game, last - rank).toRank());
+		}
+		assertThrows(IllegalArgumentException.class, () -> Powerball.fromRank(game, last + 1));
+		assertThrows(IllegalArgumentException.class, () -> Powerball.fromRank(game, -1));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 0, 1 })
+	public void compareToMatchesEqualsAndCodeOrder(int game_id) {
+		LotteryGame game = LotteryGame.values()[game_id];
+		List<Powerball> tickets = tickets(game, game_id);
+		for (int i = 1; i < tickets.size(); i++) {
+			Powerball first = tickets.get(i - 1);
+			Powerball second = tickets.get(i);
+			int order = first.compareTo(second);
+			assertEquals(Long.signum(Long.compare(first.toCode(), second.toCode())), Integer.signum(order));
+			assertEquals(-Integer.signum(order), Integer.signum(second.compareTo(first)));
+			assertEquals(order == 0, first.equals(second));
+			assertEquals(0, first.compareTo(new Powerball(first)));
+		}
+		Powerball[] sorted = tickets.toArray(new Powerball[0]);
+		long[] codes = new long[sorted.length];
+		Arrays.sort(sorted);
+		for (int i = 0; i < sorted.length; i++) {
+			codes[i] = tickets.get(i).toCode();
+		}
+		Arrays.sort(codes);
+		for (int i = 0; i < sorted.length; i++) {
+			assertEquals(codes[i], sorted[i].toCode());
+		}
+	}
+
+	@Test
+	public void ticketsOfDifferentGamesAreNeverEqual() {
+		Powerball powerball = new Powerball(LotteryGame.POWERBALL, 1, 2, 3, 4, 5, 6);
+		Powerball mega_millions = new Powerball(LotteryGame.MEGA_MILLIONS, 1, 2, 3, 4, 5, 6);
+		assertEquals(powerball.toCode(), mega_millions.toCode());
+		assertNotEquals(powerball, mega_millions);
+		assertNotEquals(0, powerball.compareTo(mega_millions));
+		assertEquals(-Integer.signum(powerball.compareTo(mega_millions)),
+				Integer.signum(mega_millions.compareTo(powerball)));
+	}
+
+	/*
+	 * DESCRIPTION: Static method that returns random tickets of a game along
+	 * with tickets whose white numbers sit at the ends of the range and on
+	 * either side of the 64 bit word boundary.
+	 */
+	private static List<Powerball> tickets(LotteryGame game, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		List<Powerball> tickets = new ArrayList<Powerball>();
+		int white_max = game.getWhiteMax();
+		int red_max = game.getRedMax();
+		tickets.add(new Powerball(game, 1, 2, 3, 4, 5, Powerball.RED_MIN));
+		tickets.add(new Powerball(game, 60, 63, 64, 65, white_max, red_max));
+		tickets.add(new Powerball(game, 1, 64, 65, 66, white_max, Powerball.RED_MIN));
+		tickets.add(new Powerball(game, white_max - 4, white_max - 3, white_max - 2, white_max - 1, white_max,
+				red_max));
+		for (int i = 0; i < TICKETS; i++) {
+			tickets.add(Powerball.random(game, random));
+		}
+		return tickets;
+	}
+}
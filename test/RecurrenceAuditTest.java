@@ -0,0 +1,148 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Tests of the recurrence audit against a brute-force comparison of every
+ * pair of tickets, on random stores dense enough to break every limit from
+ * 1 to 5, and of the repair leaving no conflicts behind.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class RecurrenceAuditTest {
+
+	// Tickets drawn from the whole game and from a small pool of white
+	// numbers, which makes tickets sharing four or five numbers common.
+	private static final int SPREAD_TICKETS = 300;
+	private static final int POOLED_TICKETS = 300;
+	private static final int POOL_SIZE = 10;
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 2, 3, 4, 5 })
+	public void countsMatchBruteForce(int limit) {
+		TicketStore store = randomStore(limit);
+		RecurrenceAudit audit = RecurrenceAudit.of(store, limit);
+		List<int[]> whites = whites(store);
+		long pairs = 0;
+		Set<Integer> violating = new HashSet<Integer>();
+		for (int i = 0; i < whites.size(); i++) {
+			for (int j = i + 1; j < whites.size(); j++) {
+				if (shared(whites.get(i), whites.get(j)) >= limit) {
+					pairs++;
+					violating.add(i);
+					violating.add(j);
+				}
+			}
+		}
+		assertTrue(pairs > 0);
+		assertEquals(store.size(), audit.getTickets());
+		assertEquals(pairs, audit.getViolatingPairs());
+		assertEquals(violating.size(), audit.getViolatingTickets());
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 2, 3, 4, 5 })
+	public void listedPairsBreakTheLimitOnce(int limit) {
+		TicketStore store = randomStore(limit);
+		RecurrenceAudit audit = RecurrenceAudit.of(store, limit);
+		Set<String> listed = new HashSet<String>();
+		int[] first_whites = new int[Powerball.WHITE_PICKS];
+		int[] second_whites = new int[Powerball.WHITE_PICKS];
+		audit.forEachPair((first, second, shared) -> {
+			first.getWhiteNumbers(first_whites);
+			second.getWhiteNumbers(second_whites);
+			assertEquals(shared(first_whites, second_whites), shared);
+			assertTrue(shared >= limit);
+			long low = Math.min(first.toCode(), second.toCode());
+			long high = Math.max(first.toCode(), second.toCode());
+			assertTrue(listed.add(low + ":" + high));
+			return true;
+		});
+		assertEquals(audit.getViolatingPairs(), listed.size());
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 2, 3, 4, 5 })
+	public void repairLeavesNoConflicts(int limit) {
+		TicketStore store = randomStore(limit);
+		RecurrenceAudit audit = RecurrenceAudit.of(store, limit);
+		long[] evicted = audit.repair();
+		assertTrue(evicted.length <= audit.getViolatingTickets());
+		for (long code : evicted) {
+			assertTrue(store.removeCode(code));
+		}
+		RecurrenceAudit repaired = RecurrenceAudit.of(store, limit);
+		assertEquals(0, repaired.getViolatingPairs());
+		assertEquals(0, repaired.getViolatingTickets());
+		List<int[]> whites = whites(store);
+		for (int i = 0; i < whites.size(); i++) {
+			for (int j = i + 1; j < whites.size(); j++) {
+				assertTrue(shared(whites.get(i), whites.get(j)) < limit);
+			}
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Static method that fills a store with tickets spread over
+	 * the whole game and tickets whose white numbers all come from a small
+	 * pool, with no regard for any recurrence limit.
+	 */
+	private static TicketStore randomStore(long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		TicketStore store = new TicketStore(LotteryGame.POWERBALL);
+		while (store.size() < SPREAD_TICKETS) {
+			store.add(Powerball.random(LotteryGame.POWERBALL, random));
+		}
+		while (store.size() < SPREAD_TICKETS + POOLED_TICKETS) {
+			int[] pool = new int[POOL_SIZE];
+			for (int i = 0; i < POOL_SIZE; i++) {
+				pool[i] = i + 1;
+			}
+			for (int i = 0; i < Powerball.WHITE_PICKS; i++) {
+				int pick = i + random.nextInt(POOL_SIZE - i);
+				int number = pool[pick];
+				pool[pick] = pool[i];
+				pool[i] = number;
+			}
+			store.add(new Powerball(LotteryGame.POWERBALL, pool[0], pool[1], pool[2], pool[3], pool[4],
+					Powerball.RED_MIN + random.nextInt(LotteryGame.POWERBALL.getRedMax())));
+		}
+		return store;
+	}
+
+	private static List<int[]> whites(TicketStore store) {
+		List<int[]> whites = new ArrayList<int[]>(store.size());
+		for (Powerball pball : store) {
+			int[] numbers = new int[Powerball.WHITE_PICKS];
+			pball.getWhiteNumbers(numbers);
+			whites.add(numbers);
+		}
+		return whites;
+	}
+
+	private static int shared(int[] first, int[] second) {
+		int shared = 0;
+		for (int a : first) {
+			for (int b : second) {
+				if (a == b) {
+					shared++;
+				}
+			}
+		}
+		return shared;
+	}
+}
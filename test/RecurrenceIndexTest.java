@@ -0,0 +1,143 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Tests of the recurrence index's lock-free inserts: a rejected ticket
+ * releases every subset it claimed before it met a conflict, alone and
+ * while many threads insert overlapping tickets at once, and no two
+ * accepted tickets ever break the limit.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+public class RecurrenceIndexTest {
+
+	// Shape of the contended runs: threads, tickets per thread, rounds and
+	// the white numbers every ticket draws from.
+	private static final int THREADS = 8;
+	private static final int TICKETS_PER_THREAD = 2000;
+	private static final int ROUNDS = 20;
+	private static final int POOL_SIZE = 14;
+
+	@Test
+	public void rejectedTicketReleasesTheSubsetsItClaimed() {
+		RecurrenceIndex index = new RecurrenceIndex(LotteryGame.POWERBALL, 3);
+		assertTrue(index.tryInsert(new Powerball(3, 4, 5, 60, 61, 1)));
+		// {3, 4, 5} is the last 3-subset of this ticket, so every other subset
+		// is claimed before the conflict is found.
+		assertFalse(index.tryInsert(new Powerball(1, 2, 3, 4, 5, 1)));
+		assertTrue(index.tryInsert(new Powerball(1, 2, 3, 40, 50, 1)));
+		assertTrue(index.tryInsert(new Powerball(1, 2, 5, 41, 51, 1)));
+		assertTrue(index.tryInsert(new Powerball(2, 4, 5, 42, 52, 1)));
+		assertTrue(index.conflicts(new Powerball(1, 2, 3, 4, 5, 1)));
+	}
+
+	@Test
+	public void contendedInsertsNeverBreakTheLimitOrLeakClaims() throws InterruptedException {
+		for (int round = 0; round < ROUNDS; round++) {
+			int limit = 2 + round % 3;
+			RecurrenceIndex index = new RecurrenceIndex(LotteryGame.POWERBALL, limit);
+			List<List<Powerball>> tickets = new ArrayList<List<Powerball>>();
+			SplittableRandom random = new SplittableRandom(round);
+			for (int t = 0; t < THREADS; t++) {
+				tickets.add(pooledTickets(random.split(), TICKETS_PER_THREAD));
+			}
+			ConcurrentLinkedQueue<Powerball> accepted = new ConcurrentLinkedQueue<Powerball>();
+			CountDownLatch ready = new CountDownLatch(THREADS);
+			CountDownLatch go = new CountDownLatch(1);
+			List<Thread> threads = new ArrayList<Thread>();
+			for (List<Powerball> batch : tickets) {
+				Thread thread = new Thread(() -> {
+					ready.countDown();
+					try {
+						go.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (Powerball pball : batch) {
+						if (index.tryInsert(pball)) {
+							accepted.add(pball);
+						}
+					}
+				});
+				threads.add(thread);
+				thread.start();
+			}
+			ready.await();
+			go.countDown();
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			List<Powerball> kept = new ArrayList<Powerball>(accepted);
+			assertFalse(kept.isEmpty());
+			for (int i = 0; i < kept.size(); i++) {
+				for (int j = i + 1; j < kept.size(); j++) {
+					assertTrue(shared(kept.get(i), kept.get(j)) < limit,
+							kept.get(i) + " and " + kept.get(j) + " break limit " + limit);
+				}
+			}
+			// Once the accepted tickets are removed, any subset still claimed
+			// was leaked by a rejected insert that failed to roll back.
+			for (Powerball pball : kept) {
+				index.remove(pball);
+			}
+			for (List<Powerball> batch : tickets) {
+				for (Powerball pball : batch) {
+					assertFalse(index.conflicts(pball), pball + " left a claimed subset behind");
+				}
+			}
+		}
+	}
+
+	/*
+	 * DESCRIPTION: Static method that draws tickets whose white numbers all
+	 * come from a small pool, so concurrent inserts fight over the same
+	 * subsets.
+	 */
+	private static List<Powerball> pooledTickets(SplittableRandom random, int count) {
+		List<Powerball> tickets = new ArrayList<Powerball>(count);
+		int[] pool = new int[POOL_SIZE];
+		for (int n = 0; n < count; n++) {
+			for (int i = 0; i < POOL_SIZE; i++) {
+				pool[i] = i + 1;
+			}
+			for (int i = 0; i < Powerball.WHITE_PICKS; i++) {
+				int pick = i + random.nextInt(POOL_SIZE - i);
+				int number = pool[pick];
+				pool[pick] = pool[i];
+				pool[i] = number;
+			}
+			tickets.add(new Powerball(pool[0], pool[1], pool[2], pool[3], pool[4], Powerball.RED_MIN));
+		}
+		return tickets;
+	}
+
+	private static int shared(Powerball first, Powerball second) {
+		int[] first_whites = new int[Powerball.WHITE_PICKS];
+		int[] second_whites = new int[Powerball.WHITE_PICKS];
+		first.getWhiteNumbers(first_whites);
+		second.getWhiteNumbers(second_whites);
+		int shared = 0;
+		for (int a : first_whites) {
+			for (int b : second_whites) {
+				if (a == b) {
+					shared++;
+				}
+			}
+		}
+		return shared;
+	}
+}
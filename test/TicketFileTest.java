@@ -0,0 +1,123 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Tests of the binary ticket file: tickets and the stamp round-trip through
+ * files larger than the write buffer, version 1 files without a stamp still
+ * open, and files with a wrong header or cut short are refused.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TicketFileTest {
+
+	// More records than fit the 64 KB write buffer a few times over.
+	private static final int TICKETS = 50000;
+
+	@TempDir
+	Path p_directory;
+
+	@Test
+	public void ticketsAndStampRoundTrip() throws IOException {
+		List<Powerball> tickets = tickets(TICKETS);
+		String file_name = this.file("Tickets.dat");
+		assertEquals(TICKETS, TicketFile.write(file_name, tickets, 1234L));
+		assertEquals(TicketFile.HEADER_BYTES + (long) TICKETS * TicketFile.RECORD_BYTES,
+				Files.size(Path.of(file_name)));
+		try (TicketFile file = TicketFile.open(file_name)) {
+			assertEquals(TICKETS, file.size());
+			assertEquals(1234L, file.getStamp());
+			for (int i = 0; i < TICKETS; i++) {
+				assertEquals(tickets.get(i).toCode(), file.getCode(i));
+				assertEquals(tickets.get(i), file.get(LotteryGame.POWERBALL, i));
+			}
+			List<Long> codes = new ArrayList<Long>();
+			file.forEachCode(codes::add);
+			assertEquals(TICKETS, codes.size());
+			assertEquals(tickets.get(TICKETS - 1).toCode(), codes.get(TICKETS - 1));
+		}
+	}
+
+	@Test
+	public void emptyFileHasNoTickets() throws IOException {
+		String file_name = this.file("Empty.dat");
+		assertEquals(0, TicketFile.write(file_name, List.of()));
+		try (TicketFile file = TicketFile.open(file_name)) {
+			assertEquals(0, file.size());
+			assertEquals(0L, file.getStamp());
+		}
+	}
+
+	@Test
+	public void versionOneFileOpensWithoutStamp() throws IOException {
+		List<Powerball> tickets = tickets(100);
+		String file_name = this.file("Old.dat");
+		ByteBuffer buffer = ByteBuffer.allocate(16 + tickets.size() * TicketFile.RECORD_BYTES);
+		buffer.putInt(TicketFile.MAGIC).putShort((short) 1).putShort((short) TicketFile.RECORD_BYTES)
+				.putLong(tickets.size());
+		for (Powerball pball : tickets) {
+			long code = pball.toCode();
+			for (int b = TicketFile.RECORD_BYTES - 1; b >= 0; b--) {
+				buffer.put((byte) (code >>> (b * 8)));
+			}
+		}
+		Files.write(Path.of(file_name), buffer.array());
+		try (TicketFile file = TicketFile.open(file_name)) {
+			assertEquals(tickets.size(), file.size());
+			assertEquals(0L, file.getStamp());
+			for (int i = 0; i < tickets.size(); i++) {
+				assertEquals(tickets.get(i), file.get(LotteryGame.POWERBALL, i));
+			}
+		}
+	}
+
+	@Test
+	public void wrongMagicIsRefused() throws IOException {
+		String file_name = this.file("Wrong.dat");
+		Files.write(Path.of(file_name), new byte[64]);
+		assertThrows(IOException.class, () -> TicketFile.open(file_name));
+	}
+
+	@Test
+	public void fileCutShortIsRefused() throws IOException {
+		String file_name = this.file("Short.dat");
+		TicketFile.write(file_name, tickets(100), 0L);
+		try (FileChannel channel = FileChannel.open(Path.of(file_name), StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 1);
+		}
+		assertThrows(IOException.class, () -> TicketFile.open(file_name));
+	}
+
+	private String file(String name) {
+		return this.p_directory.resolve(name).toString();
+	}
+
+	private static List<Powerball> tickets(int count) {
+		SplittableRandom random = new SplittableRandom(3);
+		Set<Powerball> tickets = new LinkedHashSet<Powerball>();
+		while (tickets.size() < count) {
+			tickets.add(Powerball.random(LotteryGame.POWERBALL, random));
+		}
+		return new ArrayList<Powerball>(tickets);
+	}
+}
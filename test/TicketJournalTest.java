@@ -0,0 +1,231 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Tests of the ticket journal's crash recovery: entries cut short or
+ * corrupted at the end of the journal, a journal left behind by an
+ * interrupted compaction, a compaction whose rename fails, and the replay
+ * order of deletes and "delete all" entries.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TicketJournalTest {
+
+	// Bytes an entry takes besides its records: type, count and CRC.
+	private static final int ENTRY_OVERHEAD = 1 + 4 + 4;
+
+	@TempDir
+	Path p_directory;
+
+	private String p_snapshot;
+	private String p_journal;
+	private SplittableRandom p_random;
+
+	@BeforeEach
+	public void setUp() {
+		this.p_snapshot = this.p_directory.resolve("Tickets.dat").toString();
+		this.p_journal = this.p_directory.resolve("Tickets.log").toString();
+		this.p_random = new SplittableRandom(42);
+	}
+
+	@Test
+	public void tornFinalEntryIsDropped() throws IOException {
+		List<Powerball> first = this.tickets(10);
+		List<Powerball> second = this.tickets(10);
+		try (TicketJournal journal = this.open()) {
+			journal.add(first);
+			journal.add(second);
+		}
+		long intact = TicketJournal.HEADER_BYTES + entryBytes(first.size());
+		try (FileChannel channel = FileChannel.open(Path.of(this.p_journal), StandardOpenOption.WRITE)) {
+			channel.truncate(intact + entryBytes(second.size()) - 3);
+		}
+		try (TicketJournal journal = this.open()) {
+			assertEquals(codes(first), this.replay(journal));
+			assertEquals(intact, Files.size(Path.of(this.p_journal)));
+			List<Powerball> third = this.tickets(5);
+			journal.add(third);
+			Set<Long> expected = codes(first);
+			expected.addAll(codes(third));
+			assertEquals(expected, this.replay(journal));
+		}
+	}
+
+	@Test
+	public void entryFailingItsCrcIsDroppedWithEverythingAfterIt() throws IOException {
+		List<Powerball> first = this.tickets(10);
+		List<Powerball> second = this.tickets(10);
+		List<Powerball> third = this.tickets(10);
+		try (TicketJournal journal = this.open()) {
+			journal.add(first);
+			journal.add(second);
+			journal.add(third);
+		}
+		// Flip a bit in the first record of the second entry.
+		long position = TicketJournal.HEADER_BYTES + entryBytes(first.size()) + 1 + 4;
+		try (FileChannel channel = FileChannel.open(Path.of(this.p_journal), StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			ByteBuffer record = ByteBuffer.allocate(1);
+			channel.read(record, position);
+			record.put(0, (byte) (record.get(0) ^ 1));
+			record.rewind();
+			channel.write(record, position);
+		}
+		try (TicketJournal journal = this.open()) {
+			assertEquals(codes(first), this.replay(journal));
+		}
+	}
+
+	@Test
+	public void staleJournalAfterInterruptedCompactionIsDiscarded() throws IOException {
+		List<Powerball> kept = this.tickets(10);
+		List<Powerball> late = this.tickets(10);
+		try (TicketJournal journal = this.open()) {
+			journal.add(kept);
+			journal.compact(kept);
+			journal.add(late);
+		}
+		long stamp;
+		try (TicketFile snapshot = TicketFile.open(this.p_snapshot)) {
+			stamp = snapshot.getStamp();
+		}
+		// A later compaction renamed its snapshot into place and crashed
+		// before the journal, leaving the journal of the previous stamp.
+		List<Powerball> compacted = new ArrayList<Powerball>(kept);
+		compacted.addAll(late);
+		TicketFile.write(this.p_snapshot, compacted, stamp + 1);
+		try (TicketJournal journal = this.open()) {
+			assertEquals(codes(compacted), this.replay(journal));
+			assertEquals(TicketJournal.HEADER_BYTES, Files.size(Path.of(this.p_journal)));
+		}
+	}
+
+	@Test
+	public void clearThenAddReplaysOnlyLaterTickets() throws IOException {
+		List<Powerball> snapshot = this.tickets(10);
+		List<Powerball> cleared = this.tickets(10);
+		List<Powerball> later = this.tickets(10);
+		try (TicketJournal journal = this.open()) {
+			journal.add(snapshot);
+			journal.compact(snapshot);
+			journal.add(cleared);
+			journal.clear();
+			journal.add(later);
+			assertEquals(codes(later), this.replay(journal));
+		}
+		try (TicketJournal journal = this.open()) {
+			assertEquals(codes(later), this.replay(journal));
+		}
+	}
+
+	@Test
+	public void deletesReplayInOrderWithAdds() throws IOException {
+		List<Powerball> tickets = this.tickets(10);
+		List<Powerball> evicted = tickets.subList(0, 3);
+		try (TicketJournal journal = this.open()) {
+			journal.add(tickets);
+			journal.delete(evicted);
+			journal.add(evicted.subList(0, 1));
+		}
+		Set<Long> expected = codes(tickets.subList(3, tickets.size()));
+		expected.add(evicted.get(0).toCode());
+		try (TicketJournal journal = this.open()) {
+			assertEquals(expected, this.replay(journal));
+		}
+	}
+
+	@Test
+	public void failedCompactionLeavesJournalUsable() throws IOException {
+		List<Powerball> first = this.tickets(10);
+		try (TicketJournal journal = this.open()) {
+			journal.add(first);
+			// A non-empty directory in place of the snapshot makes its rename
+			// fail after the journal channel was closed.
+			Files.createDirectory(Path.of(this.p_snapshot));
+			Files.createFile(Path.of(this.p_snapshot, "blocker"));
+			assertThrows(IOException.class, () -> journal.compact(first));
+			List<Powerball> second = this.tickets(10);
+			journal.add(second);
+			Set<Long> expected = codes(first);
+			expected.addAll(codes(second));
+			assertEquals(expected, this.replay(journal));
+		}
+	}
+
+	@Test
+	public void compactionMakesDeletedRecordsGoAway() throws IOException {
+		List<Powerball> tickets = this.tickets(100);
+		List<Powerball> live = tickets.subList(40, tickets.size());
+		try (TicketJournal journal = this.open()) {
+			journal.add(tickets);
+			journal.delete(tickets.subList(0, 40));
+			journal.compact(live);
+		}
+		try (TicketFile snapshot = TicketFile.open(this.p_snapshot)) {
+			assertEquals(live.size(), snapshot.size());
+		}
+		assertEquals(TicketJournal.HEADER_BYTES, Files.size(Path.of(this.p_journal)));
+		try (TicketJournal journal = this.open()) {
+			assertEquals(codes(live), this.replay(journal));
+		}
+	}
+
+	private TicketJournal open() throws IOException {
+		return TicketJournal.open(this.p_snapshot, this.p_journal);
+	}
+
+	/*
+	 * DESCRIPTION: Method that replays a journal into a set of codes, applying
+	 * deletes and "delete all" entries as the ticket store does.
+	 */
+	private Set<Long> replay(TicketJournal journal) throws IOException {
+		Set<Long> codes = new LinkedHashSet<Long>();
+		journal.replay(codes::add, codes::remove, codes::clear);
+		return codes;
+	}
+
+	private List<Powerball> tickets(int count) {
+		List<Powerball> tickets = new ArrayList<Powerball>(count);
+		while (tickets.size() < count) {
+			Powerball pball = Powerball.random(LotteryGame.POWERBALL, this.p_random);
+			if (!tickets.contains(pball)) {
+				tickets.add(pball);
+			}
+		}
+		return tickets;
+	}
+
+	private static Set<Long> codes(List<Powerball> tickets) {
+		Set<Long> codes = new LinkedHashSet<Long>();
+		for (Powerball pball : tickets) {
+			codes.add(pball.toCode());
+		}
+		return codes;
+	}
+
+	private static long entryBytes(int records) {
+		return ENTRY_OVERHEAD + (long) records * TicketFile.RECORD_BYTES;
+	}
+}
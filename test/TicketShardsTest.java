@@ -0,0 +1,164 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Tests of shard generation and the streaming merge: shards hold the
+ * recurrence limit, the merge drops duplicates and tickets breaking the
+ * limit across files, keeps a given set of tickets whatever their codes,
+ * and refuses files out of code order.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class TicketShardsTest {
+
+	private static final int SHARD_TICKETS = 2000;
+
+	@TempDir
+	Path p_directory;
+
+	@ParameterizedTest
+	@ValueSource(ints = { 3, 4, 5 })
+	public void mergeDropsDuplicatesAndHoldsTheLimit(int limit) throws IOException {
+		TicketRandom random = TicketRandom.seeded(42L);
+		List<String> shards = new ArrayList<String>();
+		for (int shard = 0; shard < 3; shard++) {
+			String file_name = this.file("Shard" + shard + ".dat");
+			TicketShards.ShardResult result = TicketShards.generate(LotteryGame.POWERBALL, limit, SHARD_TICKETS,
+					random, shard, file_name);
+			assertEquals(shard, result.getShard());
+			assertTrue(noPairBreaks(read(file_name), limit));
+			shards.add(file_name);
+		}
+		// The first shard given twice makes every one of its tickets a
+		// duplicate.
+		shards.add(shards.get(0));
+		long read = 0;
+		for (String shard : shards) {
+			read += read(shard).size();
+		}
+		String out = this.file("Merged.dat");
+		TicketShards.MergeResult result = TicketShards.merge(LotteryGame.POWERBALL, limit, shards, Long.MAX_VALUE,
+				out, 0L);
+		List<Powerball> merged = read(out);
+		assertEquals(read, result.getRead());
+		assertEquals(merged.size(), result.getWritten());
+		assertTrue(result.getDuplicates() >= read(shards.get(0)).size());
+		assertEquals(read, result.getWritten() + result.getDuplicates() + result.getConflicts());
+		assertEquals(merged.size(), new HashSet<Powerball>(merged).size());
+		assertTrue(noPairBreaks(merged, limit));
+		assertTrue(isSorted(out));
+	}
+
+	@Test
+	public void mergeStopsAtTheMostTickets() throws IOException {
+		String shard = this.file("Shard.dat");
+		TicketShards.generate(LotteryGame.POWERBALL, 5, SHARD_TICKETS, TicketRandom.seeded(7L), 0, shard);
+		String out = this.file("Merged.dat");
+		TicketShards.MergeResult result = TicketShards.merge(LotteryGame.POWERBALL, 5, List.of(shard), 100, out,
+				0L);
+		assertEquals(100, result.getWritten());
+		assertEquals(read(shard).subList(0, 100), read(out));
+	}
+
+	@Test
+	public void keptTicketsWinOverSmallerCodes() throws IOException {
+		int limit = 3;
+		SplittableRandom random = new SplittableRandom(5);
+		// Kept tickets that conflict with each other, as tickets saved under a
+		// higher limit do, and new tickets conflicting with them that sort
+		// first.
+		List<Powerball> kept = List.of(new Powerball(10, 20, 30, 40, 50, 1), new Powerball(10, 20, 30, 41, 51, 2));
+		List<Powerball> fresh = new ArrayList<Powerball>(List.of(new Powerball(1, 10, 20, 30, 60, 3)));
+		while (fresh.size() < 200) {
+			fresh.add(Powerball.random(LotteryGame.POWERBALL, random));
+		}
+		String kept_file = this.file("Saved.dat");
+		String fresh_file = this.file("Fresh.dat");
+		TicketUniverse saved = TicketUniverse.of(LotteryGame.POWERBALL, kept);
+		saved.write(kept_file);
+		TicketUniverse.of(LotteryGame.POWERBALL, fresh).write(fresh_file);
+		String out = this.file("Merged.dat");
+		TicketShards.MergeResult result = TicketShards.merge(LotteryGame.POWERBALL, limit,
+				List.of(fresh_file, kept_file), 50, out, 0L, saved);
+		List<Powerball> merged = read(out);
+		assertTrue(merged.containsAll(kept));
+		assertFalse(merged.contains(fresh.get(0)));
+		assertEquals(50, result.getWritten());
+		List<Powerball> added = new ArrayList<Powerball>(merged);
+		added.removeAll(kept);
+		for (Powerball pball : added) {
+			for (Powerball other : merged) {
+				assertTrue(pball.equals(other) || pball.whiteOverlap(other) < limit, pball + " and " + other);
+			}
+		}
+	}
+
+	@Test
+	public void mergeRefusesUnsortedFiles() throws IOException {
+		String unsorted = this.file("Unsorted.dat");
+		long[] codes = { new Powerball(5, 6, 7, 8, 9, 1).toCode(), new Powerball(1, 2, 3, 4, 5, 1).toCode() };
+		TicketFile.write(unsorted, Arrays.stream(codes).iterator(), 0L);
+		String out = this.file("Merged.dat");
+		IOException e = assertThrows(IOException.class,
+				() -> TicketShards.merge(LotteryGame.POWERBALL, 5, List.of(unsorted), Long.MAX_VALUE, out, 0L));
+		assertTrue(e.getMessage().contains("not sorted"));
+		assertFalse(Files.exists(Path.of(out)));
+		assertFalse(Files.exists(Path.of(out + ".tmp")));
+	}
+
+	private String file(String name) {
+		return this.p_directory.resolve(name).toString();
+	}
+
+	private static List<Powerball> read(String file_name) throws IOException {
+		List<Powerball> tickets = new ArrayList<Powerball>();
+		try (TicketFile file = TicketFile.open(file_name)) {
+			file.forEachCode(code -> tickets.add(Powerball.fromCode(LotteryGame.POWERBALL, code)));
+		}
+		return tickets;
+	}
+
+	private static boolean isSorted(String file_name) throws IOException {
+		try (TicketFile file = TicketFile.open(file_name)) {
+			for (long position = 1; position < file.size(); position++) {
+				if (file.getCode(position - 1) >= file.getCode(position)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static boolean noPairBreaks(List<Powerball> tickets, int limit) {
+		for (int i = 0; i < tickets.size(); i++) {
+			for (int j = i + 1; j < tickets.size(); j++) {
+				if (tickets.get(i).whiteOverlap(tickets.get(j)) >= limit) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}
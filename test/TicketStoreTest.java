@@ -0,0 +1,163 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Tests of the off-heap ticket store against a hash set: concurrent adds of
+ * the same tickets keep each once, concurrent adds and removes leave the
+ * right tickets, and long runs of adds and removes through several rebuilds
+ * agree with the set on every call and on iteration.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class TicketStoreTest {
+
+	private static final int TICKETS = 200000;
+	private static final int THREADS = 8;
+	private static final int OPERATIONS = 500000;
+
+	@Test
+	public void concurrentAddsKeepEveryTicketOnce() throws InterruptedException {
+		List<Powerball> tickets = tickets(1, TICKETS);
+		TicketStore store = new TicketStore(LotteryGame.POWERBALL);
+		AtomicInteger added = new AtomicInteger();
+		// Every thread adds every ticket, each in its own order.
+		run(thread -> {
+			List<Powerball> order = new ArrayList<Powerball>(tickets);
+			Collections.shuffle(order, new Random(thread));
+			for (Powerball pball : order) {
+				if (store.add(pball)) {
+					added.incrementAndGet();
+				}
+			}
+		});
+		assertEquals(TICKETS, added.get());
+		assertEquals(TICKETS, store.size());
+		assertEquals(new HashSet<Powerball>(tickets), contents(store));
+		for (Powerball pball : tickets) {
+			assertTrue(store.contains(pball));
+		}
+	}
+
+	@Test
+	public void concurrentAddsAndRemovesLeaveTheRightTickets() throws InterruptedException {
+		List<Powerball> tickets = tickets(2, TICKETS * 2);
+		List<Powerball> kept = tickets.subList(0, TICKETS);
+		List<Powerball> removed = tickets.subList(TICKETS, TICKETS * 2);
+		TicketStore store = new TicketStore(LotteryGame.POWERBALL);
+		store.addAll(removed);
+		// Half of the threads add the kept tickets while the others remove
+		// the rest, so rebuilds happen under both.
+		run(thread -> {
+			List<Powerball> share = thread % 2 == 0 ? kept : removed;
+			int half = THREADS / 2;
+			for (int i = thread / 2; i < share.size(); i += half) {
+				if (thread % 2 == 0) {
+					assertTrue(store.add(share.get(i)));
+				} else {
+					assertTrue(store.remove(share.get(i)));
+				}
+			}
+		});
+		assertEquals(TICKETS, store.size());
+		assertEquals(new HashSet<Powerball>(kept), contents(store));
+		for (Powerball pball : removed) {
+			assertFalse(store.contains(pball));
+		}
+	}
+
+	@Test
+	public void addsAndRemovesMatchAHashSet() {
+		SplittableRandom random = new SplittableRandom(3);
+		List<Powerball> pool = tickets(4, TICKETS / 4);
+		TicketStore store = new TicketStore(LotteryGame.POWERBALL);
+		Set<Powerball> expected = new HashSet<Powerball>();
+		for (int i = 0; i < OPERATIONS; i++) {
+			Powerball pball = pool.get(random.nextInt(pool.size()));
+			if (random.nextInt(3) != 0) {
+				assertEquals(expected.add(pball), store.add(pball));
+			} else if (random.nextBoolean()) {
+				assertEquals(expected.remove(pball), store.remove(pball));
+			} else {
+				assertEquals(expected.contains(pball), store.containsCode(pball.toCode()));
+			}
+		}
+		assertEquals(expected.size(), store.size());
+		assertEquals(expected, contents(store));
+		Set<Long> codes = new HashSet<Long>();
+		store.forEachCode(code -> assertTrue(codes.add(code)));
+		assertEquals(expected.size(), codes.size());
+		for (Powerball pball : expected) {
+			assertTrue(codes.contains(pball.toCode()));
+		}
+		assertEquals(expected.size(), store.toUniverse().size());
+		store.clear();
+		assertTrue(store.isEmpty());
+		assertFalse(store.iterator().hasNext());
+		assertTrue(store.add(pool.get(0)));
+		assertEquals(1, store.size());
+	}
+
+	private static Set<Powerball> contents(TicketStore store) {
+		Set<Powerball> contents = new HashSet<Powerball>();
+		for (Powerball pball : store) {
+			assertTrue(contents.add(pball), pball + " was iterated twice");
+		}
+		return contents;
+	}
+
+	private static List<Powerball> tickets(long seed, int count) {
+		SplittableRandom random = new SplittableRandom(seed);
+		Set<Powerball> tickets = new LinkedHashSet<Powerball>();
+		while (tickets.size() < count) {
+			tickets.add(Powerball.random(LotteryGame.POWERBALL, random));
+		}
+		return new ArrayList<Powerball>(tickets);
+	}
+
+	/*
+	 * DESCRIPTION: Static method that runs a task on every thread at once and
+	 * rethrows the first failure of any of them.
+	 */
+	private static void run(ThreadTask task) throws InterruptedException {
+		List<Thread> threads = new ArrayList<Thread>();
+		List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		for (int i = 0; i < THREADS; i++) {
+			int thread = i;
+			Thread worker = new Thread(() -> task.run(thread));
+			worker.setUncaughtExceptionHandler((t, e) -> failures.add(e));
+			threads.add(worker);
+		}
+		for (Thread worker : threads) {
+			worker.start();
+		}
+		for (Thread worker : threads) {
+			worker.join();
+		}
+		if (!failures.isEmpty()) {
+			throw new AssertionError(failures.get(0));
+		}
+	}
+
+	private interface ThreadTask {
+		void run(int thread);
+	}
+}
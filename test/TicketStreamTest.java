@@ -0,0 +1,61 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Tests of the streaming pipeline: a stream writes the amount of tickets
+ * asked for, each once, even with a window smaller than two batches, and an
+ * interrupted stream fails instead of returning short.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class TicketStreamTest {
+
+	private static final int TICKETS = 20000;
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 4096, 65536 })
+	public void streamsTheAmountAskedFor(int window) throws IOException {
+		TicketStream stream = new TicketStream(LotteryGame.POWERBALL, 5, window, 4);
+		StringWriter out = new StringWriter();
+		TicketGenerator.Result result = stream.stream(TICKETS, out);
+		String[] lines = out.toString().split(System.lineSeparator());
+		assertEquals(TICKETS, lines.length);
+		assertEquals(TICKETS, result.getGenerated());
+		assertFalse(result.isSaturated());
+		Set<String> distinct = new HashSet<String>();
+		for (String line : lines) {
+			assertTrue(distinct.add(line), line + " was streamed twice");
+		}
+	}
+
+	@Test
+	public void interruptedStreamFails() {
+		TicketStream stream = new TicketStream(LotteryGame.POWERBALL, 5, 4096, 2);
+		Thread.currentThread().interrupt();
+		try {
+			assertThrows(InterruptedIOException.class, () -> stream.stream(TICKETS, Writer.nullWriter()));
+			assertTrue(Thread.currentThread().isInterrupted());
+		} finally {
+			Thread.interrupted();
+		}
+	}
+}
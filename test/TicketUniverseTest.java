@@ -0,0 +1,98 @@
+/*
+ * DATE CREATED:
+ * 10/17/26
+ * LAST MODIFIED:
+ * 10/17/26
+ * DESCRIPTION:
+ * Tests of the ticket universe: its set operations against hash sets of the
+ * same tickets, drawing without replacement, and writing a ticket file
+ * sorted by code that reads back as the same set.
+ */
+
+package com.crucerne.www.lottery.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TicketUniverseTest {
+
+	private static final int TICKETS = 5000;
+
+	@TempDir
+	Path p_directory;
+
+	@Test
+	public void setOperationsMatchHashSets() {
+		SplittableRandom random = new SplittableRandom(7);
+		Set<Powerball> first = randomTickets(random, TICKETS);
+		Set<Powerball> second = randomTickets(random, TICKETS);
+		// Make the sets overlap.
+		first.stream().limit(TICKETS / 2).forEach(second::add);
+		TicketUniverse first_universe = TicketUniverse.of(LotteryGame.POWERBALL, first);
+		TicketUniverse second_universe = TicketUniverse.of(LotteryGame.POWERBALL, second);
+		Set<Powerball> shared = new HashSet<Powerball>(first);
+		shared.retainAll(second);
+		assertEquals(shared.size(), first_universe.intersectionSize(second_universe));
+		Set<Powerball> union = new HashSet<Powerball>(first);
+		union.addAll(second);
+		assertEquals(union, toSet(first_universe.copy().or(second_universe)));
+		assertEquals(shared, toSet(first_universe.copy().and(second_universe)));
+		Set<Powerball> only_first = new HashSet<Powerball>(first);
+		only_first.removeAll(second);
+		assertEquals(only_first, toSet(first_universe.copy().andNot(second_universe)));
+	}
+
+	@Test
+	public void drawNewNeverRepeatsATicket() {
+		SplittableRandom random = new SplittableRandom(11);
+		TicketUniverse universe = new TicketUniverse(LotteryGame.POWERBALL);
+		Set<Powerball> drawn = new HashSet<Powerball>();
+		for (int i = 0; i < TICKETS; i++) {
+			Powerball pball = universe.drawNew(random);
+			assertTrue(drawn.add(pball), pball + " was drawn twice");
+			assertTrue(universe.contains(pball));
+		}
+		assertEquals(TICKETS, universe.size());
+	}
+
+	@Test
+	public void writtenFileIsSortedAndReadsBack() throws IOException {
+		TicketUniverse universe = TicketUniverse.of(LotteryGame.POWERBALL,
+				randomTickets(new SplittableRandom(13), TICKETS));
+		String file_name = this.p_directory.resolve("Universe.dat").toString();
+		assertEquals(TICKETS, universe.write(file_name));
+		try (TicketFile file = TicketFile.open(file_name)) {
+			for (long position = 1; position < file.size(); position++) {
+				assertTrue(file.getCode(position - 1) < file.getCode(position));
+			}
+		}
+		TicketUniverse read = TicketUniverse.read(LotteryGame.POWERBALL, file_name);
+		assertEquals(TICKETS, read.intersectionSize(universe));
+		assertEquals(TICKETS, read.size());
+	}
+
+	private static Set<Powerball> randomTickets(SplittableRandom random, int count) {
+		Set<Powerball> tickets = new HashSet<Powerball>();
+		while (tickets.size() < count) {
+			tickets.add(Powerball.random(LotteryGame.POWERBALL, random));
+		}
+		return tickets;
+	}
+
+	private static Set<Powerball> toSet(TicketUniverse universe) {
+		Set<Powerball> tickets = new HashSet<Powerball>();
+		for (Powerball pball : universe) {
+			tickets.add(pball);
+		}
+		return tickets;
+	}
+}